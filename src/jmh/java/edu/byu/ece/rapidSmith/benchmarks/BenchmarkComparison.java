@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+
+package edu.byu.ece.rapidSmith.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Compares the CSV results of a JMH run against the results of a baseline run.
+ * Prints the change of each benchmark and exits with status 1 if any benchmark
+ * is slower than the baseline by more than the threshold.
+ * <p>
+ * Usage: {@code BenchmarkComparison <results.csv> <baseline.csv> [threshold percent]}
+ */
+public final class BenchmarkComparison {
+
+	private BenchmarkComparison() { }
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2 || args[1].isEmpty()) {
+			System.err.println("Usage: BenchmarkComparison <results.csv> <baseline.csv> [threshold percent]");
+			System.exit(2);
+		}
+		double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+		Map<String, Result> results = readResults(Paths.get(args[0]));
+		Map<String, Result> baseline = readResults(Paths.get(args[1]));
+
+		int regressions = 0;
+		System.out.printf("%-80s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+		for (Map.Entry<String, Result> e : results.entrySet()) {
+			Result current = e.getValue();
+			Result base = baseline.get(e.getKey());
+			if (base == null || !base.unit.equals(current.unit)) {
+				System.out.printf("%-80s %14s %14.3f %9s%n", e.getKey(), "-", current.score, "new");
+				continue;
+			}
+			double change = (current.score - base.score) / base.score * 100.0;
+			// a higher score is better in throughput mode and worse in the time modes
+			double slowdown = current.mode.equals("thrpt") ? -change : change;
+			boolean regressed = slowdown > threshold;
+			if (regressed)
+				regressions++;
+			System.out.printf("%-80s %14.3f %14.3f %+8.1f%%%s%n", e.getKey(), base.score,
+					current.score, change, regressed ? "  REGRESSION" : "");
+		}
+
+		if (regressions > 0) {
+			System.out.println(regressions + " benchmark(s) regressed by more than " + threshold + "%");
+			System.exit(1);
+		}
+	}
+
+	private static final class Result {
+		final String mode;
+		final double score;
+		final String unit;
+
+		Result(String mode, double score, String unit) {
+			this.mode = mode;
+			this.score = score;
+			this.unit = unit;
+		}
+	}
+
+	/**
+	 * Reads a JMH CSV result file into a map from the benchmark name and parameters
+	 * to its result.
+	 */
+	private static Map<String, Result> readResults(Path path) throws IOException {
+		List<String> lines = Files.readAllLines(path);
+		Map<String, Result> results = new LinkedHashMap<>();
+		if (lines.isEmpty())
+			return results;
+
+		List<String> header = parseLine(lines.get(0));
+		int benchmark = header.indexOf("Benchmark");
+		int mode = header.indexOf("Mode");
+		int score = header.indexOf("Score");
+		int unit = header.indexOf("Unit");
+		for (String line : lines.subList(1, lines.size())) {
+			if (line.trim().isEmpty())
+				continue;
+			List<String> fields = parseLine(line);
+			StringBuilder key = new StringBuilder(fields.get(benchmark));
+			for (int i = 0; i < header.size(); i++) {
+				if (header.get(i).startsWith("Param: ") && i < fields.size() && !fields.get(i).isEmpty())
+					key.append(" ").append(header.get(i).substring(7)).append("=").append(fields.get(i));
+			}
+			results.put(key.toString(), new Result(fields.get(mode),
+					Double.parseDouble(fields.get(score)), fields.get(unit)));
+		}
+		return results;
+	}
+
+	private static List<String> parseLine(String line) {
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (quoted) {
+				if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					field.append('"');
+					i++;
+				} else if (c == '"') {
+					quoted = false;
+				} else {
+					field.append(c);
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else {
+				field.append(c);
+			}
+		}
+		fields.add(field.toString());
+		return fields;
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+
+package edu.byu.ece.rapidSmith.benchmarks;
+
+import edu.byu.ece.rapidSmith.RSEnvironment;
+import edu.byu.ece.rapidSmith.interfaces.vivado.VivadoCheckpoint;
+import edu.byu.ece.rapidSmith.interfaces.vivado.VivadoInterface;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks importing RSCP checkpoints and exporting TCP checkpoints.  The
+ * checkpoints are the designs bundled with RapidSmith and resolved against the
+ * environment path, so these benchmarks need the RAPIDSMITH_PATH variable and
+ * the artix7 device files.  Each measurement is a single import or export.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CheckpointBenchmarks {
+
+	@State(Scope.Benchmark)
+	public static class Checkpoint {
+		@Param({
+				"exampleVivadoDesigns/count16.rscp",
+				"exampleVivadoDesigns/cordic.rscp",
+				"src/test/resources/ImportTests/RSCP/artix7/superCounter.rscp",
+				"src/test/resources/ImportTests/RSCP/artix7/bramdsp.rscp"
+		})
+		public String checkpoint;
+
+		String rscp;
+
+		@Setup(Level.Trial)
+		public void resolve() throws IOException {
+			rscp = RSEnvironment.defaultEnv().getEnvironmentPath().resolve(checkpoint).toString();
+			// loads the device into the device cache
+			VivadoInterface.loadRSCP(rscp);
+		}
+	}
+
+	/**
+	 * Exporting modifies the design, so each export gets a freshly imported one.
+	 */
+	@State(Scope.Benchmark)
+	public static class Export {
+		VivadoCheckpoint vcp;
+		Path tcp;
+
+		@Setup(Level.Iteration)
+		public void importCheckpoint(Checkpoint checkpoint) throws IOException {
+			vcp = VivadoInterface.loadRSCP(checkpoint.rscp);
+			tcp = Files.createTempDirectory("rs2bench").resolve("bench.tcp");
+		}
+
+		@TearDown(Level.Iteration)
+		public void deleteCheckpoint() throws IOException {
+			File[] files = tcp.toFile().listFiles();
+			if (files != null) {
+				for (File file : files)
+					Files.delete(file.toPath());
+			}
+			Files.deleteIfExists(tcp);
+			Files.deleteIfExists(tcp.getParent());
+		}
+	}
+
+	@Benchmark
+	public VivadoCheckpoint importRSCP(Checkpoint checkpoint) throws IOException {
+		return VivadoInterface.loadRSCP(checkpoint.rscp);
+	}
+
+	@Benchmark
+	public void exportTCP(Export export) throws IOException {
+		VivadoCheckpoint vcp = export.vcp;
+		VivadoInterface.writeTCP(export.tcp.toString(), vcp.getDesign(), vcp.getDevice(), vcp.getLibCells());
+	}
+}
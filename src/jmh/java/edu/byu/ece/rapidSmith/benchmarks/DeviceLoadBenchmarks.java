@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+
+package edu.byu.ece.rapidSmith.benchmarks;
+
+import device.TestDevices;
+import edu.byu.ece.rapidSmith.RSEnvironment;
+import edu.byu.ece.rapidSmith.device.Device;
+import edu.byu.ece.rapidSmith.util.FileTools;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks loading a synthetic device from the compressed Hessian and the
+ * memory-mapped device file formats.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DeviceLoadBenchmarks {
+	/** Number of rows and columns of tiles in the synthetic device */
+	@Param({"100"})
+	public int size;
+
+	private Path compressedFile;
+	private Path mappedFile;
+
+	@Setup(Level.Trial)
+	public void writeDeviceFiles() throws IOException {
+		Device device = TestDevices.createDevice("xcbench", size, size);
+		compressedFile = Files.createTempFile("rs2bench", RSEnvironment.DEVICE_FILE_SUFFIX);
+		FileTools.writeCompressedDeviceFile(device, compressedFile);
+		mappedFile = Files.createTempFile("rs2bench", RSEnvironment.MAPPED_DEVICE_FILE_SUFFIX);
+		FileTools.writeMappedDeviceFile(device, mappedFile);
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteDeviceFiles() throws IOException {
+		Files.deleteIfExists(compressedFile);
+		Files.deleteIfExists(mappedFile);
+	}
+
+	@Benchmark
+	public Device loadCompressedDevice() {
+		return FileTools.loadDevice(compressedFile);
+	}
+
+	@Benchmark
+	public Device loadMappedDevice() {
+		return FileTools.loadMappedDevice(mappedFile);
+	}
+
+	@Benchmark
+	public Device loadMappedDeviceLazy() {
+		return FileTools.loadMappedDevice(mappedFile, true);
+	}
+}
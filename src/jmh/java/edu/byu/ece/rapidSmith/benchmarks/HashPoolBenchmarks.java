@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+
+package edu.byu.ece.rapidSmith.benchmarks;
+
+import edu.byu.ece.rapidSmith.device.WireConnection;
+import edu.byu.ece.rapidSmith.util.ConcurrentHashPool;
+import edu.byu.ece.rapidSmith.util.HashPool;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares interning wire connections in the synchronized {@link HashPool}
+ * and the {@link ConcurrentHashPool} from several threads, as the parse
+ * threads of device generation do.  Most of the connections added are
+ * already in the pool, as they are when generating a device.  Run with
+ * {@code -t} to change the number of threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@Threads(8)
+public class HashPoolBenchmarks {
+	private static final int SAMPLES = 4096;
+
+	/** Number of distinct wire connections */
+	@Param({"100000"})
+	public int distinct;
+
+	private HashPool<WireConnection> hashPool;
+	private ConcurrentHashPool<WireConnection> concurrentPool;
+
+	/** The connections each thread adds, distinct copies of the pooled ones */
+	@State(Scope.Thread)
+	public static class Samples {
+		WireConnection[] connections;
+
+		@Setup(Level.Trial)
+		public void createSamples(HashPoolBenchmarks benchmark) {
+			Random random = new Random(Thread.currentThread().getId());
+			connections = new WireConnection[SAMPLES];
+			for (int i = 0; i < SAMPLES; i++)
+				connections[i] = connection(random.nextInt(benchmark.distinct));
+		}
+	}
+
+	private static WireConnection connection(int i) {
+		return new WireConnection(i % 2000, i / 2000 % 100, i / 200000, i % 3 == 0);
+	}
+
+	@Setup(Level.Iteration)
+	public void createPools() {
+		hashPool = new HashPool<>();
+		concurrentPool = new ConcurrentHashPool<>();
+		// leave a tenth of the connections to be added by the benchmarks
+		for (int i = 0; i < distinct; i++) {
+			if (i % 10 != 0) {
+				hashPool.add(connection(i));
+				concurrentPool.add(connection(i));
+			}
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SAMPLES)
+	public void hashPoolAdd(Samples samples, Blackhole bh) {
+		for (WireConnection wc : samples.connections)
+			bh.consume(hashPool.add(wc));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SAMPLES)
+	public void concurrentHashPoolAdd(Samples samples, Blackhole bh) {
+		for (WireConnection wc : samples.connections)
+			bh.consume(concurrentPool.add(wc));
+	}
+}
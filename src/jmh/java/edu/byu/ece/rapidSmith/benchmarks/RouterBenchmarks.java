@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+
+package edu.byu.ece.rapidSmith.benchmarks;
+
+import edu.byu.ece.rapidSmith.RSEnvironment;
+import edu.byu.ece.rapidSmith.design.subsite.CellNet;
+import edu.byu.ece.rapidSmith.design.subsite.RouteTree;
+import edu.byu.ece.rapidSmith.examples.aStarRouter.AStarRouter;
+import edu.byu.ece.rapidSmith.interfaces.vivado.VivadoCheckpoint;
+import edu.byu.ece.rapidSmith.interfaces.vivado.VivadoInterface;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks routing a net of the placed cordic example design with
+ * {@link AStarRouter#routeNet(CellNet)}.  Needs the RAPIDSMITH_PATH variable
+ * and the artix7 device files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RouterBenchmarks {
+	@Param({"u2/gen_pipe[8].Pipe/Zo_reg_n_0_[9]"})
+	public String netName;
+
+	private CellNet net;
+
+	@Setup(Level.Trial)
+	public void loadDesign() throws IOException {
+		String rscp = RSEnvironment.defaultEnv().getEnvironmentPath()
+				.resolve("exampleVivadoDesigns")
+				.resolve("cordicPlaced.rscp").toString();
+		VivadoCheckpoint vcp = VivadoInterface.loadRSCP(rscp);
+		net = vcp.getDesign().getNet(netName);
+		if (net == null)
+			throw new IllegalStateException("Net " + netName + " is not in the design");
+	}
+
+	@Benchmark
+	public RouteTree routeNet() {
+		return new AStarRouter().routeNet(net);
+	}
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+
+package edu.byu.ece.rapidSmith.benchmarks;
+
+import device.TestDevices;
+import edu.byu.ece.rapidSmith.device.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the wire connection and name lookups of a synthetic device.  Each
+ * invocation visits {@link #SAMPLES} randomly chosen wires, tiles or sites.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RoutingBenchmarks {
+	private static final int SAMPLES = 4096;
+
+	/** Number of rows and columns of tiles in the synthetic device */
+	@Param({"100"})
+	public int size;
+
+	private Device device;
+	private TileWire[] wires;
+	private int[] nodes;
+	private String[] tileNames;
+	private String[] siteNames;
+	private RoutingGraph graph;
+	private final ConnectionCursor cursor = new ConnectionCursor();
+
+	@Setup(Level.Trial)
+	public void createDevice() {
+		device = TestDevices.createDevice("xcbench", size, size);
+		graph = new RoutingGraph(device);
+
+		Random random = new Random(1);
+		wires = new TileWire[SAMPLES];
+		nodes = new int[SAMPLES];
+		tileNames = new String[SAMPLES];
+		for (int i = 0; i < SAMPLES; i++) {
+			// INT tiles are in the even columns
+			Tile tile = device.getTile(random.nextInt(size), random.nextInt((size + 1) / 2) * 2);
+			wires[i] = new TileWire(tile, random.nextInt(TestDevices.INT_WIRES));
+			nodes[i] = graph.getNode(wires[i]);
+			tileNames[i] = device.getTile(random.nextInt(size * size)).getName();
+		}
+
+		List<String> allSites = new ArrayList<>(device.getSites().keySet());
+		siteNames = new String[SAMPLES];
+		for (int i = 0; i < SAMPLES; i++)
+			siteNames[i] = allSites.get(random.nextInt(allSites.size()));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SAMPLES)
+	public void wireHashMapGet(Blackhole bh) {
+		for (TileWire wire : wires)
+			bh.consume(wire.getTile().getWireHashMap().get(wire.getWireEnum()));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SAMPLES)
+	public void fanoutConnections(Blackhole bh) {
+		for (TileWire wire : wires) {
+			for (Connection c : wire.getWireConnections())
+				bh.consume(c.getSinkWire());
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SAMPLES)
+	public void fanoutCursor(Blackhole bh) {
+		for (TileWire wire : wires) {
+			wire.getWireConnections(cursor);
+			while (cursor.next()) {
+				bh.consume(cursor.getSinkTile());
+				bh.consume(cursor.getSinkWireEnum());
+			}
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SAMPLES)
+	public void fanoutRoutingGraph(Blackhole bh) {
+		for (int node : nodes) {
+			for (int e = graph.getFanoutStart(node); e < graph.getFanoutEnd(node); e++)
+				bh.consume(graph.getFanoutNode(e));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SAMPLES)
+	public void tileNameLookup(Blackhole bh) {
+		for (String name : tileNames)
+			bh.consume(device.getTile(name));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SAMPLES)
+	public void tileNameIndexLookup(Blackhole bh) {
+		for (String name : tileNames)
+			bh.consume(device.findTile(name));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SAMPLES)
+	public void siteNameLookup(Blackhole bh) {
+		for (String name : siteNames)
+			bh.consume(device.getSite(name));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SAMPLES)
+	public void siteNameIndexLookup(Blackhole bh) {
+		for (String name : siteNames)
+			bh.consume(device.findSite(name));
+	}
+}
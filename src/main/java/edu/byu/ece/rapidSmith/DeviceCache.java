@@ -0,0 +1,327 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+
+package edu.byu.ece.rapidSmith;
+
+import edu.byu.ece.rapidSmith.device.Device;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * A thread safe cache of loaded devices keyed by part name.  The cache holds
+ * strong references to its devices and evicts the least recently used devices
+ * once the total estimated size of the cached devices exceeds the maximum
+ * weight.  The most recently loaded device is never evicted to make room for
+ * itself.
+ * <p>
+ * Concurrent requests for a part that is not cached share a single load.  The
+ * first thread to request the part runs the loader and the other threads wait
+ * for its result.
+ */
+public final class DeviceCache {
+	private final ToLongFunction<Device> weigher;
+	private long maximumWeight;
+
+	// guarded by this
+	private final LinkedHashMap<String, CachedDevice> devices = new LinkedHashMap<>(16, 0.75f, true);
+	private final Map<String, CompletableFuture<Device>> loading = new HashMap<>();
+	private long totalWeight;
+	private long hitCount;
+	private long missCount;
+	private long loadCount;
+	private long loadFailureCount;
+	private long totalLoadTime;
+	private long evictionCount;
+
+	/**
+	 * Creates a new device cache.
+	 *
+	 * @param maximumWeight the maximum total weight of the cached devices
+	 * @param weigher estimates the weight (usually the size in bytes) of a device
+	 */
+	public DeviceCache(long maximumWeight, ToLongFunction<Device> weigher) {
+		Objects.requireNonNull(weigher);
+		if (maximumWeight < 0)
+			throw new IllegalArgumentException("Negative maximum weight: " + maximumWeight);
+		this.maximumWeight = maximumWeight;
+		this.weigher = weigher;
+	}
+
+	/**
+	 * Returns the cached device for {@code partName}, loading it with
+	 * {@code loader} if it is not cached.  If another thread is already loading
+	 * the part, this method waits for that load to finish and returns its
+	 * device.  A null device returned by the loader is passed on to the caller
+	 * but is not cached.
+	 *
+	 * @param partName the part name of the device
+	 * @param loader loads the device for the part name
+	 * @return the device
+	 */
+	public Device get(String partName, Function<String, Device> loader) {
+		Objects.requireNonNull(partName);
+		CompletableFuture<Device> future;
+		boolean owner = false;
+		synchronized (this) {
+			CachedDevice cached = devices.get(partName);
+			if (cached != null) {
+				hitCount++;
+				return cached.device;
+			}
+			missCount++;
+			future = loading.get(partName);
+			if (future == null) {
+				future = new CompletableFuture<>();
+				loading.put(partName, future);
+				owner = true;
+			}
+		}
+		// load or wait outside of the lock so other parts can be loaded meanwhile
+		if (owner)
+			return load(partName, loader, future);
+		return await(future);
+	}
+
+	private Device load(String partName, Function<String, Device> loader, CompletableFuture<Device> future) {
+		long start = System.nanoTime();
+		Device device;
+		long weight;
+		try {
+			device = loader.apply(partName);
+			weight = device == null ? 0 : weigher.applyAsLong(device);
+		} catch (RuntimeException | Error e) {
+			synchronized (this) {
+				loading.remove(partName);
+				loadFailureCount++;
+				totalLoadTime += System.nanoTime() - start;
+			}
+			future.completeExceptionally(e);
+			throw e;
+		}
+
+		synchronized (this) {
+			loading.remove(partName);
+			totalLoadTime += System.nanoTime() - start;
+			if (device == null) {
+				loadFailureCount++;
+			} else {
+				loadCount++;
+				CachedDevice old = devices.put(partName, new CachedDevice(device, weight));
+				if (old != null)
+					totalWeight -= old.weight;
+				totalWeight += weight;
+				evict(partName);
+			}
+		}
+		future.complete(device);
+		return device;
+	}
+
+	private static Device await(CompletableFuture<Device> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw e;
+		}
+	}
+
+	// requires the lock on this
+	private void evict(String keep) {
+		Iterator<Map.Entry<String, CachedDevice>> it = devices.entrySet().iterator();
+		while (totalWeight > maximumWeight && it.hasNext()) {
+			Map.Entry<String, CachedDevice> e = it.next();
+			if (e.getKey().equals(keep))
+				continue;
+			it.remove();
+			totalWeight -= e.getValue().weight;
+			evictionCount++;
+		}
+	}
+
+	/**
+	 * Returns the cached device for {@code partName} without loading it.
+	 *
+	 * @return the device or null if the device is not cached
+	 */
+	public synchronized Device getIfPresent(String partName) {
+		CachedDevice cached = devices.get(partName);
+		return cached == null ? null : cached.device;
+	}
+
+	/**
+	 * Removes the device for {@code partName} from the cache.  A load of the part
+	 * already in progress is not affected.
+	 */
+	public synchronized void invalidate(String partName) {
+		CachedDevice old = devices.remove(partName);
+		if (old != null)
+			totalWeight -= old.weight;
+	}
+
+	/**
+	 * Removes all devices from the cache.
+	 */
+	public synchronized void invalidateAll() {
+		devices.clear();
+		totalWeight = 0;
+	}
+
+	public synchronized long getMaximumWeight() {
+		return maximumWeight;
+	}
+
+	/**
+	 * Sets the maximum total weight of the cached devices, evicting devices if
+	 * the cache is now over the maximum.
+	 */
+	public synchronized void setMaximumWeight(long maximumWeight) {
+		if (maximumWeight < 0)
+			throw new IllegalArgumentException("Negative maximum weight: " + maximumWeight);
+		this.maximumWeight = maximumWeight;
+		evict(null);
+	}
+
+	/**
+	 * @return the number of devices in the cache
+	 */
+	public synchronized int size() {
+		return devices.size();
+	}
+
+	/**
+	 * @return a snapshot of the statistics of this cache
+	 */
+	public synchronized Stats getStats() {
+		return new Stats(hitCount, missCount, loadCount, loadFailureCount,
+				totalLoadTime, evictionCount, devices.size(), totalWeight);
+	}
+
+	private static final class CachedDevice {
+		final Device device;
+		final long weight;
+
+		CachedDevice(Device device, long weight) {
+			this.device = device;
+			this.weight = weight;
+		}
+	}
+
+	/**
+	 * Statistics of a {@link DeviceCache}.  Requests that wait on a load started
+	 * by another thread count as misses but not as loads.
+	 */
+	public static final class Stats {
+		private final long hitCount;
+		private final long missCount;
+		private final long loadCount;
+		private final long loadFailureCount;
+		private final long totalLoadTime;
+		private final long evictionCount;
+		private final int size;
+		private final long weight;
+
+		Stats(long hitCount, long missCount, long loadCount, long loadFailureCount,
+				long totalLoadTime, long evictionCount, int size, long weight) {
+			this.hitCount = hitCount;
+			this.missCount = missCount;
+			this.loadCount = loadCount;
+			this.loadFailureCount = loadFailureCount;
+			this.totalLoadTime = totalLoadTime;
+			this.evictionCount = evictionCount;
+			this.size = size;
+			this.weight = weight;
+		}
+
+		public long getHitCount() {
+			return hitCount;
+		}
+
+		public long getMissCount() {
+			return missCount;
+		}
+
+		/**
+		 * @return the number of devices successfully loaded
+		 */
+		public long getLoadCount() {
+			return loadCount;
+		}
+
+		/**
+		 * @return the number of loads that threw an exception or returned null
+		 */
+		public long getLoadFailureCount() {
+			return loadFailureCount;
+		}
+
+		/**
+		 * @return the total time spent loading devices in nanoseconds
+		 */
+		public long getTotalLoadTime() {
+			return totalLoadTime;
+		}
+
+		public long getEvictionCount() {
+			return evictionCount;
+		}
+
+		/**
+		 * @return the number of devices cached when the snapshot was taken
+		 */
+		public int getSize() {
+			return size;
+		}
+
+		/**
+		 * @return the total weight of the devices cached when the snapshot was taken
+		 */
+		public long getWeight() {
+			return weight;
+		}
+
+		public double getHitRate() {
+			long requests = hitCount + missCount;
+			return requests == 0 ? 1.0 : (double) hitCount / requests;
+		}
+
+		@Override
+		public String toString() {
+			return "DeviceCache.Stats{" +
+					"hits=" + hitCount +
+					", misses=" + missCount +
+					", loads=" + loadCount +
+					", loadFailures=" + loadFailureCount +
+					", totalLoadTime=" + totalLoadTime / 1000000 + "ms" +
+					", evictions=" + evictionCount +
+					", size=" + size +
+					", weight=" + weight +
+					'}';
+		}
+	}
+}
@@ -31,12 +31,12 @@ import org.jdom2.JDOMException;
 import org.jdom2.input.SAXBuilder;
 
 import java.io.IOException;
-import java.lang.ref.SoftReference;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Class for accessing the RapidSmith environment.  The environment exists in a
@@ -49,14 +49,25 @@ public class RSEnvironment {
 	public static final String RSPATH_ENV_VARIABLE = "RAPIDSMITH_PATH";
 	/** Suffix of the device part files */
 	public static final String DEVICE_FILE_SUFFIX = "_db.dat";
+	/** Suffix of the memory-mapped device part files */
+	public static final String MAPPED_DEVICE_FILE_SUFFIX = "_db.mapped";
 	/** Name of extended family information */
 	public static final String FAMILY_INFO_FILENAME = "familyInfo.xml";
+	/**
+	 * Estimated ratio of the in-memory size of a device to the size of its
+	 * compressed device file.  Used to weigh devices in the device cache.
+	 */
+	private static final long COMPRESSED_DEVICE_EXPANSION = 10;
 	/** The default environment */
 	private static RSEnvironment defaultEnv;
 
 	private final Path rsPath;
-	private final Map<String, SoftReference<Device>> loadedDevices = new HashMap<>();
-	private final Map<String, FamilyType> supportedParts = new HashMap<>();
+	private final DeviceCache deviceCache =
+			new DeviceCache(Runtime.getRuntime().maxMemory() / 2, this::estimateDeviceSize);
+	private final Map<String, FamilyType> supportedParts = new ConcurrentHashMap<>();
+	private volatile boolean lazyWireConnections = false;
+	private volatile boolean offHeapWireConnections = false;
+	private volatile boolean freezeDevices = false;
 
 	/**
 	 * Returns the default RapidSmith environment.  Unless overwritten with
@@ -155,22 +166,24 @@ public class RSEnvironment {
 
 	/**
 	 * Returns the loaded device with the specified part name.  Once loaded, devices are
-	 * cached for quick access.
+	 * cached for quick access.  If a memory-mapped device file exists for the part,
+	 * it is loaded in place of the Hessian device file.  If the mapped file cannot be
+	 * loaded, a warning is printed and the Hessian device file is loaded instead.
+	 * This method is thread safe; concurrent calls for the same part share a single load.
 	 *
 	 * @param partName name of the part to load
 	 * @param forceReload if true, forces the part to be reloaded from disk
 	 * @return the loaded device
+	 * @see #getDeviceCache()
 	 */
 	public Device getDevice(String partName, boolean forceReload) {
 		String canonicalName = PartNameTools.removeSpeedGrade(partName);
-		
-		Device device;
-		if (!forceReload && loadedDevices.containsKey(canonicalName)) {
-			device = loadedDevices.get(canonicalName).get();
-			if (device != null)
-				return device;
-		}
+		if (forceReload)
+			deviceCache.invalidate(canonicalName);
+		return deviceCache.get(canonicalName, name -> loadDevice(partName, name));
+	}
 
+	private Device loadDevice(String partName, String canonicalName) {
 		Path path = getDeviceFilePath(canonicalName);
 		
 		// throw an exception if the device cannot be found
@@ -180,14 +193,106 @@ public class RSEnvironment {
 					+ "If the device files don't exist, view the RapidSmith2 Tech Report for instructions on how to generate a new device file for this part.");
 		}
 
-		device = FileTools.loadDevice(path);
-		if (device == null)
-			return null;
-
-		loadedDevices.put(canonicalName, new SoftReference<>(device));
+		Device device;
+		Path mappedPath = getMappedDeviceFilePath(canonicalName);
+		if (mappedPath != null && Files.exists(mappedPath))
+			device = FileTools.loadMappedDevice(mappedPath, lazyWireConnections && !offHeapWireConnections);
+		else
+			device = FileTools.loadDevice(path);
+		if (device != null && offHeapWireConnections)
+			device.moveWireConnectionsOffHeap();
+		if (device != null && freezeDevices)
+			device.freeze();
 		return device;
 	}
 
+	/**
+	 * Estimates the in-memory size of a device from the size of its device file.
+	 */
+	private long estimateDeviceSize(Device device) {
+		try {
+			Path mappedPath = getMappedDeviceFilePath(device.getPartName());
+			if (mappedPath != null && Files.exists(mappedPath))
+				return Files.size(mappedPath);
+			Path path = getDeviceFilePath(device.getPartName());
+			if (path != null && Files.exists(path))
+				return Files.size(path) * COMPRESSED_DEVICE_EXPANSION;
+		} catch (IOException ignored) {
+		}
+		return 0;
+	}
+
+	/**
+	 * Returns the cache of devices loaded by {@link #getDevice(String)}.  The
+	 * cache holds devices until their estimated total size exceeds its maximum
+	 * weight, which defaults to half of the maximum heap size.  The maximum
+	 * weight and the cache statistics are available through the returned cache.
+	 *
+	 * @return the device cache of this environment
+	 */
+	public DeviceCache getDeviceCache() {
+		return deviceCache;
+	}
+
+	/**
+	 * Returns true if devices loaded from memory-mapped device files decode the
+	 * wire connections of each tile on first use.
+	 */
+	public boolean isLazyWireConnections() {
+		return lazyWireConnections;
+	}
+
+	/**
+	 * Sets whether devices loaded from memory-mapped device files in this environment
+	 * decode the wire connections of each tile on first use rather than at load time.
+	 * The tiles and sites are always loaded when the device is loaded.  Does not
+	 * affect devices that have already been loaded or Hessian device files.
+	 *
+	 * @param lazyWireConnections true to load the wire connections of tiles on first use
+	 */
+	public void setLazyWireConnections(boolean lazyWireConnections) {
+		this.lazyWireConnections = lazyWireConnections;
+	}
+
+	/**
+	 * Returns true if devices loaded in this environment store the wire
+	 * connections of their tiles off-heap.
+	 */
+	public boolean isOffHeapWireConnections() {
+		return offHeapWireConnections;
+	}
+
+	/**
+	 * Sets whether devices loaded in this environment move the wire connections of
+	 * their tiles off-heap after loading.  See {@link Device#moveWireConnectionsOffHeap()}.
+	 * Off-heap wire connections are loaded eagerly even if lazy wire connections
+	 * are enabled.  Does not affect devices that have already been loaded.
+	 *
+	 * @param offHeapWireConnections true to store the wire connections off-heap
+	 */
+	public void setOffHeapWireConnections(boolean offHeapWireConnections) {
+		this.offHeapWireConnections = offHeapWireConnections;
+	}
+
+	/**
+	 * Returns true if devices loaded in this environment are frozen.
+	 */
+	public boolean isFreezeDevices() {
+		return freezeDevices;
+	}
+
+	/**
+	 * Sets whether devices loaded in this environment are frozen with
+	 * {@link Device#freeze()} before they are returned, so that they can be
+	 * shared by multiple threads.  Does not affect devices that have already
+	 * been loaded.
+	 *
+	 * @param freezeDevices true to freeze loaded devices
+	 */
+	public void setFreezeDevices(boolean freezeDevices) {
+		this.freezeDevices = freezeDevices;
+	}
+
 	/**
 	 * Loads the family info file for the specified family.  The family info file contains
 	 * additional information not found in the XDLRC for creating device files.
@@ -267,21 +372,22 @@ public class RSEnvironment {
 	 * @return a list of available devices in this environment
 	 */
 	public List<String> getAvailableParts(FamilyType type) {
-		ArrayList<String> allParts = new ArrayList<>();
-		String pattern = "_db.dat";
+		Set<String> allParts = new LinkedHashSet<>();
 		Path devFamilyPath = getPartFolderPath(type);
 		if (!Files.isDirectory(devFamilyPath))
-			return allParts;
+			return new ArrayList<>(allParts);
 		try {
 			for(Path partPath : Files.newDirectoryStream(devFamilyPath)) {
 				String fileName = partPath.getFileName().toString();
-				if(fileName.endsWith(pattern)) {
-					allParts.add(fileName.replace(pattern, ""));
+				if(fileName.endsWith(DEVICE_FILE_SUFFIX)) {
+					allParts.add(fileName.replace(DEVICE_FILE_SUFFIX, ""));
+				} else if (fileName.endsWith(MAPPED_DEVICE_FILE_SUFFIX)) {
+					allParts.add(fileName.replace(MAPPED_DEVICE_FILE_SUFFIX, ""));
 				}
 			}
 		} catch (IOException ignored) {
 		}
-		return allParts;
+		return new ArrayList<>(allParts);
 	}
 
 	/**
@@ -324,6 +430,23 @@ public class RSEnvironment {
 		return family == null ? null : getDeviceFilePath(family, partName);
 	}
 
+	/**
+	 * Returns the path to the corresponding memory-mapped device file for the part
+	 * {@code partName} in this environment.  The file at the returned path may not
+	 * exist.
+	 *
+	 * @param partName name of the part to get corresponding device file for
+	 * @return the full path to the mapped device file for the specified part
+	 */
+	public Path getMappedDeviceFilePath(String partName) {
+		FamilyType family = getFamilyTypeFromPart(partName);
+		return family == null ? null : getDeviceFilePath(family, partName, MAPPED_DEVICE_FILE_SUFFIX);
+	}
+
+	private Path getDeviceFilePath(FamilyType family, String partName) {
+		return getDeviceFilePath(family, partName, DEVICE_FILE_SUFFIX);
+	}
+
 	/**
 	 * Internal function that returns the path to the specified device file.
 	 * This function assumes that family is not {@code NULL}. If the given
@@ -331,8 +454,9 @@ public class RSEnvironment {
 	 * 
 	 * @param family {@link FamilyType} of the part
 	 * @param partName Name of the part 
+	 * @param suffix suffix of the device file
 	 */
-	private Path getDeviceFilePath(FamilyType family, String partName) {
+	private Path getDeviceFilePath(FamilyType family, String partName, String suffix) {
 		Objects.requireNonNull(family);
 		Path partFolderPath = getPartFolderPath(family);
 		
@@ -341,7 +465,7 @@ public class RSEnvironment {
 		}
 
 		try {
-			Path path = partFolderPath.resolve(PartNameTools.removeSpeedGrade(partName) + DEVICE_FILE_SUFFIX);
+			Path path = partFolderPath.resolve(PartNameTools.removeSpeedGrade(partName) + suffix);
 			return path;
 		} catch (InvalidPathException e) {
 			return null;
@@ -358,6 +482,28 @@ public class RSEnvironment {
 	public void writeDeviceFile(Device device) throws IOException {
 		Path path = getDeviceFilePath(device.getFamily(), device.getPartName());
 		FileTools.writeCompressedDeviceFile(device, path);
+		addSupportedPart(device);
+	}
+
+	/**
+	 * Writes the given device to a memory-mapped device file in this environment.
+	 * Once written, {@link #getDevice(String)} loads the part from this file.
+	 *
+	 * @param device the device to write
+	 * @throws IOException if an exception occurs writing the device file
+	 */
+	public void writeMappedDeviceFile(Device device) throws IOException {
+		Path path = getDeviceFilePath(device.getFamily(), device.getPartName(), MAPPED_DEVICE_FILE_SUFFIX);
+		FileTools.writeMappedDeviceFile(device, path);
+		addSupportedPart(device);
+	}
+
+	/**
+	 * Makes a newly written device, such as a device slice, available to
+	 * {@link #getDevice(String)} without rescanning the environment.
+	 */
+	private void addSupportedPart(Device device) {
+		supportedParts.put(PartNameTools.removeSpeedGrade(device.getPartName()), device.getFamily());
 	}
 
 	public FamilyType getFamilyTypeFromPart(String partName) {
@@ -761,6 +761,13 @@ public class CellDesign extends AbstractDesign {
 	public  Set<Integer> getUsedSitePipsAtSite(Site ps) {
 		return this.usedSitePipsMap.getOrDefault(ps, Collections.emptySet());
 	}
+
+	/**
+	 * Returns the map from each {@link Site} to its used site PIP wires.
+	 */
+	Map<Site, Set<Integer>> getUsedSitePipsMap() {
+		return this.usedSitePipsMap;
+	}
 	
 	/**
 	 * Add a mapping of used PIPs to their input route in a site. 
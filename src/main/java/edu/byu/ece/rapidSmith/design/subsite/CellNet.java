@@ -274,7 +274,7 @@ public class CellNet implements Serializable {
 		}
 	}
 	
-	private void connectToLeafPin(CellPin pin) {
+	void connectToLeafPin(CellPin pin) {
 		Objects.requireNonNull(pin);
 		if (pins.contains(pin))
 			throw new Exceptions.DesignAssemblyException("Pin already exists in net: " + this.name + " " + pin.getFullName());
@@ -371,7 +371,7 @@ public class CellNet implements Serializable {
 		}
 	}
 	
-	private void disconnectFromLeafPin(CellPin pin) {
+	void disconnectFromLeafPin(CellPin pin) {
 		Objects.requireNonNull(pin);
 
 		boolean used = pins.remove(pin);
@@ -949,6 +949,14 @@ public class CellNet implements Serializable {
 	public RouteStatus getRouteStatus() {
 		return routeStatus;
 	}
+
+	/**
+	 * Sets the route status of the net without computing it.  Used when loading
+	 * nets whose status was computed before they were saved.
+	 */
+	void setRouteStatus(RouteStatus routeStatus) {
+		this.routeStatus = routeStatus;
+	}
 	
 	/**
 	 * Computes and stores the route status of the net. This function should be called to recompute the status
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+
+package edu.byu.ece.rapidSmith.design.subsite;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ *  Saves {@link CellDesign}s to binary snapshot files and loads them back, so a
+ *  design imported from a RSCP can be reopened without parsing the checkpoint
+ *  again.  A snapshot holds the cells, nets, properties, placement, pin mappings,
+ *  routing, used site PIPs and constraints of the design.  Device objects are
+ *  written as IDs: tiles by their unique address, sites by their index in their
+ *  tile, and wires by their enumeration.  A snapshot can only be loaded with the
+ *  device files it was written with.
+ *  <p>
+ *  A file holds, in order:
+ *  <ul>
+ *    <li>the magic and version, the part, name and implementation mode of the
+ *      design and the size of the device,</li>
+ *    <li>the properties and the constraints of the design,</li>
+ *    <li>the cells, each followed by its pseudo pins, properties, BEL and pin
+ *      mappings, and for macros the same for its internal cells,</li>
+ *    <li>the nets, each followed by its properties, pins and route trees,</li>
+ *    <li>the nets of the pins of the macros,</li>
+ *    <li>the used site PIPs and PIP input values, and</li>
+ *    <li>the types of the used sites.</li>
+ *  </ul>
+ *  All counts, IDs and enumerations are unsigned LEB128 varints.  Cells and nets
+ *  are referred to by the order they are written in.  Other strings are written
+ *  in place the first time they appear and as their ID afterwards.  Route trees
+ *  are written in preorder, with each node after the root giving the index of
+ *  the connection to it in the connections of its parent's wire.
+ *  <p>
+ *  The cell library used to load a snapshot must hold the library cells of the
+ *  design, including the macros loaded from the checkpoint.  Properties with
+ *  values other than strings, numbers, booleans and enums cannot be saved.
+ */
+public final class DesignSnapshot {
+	static final byte[] MAGIC = "RSDESIGN".getBytes(StandardCharsets.ISO_8859_1);
+	static final int VERSION = 1;
+
+	// string references
+	static final int NULL_STRING = 0;
+	static final int NEW_STRING = 1;
+	static final int FIRST_STRING_ID = 2;
+
+	// tags of property values
+	static final int NULL_VALUE = 0;
+	static final int STRING_VALUE = 1;
+	static final int INTEGER_VALUE = 2;
+	static final int LONG_VALUE = 3;
+	static final int DOUBLE_VALUE = 4;
+	static final int BOOLEAN_VALUE = 5;
+	static final int ENUM_VALUE = 6;       // class name, constant name
+
+	// kinds of wires
+	static final int TILE_WIRE = 0;        // tile, wire
+	static final int SITE_WIRE = 1;        // tile, site index, site type, wire
+
+	// kinds of route tree connections
+	static final int WIRE_CONNECTION = 0;  // index in the connections of the parent
+	static final int REVERSE_CONNECTION = 1;
+
+	// flags of nets
+	static final int INTERNAL_NET = 1;
+	static final int INTRASITE_NET = 2;
+
+	private DesignSnapshot() { }
+
+	/**
+	 * Writes a snapshot of the design to a file.
+	 *
+	 * @param design the design to save
+	 * @param file the snapshot file to create or overwrite
+	 * @throws edu.byu.ece.rapidSmith.util.Exceptions.FileFormatException if the
+	 *   design holds a property value or route tree connection which cannot be saved
+	 */
+	public static void save(CellDesign design, Path file) throws IOException {
+		try (DesignSnapshotWriter writer = new DesignSnapshotWriter(file)) {
+			writer.write(design);
+		}
+	}
+
+	/**
+	 * Loads a design from a snapshot file.  The device of the design is loaded
+	 * from the part name of the snapshot.
+	 *
+	 * @param file the snapshot file
+	 * @param libCells the cell library of the design
+	 * @return the loaded design
+	 * @throws edu.byu.ece.rapidSmith.util.Exceptions.FileFormatException if the
+	 *   file is not a snapshot or does not match the device
+	 */
+	public static CellDesign load(Path file, CellLibrary libCells) throws IOException {
+		try (DesignSnapshotReader reader = new DesignSnapshotReader(file, libCells)) {
+			return reader.read();
+		}
+	}
+}
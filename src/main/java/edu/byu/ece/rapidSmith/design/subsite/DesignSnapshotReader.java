@@ -0,0 +1,520 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+
+package edu.byu.ece.rapidSmith.design.subsite;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edu.byu.ece.rapidSmith.design.NetType;
+import edu.byu.ece.rapidSmith.device.Bel;
+import edu.byu.ece.rapidSmith.device.BelId;
+import edu.byu.ece.rapidSmith.device.BelPin;
+import edu.byu.ece.rapidSmith.device.BondedType;
+import edu.byu.ece.rapidSmith.device.ConnectionCursor;
+import edu.byu.ece.rapidSmith.device.Device;
+import edu.byu.ece.rapidSmith.device.PinDirection;
+import edu.byu.ece.rapidSmith.device.Site;
+import edu.byu.ece.rapidSmith.device.SitePin;
+import edu.byu.ece.rapidSmith.device.SiteType;
+import edu.byu.ece.rapidSmith.device.SiteWire;
+import edu.byu.ece.rapidSmith.device.Tile;
+import edu.byu.ece.rapidSmith.device.TileWire;
+import edu.byu.ece.rapidSmith.device.Wire;
+import edu.byu.ece.rapidSmith.interfaces.vivado.XdcConstraint;
+import edu.byu.ece.rapidSmith.util.Exceptions;
+import edu.byu.ece.rapidSmith.util.Exceptions.FileFormatException;
+
+import static edu.byu.ece.rapidSmith.design.subsite.DesignSnapshot.*;
+
+/**
+ *  Reads {@link CellDesign}s from the snapshot files described in
+ *  {@link DesignSnapshot}.
+ */
+final class DesignSnapshotReader implements Closeable {
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final DataInputStream in;
+	private final CellLibrary libCells;
+	private final List<String> strings = new ArrayList<>();
+	// the site types of the strings of the file, looked up on first use
+	private final List<SiteType> siteTypes = new ArrayList<>();
+	private final List<Cell> cells = new ArrayList<>();
+	private final List<CellNet> nets = new ArrayList<>();
+	private final ConnectionCursor cursor = new ConnectionCursor();
+	private CellDesign design;
+	private Device device;
+
+	DesignSnapshotReader(Path file, CellLibrary libCells) throws IOException {
+		this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE));
+		this.libCells = libCells;
+	}
+
+	CellDesign read() throws IOException {
+		byte[] magic = new byte[MAGIC.length];
+		in.readFully(magic);
+		if (!Arrays.equals(magic, MAGIC))
+			throw new FileFormatException("Not a design snapshot file");
+		int version = in.readInt();
+		if (version != VERSION)
+			throw new FileFormatException("Unsupported design snapshot version " + version);
+
+		String partName = readString();
+		String name = readString();
+		String mode = readString();
+		design = new CellDesign(name, partName);
+		device = design.getDevice();
+		if (device == null)
+			throw new Exceptions.EnvironmentException("Device files for part: " + partName + " cannot be found.");
+		int rows = readInt();
+		int columns = readInt();
+		if (rows != device.getRows() || columns != device.getColumns())
+			throw new FileFormatException("Snapshot of a " + rows + "x" + columns + " device does not match the " +
+					device.getRows() + "x" + device.getColumns() + " device of part " + partName);
+		design.setImplementationMode(mode == null ? null : ImplementationMode.valueOf(mode));
+
+		readProperties(design.getProperties());
+		int constraintCount = readInt();
+		for (int i = 0; i < constraintCount; i++)
+			design.addVivadoConstraint(new XdcConstraint(readString(), readString(), readString()));
+
+		int cellCount = readInt();
+		for (int i = 0; i < cellCount; i++)
+			readCell();
+
+		// the internal nets of the macros are reconnected from the snapshot
+		for (CellNet net : new ArrayList<>(design.getNets())) {
+			for (CellPin pin : new ArrayList<>(net.getPins()))
+				net.disconnectFromLeafPin(pin);
+		}
+
+		int netCount = readInt();
+		for (int i = 0; i < netCount; i++)
+			readNet();
+
+		readMacroPinNets();
+		readSiteRouting();
+		return design;
+	}
+
+	private void readCell() throws IOException {
+		String name = readName();
+		String type = readString();
+		LibraryCell libCell = libCells.get(type);
+		if (libCell == null)
+			throw new Exceptions.DesignAssemblyException("Cell library has no cell " + type + " for cell " + name);
+		Cell cell = new Cell(name, libCell);
+		cell.setBonded(BondedType.valueOf(readString()));
+		design.addCell(cell);
+		readCellContents(cell);
+
+		if (cell.isMacro()) {
+			int internalCount = readInt();
+			for (int i = 0; i < internalCount; i++) {
+				String internalName = readName();
+				Cell internal = design.getCell(internalName);
+				if (internal == null || internal.getParent() != cell)
+					throw new FileFormatException("Macro " + name + " has no internal cell " + internalName);
+				readCellContents(internal);
+			}
+		}
+	}
+
+	private void readCellContents(Cell cell) throws IOException {
+		cells.add(cell);
+
+		int pseudoPinCount = readInt();
+		for (int i = 0; i < pseudoPinCount; i++)
+			cell.attachPseudoPin(readString(), PinDirection.valueOf(readString()));
+		readProperties(cell.getProperties());
+
+		if (cell.isMacro())
+			return;
+
+		if (in.readBoolean())
+			design.placeCell(cell, readBel());
+
+		// the pins are mapped before they are connected to nets
+		int mappedPinCount = readInt();
+		for (int i = 0; i < mappedPinCount; i++) {
+			CellPin pin = getPin(cell, readString());
+			int belPinCount = readInt();
+			for (int j = 0; j < belPinCount; j++)
+				pin.mapToBelPin(readBelPin());
+		}
+	}
+
+	private void readProperties(PropertyList properties) throws IOException {
+		int count = readInt();
+		for (int i = 0; i < count; i++) {
+			String key = readString();
+			PropertyType type = PropertyType.registerType(readString());
+			boolean defaultProperty = in.readBoolean();
+			Object value = readValue();
+			properties.update(new Property(key, type, value, false, defaultProperty));
+		}
+	}
+
+	private Object readValue() throws IOException {
+		int tag = readInt();
+		switch (tag) {
+			case NULL_VALUE:
+				return null;
+			case STRING_VALUE:
+				return readString();
+			case INTEGER_VALUE:
+				return in.readInt();
+			case LONG_VALUE:
+				return in.readLong();
+			case DOUBLE_VALUE:
+				return in.readDouble();
+			case BOOLEAN_VALUE:
+				return in.readBoolean();
+			case ENUM_VALUE:
+				return readEnum(readString(), readString());
+			default:
+				throw new FileFormatException("Unknown property value " + tag);
+		}
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static Object readEnum(String className, String name) {
+		try {
+			Class<?> enumClass = Class.forName(className);
+			if (!enumClass.isEnum())
+				throw new FileFormatException("Property value class " + className + " is not an enum");
+			return Enum.valueOf((Class<? extends Enum>) enumClass, name);
+		} catch (ClassNotFoundException e) {
+			throw new FileFormatException("Unknown property value class " + className);
+		}
+	}
+
+	private void readNet() throws IOException {
+		String name = readName();
+		String type = readString();
+		NetType netType = type == null ? null : NetType.valueOf(type);
+		int flags = readInt();
+
+		// internal nets were created with their macros
+		CellNet net = design.getNet(name);
+		if (net == null) {
+			net = new CellNet(name, netType);
+			design.addNet(net);
+		} else {
+			net.setType(netType);
+		}
+		nets.add(net);
+		net.setIsInternal((flags & INTERNAL_NET) != 0);
+		net.setIsIntrasite((flags & INTRASITE_NET) != 0);
+		readProperties(net.getProperties());
+
+		int pinCount = readInt();
+		for (int i = 0; i < pinCount; i++)
+			net.connectToLeafPin(readCellPin());
+
+		readRouting(net);
+	}
+
+	private void readRouting(CellNet net) throws IOException {
+		List<RouteTree> nodes = new ArrayList<>();
+		int rootCount = readInt();
+		for (int i = 0; i < rootCount; i++)
+			readRouteTree(nodes);
+
+		RouteTree source = readNode(nodes);
+		if (source != null)
+			net.setSourceRouteTree(source);
+		int intersiteCount = readInt();
+		for (int i = 0; i < intersiteCount; i++)
+			net.addIntersiteRouteTree(readNode(nodes));
+
+		int belPinCount = readInt();
+		for (int i = 0; i < belPinCount; i++) {
+			BelPin belPin = readBelPin();
+			net.addSinkRouteTree(belPin, readNode(nodes));
+		}
+		int sitePinCount = readInt();
+		for (int i = 0; i < sitePinCount; i++) {
+			SitePin sitePin = readSitePin();
+			net.addSinkRouteTree(sitePin, readNode(nodes));
+		}
+
+		int sourceSitePinCount = readInt();
+		for (int i = 0; i < sourceSitePinCount; i++)
+			net.addSourceSitePin(readSitePin());
+
+		int routedSinkCount = readInt();
+		for (int i = 0; i < routedSinkCount; i++)
+			net.addRoutedSink(readCellPin());
+
+		String status = readString();
+		net.setRouteStatus(status == null ? null : RouteStatus.valueOf(status));
+	}
+
+	// reads the nodes of a tree written in preorder, each with its number of children
+	private void readRouteTree(List<RouteTree> nodes) throws IOException {
+		RouteTree root = new RouteTree(readWire());
+		nodes.add(root);
+
+		Deque<RouteTree> parents = new ArrayDeque<>();
+		Deque<int[]> remaining = new ArrayDeque<>();
+		int childCount = readInt();
+		if (childCount > 0) {
+			parents.push(root);
+			remaining.push(new int[] { childCount });
+		}
+		while (!parents.isEmpty()) {
+			RouteTree parent = parents.peek();
+			if (--remaining.peek()[0] == 0) {
+				parents.pop();
+				remaining.pop();
+			}
+
+			RouteTree child = readChild(parent);
+			nodes.add(child);
+			childCount = readInt();
+			if (childCount > 0) {
+				parents.push(child);
+				remaining.push(new int[] { childCount });
+			}
+		}
+	}
+
+	private RouteTree readChild(RouteTree parent) throws IOException {
+		int kind = readInt();
+		Wire wire = parent.getWire();
+		switch (kind) {
+			case WIRE_CONNECTION:
+				wire.getWireConnections(cursor);
+				break;
+			case REVERSE_CONNECTION:
+				wire.getReverseWireConnections(cursor);
+				break;
+			default:
+				throw new FileFormatException("Unknown route tree connection " + kind);
+		}
+		int index = readInt();
+		for (int i = 0; i <= index; i++) {
+			if (!cursor.next())
+				throw new FileFormatException("Wire " + wire.getFullName() + " has no connection " + index);
+		}
+		return parent.connect(cursor.getConnection());
+	}
+
+	private RouteTree readNode(List<RouteTree> nodes) throws IOException {
+		int id = readInt();
+		if (id == 0)
+			return null;
+		if (id > nodes.size())
+			throw new FileFormatException("Unknown route tree node " + (id - 1));
+		return nodes.get(id - 1);
+	}
+
+	private void readMacroPinNets() throws IOException {
+		int count = readInt();
+		for (int i = 0; i < count; i++) {
+			CellPin pin = readCellPin();
+			pin.setNet(getNet(readInt()));
+		}
+	}
+
+	private void readSiteRouting() throws IOException {
+		int usedSitePipsCount = readInt();
+		for (int i = 0; i < usedSitePipsCount; i++) {
+			Site site = readSite();
+			int wireCount = readInt();
+			Set<Integer> wires = new HashSet<>();
+			for (int j = 0; j < wireCount; j++)
+				wires.add(readInt());
+			design.setUsedSitePipsAtSite(site, wires);
+		}
+
+		int pipInValuesCount = readInt();
+		for (int i = 0; i < pipInValuesCount; i++) {
+			Site site = readSite();
+			int valueCount = readInt();
+			Map<String, String> values = new HashMap<>();
+			for (int j = 0; j < valueCount; j++)
+				values.put(readString(), readString());
+			design.addPIPInputValsAtSite(site, values);
+		}
+
+		int siteCount = readInt();
+		for (int i = 0; i < siteCount; i++) {
+			Site site = readSite();
+			site.setType(readSiteType());
+		}
+	}
+
+	private CellPin readCellPin() throws IOException {
+		int id = readInt();
+		if (id >= cells.size())
+			throw new FileFormatException("Unknown cell " + id);
+		return getPin(cells.get(id), readString());
+	}
+
+	private static CellPin getPin(Cell cell, String name) {
+		CellPin pin = cell.getPin(name);
+		if (pin == null)
+			throw new FileFormatException("Cell " + cell.getName() + " has no pin " + name);
+		return pin;
+	}
+
+	private CellNet getNet(int id) {
+		if (id >= nets.size())
+			throw new FileFormatException("Unknown net " + id);
+		return nets.get(id);
+	}
+
+	private Tile readTile() throws IOException {
+		int address = readInt();
+		Tile tile = device.getTile(address);
+		if (tile == null)
+			throw new FileFormatException("Device has no tile " + address);
+		return tile;
+	}
+
+	private Site readSite() throws IOException {
+		Tile tile = readTile();
+		int index = readInt();
+		Site[] sites = tile.getSites();
+		if (sites == null || index >= sites.length)
+			throw new FileFormatException("Tile " + tile.getName() + " has no site " + index);
+		return sites[index];
+	}
+
+	private Bel readBel() throws IOException {
+		Site site = readSite();
+		SiteType type = readSiteType();
+		String name = readString();
+		Bel bel = site.getBel(new BelId(type, name));
+		if (bel == null)
+			throw new FileFormatException("Site " + site.getName() + " has no BEL " + name);
+		return bel;
+	}
+
+	private BelPin readBelPin() throws IOException {
+		Bel bel = readBel();
+		String name = readString();
+		BelPin belPin = bel.getBelPin(name);
+		if (belPin == null)
+			throw new FileFormatException("BEL " + bel.getFullName() + " has no pin " + name);
+		return belPin;
+	}
+
+	private SitePin readSitePin() throws IOException {
+		Site site = readSite();
+		SiteType type = readSiteType();
+		String name = readString();
+		SitePin sitePin = site.getPin(type, name);
+		if (sitePin == null)
+			throw new FileFormatException("Site " + site.getName() + " has no pin " + name);
+		return sitePin;
+	}
+
+	private Wire readWire() throws IOException {
+		int kind = readInt();
+		switch (kind) {
+			case TILE_WIRE: {
+				Tile tile = readTile();
+				return new TileWire(tile, readInt());
+			}
+			case SITE_WIRE: {
+				Site site = readSite();
+				SiteType type = readSiteType();
+				return new SiteWire(site, type, readInt());
+			}
+			default:
+				throw new FileFormatException("Unknown wire " + kind);
+		}
+	}
+
+	private SiteType readSiteType() throws IOException {
+		int id = readStringId();
+		if (id < 0)
+			throw new FileFormatException("Missing site type");
+		SiteType type = siteTypes.get(id);
+		if (type == null) {
+			type = SiteType.valueOf(device.getFamily(), strings.get(id));
+			siteTypes.set(id, type);
+		}
+		return type;
+	}
+
+	private String readString() throws IOException {
+		int id = readStringId();
+		return id < 0 ? null : strings.get(id);
+	}
+
+	// reads a string reference, returning -1 for null strings
+	private int readStringId() throws IOException {
+		int ref = readInt();
+		if (ref == NULL_STRING)
+			return -1;
+		if (ref == NEW_STRING) {
+			strings.add(readName());
+			siteTypes.add(null);
+			return strings.size() - 1;
+		}
+		int id = ref - FIRST_STRING_ID;
+		if (id >= strings.size())
+			throw new FileFormatException("Unknown string " + id);
+		return id;
+	}
+
+	private String readName() throws IOException {
+		int length = readInt();
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	// reads an unsigned LEB128 varint
+	private int readInt() throws IOException {
+		int value = 0;
+		int shift = 0;
+		while (true) {
+			int b = in.readByte();
+			value |= (b & 0x7F) << shift;
+			if (b >= 0)
+				return value;
+			shift += 7;
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+}
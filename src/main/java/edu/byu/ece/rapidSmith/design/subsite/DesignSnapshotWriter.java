@@ -0,0 +1,464 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+
+package edu.byu.ece.rapidSmith.design.subsite;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edu.byu.ece.rapidSmith.device.Bel;
+import edu.byu.ece.rapidSmith.device.BelPin;
+import edu.byu.ece.rapidSmith.device.Connection;
+import edu.byu.ece.rapidSmith.device.ConnectionCursor;
+import edu.byu.ece.rapidSmith.device.Device;
+import edu.byu.ece.rapidSmith.device.Site;
+import edu.byu.ece.rapidSmith.device.SitePin;
+import edu.byu.ece.rapidSmith.device.SiteWire;
+import edu.byu.ece.rapidSmith.device.TileWire;
+import edu.byu.ece.rapidSmith.device.Wire;
+import edu.byu.ece.rapidSmith.interfaces.vivado.XdcConstraint;
+import edu.byu.ece.rapidSmith.util.Exceptions.FileFormatException;
+
+import static edu.byu.ece.rapidSmith.design.subsite.DesignSnapshot.*;
+
+/**
+ *  Writes {@link CellDesign}s to the snapshot files described in
+ *  {@link DesignSnapshot}.
+ */
+final class DesignSnapshotWriter implements Closeable {
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final DataOutputStream out;
+	private final Map<String, Integer> stringIds = new HashMap<>();
+	private final Map<Cell, Integer> cellIds = new HashMap<>();
+	private final Map<CellNet, Integer> netIds = new HashMap<>();
+	private final ConnectionCursor cursor = new ConnectionCursor();
+
+	DesignSnapshotWriter(Path file) throws IOException {
+		this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE));
+	}
+
+	void write(CellDesign design) throws IOException {
+		out.write(MAGIC);
+		out.writeInt(VERSION);
+		writeString(design.getPartName());
+		writeString(design.getName());
+		ImplementationMode mode = design.getImplementationMode();
+		writeString(mode == null ? null : mode.name());
+		Device device = design.getDevice();
+		writeInt(device.getRows());
+		writeInt(device.getColumns());
+
+		writeProperties(design.getProperties());
+		List<XdcConstraint> constraints = design.getVivadoConstraints();
+		writeInt(constraints.size());
+		for (XdcConstraint constraint : constraints) {
+			writeString(constraint.getCommandName());
+			writeString(constraint.getOptions());
+			writeString(constraint.getComment());
+		}
+
+		Collection<Cell> cells = design.getCells();
+		writeInt(cells.size());
+		for (Cell cell : cells)
+			writeCell(cell);
+
+		Collection<CellNet> nets = design.getNets();
+		writeInt(nets.size());
+		for (CellNet net : nets)
+			writeNet(net);
+
+		writeMacroPinNets(design);
+		writeSiteRouting(design);
+		out.flush();
+	}
+
+	private void writeCell(Cell cell) throws IOException {
+		writeName(cell.getName());
+		writeString(cell.getLibCell().getName());
+		writeString(cell.getBonded().name());
+		writeCellContents(cell);
+
+		if (cell.isMacro()) {
+			Collection<Cell> internalCells = cell.getInternalCells();
+			writeInt(internalCells.size());
+			for (Cell internal : internalCells) {
+				writeName(internal.getName());
+				writeCellContents(internal);
+			}
+		}
+	}
+
+	// writes the pseudo pins, properties and placement of a cell
+	private void writeCellContents(Cell cell) throws IOException {
+		cellIds.put(cell, cellIds.size());
+
+		Set<CellPin> pseudoPins = cell.getPseudoPins();
+		writeInt(pseudoPins.size());
+		for (CellPin pin : pseudoPins) {
+			writeString(pin.getName());
+			writeString(pin.getDirection().name());
+		}
+		writeProperties(cell.getProperties());
+
+		if (cell.isMacro())
+			return;
+
+		Bel bel = cell.getBel();
+		out.writeBoolean(bel != null);
+		if (bel != null)
+			writeBel(bel);
+
+		List<CellPin> mappedPins = new ArrayList<>();
+		for (CellPin pin : cell.getPins()) {
+			if (pin.getMappedBelPinCount() > 0)
+				mappedPins.add(pin);
+		}
+		writeInt(mappedPins.size());
+		for (CellPin pin : mappedPins) {
+			writeString(pin.getName());
+			Set<BelPin> belPins = pin.getMappedBelPins();
+			writeInt(belPins.size());
+			for (BelPin belPin : belPins)
+				writeBelPin(belPin);
+		}
+	}
+
+	private void writeProperties(PropertyList properties) throws IOException {
+		// read only properties are shared with the library cell
+		int count = 0;
+		for (Property property : properties) {
+			if (!property.isReadOnly())
+				count++;
+		}
+		writeInt(count);
+		for (Property property : properties) {
+			if (property.isReadOnly())
+				continue;
+			writeString(property.getKey());
+			writeString(property.getType().getName());
+			out.writeBoolean(property.isDefaultProperty());
+			writeValue(property);
+		}
+	}
+
+	private void writeValue(Property property) throws IOException {
+		Object value = property.getValue();
+		if (value == null) {
+			writeInt(NULL_VALUE);
+		} else if (value instanceof String) {
+			writeInt(STRING_VALUE);
+			writeString((String) value);
+		} else if (value instanceof Integer) {
+			writeInt(INTEGER_VALUE);
+			out.writeInt((Integer) value);
+		} else if (value instanceof Long) {
+			writeInt(LONG_VALUE);
+			out.writeLong((Long) value);
+		} else if (value instanceof Double) {
+			writeInt(DOUBLE_VALUE);
+			out.writeDouble((Double) value);
+		} else if (value instanceof Boolean) {
+			writeInt(BOOLEAN_VALUE);
+			out.writeBoolean((Boolean) value);
+		} else if (value instanceof Enum) {
+			writeInt(ENUM_VALUE);
+			writeString(((Enum<?>) value).getDeclaringClass().getName());
+			writeString(((Enum<?>) value).name());
+		} else {
+			throw new FileFormatException("Cannot save value of property " + property.getKey() +
+					" of type " + value.getClass().getName());
+		}
+	}
+
+	private void writeNet(CellNet net) throws IOException {
+		netIds.put(net, netIds.size());
+		writeName(net.getName());
+		writeString(net.getType() == null ? null : net.getType().name());
+		int flags = (net.isInternal() ? INTERNAL_NET : 0) | (net.isIntrasite() ? INTRASITE_NET : 0);
+		writeInt(flags);
+		writeProperties(net.getProperties());
+
+		// the source is written first so that it is the source when reconnected
+		CellPin source = net.getSourcePin();
+		Collection<CellPin> pins = net.getPins();
+		writeInt(pins.size());
+		if (source != null)
+			writeCellPin(source);
+		for (CellPin pin : pins) {
+			if (pin != source)
+				writeCellPin(pin);
+		}
+
+		writeRouting(net);
+	}
+
+	private void writeRouting(CellNet net) throws IOException {
+		List<RouteTree> intersite = net.getIntersiteRouteTreeList();
+		Map<BelPin, RouteTree> belPinTrees = net.getBelPinRouteTrees();
+		Map<SitePin, RouteTree> sitePinTrees = net.getSitePinRouteTrees();
+
+		// the maps of the net hold nodes of the same trees, which are written once
+		Map<RouteTree, Boolean> roots = new IdentityHashMap<>();
+		List<RouteTree> rootList = new ArrayList<>();
+		List<RouteTree> referenced = new ArrayList<>();
+		if (net.getSourceRouteTree() != null)
+			referenced.add(net.getSourceRouteTree());
+		referenced.addAll(intersite);
+		if (belPinTrees != null)
+			referenced.addAll(belPinTrees.values());
+		if (sitePinTrees != null)
+			referenced.addAll(sitePinTrees.values());
+		for (RouteTree tree : referenced) {
+			RouteTree root = tree.getRoot();
+			if (roots.put(root, Boolean.TRUE) == null)
+				rootList.add(root);
+		}
+
+		Map<RouteTree, Integer> nodeIds = new IdentityHashMap<>();
+		writeInt(rootList.size());
+		for (RouteTree root : rootList)
+			writeRouteTree(root, nodeIds);
+
+		writeNode(net.getSourceRouteTree(), nodeIds);
+		writeInt(intersite.size());
+		for (RouteTree tree : intersite)
+			writeNode(tree, nodeIds);
+
+		if (belPinTrees == null) {
+			writeInt(0);
+		} else {
+			writeInt(belPinTrees.size());
+			for (Map.Entry<BelPin, RouteTree> e : belPinTrees.entrySet()) {
+				writeBelPin(e.getKey());
+				writeNode(e.getValue(), nodeIds);
+			}
+		}
+		if (sitePinTrees == null) {
+			writeInt(0);
+		} else {
+			writeInt(sitePinTrees.size());
+			for (Map.Entry<SitePin, RouteTree> e : sitePinTrees.entrySet()) {
+				writeSitePin(e.getKey());
+				writeNode(e.getValue(), nodeIds);
+			}
+		}
+
+		List<SitePin> sourceSitePins = net.getSourceSitePins();
+		writeInt(sourceSitePins.size());
+		for (SitePin sitePin : sourceSitePins)
+			writeSitePin(sitePin);
+
+		Set<CellPin> routedSinks = net.getRoutedSinks();
+		writeInt(routedSinks.size());
+		for (CellPin pin : routedSinks)
+			writeCellPin(pin);
+
+		RouteStatus status = net.getRouteStatus();
+		writeString(status == null ? null : status.name());
+	}
+
+	// writes the nodes of the tree in preorder, each with its number of children
+	private void writeRouteTree(RouteTree root, Map<RouteTree, Integer> nodeIds) throws IOException {
+		writeWire(root.getWire());
+		Deque<RouteTree> stack = new ArrayDeque<>();
+		stack.push(root);
+		while (!stack.isEmpty()) {
+			RouteTree node = stack.pop();
+			nodeIds.put(node, nodeIds.size());
+			if (node != root)
+				writeConnection(node);
+
+			Collection<RouteTree> children = node.getChildren();
+			writeInt(children.size());
+			// push in reverse so the children are written in order
+			List<RouteTree> reversed = new ArrayList<>(children);
+			for (int i = reversed.size() - 1; i >= 0; i--)
+				stack.push(reversed.get(i));
+		}
+	}
+
+	private void writeConnection(RouteTree node) throws IOException {
+		Connection c = node.getConnection();
+		Wire source = c.getSourceWire();
+		if (c instanceof Connection.TileWireConnection || c instanceof Connection.SiteWireConnection) {
+			writeInt(WIRE_CONNECTION);
+			writeInt(indexOf(source.getWireConnections(cursor), node.getWire(), c.isPip()));
+		} else if (c instanceof Connection.ReverseTileWireConnection ||
+				c instanceof Connection.ReverseSiteWireConnection) {
+			writeInt(REVERSE_CONNECTION);
+			writeInt(indexOf(source.getReverseWireConnections(cursor), node.getWire(), c.isPip()));
+		} else {
+			throw new FileFormatException("Cannot save route tree connection " + c);
+		}
+	}
+
+	private static int indexOf(ConnectionCursor cursor, Wire sink, boolean pip) {
+		for (int i = 0; cursor.next(); i++) {
+			if (cursor.getSinkWireEnum() == sink.getWireEnum() &&
+					cursor.getSinkTile() == sink.getTile() && cursor.isPip() == pip)
+				return i;
+		}
+		throw new FileFormatException("Connection to " + sink.getFullName() + " not found in device");
+	}
+
+	private void writeNode(RouteTree node, Map<RouteTree, Integer> nodeIds) throws IOException {
+		writeInt(node == null ? 0 : nodeIds.get(node) + 1);
+	}
+
+	private void writeMacroPinNets(CellDesign design) throws IOException {
+		List<CellPin> pins = new ArrayList<>();
+		design.getMacros().forEach(macro -> {
+			for (CellPin pin : macro.getPins()) {
+				if (pin.getNet() != null)
+					pins.add(pin);
+			}
+		});
+		writeInt(pins.size());
+		for (CellPin pin : pins) {
+			writeCellPin(pin);
+			writeInt(netIds.get(pin.getNet()));
+		}
+	}
+
+	private void writeSiteRouting(CellDesign design) throws IOException {
+		Map<Site, Set<Integer>> usedSitePips = design.getUsedSitePipsMap();
+		writeInt(usedSitePips.size());
+		for (Map.Entry<Site, Set<Integer>> e : usedSitePips.entrySet()) {
+			writeSite(e.getKey());
+			writeInt(e.getValue().size());
+			for (int wire : e.getValue())
+				writeInt(wire);
+		}
+
+		Map<Site, Map<String, String>> pipInValues = design.getPipInValues();
+		writeInt(pipInValues.size());
+		for (Map.Entry<Site, Map<String, String>> e : pipInValues.entrySet()) {
+			writeSite(e.getKey());
+			writeInt(e.getValue().size());
+			for (Map.Entry<String, String> value : e.getValue().entrySet()) {
+				writeString(value.getKey());
+				writeString(value.getValue());
+			}
+		}
+
+		Set<Site> sites = new LinkedHashSet<>(design.getUsedSites());
+		sites.addAll(usedSitePips.keySet());
+		sites.addAll(pipInValues.keySet());
+		writeInt(sites.size());
+		for (Site site : sites) {
+			writeSite(site);
+			writeString(site.getType().name());
+		}
+	}
+
+	private void writeCellPin(CellPin pin) throws IOException {
+		writeInt(cellIds.get(pin.getCell()));
+		writeString(pin.getName());
+	}
+
+	private void writeSite(Site site) throws IOException {
+		writeInt(site.getTile().getUniqueAddress());
+		writeInt(site.getIndex());
+	}
+
+	private void writeBel(Bel bel) throws IOException {
+		writeSite(bel.getSite());
+		writeString(bel.getId().getSiteType().name());
+		writeString(bel.getName());
+	}
+
+	private void writeBelPin(BelPin belPin) throws IOException {
+		writeBel(belPin.getBel());
+		writeString(belPin.getName());
+	}
+
+	private void writeSitePin(SitePin sitePin) throws IOException {
+		writeSite(sitePin.getSite());
+		writeString(sitePin.getSiteType().name());
+		writeString(sitePin.getName());
+	}
+
+	private void writeWire(Wire wire) throws IOException {
+		if (wire instanceof TileWire) {
+			writeInt(TILE_WIRE);
+			writeInt(wire.getTile().getUniqueAddress());
+		} else if (wire instanceof SiteWire) {
+			writeInt(SITE_WIRE);
+			writeSite(wire.getSite());
+			writeString(((SiteWire) wire).getSiteType().name());
+		} else {
+			throw new FileFormatException("Cannot save wire " + wire);
+		}
+		writeInt(wire.getWireEnum());
+	}
+
+	// writes a string in place the first time it is written and as its ID afterwards
+	private void writeString(String s) throws IOException {
+		if (s == null) {
+			writeInt(NULL_STRING);
+			return;
+		}
+		Integer id = stringIds.get(s);
+		if (id != null) {
+			writeInt(id + FIRST_STRING_ID);
+		} else {
+			stringIds.put(s, stringIds.size());
+			writeInt(NEW_STRING);
+			writeName(s);
+		}
+	}
+
+	// writes a string which is not repeated in the file
+	private void writeName(String s) throws IOException {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	// writes an unsigned LEB128 varint
+	private void writeInt(int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+}
@@ -66,6 +66,13 @@ public final class PropertyType {
 		return propertyTypes.get(propertyName);
 	}
 
+	/**
+	 * Returns the name the property type was registered with.
+	 */
+	public String getName() {
+		return name;
+	}
+
 	@java.lang.Override
 	public java.lang.String toString() {
 		return "PropertyType{" +
@@ -177,7 +177,7 @@ public abstract class Connection implements Serializable {
 		public boolean equals(Object o) {
 			if (this == o) return true;
 			if (o == null || getClass() != o.getClass()) return false;
-			TileWireConnection that = (TileWireConnection) o;
+			ReverseTileWireConnection that = (ReverseTileWireConnection) o;
 			return Objects.equals(sourceWire, that.sourceWire) &&
 					Objects.equals(wc, that.wc);
 		}
@@ -353,7 +353,7 @@ public abstract class Connection implements Serializable {
 		public boolean equals(Object o) {
 			if (this == o) return true;
 			if (o == null || getClass() != o.getClass()) return false;
-			SiteWireConnection that = (SiteWireConnection) o;
+			ReverseSiteWireConnection that = (ReverseSiteWireConnection) o;
 			return Objects.equals(sourceWire, that.sourceWire) &&
 				Objects.equals(wc, that.wc);
 		}
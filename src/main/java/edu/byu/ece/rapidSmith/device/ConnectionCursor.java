@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+
+package edu.byu.ece.rapidSmith.device;
+
+import edu.byu.ece.rapidSmith.device.Connection.ReverseSiteWireConnection;
+import edu.byu.ece.rapidSmith.device.Connection.ReverseTileWireConnection;
+import edu.byu.ece.rapidSmith.device.Connection.SiteWireConnection;
+import edu.byu.ece.rapidSmith.device.Connection.TileWireConnection;
+
+/**
+ * A reusable cursor over the wire connections of a wire.  The cursor is an
+ * allocation free alternative to {@link Wire#getWireConnections()} for loops
+ * that walk many connections.  A cursor is positioned on a wire with
+ * {@link Wire#getWireConnections(ConnectionCursor)} or
+ * {@link Wire#getReverseWireConnections(ConnectionCursor)} and advanced with
+ * {@link #next()}:
+ * <pre>{@code
+ * ConnectionCursor cursor = new ConnectionCursor();
+ * for (Wire wire : wires) {
+ *     wire.getWireConnections(cursor);
+ *     while (cursor.next()) {
+ *         Tile sinkTile = cursor.getSinkTile();
+ *         int sinkWire = cursor.getSinkWireEnum();
+ *         ...
+ *     }
+ * }
+ * }</pre>
+ * Only {@link #getSinkWire()} and {@link #getConnection()} create objects.
+ * When the tile's connections are stored in an {@link OffHeapWireHashMap},
+ * the cursor reads the packed connections directly, and
+ * {@link #getWireConnection()} also creates an object.
+ * A cursor is not thread safe and should not be shared between threads.
+ */
+public final class ConnectionCursor {
+	private static final WireConnection[] NO_CONNECTIONS = new WireConnection[0];
+
+	private Wire sourceWire;
+	/** Tile of the source wire */
+	private Tile tile;
+	/** Site and type of the source wire if it is a site wire, otherwise null */
+	private Site site;
+	private SiteType siteType;
+	private boolean reverse;
+	private WireConnection[] connections = NO_CONNECTIONS;
+	/** Map holding the packed connections, or null if they are in connections */
+	private OffHeapWireHashMap offHeap;
+	/** Index of the first packed connection in offHeap */
+	private int first;
+	private int size;
+	private int index = -1;
+	/** Connection object of the current connection, created on demand off-heap */
+	private WireConnection current;
+
+	/* fields of the current connection */
+	private int sinkWire;
+	private int rowOffset;
+	private int columnOffset;
+	private boolean pip;
+
+	public ConnectionCursor() { }
+
+	void reset(TileWire wire, WireHashMap wireMap, boolean reverse) {
+		if (wireMap instanceof OffHeapWireHashMap) {
+			reset(wire, wire.getTile(), null, null, NO_CONNECTIONS, reverse);
+			OffHeapWireHashMap map = (OffHeapWireHashMap) wireMap;
+			int slot = map.connectionSlot(wire.getWireEnum());
+			if (slot != -1) {
+				offHeap = map;
+				first = map.firstConnection(slot);
+				size = map.connectionCount(slot);
+			}
+		} else {
+			WireConnection[] wcs = wireMap == null ? null : wireMap.get(wire.getWireEnum());
+			reset(wire, wire.getTile(), null, null, wcs, reverse);
+		}
+	}
+
+	void reset(SiteWire wire, WireConnection[] connections, boolean reverse) {
+		reset(wire, wire.getTile(), wire.getSite(), wire.getSiteType(), connections, reverse);
+	}
+
+	private void reset(
+			Wire wire, Tile tile, Site site, SiteType siteType,
+			WireConnection[] connections, boolean reverse
+	) {
+		this.sourceWire = wire;
+		this.tile = tile;
+		this.site = site;
+		this.siteType = siteType;
+		this.connections = connections == null ? NO_CONNECTIONS : connections;
+		this.offHeap = null;
+		this.first = 0;
+		this.size = this.connections.length;
+		this.reverse = reverse;
+		this.index = -1;
+		this.current = null;
+	}
+
+	/**
+	 * Advances the cursor to the next connection.
+	 *
+	 * @return true if the cursor is on a connection, false if there are no
+	 *   more connections
+	 */
+	public boolean next() {
+		if (index + 1 >= size) {
+			index = size;
+			current = null;
+			return false;
+		}
+		index++;
+		if (offHeap != null) {
+			long packed = offHeap.connectionAt(first + index);
+			current = null;
+			sinkWire = OffHeapWireHashMap.wireOf(packed);
+			rowOffset = OffHeapWireHashMap.rowOffsetOf(packed);
+			columnOffset = OffHeapWireHashMap.columnOffsetOf(packed);
+			pip = OffHeapWireHashMap.isPipOf(packed);
+		} else {
+			current = connections[index];
+			sinkWire = current.getWire();
+			rowOffset = current.getRowOffset();
+			columnOffset = current.getColumnOffset();
+			pip = current.isPIP();
+		}
+		return true;
+	}
+
+	/**
+	 * Moves the cursor back before the first connection of the current wire.
+	 */
+	public void rewind() {
+		index = -1;
+		current = null;
+	}
+
+	/**
+	 * Returns the number of connections of the current wire.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the wire the cursor is positioned on.
+	 */
+	public Wire getSourceWire() {
+		return sourceWire;
+	}
+
+	/**
+	 * Returns the tile of the sink wire of the current connection.  For
+	 * reverse connections this is the tile of the driving wire.
+	 */
+	public Tile getSinkTile() {
+		checkPositioned();
+		if (site != null)
+			return tile;
+		return sinkTile();
+	}
+
+	public int getSinkWireEnum() {
+		checkPositioned();
+		return sinkWire;
+	}
+
+	public boolean isPip() {
+		checkPositioned();
+		return pip;
+	}
+
+	public boolean isRouteThrough() {
+		checkPositioned();
+		int source = sourceWire.getWireEnum();
+		int sink = sinkWire;
+		if (site != null) {
+			return reverse ? site.isRoutethrough(siteType, sink, source) :
+					site.isRoutethrough(siteType, source, sink);
+		}
+		Device device = tile.getDevice();
+		return reverse ? device.isRouteThrough(sink, source) :
+				device.isRouteThrough(source, sink);
+	}
+
+	/**
+	 * Returns the {@link WireConnection} the cursor is on.
+	 */
+	public WireConnection getWireConnection() {
+		return current();
+	}
+
+	/**
+	 * Creates the sink wire of the current connection.
+	 */
+	public Wire getSinkWire() {
+		checkPositioned();
+		if (site != null)
+			return new SiteWire(site, siteType, sinkWire);
+		return new TileWire(sinkTile(), sinkWire);
+	}
+
+	/**
+	 * Creates the {@link Connection} object for the current connection.  The
+	 * connection is equal to the one returned by the collection based methods
+	 * of {@link Wire}.
+	 */
+	public Connection getConnection() {
+		if (site != null) {
+			SiteWire wire = (SiteWire) sourceWire;
+			return reverse ? new ReverseSiteWireConnection(wire, current()) :
+					new SiteWireConnection(wire, current());
+		}
+		TileWire wire = (TileWire) sourceWire;
+		return reverse ? new ReverseTileWireConnection(wire, current()) :
+				new TileWireConnection(wire, current());
+	}
+
+	// mirrors WireConnection.getTile
+	private Tile sinkTile() {
+		return tile.getDevice().getTile(tile.getRow() - rowOffset, tile.getColumn() - columnOffset);
+	}
+
+	private WireConnection current() {
+		checkPositioned();
+		if (current == null)
+			current = new WireConnection(sinkWire, rowOffset, columnOffset, pip);
+		return current;
+	}
+
+	private void checkPositioned() {
+		if (index < 0 || index >= size)
+			throw new IllegalStateException("Cursor is not positioned on a connection");
+	}
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+package edu.byu.ece.rapidSmith.device;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * An immutable {@link WireHashMap} stored as the differences from a template
+ * map.  Tiles of the same {@link TileType} usually have nearly the same wire
+ * connections, differing only in a few wires at the edges of the device.  Such
+ * tiles can share the map of the most common tile of their type as a template
+ * and each keep only the wires whose connections differ from it.
+ * <p>
+ * A lookup first checks the changed wires, then the removed wires and finally
+ * the template.  The changes are kept in sorted arrays since there are
+ * usually only a few of them.  The slots of this map are the slots of the
+ * template followed by one slot per changed wire, with the slots of replaced
+ * and removed template wires reported as empty.  Lookups do not probe these
+ * slots, so {@link #slotLayout()} builds a heap map for the code which copies
+ * slot layouts.
+ * <p>
+ * Maps are created with {@link #diff(WireHashMap, WireHashMap)} and cannot be
+ * modified.  When serialized, the template is written once for all of the
+ * maps sharing it.
+ */
+public final class DeltaWireHashMap extends WireHashMap {
+	private static final long serialVersionUID = -4162395823087461931L;
+
+	private final WireHashMap template;
+	/** Wires added or given different connections, sorted */
+	private final int[] changedKeys;
+	private final WireConnection[][] changedValues;
+	/** Wires of the template not in this map, sorted */
+	private final int[] removedKeys;
+	private final int size;
+
+	private DeltaWireHashMap(WireHashMap template, int[] changedKeys,
+			WireConnection[][] changedValues, int[] removedKeys) {
+		super(template.loadFactor());
+		this.template = template;
+		this.changedKeys = changedKeys;
+		this.changedValues = changedValues;
+		this.removedKeys = removedKeys;
+
+		int added = 0;
+		Set<Integer> templateKeys = template.keySet();
+		for (int key : changedKeys) {
+			if (!templateKeys.contains(key))
+				added++;
+		}
+		this.size = template.size() - removedKeys.length + added;
+	}
+
+	/**
+	 * Returns a map with the entries of {@code map} stored as the differences
+	 * from {@code template}.
+	 *
+	 * @param template the map to share
+	 * @param map the entries of the new map
+	 * @return the map holding the entries of {@code map}
+	 * @throws IllegalArgumentException if the template is itself stored as differences
+	 */
+	public static DeltaWireHashMap diff(WireHashMap template, WireHashMap map) {
+		if (template instanceof DeltaWireHashMap)
+			throw new IllegalArgumentException("Templates cannot be delta maps");
+
+		Set<Integer> templateKeys = template.keySet();
+		Set<Integer> keys = map.keySet();
+		TreeSet<Integer> changed = new TreeSet<>();
+		for (int key : keys) {
+			if (!templateKeys.contains(key) || !Arrays.equals(template.get(key), map.get(key)))
+				changed.add(key);
+		}
+		TreeSet<Integer> removed = new TreeSet<>();
+		for (int key : templateKeys) {
+			if (!keys.contains(key))
+				removed.add(key);
+		}
+
+		int[] changedKeys = new int[changed.size()];
+		WireConnection[][] changedValues = new WireConnection[changed.size()][];
+		int i = 0;
+		for (int key : changed) {
+			changedKeys[i] = key;
+			changedValues[i] = map.get(key);
+			i++;
+		}
+		int[] removedKeys = removed.stream().mapToInt(Integer::intValue).toArray();
+		return new DeltaWireHashMap(template, changedKeys, changedValues, removedKeys);
+	}
+
+	/**
+	 * Returns the map this map stores its differences from.
+	 */
+	public WireHashMap getTemplate() {
+		return template;
+	}
+
+	/**
+	 * Returns the number of wires added, changed or removed from the template.
+	 */
+	public int getDeltaSize() {
+		return changedKeys.length + removedKeys.length;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public WireConnection[] get(int key) {
+		int i = Arrays.binarySearch(changedKeys, key);
+		if (i >= 0)
+			return changedValues[i];
+		if (Arrays.binarySearch(removedKeys, key) >= 0)
+			return null;
+		return template.get(key);
+	}
+
+	/**
+	 * Delta maps cannot be modified.
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public void put(int key, WireConnection[] value) {
+		throw new UnsupportedOperationException("Delta wire maps cannot be modified");
+	}
+
+	/**
+	 * Returns the connections of all of the keys in this map.  The list is not
+	 * cached since it would duplicate most of the template.
+	 */
+	@Override
+	public ArrayList<WireConnection[]> values() {
+		ArrayList<WireConnection[]> values = new ArrayList<>(size);
+		for (int slot = 0; slot < capacity(); slot++) {
+			if (keyAt(slot) != -1)
+				values.add(valueAt(slot));
+		}
+		return values;
+	}
+
+	@Override
+	int capacity() {
+		return template.capacity() + changedKeys.length;
+	}
+
+	@Override
+	int keyAt(int slot) {
+		int templateCapacity = template.capacity();
+		if (slot >= templateCapacity)
+			return changedKeys[slot - templateCapacity];
+		int key = template.keyAt(slot);
+		if (key == -1 || Arrays.binarySearch(changedKeys, key) >= 0 ||
+				Arrays.binarySearch(removedKeys, key) >= 0)
+			return -1;
+		return key;
+	}
+
+	@Override
+	WireConnection[] valueAt(int slot) {
+		int templateCapacity = template.capacity();
+		if (slot >= templateCapacity)
+			return changedValues[slot - templateCapacity];
+		return keyAt(slot) == -1 ? null : template.valueAt(slot);
+	}
+
+	@Override
+	WireHashMap slotLayout() {
+		WireHashMap copy = new WireHashMap();
+		for (int slot = 0; slot < capacity(); slot++) {
+			int key = keyAt(slot);
+			if (key != -1)
+				copy.put(key, valueAt(slot));
+		}
+		return copy;
+	}
+
+	/** Delta maps cannot be modified and are always frozen. */
+	@Override
+	public boolean isFrozen() {
+		return true;
+	}
+
+	private static class DeltaWireHashMapReplace implements Serializable {
+		private static final long serialVersionUID = 5296532851357206414L;
+		private WireHashMap template;
+		private int[] changedKeys;
+		private WireConnection[][] changedValues;
+		private int[] removedKeys;
+
+		@SuppressWarnings("unused")
+		private WireHashMap readResolve() {
+			return new DeltaWireHashMap(template, changedKeys, changedValues, removedKeys);
+		}
+	}
+
+	// writes the template by reference so that it is shared in the device file
+	@Override
+	Object writeReplace() {
+		DeltaWireHashMapReplace repl = new DeltaWireHashMapReplace();
+		repl.template = template;
+		repl.changedKeys = changedKeys;
+		repl.changedValues = changedValues;
+		repl.removedKeys = removedKeys;
+		return repl;
+	}
+}
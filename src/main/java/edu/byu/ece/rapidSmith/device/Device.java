@@ -27,6 +27,7 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
 /**
@@ -42,7 +43,9 @@ public class Device implements Serializable {
 	// Versions
 	//========================================================================//
 	/** This is the current device file version (saved in file to ensure proper compatibility) */
-	public static final String LATEST_DEVICE_FILE_VERSION = "1.1";
+	public static final String LATEST_DEVICE_FILE_VERSION = "1.3";
+	/** Older device file versions that can still be loaded */
+	private static final List<String> LEGACY_DEVICE_FILE_VERSIONS = Arrays.asList("1.1", "1.2");
 	/** The current release of the tools */
 	public static final String rapidSmithVersion = "2.0.0";
 	private static final long serialVersionUID = -5032202328911688776L;
@@ -65,7 +68,7 @@ public class Device implements Serializable {
 	/** Keeps track of all the sites on the device */
 	private HashMap<String, Site> sites;
 	/** Keeps track of which Wire objects have a corresponding PIPRouteThrough */
-	private Map<Integer, Map<Integer, PIPRouteThrough>> routeThroughMap;
+	private RouteThroughTable routeThroughs = new RouteThroughTable();
 	/** Templates for each site type in the device */
 	private Map<SiteType, SiteTemplate> siteTemplates;
 	/** The wire enumerator for this device */
@@ -77,9 +80,16 @@ public class Device implements Serializable {
 	// Objects that are Populated After Parsing
 	//========================================================================//
 	/** Created on demand when user calls getSitesOfTypeMap() */
-	private Map<SiteType, ArrayList<Site>> sitesOfTypeMap;
+	private volatile Map<SiteType, ArrayList<Site>> sitesOfTypeMap;
+	/** Spatial indexes of compatible sites, created on demand by getCompatibleSiteIndex() */
+	private final Map<SiteType, SiteIndex> compatibleSiteIndexes = new ConcurrentHashMap<>();
 	/** Maps the pad bel name to the corresponding package pin */
 	private Map<String, PackagePin> packagePinMap;
+	/** Name indexes of the tiles and sites, created on demand by findTile() and findSite() */
+	private volatile NamedObjects<Tile> tileNameIndex;
+	private volatile NamedObjects<Site> siteNameIndex;
+	/** Set by freeze() once the device may be shared between threads */
+	private volatile boolean frozen;
 	
 	/**
 	 * Constructor, initializes all objects to null
@@ -137,6 +147,7 @@ public class Device implements Serializable {
 	 * @param partName the name of the part
 	 */
 	public void setPartName(String partName) {
+		checkNotFrozen();
 		this.partName = partName;
 	}
 
@@ -146,6 +157,7 @@ public class Device implements Serializable {
 	 * @param family the name of the part
 	 */
 	public void setFamily(FamilyType family) {
+		checkNotFrozen();
 		this.family = family;
 	}
 
@@ -256,6 +268,113 @@ public class Device implements Serializable {
 		return this.sites.get(name);
 	}
 
+	/**
+	 * Returns the tile with the name.  See {@link #findTile(CharSequence, int, int)}.
+	 *
+	 * @return the tile with the name, or null if no tile with the name exists
+	 */
+	public Tile findTile(CharSequence name) {
+		return findTile(name, 0, name.length());
+	}
+
+	/**
+	 * Returns the tile with the name held by the region {@code [start, end)} of
+	 * the character sequence.  Unlike {@link #getTile(String)}, the name does not
+	 * need to be a separate string, which lets parsers look up tokens in place.
+	 * The names are looked up in a compact {@link NameIndex} which is built on
+	 * the first call.
+	 *
+	 * @return the tile with the name, or null if no tile with the name exists
+	 */
+	public Tile findTile(CharSequence chars, int start, int end) {
+		NamedObjects<Tile> index = tileNameIndex();
+		return index.get(index.names.indexOf(chars, start, end));
+	}
+
+	/**
+	 * Returns the tile with the name held as UTF-8 by the region of the byte array.
+	 * See {@link #findTile(CharSequence, int, int)}.
+	 *
+	 * @return the tile with the name, or null if no tile with the name exists
+	 */
+	public Tile findTile(byte[] bytes, int offset, int length) {
+		NamedObjects<Tile> index = tileNameIndex();
+		return index.get(index.names.indexOf(bytes, offset, length));
+	}
+
+	/**
+	 * Returns the site with the name.  See {@link #findTile(CharSequence, int, int)}.
+	 *
+	 * @return the site with the name, or null if no site with the name exists
+	 */
+	public Site findSite(CharSequence name) {
+		return findSite(name, 0, name.length());
+	}
+
+	/**
+	 * Returns the site with the name held by the region {@code [start, end)} of
+	 * the character sequence.  See {@link #findTile(CharSequence, int, int)}.
+	 *
+	 * @return the site with the name, or null if no site with the name exists
+	 */
+	public Site findSite(CharSequence chars, int start, int end) {
+		NamedObjects<Site> index = siteNameIndex();
+		return index.get(index.names.indexOf(chars, start, end));
+	}
+
+	/**
+	 * Returns the site with the name held as UTF-8 by the region of the byte array.
+	 * See {@link #findTile(CharSequence, int, int)}.
+	 *
+	 * @return the site with the name, or null if no site with the name exists
+	 */
+	public Site findSite(byte[] bytes, int offset, int length) {
+		NamedObjects<Site> index = siteNameIndex();
+		return index.get(index.names.indexOf(bytes, offset, length));
+	}
+
+	/*
+	   The indexes are built from the name maps on first use.  Concurrent callers
+	   may each build an index, but all see a complete one.
+	 */
+	private NamedObjects<Tile> tileNameIndex() {
+		NamedObjects<Tile> index = tileNameIndex;
+		if (index == null) {
+			index = new NamedObjects<>(tileMap);
+			tileNameIndex = index;
+		}
+		return index;
+	}
+
+	private NamedObjects<Site> siteNameIndex() {
+		NamedObjects<Site> index = siteNameIndex;
+		if (index == null) {
+			index = new NamedObjects<>(sites);
+			siteNameIndex = index;
+		}
+		return index;
+	}
+
+	/** A name index and the objects with each name ID. */
+	private static final class NamedObjects<T> {
+		final NameIndex names;
+		final List<T> objects;
+
+		NamedObjects(Map<String, T> map) {
+			List<String> keys = new ArrayList<>(map.size());
+			objects = new ArrayList<>(map.size());
+			map.forEach((name, obj) -> {
+				keys.add(name);
+				objects.add(obj);
+			});
+			names = new NameIndex(keys);
+		}
+
+		T get(int id) {
+			return id < 0 ? null : objects.get(id);
+		}
+	}
+
 	/**
 	 * Checks if this PIP is RouteThrough.
 	 *
@@ -277,8 +396,8 @@ public class Device implements Serializable {
 		return getRouteThrough(startWire, endWire) != null;
 	}
 
-	boolean isRouteThrough(Integer startWire, Integer endWire) {
-		return getRouteThrough(startWire, endWire) != null;
+	boolean isRouteThrough(int startWire, int endWire) {
+		return routeThroughs.contains(startWire, endWire);
 	}
 
 	/**
@@ -312,11 +431,8 @@ public class Device implements Serializable {
 	 * @return the PIPRouteThrough object or null if the pip is not a
 	 *   route through
 	 */
-	PIPRouteThrough getRouteThrough(Integer startWire, Integer endWire) {
-		Map<Integer, PIPRouteThrough> sourceMap = routeThroughMap.get(endWire);
-		if (sourceMap == null)
-			return null;
-		return sourceMap.get(startWire);
+	PIPRouteThrough getRouteThrough(int startWire, int endWire) {
+		return routeThroughs.get(startWire, endWire);
 	}
 
 	/**
@@ -326,19 +442,13 @@ public class Device implements Serializable {
 	 * @param endWire the sink wire of the route through
 	 * @param rt the route through object
 	 */
-	public void addRouteThrough(Integer startWire, Integer endWire, PIPRouteThrough rt) {
-		if (routeThroughMap == null)
-			routeThroughMap = new HashMap<>();
-		if (!routeThroughMap.containsKey(endWire)) {
-			routeThroughMap.put(endWire, new HashMap<>(4));
-		}
-		Map<Integer, PIPRouteThrough> sourceMap = routeThroughMap.get(endWire);
+	public void addRouteThrough(int startWire, int endWire, PIPRouteThrough rt) {
+		checkNotFrozen();
+		PIPRouteThrough old = routeThroughs.put(startWire, endWire, rt);
 
 		// TODO remove if clean
-		if (sourceMap.containsKey(startWire) && !Objects.equals(sourceMap.get(startWire), rt))
+		if (old != null && !Objects.equals(old, rt))
 			System.out.println("Warning: overriding routethrough is used" + rt);
-
-		sourceMap.put(startWire, rt);
 	}
 
 	/**
@@ -354,6 +464,7 @@ public class Device implements Serializable {
 	 * @param we the wire enumerator
 	 */
 	public void setWireEnumerator(WireEnumerator we) {
+		checkNotFrozen();
 		this.we = we;
 	}
 
@@ -372,6 +483,7 @@ public class Device implements Serializable {
 	 * @param primitiveDefs the primitive defs
 	 */
 	public void setPrimitiveDefs(PrimitiveDefList primitiveDefs) {
+		checkNotFrozen();
 		this.primitiveDefs = primitiveDefs;
 	}
 
@@ -398,6 +510,7 @@ public class Device implements Serializable {
 	}
 
 	public void setSiteTemplates(Map<SiteType, SiteTemplate> siteTemplates) {
+		checkNotFrozen();
 		this.siteTemplates = siteTemplates;
 	}
 
@@ -439,8 +552,11 @@ public class Device implements Serializable {
 	 * separated by type.
 	 */
 	private Map<SiteType, ArrayList<Site>> getSitesOfTypeMap() {
+		Map<SiteType, ArrayList<Site>> sitesOfTypeMap = this.sitesOfTypeMap;
 		if (sitesOfTypeMap == null) {
-			createSitesOfTypeMap();
+			// concurrent callers may each build the map, but all see a complete map
+			sitesOfTypeMap = createSitesOfTypeMap();
+			this.sitesOfTypeMap = sitesOfTypeMap;
 		}
 		return sitesOfTypeMap;
 	}
@@ -483,6 +599,20 @@ public class Device implements Serializable {
 		return compatibleList;
 	}
 
+	/**
+	 * Returns a spatial index of the sites compatible with {@code type}.  The
+	 * index contains the same sites as {@link #getAllCompatibleSites(SiteType)}
+	 * and answers nearest site and region queries without scanning every site.
+	 * The index is built on the first request and cached.
+	 *
+	 * @param type the type for which to find compatible sites
+	 * @return the index of the compatible sites
+	 */
+	public SiteIndex getCompatibleSiteIndex(SiteType type) {
+		return compatibleSiteIndexes.computeIfAbsent(type,
+				k -> new SiteIndex(this, getAllCompatibleSites(k)));
+	}
+
 	/**
 	 * Gets and returns an array of all sites of the given site type.
 	 *
@@ -497,6 +627,7 @@ public class Device implements Serializable {
 	 * Adds a package pin to the device.
 	 */
 	public void addPackagePin(PackagePin packagePin) {
+		checkNotFrozen();
 		if (this.packagePinMap == null) {
 			this.packagePinMap = new HashMap<String, PackagePin>();
 		}
@@ -542,7 +673,233 @@ public class Device implements Serializable {
 		Site site = this.getSite(packagePin.getSite());
 		return site == null ? null : site.getBel(packagePin.getBel());
 	}
-		
+
+	//========================================================================//
+	// Device Slices
+	//========================================================================//
+	/**
+	 * Creates a new device containing the tiles in a rectangular region of this
+	 * device.  The tiles and sites of the slice keep their names but are indexed
+	 * from the upper left tile of the region.  Wire connections leaving the region
+	 * are removed, leaving the wires as stubs at the edge of the slice.  The slice
+	 * can be written to its own device file and loaded through
+	 * {@link edu.byu.ece.rapidSmith.RSEnvironment}.  The slice is named with
+	 * {@link #getSlicePartName(String, int, int, int, int)}.
+	 *
+	 * @param firstRow the row of the upper left tile of the region
+	 * @param firstColumn the column of the upper left tile of the region
+	 * @param numRows number of rows in the region
+	 * @param numColumns number of columns in the region
+	 * @return the new device
+	 * @throws IndexOutOfBoundsException if the region is not in this device
+	 */
+	public Device createSlice(int firstRow, int firstColumn, int numRows, int numColumns) {
+		String name = getSlicePartName(partName, firstRow, firstColumn, numRows, numColumns);
+		return createSlice(name, firstRow, firstColumn, numRows, numColumns);
+	}
+
+	/**
+	 * Creates a new device containing the tiles in a rectangular region of this
+	 * device.  See {@link #createSlice(int, int, int, int)}.
+	 *
+	 * @param partName the part name of the slice
+	 * @param firstRow the row of the upper left tile of the region
+	 * @param firstColumn the column of the upper left tile of the region
+	 * @param numRows number of rows in the region
+	 * @param numColumns number of columns in the region
+	 * @return the new device
+	 * @throws IndexOutOfBoundsException if the region is not in this device
+	 */
+	public Device createSlice(String partName, int firstRow, int firstColumn, int numRows, int numColumns) {
+		DeviceSlicer slicer = new DeviceSlicer(this, firstRow, firstColumn, numRows, numColumns);
+		return slicer.slice(partName);
+	}
+
+	/**
+	 * Creates a new device containing the tiles in the rectangle with corners
+	 * {@code corner1} and {@code corner2}.  See {@link #createSlice(int, int, int, int)}.
+	 *
+	 * @param corner1 a tile at one corner of the region
+	 * @param corner2 the tile at the opposite corner of the region
+	 * @return the new device
+	 */
+	public Device createSlice(Tile corner1, Tile corner2) {
+		int firstRow = Math.min(corner1.getRow(), corner2.getRow());
+		int firstColumn = Math.min(corner1.getColumn(), corner2.getColumn());
+		int numRows = Math.abs(corner1.getRow() - corner2.getRow()) + 1;
+		int numColumns = Math.abs(corner1.getColumn() - corner2.getColumn()) + 1;
+		return createSlice(firstRow, firstColumn, numRows, numColumns);
+	}
+
+	/**
+	 * Returns the default part name of a slice of a device,
+	 * {@code <partName>_r<firstRow>c<firstColumn>_<numRows>x<numColumns>}.
+	 *
+	 * @param partName the part name of the sliced device
+	 * @return the part name of the slice
+	 */
+	public static String getSlicePartName(
+			String partName, int firstRow, int firstColumn, int numRows, int numColumns
+	) {
+		return partName + "_r" + firstRow + "c" + firstColumn + "_" + numRows + "x" + numColumns;
+	}
+
+	//========================================================================//
+	// Off-Heap Wire Connections
+	//========================================================================//
+	/**
+	 * Moves the forward and reverse wire connections of every tile in this device
+	 * into off-heap {@link OffHeapWireHashMap}s.  Tiles sharing a map share its
+	 * off-heap copy.  The wire connections of tiles loaded lazily are loaded by
+	 * this method.  The maps can no longer be modified afterwards.
+	 *
+	 * @throws IllegalStateException if the device is frozen
+	 * @return the number of bytes of native memory used by the moved maps
+	 */
+	public long moveWireConnectionsOffHeap() {
+		checkNotFrozen();
+		Map<WireHashMap, WireHashMap> moved = new IdentityHashMap<>();
+		long offHeapSize = 0;
+		for (Tile tile : getTiles()) {
+			WireHashMap forward = tile.getWireHashMap();
+			if (forward != null && !forward.isOffHeap())
+				tile.setWireHashMap(moved.computeIfAbsent(forward, WireHashMap::toOffHeap));
+			WireHashMap reverse = tile.getReverseWireHashMap();
+			if (reverse != null && !reverse.isOffHeap())
+				tile.setReverseWireConnections(moved.computeIfAbsent(reverse, WireHashMap::toOffHeap));
+		}
+		for (WireHashMap map : moved.values())
+			offHeapSize += ((OffHeapWireHashMap) map).getOffHeapSize();
+		return offHeapSize;
+	}
+
+	//========================================================================//
+	// Tile Type Templates
+	//========================================================================//
+	/**
+	 * Stores the wire connections of tiles as differences from the connections
+	 * of the other tiles of their type.  The most common forward and reverse
+	 * maps of each {@link TileType} become the templates of the type, and the
+	 * maps of the other tiles of the type are replaced with
+	 * {@link DeltaWireHashMap}s when the differences hold less than half of
+	 * the wires of the map.  Tiles sharing a map share its delta.  The wire
+	 * connections of tiles loaded lazily are loaded by this method.  The
+	 * replaced maps can no longer be modified.
+	 *
+	 * @throws IllegalStateException if the device is frozen
+	 * @return the number of distinct maps replaced with deltas
+	 */
+	public int applyTileTypeTemplates() {
+		checkNotFrozen();
+		Map<TileType, List<Tile>> tilesOfType = new HashMap<>();
+		for (Tile tile : getTiles())
+			tilesOfType.computeIfAbsent(tile.getType(), k -> new ArrayList<>()).add(tile);
+
+		int replaced = 0;
+		for (List<Tile> typeTiles : tilesOfType.values()) {
+			replaced += applyTemplate(typeTiles, true);
+			replaced += applyTemplate(typeTiles, false);
+		}
+		return replaced;
+	}
+
+	private static int applyTemplate(List<Tile> tiles, boolean forward) {
+		// the maps are pooled when the device is created, so equal maps are
+		// usually the same object
+		Map<WireHashMap, Integer> counts = new IdentityHashMap<>();
+		for (Tile tile : tiles) {
+			WireHashMap map = forward ? tile.getWireHashMap() : tile.getReverseWireHashMap();
+			if (map != null && !(map instanceof DeltaWireHashMap))
+				counts.merge(map, 1, Integer::sum);
+		}
+		if (counts.size() < 2)
+			return 0;
+		WireHashMap template = counts.entrySet().stream()
+				.max(Map.Entry.comparingByValue()).get().getKey();
+
+		Map<WireHashMap, WireHashMap> deltas = new IdentityHashMap<>();
+		for (Tile tile : tiles) {
+			WireHashMap map = forward ? tile.getWireHashMap() : tile.getReverseWireHashMap();
+			if (map == null || map == template || !counts.containsKey(map))
+				continue;
+			WireHashMap stored = deltas.computeIfAbsent(map, m -> {
+				DeltaWireHashMap delta = DeltaWireHashMap.diff(template, m);
+				return delta.getDeltaSize() * 2 < m.size() ? delta : m;
+			});
+			if (forward)
+				tile.setWireHashMap(stored);
+			else
+				tile.setReverseWireConnections(stored);
+		}
+		int replaced = 0;
+		for (Map.Entry<WireHashMap, WireHashMap> e : deltas.entrySet()) {
+			if (e.getKey() != e.getValue())
+				replaced++;
+		}
+		return replaced;
+	}
+
+	//========================================================================//
+	// Frozen Devices
+	//========================================================================//
+	/**
+	 * Freezes this device so that it can be shared by multiple threads.  Freezing
+	 * loads the wire connections of lazily loaded tiles, freezes the wire maps
+	 * of the tiles and site templates and builds the structures that are
+	 * otherwise created on first use.  Afterwards the methods which modify the
+	 * device structure throw an {@link IllegalStateException} and the frozen
+	 * wire maps throw an {@link UnsupportedOperationException} when modified.
+	 * <p>
+	 * The read methods of a frozen device and of its tiles, sites, site
+	 * templates, wire maps and wire enumerator are safe for concurrent readers
+	 * without locking, provided the device is handed to the other threads after
+	 * it is frozen, for example by an executor or a concurrent collection.  The
+	 * type of each site remains modifiable since it is set when cells are placed.
+	 * Freezing cannot be undone.
+	 */
+	public synchronized void freeze() {
+		if (frozen)
+			return;
+		for (int row = 0; row < rows; row++) {
+			for (Tile tile : tiles[row]) {
+				WireHashMap forward = tile.getWireHashMap();
+				if (forward != null)
+					forward.freeze();
+				WireHashMap reverse = tile.getReverseWireHashMap();
+				if (reverse != null)
+					reverse.freeze();
+			}
+		}
+		if (siteTemplates != null) {
+			for (SiteTemplate template : siteTemplates.values()) {
+				if (template.getRouting() != null)
+					template.getRouting().freeze();
+				if (template.getReversedRouting() != null)
+					template.getReversedRouting().freeze();
+			}
+		}
+		getSitesOfTypeMap();
+		if (tileMap != null) {
+			tileNameIndex();
+			siteNameIndex();
+		}
+		if (we != null)
+			we.getNameIndex();
+		frozen = true;
+	}
+
+	/**
+	 * Returns true if this device has been frozen with {@link #freeze()}.
+	 */
+	public boolean isFrozen() {
+		return frozen;
+	}
+
+	private void checkNotFrozen() {
+		if (frozen)
+			throw new IllegalStateException("Device " + partName + " is frozen and cannot be modified");
+	}
+
 	//========================================================================//
 	// Object Population Methods
 	//========================================================================//
@@ -555,6 +912,7 @@ public class Device implements Serializable {
 	 * @param columns number of columns in the device
 	 */
 	public void createTileArray(int rows, int columns) {
+		checkNotFrozen();
 		this.rows = rows;
 		this.columns = columns;
 		tiles = new Tile[rows][columns];
@@ -569,6 +927,7 @@ public class Device implements Serializable {
 	}
 
 	public void setTileArray(Tile[][] tiles) {
+		checkNotFrozen();
 		this.tiles = tiles;
 		this.rows = tiles.length;
 		this.columns = tiles[0].length;
@@ -579,7 +938,7 @@ public class Device implements Serializable {
 	 * The outer ArrayList uses the SiteType.ordinal() value as the index for
 	 * each type of site.
 	 */
-	private void createSitesOfTypeMap() {
+	private Map<SiteType, ArrayList<Site>> createSitesOfTypeMap() {
 		Map<SiteType, ArrayList<Site>> tmp = new HashMap<>();
 
 		for (int i = 0; i < this.rows; i++) {
@@ -593,7 +952,7 @@ public class Device implements Serializable {
 		}
 
 		tmp.values().forEach(ArrayList::trimToSize);
-		this.sitesOfTypeMap = tmp;
+		return tmp;
 	}
 
 
@@ -609,8 +968,11 @@ public class Device implements Serializable {
 	 * Used only in creating and loading devices.
 	 */
 	public void constructTileMap() {
+		checkNotFrozen();
 		tileMap = new HashMap<>(getRows() * getColumns());
 		sites = new HashMap<>();
+		tileNameIndex = null;
+		siteNameIndex = null;
 		for (Tile[] tileArray : tiles) {
 			for (Tile tile : tileArray) {
 				tileMap.put(tile.getName(), tile);
@@ -631,6 +993,7 @@ public class Device implements Serializable {
 	 *
 	 */
 	public void constructDependentResources() {
+		checkNotFrozen();
 		setSiteTypes();
 		for (SiteTemplate siteTemplate : siteTemplates.values())
 			siteTemplate.constructDependentResources();
@@ -696,12 +1059,50 @@ public class Device implements Serializable {
 		}
 	}
 
+	/**
+	 * Returns the route-throughs of the device as a map from the end wire to a
+	 * map from the start wire to the route-through.  The map is a copy built on
+	 * each call; use {@link #getRouteThrough(Wire, Wire)} for lookups.
+	 */
 	public Map<Integer, Map<Integer, PIPRouteThrough>> getRouteThroughMap() {
-		return routeThroughMap;
+		Map<Integer, Map<Integer, PIPRouteThrough>> map = new HashMap<>();
+		routeThroughs.forEach((startWire, endWire, rt) ->
+				map.computeIfAbsent(endWire, k -> new HashMap<>(4)).put(startWire, rt));
+		return map;
 	}
 
+	/**
+	 * Replaces the route-throughs of the device with those in the map.  The map
+	 * is keyed the same as {@link #getRouteThroughMap()}.
+	 */
 	public void setRouteThroughMap(Map<Integer, Map<Integer, PIPRouteThrough>> routeThroughMap) {
-		this.routeThroughMap = routeThroughMap;
+		checkNotFrozen();
+		this.routeThroughs = toRouteThroughTable(routeThroughMap);
+	}
+
+	RouteThroughTable getRouteThroughTable() {
+		return routeThroughs;
+	}
+
+	private static RouteThroughTable toRouteThroughTable(
+			Map<Integer, Map<Integer, PIPRouteThrough>> routeThroughMap
+	) {
+		RouteThroughTable table = new RouteThroughTable();
+		if (routeThroughMap == null)
+			return table;
+		for (Map.Entry<Integer, Map<Integer, PIPRouteThrough>> e : routeThroughMap.entrySet()) {
+			for (Map.Entry<Integer, PIPRouteThrough> se : e.getValue().entrySet())
+				table.put(se.getKey(), e.getKey(), se.getValue());
+		}
+		return table;
+	}
+
+	/**
+	 * Returns true if device files of the given version can be loaded.
+	 */
+	static boolean isSupportedDeviceFileVersion(String version) {
+		return LATEST_DEVICE_FILE_VERSION.equals(version) ||
+				LEGACY_DEVICE_FILE_VERSIONS.contains(version);
 	}
 
 	/*
@@ -713,7 +1114,12 @@ public class Device implements Serializable {
 		private String partName;
 		private FamilyType family;
 		private Tile[][] tiles;
+		/** Route-throughs in the version 1.1 format */
 		private Map<Integer, Map<Integer, PIPRouteThrough>> routeThroughMap;
+		/** Route-throughs as parallel arrays of start wires, end wires and objects */
+		private int[] routeThroughStartWires;
+		private int[] routeThroughEndWires;
+		private PIPRouteThrough[] routeThroughs;
 		private Collection<SiteTemplate> siteTemplates;
 		private WireEnumerator we;
 		private PrimitiveDefList primitiveDefs;
@@ -732,7 +1138,14 @@ public class Device implements Serializable {
 					tiles[row][col].setColumn(col);
 				}
 			}
-			device.routeThroughMap = routeThroughMap;
+			if (routeThroughs != null) {
+				RouteThroughTable table = new RouteThroughTable(routeThroughs.length);
+				for (int i = 0; i < routeThroughs.length; i++)
+					table.put(routeThroughStartWires[i], routeThroughEndWires[i], routeThroughs[i]);
+				device.routeThroughs = table;
+			} else {
+				device.routeThroughs = toRouteThroughTable(routeThroughMap);
+			}
 			device.siteTemplates = new HashMap<>();
 			for (SiteTemplate template : siteTemplates) {
 				device.siteTemplates.put(template.getType(), template);
@@ -747,7 +1160,7 @@ public class Device implements Serializable {
 
 		@SuppressWarnings("unused")
 		private Device readResolve() {
-			if (!version.equals(LATEST_DEVICE_FILE_VERSION))
+			if (!isSupportedDeviceFileVersion(version))
 				return null;
 			Device device = new Device();
 			readResolve(device);
@@ -767,7 +1180,11 @@ public class Device implements Serializable {
 		repl.partName = partName;
 		repl.family = family;
 		repl.tiles = tiles;
-		repl.routeThroughMap = routeThroughMap;
+		int numRouteThroughs = routeThroughs.size();
+		repl.routeThroughStartWires = new int[numRouteThroughs];
+		repl.routeThroughEndWires = new int[numRouteThroughs];
+		repl.routeThroughs = new PIPRouteThrough[numRouteThroughs];
+		routeThroughs.copyTo(repl.routeThroughStartWires, repl.routeThroughEndWires, repl.routeThroughs);
 		repl.siteTemplates = siteTemplates.values();
 		repl.we = we;
 		repl.primitiveDefs = primitiveDefs;
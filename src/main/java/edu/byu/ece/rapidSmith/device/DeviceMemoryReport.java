@@ -0,0 +1,595 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+package edu.byu.ece.rapidSmith.device;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/**
+ * Reports the estimated heap footprint of the structures of a loaded
+ * {@link Device}.  The report walks the device and charges every object to the
+ * first structure it is reached from, in the order the structures are listed:
+ * the wire enumerator, the primitive defs, the site template routing, the site
+ * templates, the route-throughs, the tile wire maps, the reverse tile wire maps,
+ * the site external wires, the sites, the tiles, the name maps and everything
+ * else held by the device.  The report also lists how often the objects
+ * deduplicated by the device generator are shared and the tile types using the
+ * most memory.
+ * <p>
+ * Sizes are estimates for a 64-bit JVM with compressed references (12 byte
+ * object headers, 4 byte references, 8 byte alignment).  The JDK collections
+ * are sized from their number of entries rather than inspected.  Wire
+ * connections of lazily loaded tiles are not loaded by the report and the
+ * number of such tiles is reported instead.
+ * <pre>{@code
+ * DeviceMemoryReport report = DeviceMemoryReport.create(device);
+ * System.out.println(report);
+ * }</pre>
+ */
+public final class DeviceMemoryReport {
+	public static final String WIRE_ENUMERATOR = "Wire enumerator";
+	public static final String PRIMITIVE_DEFS = "Primitive defs";
+	public static final String SITE_TEMPLATE_ROUTING = "Site template routing";
+	public static final String SITE_TEMPLATES = "Site templates";
+	public static final String ROUTE_THROUGHS = "Route-throughs";
+	public static final String TILE_WIRE_MAPS = "Tile wire maps";
+	public static final String TILE_REVERSE_WIRE_MAPS = "Tile reverse wire maps";
+	public static final String SITE_EXTERNAL_WIRES = "Site external wires";
+	public static final String SITES = "Sites";
+	public static final String TILES = "Tiles";
+	public static final String NAME_MAPS = "Name maps";
+	public static final String OTHER = "Other";
+
+	private static final int TOP_TILE_TYPES = 10;
+
+	private final String partName;
+	private final Map<String, Usage> structures = new LinkedHashMap<>();
+	private final List<Sharing> sharing = new ArrayList<>();
+	private final List<TileTypeUsage> tileTypes = new ArrayList<>();
+	private int unloadedTiles;
+
+	private DeviceMemoryReport(String partName) {
+		this.partName = partName;
+	}
+
+	/**
+	 * Walks the device and creates its memory report.
+	 *
+	 * @param device the device to report on
+	 * @return the memory report of the device
+	 */
+	public static DeviceMemoryReport create(Device device) {
+		Objects.requireNonNull(device);
+		Map<TileType, TileTypeUsage> tileTypes = new HashMap<>();
+		DeviceMemoryReport report = new DeviceMemoryReport(device.getPartName());
+		HeapWalker walker = new HeapWalker();
+
+		walker.walk(device.getWireEnumerator(), report.usage(WIRE_ENUMERATOR));
+		walker.walk(device.getPrimitiveDefs(), report.usage(PRIMITIVE_DEFS));
+		Usage templateRouting = report.usage(SITE_TEMPLATE_ROUTING);
+		Usage templates = report.usage(SITE_TEMPLATES);
+		if (device.getSiteTemplates() != null) {
+			for (SiteTemplate template : device.getSiteTemplates().values()) {
+				walker.walk(template.getRouting(), templateRouting);
+				walker.walk(template.getReversedRouting(), templateRouting);
+				walker.walk(template, templates);
+			}
+		}
+		walker.walk(device.getRouteThroughTable(), report.usage(ROUTE_THROUGHS));
+
+		Usage wireMaps = report.usage(TILE_WIRE_MAPS);
+		Usage reverseWireMaps = report.usage(TILE_REVERSE_WIRE_MAPS);
+		Usage externalWires = report.usage(SITE_EXTERNAL_WIRES);
+		Usage sites = report.usage(SITES);
+		Usage tiles = report.usage(TILES);
+		int numTiles = device.getRows() * device.getColumns();
+		for (int t = 0; t < numTiles; t++) {
+			Tile tile = device.getTile(t);
+			long bytes = 0;
+			if (tile.hasPendingWireConnections()) {
+				report.unloadedTiles++;
+			} else {
+				bytes += walker.walk(tile.getWireHashMap(), wireMaps);
+				bytes += walker.walk(tile.getReverseWireHashMap(), reverseWireMaps);
+			}
+			if (tile.getSites() != null) {
+				for (Site site : tile.getSites()) {
+					bytes += walker.walk(site.getExternalWires(), externalWires);
+					bytes += walker.walk(site.getExternalWireToPinMap(), externalWires);
+					bytes += walker.walk(site, sites);
+				}
+			}
+			bytes += walker.walk(tile, tiles);
+
+			TileTypeUsage usage = tileTypes.computeIfAbsent(tile.getType(), TileTypeUsage::new);
+			usage.tiles++;
+			usage.bytes += bytes;
+		}
+
+		Usage nameMaps = report.usage(NAME_MAPS);
+		walker.walk(device.getTileMap(), nameMaps);
+		walker.walk(device.getSites(), nameMaps);
+		walker.walk(device, report.usage(OTHER));
+
+		report.tileTypes.addAll(tileTypes.values());
+		report.tileTypes.sort(Comparator.comparingLong(TileTypeUsage::getBytes).reversed());
+		report.computeSharing(device);
+		return report;
+	}
+
+	private Usage usage(String structure) {
+		return structures.computeIfAbsent(structure, Usage::new);
+	}
+
+	/*
+	   Counts the references to the objects pooled by the device generator and
+	   the number of distinct objects among them.
+	 */
+	private void computeSharing(Device device) {
+		Set<WireHashMap> maps = identitySet();
+		long mapRefs = 0;
+		Set<WireConnection[]> arrays = identitySet();
+		long arrayRefs = 0;
+		Set<WireConnection> connections = identitySet();
+		long connectionRefs = 0;
+		Set<Map<SiteType, Map<String, Integer>>> externalWires = identitySet();
+		long externalWireRefs = 0;
+		Set<Map<String, Integer>> pinWires = identitySet();
+		long pinWireRefs = 0;
+
+		int numTiles = device.getRows() * device.getColumns();
+		for (int t = 0; t < numTiles; t++) {
+			Tile tile = device.getTile(t);
+			if (!tile.hasPendingWireConnections()) {
+				for (WireHashMap map : Arrays.asList(tile.getWireHashMap(), tile.getReverseWireHashMap())) {
+					if (map != null) {
+						mapRefs++;
+						maps.add(map);
+					}
+				}
+			}
+			if (tile.getSites() == null)
+				continue;
+			for (Site site : tile.getSites()) {
+				Map<SiteType, Map<String, Integer>> external = site.getExternalWires();
+				if (external == null)
+					continue;
+				externalWireRefs++;
+				externalWires.add(external);
+				for (Map<String, Integer> pins : external.values()) {
+					pinWireRefs++;
+					pinWires.add(pins);
+				}
+			}
+		}
+
+		// decoding an off-heap map creates new arrays, so only heap maps are counted
+		for (WireHashMap map : maps) {
+			if (map.isOffHeap())
+				continue;
+			for (int slot = 0; slot < map.capacity(); slot++) {
+				WireConnection[] wcs = map.keyAt(slot) == -1 ? null : map.valueAt(slot);
+				if (wcs != null) {
+					arrayRefs++;
+					arrays.add(wcs);
+				}
+			}
+		}
+		for (WireConnection[] wcs : arrays) {
+			for (WireConnection wc : wcs) {
+				connectionRefs++;
+				connections.add(wc);
+			}
+		}
+
+		Set<PIPRouteThrough> routeThroughs = identitySet();
+		long[] routeThroughRefs = {0};
+		device.getRouteThroughTable().forEach((start, end, rt) -> {
+			routeThroughRefs[0]++;
+			routeThroughs.add(rt);
+		});
+
+		sharing.add(new Sharing(TILE_WIRE_MAPS, mapRefs, maps.size()));
+		sharing.add(new Sharing("Wire connection arrays", arrayRefs, arrays.size()));
+		sharing.add(new Sharing("Wire connections", connectionRefs, connections.size()));
+		sharing.add(new Sharing(SITE_EXTERNAL_WIRES, externalWireRefs, externalWires.size()));
+		sharing.add(new Sharing("Site external pin wires", pinWireRefs, pinWires.size()));
+		sharing.add(new Sharing(ROUTE_THROUGHS, routeThroughRefs[0], routeThroughs.size()));
+	}
+
+	private static <T> Set<T> identitySet() {
+		return Collections.newSetFromMap(new IdentityHashMap<>());
+	}
+
+	/**
+	 * Returns the part name of the reported device.
+	 */
+	public String getPartName() {
+		return partName;
+	}
+
+	/**
+	 * Returns the usage of each structure of the device in the order they were
+	 * walked.
+	 */
+	public Collection<Usage> getStructures() {
+		return Collections.unmodifiableCollection(structures.values());
+	}
+
+	/**
+	 * Returns the usage of the structure with the given name, such as
+	 * {@link #TILE_WIRE_MAPS}, or null if there is no such structure.
+	 */
+	public Usage getStructure(String name) {
+		return structures.get(name);
+	}
+
+	/**
+	 * Returns the sharing achieved for each of the pooled device objects.
+	 */
+	public List<Sharing> getSharing() {
+		return Collections.unmodifiableList(sharing);
+	}
+
+	/**
+	 * Returns the usage of each tile type, sorted from the most to the least
+	 * bytes used.
+	 */
+	public List<TileTypeUsage> getTileTypes() {
+		return Collections.unmodifiableList(tileTypes);
+	}
+
+	/**
+	 * Returns the estimated number of heap bytes used by the device.
+	 */
+	public long getTotalBytes() {
+		return structures.values().stream().mapToLong(Usage::getBytes).sum();
+	}
+
+	/**
+	 * Returns the number of bytes used outside of the heap by off-heap wire maps.
+	 */
+	public long getTotalOffHeapBytes() {
+		return structures.values().stream().mapToLong(Usage::getOffHeapBytes).sum();
+	}
+
+	/**
+	 * Returns the number of objects reached by the report.
+	 */
+	public long getTotalObjects() {
+		return structures.values().stream().mapToLong(Usage::getObjects).sum();
+	}
+
+	/**
+	 * Returns the number of tiles whose wire connections were not loaded yet and
+	 * were not included in the report.
+	 */
+	public int getUnloadedTiles() {
+		return unloadedTiles;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		Formatter fmt = new Formatter(sb);
+		fmt.format("Memory report for %s%n", partName);
+		fmt.format("%-26s %16s %14s %16s%n", "Structure", "Bytes", "Objects", "Off-heap bytes");
+		for (Usage usage : structures.values()) {
+			fmt.format("%-26s %,16d %,14d %,16d%n", usage.name, usage.bytes,
+					usage.objects, usage.offHeapBytes);
+		}
+		fmt.format("%-26s %,16d %,14d %,16d%n", "Total", getTotalBytes(),
+				getTotalObjects(), getTotalOffHeapBytes());
+		if (unloadedTiles > 0)
+			fmt.format("%,d tiles with unloaded wire connections are not included%n", unloadedTiles);
+
+		fmt.format("%n%-26s %16s %14s %16s%n", "Sharing", "References", "Unique", "Ratio");
+		for (Sharing s : sharing)
+			fmt.format("%-26s %,16d %,14d %16.2f%n", s.name, s.references, s.unique, s.getRatio());
+
+		fmt.format("%n%-26s %16s %14s %16s%n", "Tile type", "Bytes", "Tiles", "Bytes per tile");
+		for (TileTypeUsage usage : tileTypes.subList(0, Math.min(TOP_TILE_TYPES, tileTypes.size()))) {
+			fmt.format("%-26s %,16d %,14d %,16d%n", usage.type, usage.bytes,
+					usage.tiles, usage.bytes / usage.tiles);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * The memory used by a structure of the device.
+	 */
+	public static final class Usage {
+		private final String name;
+		private long bytes;
+		private long objects;
+		private long offHeapBytes;
+
+		private Usage(String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/** Returns the estimated number of heap bytes used by the structure. */
+		public long getBytes() {
+			return bytes;
+		}
+
+		/** Returns the number of objects in the structure. */
+		public long getObjects() {
+			return objects;
+		}
+
+		/** Returns the number of bytes the structure stores off-heap. */
+		public long getOffHeapBytes() {
+			return offHeapBytes;
+		}
+	}
+
+	/**
+	 * The number of references to a kind of pooled object and the number of
+	 * distinct objects referenced.
+	 */
+	public static final class Sharing {
+		private final String name;
+		private final long references;
+		private final long unique;
+
+		private Sharing(String name, long references, long unique) {
+			this.name = name;
+			this.references = references;
+			this.unique = unique;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public long getReferences() {
+			return references;
+		}
+
+		public long getUnique() {
+			return unique;
+		}
+
+		/** Returns the average number of references to each distinct object. */
+		public double getRatio() {
+			return unique == 0 ? 0.0 : (double) references / unique;
+		}
+	}
+
+	/**
+	 * The memory used by the tiles of a tile type.  This includes the tiles,
+	 * their sites and their wire maps, except for objects already charged to
+	 * another tile.
+	 */
+	public static final class TileTypeUsage {
+		private final TileType type;
+		private int tiles;
+		private long bytes;
+
+		private TileTypeUsage(TileType type) {
+			this.type = type;
+		}
+
+		public TileType getType() {
+			return type;
+		}
+
+		public int getTiles() {
+			return tiles;
+		}
+
+		/** Returns the heap and off-heap bytes charged to tiles of this type. */
+		public long getBytes() {
+			return bytes;
+		}
+	}
+
+	/**
+	 * Estimates the size of the objects reachable from a root.  Each object is
+	 * only counted the first time it is reached.  Tiles, sites and the device
+	 * are only walked as roots so that each is charged to its own structure.
+	 */
+	private static final class HeapWalker {
+		private static final int OBJECT_HEADER = 12;
+		private static final int ARRAY_HEADER = 16;
+		private static final int REFERENCE = 4;
+		/** Size of JDK objects which are not collections, such as boxed values */
+		private static final int JDK_OBJECT = 16;
+
+		private final Set<Object> visited = identitySet();
+		private final Map<Class<?>, Layout> layouts = new HashMap<>();
+		private final ArrayDeque<Object> stack = new ArrayDeque<>();
+
+		/**
+		 * Adds the objects reachable from the root to the usage.
+		 * @return the number of heap and off-heap bytes added
+		 */
+		long walk(Object root, Usage usage) {
+			long before = usage.bytes + usage.offHeapBytes;
+			if (root != null && !isShared(root) && visited.add(root))
+				stack.push(root);
+			while (!stack.isEmpty())
+				visit(stack.pop(), usage);
+			return usage.bytes + usage.offHeapBytes - before;
+		}
+
+		private void push(Object obj) {
+			if (obj == null || isShared(obj))
+				return;
+			if (obj instanceof Device || obj instanceof Tile || obj instanceof Site ||
+					obj instanceof MappedDeviceFile)
+				return;
+			if (visited.add(obj))
+				stack.push(obj);
+		}
+
+		private static boolean isShared(Object obj) {
+			if (obj instanceof Enum || obj instanceof Class || obj instanceof Boolean)
+				return true;
+			// boxed values in the caches of the valueOf methods
+			if (obj instanceof Integer || obj instanceof Short || obj instanceof Byte || obj instanceof Long) {
+				long value = ((Number) obj).longValue();
+				return value >= -128 && value <= 127;
+			}
+			return obj instanceof Character && (Character) obj <= 127;
+		}
+
+		private void visit(Object obj, Usage usage) {
+			Class<?> cls = obj.getClass();
+			usage.objects++;
+			if (cls.isArray()) {
+				Class<?> component = cls.getComponentType();
+				int length = Array.getLength(obj);
+				if (component.isPrimitive()) {
+					usage.bytes += align(ARRAY_HEADER + (long) length * primitiveSize(component));
+				} else {
+					usage.bytes += align(ARRAY_HEADER + (long) length * REFERENCE);
+					for (Object element : (Object[]) obj)
+						push(element);
+				}
+				return;
+			}
+			if (obj instanceof String) {
+				// the string and its character array
+				usage.objects++;
+				usage.bytes += align(OBJECT_HEADER + REFERENCE + 4) +
+						align(ARRAY_HEADER + 2L * ((String) obj).length());
+				return;
+			}
+
+			Layout layout = layouts.computeIfAbsent(cls, Layout::new);
+			if (obj instanceof Map) {
+				Map<?, ?> map = (Map<?, ?>) obj;
+				usage.bytes += mapSize(map) + layout.fieldsSize;
+				usage.objects += map.size() + 1;
+				for (Map.Entry<?, ?> e : map.entrySet()) {
+					push(e.getKey());
+					push(e.getValue());
+				}
+			} else if (obj instanceof Collection) {
+				Collection<?> collection = (Collection<?>) obj;
+				usage.bytes += collectionSize(collection) + layout.fieldsSize;
+				if (collection instanceof Set)
+					usage.objects += collection.size() + 1;
+				for (Object element : collection)
+					push(element);
+			} else if (layout.jdkClass) {
+				usage.bytes += JDK_OBJECT;
+			} else {
+				usage.bytes += align(OBJECT_HEADER + layout.fieldsSize);
+			}
+
+			if (obj instanceof OffHeapWireHashMap)
+				usage.offHeapBytes += ((OffHeapWireHashMap) obj).getOffHeapSize();
+			for (Field field : layout.references) {
+				try {
+					push(field.get(obj));
+				} catch (IllegalAccessException ignored) {
+				}
+			}
+		}
+
+		private static long mapSize(Map<?, ?> map) {
+			int size = map.size();
+			if (map instanceof TreeMap)
+				return 48 + 40L * size;
+			if (map instanceof EnumMap)
+				return 48 + 2 * align(ARRAY_HEADER + (long) REFERENCE * size);
+			if (map.getClass().getName().startsWith("java.util.Collections$"))
+				return 24;
+			// hash based maps: the map, its table and a node per entry
+			long table = Integer.highestOneBit(Math.max(1, (int) (size / 0.75f)) * 2 - 1);
+			long node = map instanceof LinkedHashMap ? 40 : 32;
+			return 48 + align(ARRAY_HEADER + REFERENCE * table) + node * size;
+		}
+
+		private static long collectionSize(Collection<?> collection) {
+			int size = collection.size();
+			if (collection.getClass().getName().startsWith("java.util.Collections$"))
+				return 24;
+			if (collection instanceof TreeSet)
+				return 16 + 48 + 40L * size;
+			if (collection instanceof Set) {
+				long table = Integer.highestOneBit(Math.max(1, (int) (size / 0.75f)) * 2 - 1);
+				return 16 + 48 + align(ARRAY_HEADER + REFERENCE * table) + 32L * size;
+			}
+			// array backed collections
+			return 24 + align(ARRAY_HEADER + (long) REFERENCE * size);
+		}
+
+		private static long align(long size) {
+			return (size + 7) & ~7L;
+		}
+
+		private static int primitiveSize(Class<?> type) {
+			if (type == long.class || type == double.class)
+				return 8;
+			if (type == int.class || type == float.class)
+				return 4;
+			if (type == short.class || type == char.class)
+				return 2;
+			return 1;
+		}
+
+		/**
+		 * The instance fields of a class.  Only the fields declared by RapidSmith
+		 * and other non-JDK classes are inspected.
+		 */
+		private static final class Layout {
+			/** Size of the inspected fields */
+			long fieldsSize;
+			/** Inspected reference fields to follow */
+			final List<Field> references = new ArrayList<>();
+			/** True if the class is or extends a JDK class other than Object */
+			boolean jdkClass;
+
+			Layout(Class<?> cls) {
+				for (Class<?> c = cls; c != null && c != Object.class; c = c.getSuperclass()) {
+					String name = c.getName();
+					if (name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("sun.")) {
+						jdkClass = true;
+						continue;
+					}
+					for (Field field : c.getDeclaredFields()) {
+						if (Modifier.isStatic(field.getModifiers()))
+							continue;
+						Class<?> type = field.getType();
+						fieldsSize += type.isPrimitive() ? primitiveSize(type) : REFERENCE;
+						if (!type.isPrimitive()) {
+							try {
+								field.setAccessible(true);
+								references.add(field);
+							} catch (RuntimeException ignored) {
+								// not accessible, the objects it references are not counted
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+}
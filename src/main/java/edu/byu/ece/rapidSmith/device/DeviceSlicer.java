@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+
+package edu.byu.ece.rapidSmith.device;
+
+import edu.byu.ece.rapidSmith.util.HashPool;
+
+import java.util.HashMap;
+
+/**
+ * Builds a device containing a rectangular region of the tiles of another
+ * device.  See {@link Device#createSlice(String, int, int, int, int)}.
+ */
+final class DeviceSlicer {
+	private static final WireConnection[] NO_CONNECTIONS = new WireConnection[0];
+
+	private final Device device;
+	private final int firstRow;
+	private final int firstColumn;
+	private final int numRows;
+	private final int numColumns;
+
+	/** Clipped wire maps are shared between tiles with the same clipped connections */
+	private final HashPool<WireHashMap> wireMapPool = new HashPool<>();
+
+	DeviceSlicer(Device device, int firstRow, int firstColumn, int numRows, int numColumns) {
+		if (numRows <= 0 || numColumns <= 0 || firstRow < 0 || firstColumn < 0 ||
+				firstRow + numRows > device.getRows() ||
+				firstColumn + numColumns > device.getColumns()) {
+			throw new IndexOutOfBoundsException("Region (" + firstRow + ", " + firstColumn +
+					") " + numRows + "x" + numColumns + " is not in device " + device.getPartName());
+		}
+		this.device = device;
+		this.firstRow = firstRow;
+		this.firstColumn = firstColumn;
+		this.numRows = numRows;
+		this.numColumns = numColumns;
+	}
+
+	Device slice(String partName) {
+		Device slice = new Device();
+		slice.setPartName(partName);
+		slice.setFamily(device.getFamily());
+		slice.setWireEnumerator(device.getWireEnumerator());
+		slice.setPrimitiveDefs(device.getPrimitiveDefs());
+		slice.setSiteTemplates(new HashMap<>(device.getSiteTemplates()));
+		slice.setRouteThroughMap(device.getRouteThroughMap());
+
+		Tile[][] tiles = new Tile[numRows][numColumns];
+		for (int row = 0; row < numRows; row++) {
+			for (int col = 0; col < numColumns; col++) {
+				Tile orig = device.getTile(firstRow + row, firstColumn + col);
+				Tile tile = new Tile();
+				tile.setDevice(slice);
+				tile.setRow(row);
+				tile.setColumn(col);
+				tile.setName(orig.getName());
+				tile.setType(orig.getType());
+				tile.setSites(copySites(orig, tile));
+				tile.setWireHashMap(clip(orig, orig.getWireHashMap()));
+				tile.setReverseWireConnections(clip(orig, orig.getReverseWireHashMap()));
+				tiles[row][col] = tile;
+			}
+		}
+		slice.setTileArray(tiles);
+		slice.constructTileMap();
+		slice.constructDependentResources();
+
+		for (PackagePin packagePin : device.getPackagePins()) {
+			if (slice.getSite(packagePin.getSite()) != null)
+				slice.addPackagePin(packagePin);
+		}
+		return slice;
+	}
+
+	private static Site[] copySites(Tile orig, Tile tile) {
+		Site[] origSites = orig.getSites();
+		if (origSites == null)
+			return null;
+		Site[] sites = new Site[origSites.length];
+		for (int i = 0; i < origSites.length; i++) {
+			Site origSite = origSites[i];
+			Site site = new Site();
+			site.setName(origSite.getName());
+			site.setIndex(i);
+			site.setTile(tile);
+			site.setInstanceCoordinates(origSite.getInstanceX(), origSite.getInstanceY());
+			site.setBondedType(origSite.getBondedType());
+			site.setPossibleTypes(origSite.getPossibleTypes());
+			site.setExternalWires(origSite.getExternalWires());
+			sites[i] = site;
+		}
+		return sites;
+	}
+
+	/**
+	 * Returns the wire map with the connections leaving the region removed.  Wires
+	 * whose connections are all removed are kept as stubs with no connections.
+	 * The same map is returned if none of the connections leave the region.
+	 */
+	private WireHashMap clip(Tile tile, WireHashMap wires) {
+		if (wires == null)
+			return null;
+		boolean leaves = false;
+		for (WireConnection[] wcs : wires.values()) {
+			if (clip(tile, wcs) != wcs) {
+				leaves = true;
+				break;
+			}
+		}
+		if (!leaves)
+			return wires;
+
+		WireHashMap clipped = new WireHashMap();
+		for (Integer wire : wires.keySet())
+			clipped.put(wire, clip(tile, wires.get(wire)));
+		return wireMapPool.add(clipped);
+	}
+
+	/**
+	 * Returns the connections that stay in the region.  The same array is returned
+	 * if none of the connections leave the region.
+	 */
+	private WireConnection[] clip(Tile tile, WireConnection[] wcs) {
+		if (wcs == null)
+			return null;
+		int kept = 0;
+		for (WireConnection wc : wcs) {
+			if (inRegion(tile, wc))
+				kept++;
+		}
+		if (kept == wcs.length)
+			return wcs;
+		if (kept == 0)
+			return NO_CONNECTIONS;
+		WireConnection[] clipped = new WireConnection[kept];
+		int i = 0;
+		for (WireConnection wc : wcs) {
+			if (inRegion(tile, wc))
+				clipped[i++] = wc;
+		}
+		return clipped;
+	}
+
+	private boolean inRegion(Tile tile, WireConnection wc) {
+		int row = tile.getRow() - wc.getRowOffset();
+		int col = tile.getColumn() - wc.getColumnOffset();
+		return row >= firstRow && row < firstRow + numRows &&
+				col >= firstColumn && col < firstColumn + numColumns;
+	}
+}
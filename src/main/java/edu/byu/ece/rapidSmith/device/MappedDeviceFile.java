@@ -0,0 +1,999 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+
+package edu.byu.ece.rapidSmith.device;
+
+import com.caucho.hessian.io.Deflation;
+import com.caucho.hessian.io.Hessian2Input;
+import com.caucho.hessian.io.Hessian2Output;
+import edu.byu.ece.rapidSmith.primitiveDefs.PrimitiveDefList;
+import edu.byu.ece.rapidSmith.util.Exceptions.FileFormatException;
+import edu.byu.ece.rapidSmith.util.HashPool;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * A device file with a fixed binary layout that is memory-mapped instead of
+ * deserialized.  The file is opened with {@link FileChannel#map} and the tile,
+ * site and wire connection tables are read in place through the accessors of
+ * this class, so opening a file costs little more than the mapping itself.
+ * A complete {@link Device} can be built from the mapped file with
+ * {@link #loadDevice()}.
+ * <p>
+ * The file consists of a header followed by a fixed sequence of sections.  The
+ * header holds a magic number, the format version and the offset of each
+ * section.  All values are big-endian.  Strings, wire connections, connection
+ * arrays and wire hash maps are each stored once and referenced by index, so
+ * the sharing between tiles of the same type in the Hessian device files is
+ * kept in this format as well.  The site templates, primitive defs and package
+ * pins are small and are stored as an embedded Hessian block.
+ * <p>
+ * Files in this format are created from an existing device with
+ * {@link #write(Device, Path)}.
+ */
+public final class MappedDeviceFile {
+	/** Magic number at the start of every mapped device file ("RSMD") */
+	private static final int MAGIC = 0x52534D44;
+	/** Version of the binary layout.  Changed on any incompatible change. */
+	public static final int FORMAT_VERSION = 1;
+
+	// Sections of the file in the order they appear
+	private static final int STRINGS = 0;
+	private static final int INFO = 1;
+	private static final int WIRES = 2;
+	private static final int TILES = 3;
+	private static final int SITES = 4;
+	private static final int SITE_TYPE_ARRAYS = 5;
+	private static final int EXTERNAL_WIRE_MAPS = 6;
+	private static final int PIN_MAPS = 7;
+	private static final int CONNECTIONS = 8;
+	private static final int CONNECTION_ARRAYS = 9;
+	private static final int WIRE_MAPS = 10;
+	private static final int ROUTE_THROUGHS = 11;
+	private static final int EXTRAS = 12;
+	private static final int SECTION_COUNT = 13;
+
+	private static final int HEADER_SIZE = 12 + 4 * SECTION_COUNT;
+	private static final int TILE_RECORD_SIZE = 6;
+	private static final int SITE_RECORD_SIZE = 6;
+	private static final int WIRE_MAP_RECORD_SIZE = 3;
+	private static final int WIRE_MAP_ENTRY_SIZE = 3;
+	private static final int ROUTE_THROUGH_RECORD_SIZE = 5;
+
+	private static final int ROW_OFFSET_MIN = -(1 << 14);
+	private static final int ROW_OFFSET_MAX = (1 << 14) - 1;
+
+	private final Path path;
+	private final ByteBuffer buffer;
+	private final int[] sections = new int[SECTION_COUNT];
+
+	// Positions of the tables within the mapped buffer
+	private final Table strings;
+	private final int rows;
+	private final int columns;
+	private final int tileRecords;
+	private final int siteRecords;
+	private final Table siteTypeArrays;
+	private final Table externalWireMaps;
+	private final Table pinMaps;
+	private final int connectionCount;
+	private final int connections;
+	private final Table connectionArrays;
+	private final int wireMapCount;
+	private final int wireMapRecords;
+	private final int wireMapEntries;
+
+	// Objects decoded so far.  These are filled on demand and are shared by
+	// every tile referencing the same data.
+	private final String[] stringCache;
+	private final WireConnection[] connectionCache;
+	private final WireConnection[][] connectionArrayCache;
+	private final WireHashMap[] wireMapCache;
+
+	private MappedDeviceFile(Path path, ByteBuffer buffer) {
+		this.path = path;
+		this.buffer = buffer;
+
+		if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC)
+			throw new FileFormatException("Not a mapped device file: " + path);
+		int version = buffer.getInt(4);
+		if (version != FORMAT_VERSION) {
+			throw new FileFormatException("Unsupported mapped device file version " +
+					version + " in " + path + ", expected " + FORMAT_VERSION);
+		}
+		if (buffer.getInt(8) != SECTION_COUNT)
+			throw new FileFormatException("Corrupt mapped device file header: " + path);
+		for (int i = 0; i < SECTION_COUNT; i++) {
+			sections[i] = buffer.getInt(12 + 4 * i);
+			if (sections[i] < HEADER_SIZE || sections[i] >= buffer.capacity())
+				throw new FileFormatException("Corrupt mapped device file header: " + path);
+		}
+
+		strings = new Table(sections[STRINGS]);
+		rows = buffer.getInt(sections[TILES]);
+		columns = buffer.getInt(sections[TILES] + 4);
+		tileRecords = sections[TILES] + 8;
+		siteRecords = sections[SITES] + 4;
+		siteTypeArrays = new Table(sections[SITE_TYPE_ARRAYS]);
+		externalWireMaps = new Table(sections[EXTERNAL_WIRE_MAPS]);
+		pinMaps = new Table(sections[PIN_MAPS]);
+		connectionCount = buffer.getInt(sections[CONNECTIONS]);
+		connections = sections[CONNECTIONS] + 8;
+		connectionArrays = new Table(sections[CONNECTION_ARRAYS]);
+		wireMapCount = buffer.getInt(sections[WIRE_MAPS]);
+		wireMapRecords = sections[WIRE_MAPS] + 4;
+		wireMapEntries = wireMapRecords + 4 * WIRE_MAP_RECORD_SIZE * (wireMapCount + 1);
+
+		stringCache = new String[strings.count];
+		connectionCache = new WireConnection[connectionCount];
+		connectionArrayCache = new WireConnection[connectionArrays.count][];
+		wireMapCache = new WireHashMap[wireMapCount];
+	}
+
+	/**
+	 * Maps the device file at {@code path} into memory.  Only the header is
+	 * read by this method.
+	 *
+	 * @param path path to the mapped device file
+	 * @return the mapped device file
+	 * @throws IOException if the file cannot be opened or mapped
+	 * @throws FileFormatException if the file is not a mapped device file of a
+	 *   supported version
+	 */
+	public static MappedDeviceFile open(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE)
+				throw new FileFormatException("Mapped device file is too large: " + path);
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			return new MappedDeviceFile(path, buffer);
+		}
+	}
+
+	/**
+	 * Returns the path this file was mapped from.
+	 */
+	public Path getPath() {
+		return path;
+	}
+
+	/**
+	 * Returns the version of the device the file was written from.  This
+	 * corresponds to {@link Device#LATEST_DEVICE_FILE_VERSION} at the time the
+	 * file was written.  The layout of the file itself is versioned separately
+	 * by {@link #FORMAT_VERSION}, so a file written from an older device
+	 * version can still be loaded as long as that version is supported.
+	 */
+	public String getDeviceVersion() {
+		return getString(buffer.getInt(sections[INFO]));
+	}
+
+	public String getPartName() {
+		return getString(buffer.getInt(sections[INFO] + 4));
+	}
+
+	public FamilyType getFamily() {
+		return FamilyType.valueOf(getString(buffer.getInt(sections[INFO] + 8)));
+	}
+
+	public int getRows() {
+		return rows;
+	}
+
+	public int getColumns() {
+		return columns;
+	}
+
+	public int getWireCount() {
+		return buffer.getInt(sections[WIRES]);
+	}
+
+	public String getWireName(int wire) {
+		return getString(buffer.getInt(sections[WIRES] + 8 + 4 * wire));
+	}
+
+	public String getTileName(int row, int column) {
+		return getString(tileField(row, column, 0));
+	}
+
+	public String getTileTypeName(int row, int column) {
+		return getString(tileField(row, column, 1));
+	}
+
+	/**
+	 * Returns the number of sites in the tile or -1 if the tile has no site array.
+	 */
+	public int getSiteCount(int row, int column) {
+		return tileField(row, column, 3);
+	}
+
+	/**
+	 * Returns the connections leaving {@code wire} in the specified tile
+	 * without building the tile's wire hash map.
+	 *
+	 * @return the connections of the wire or null if the wire does not exist
+	 *   in the tile
+	 */
+	public WireConnection[] getWireConnections(int row, int column, int wire) {
+		return lookupConnections(tileField(row, column, 4), wire);
+	}
+
+	/**
+	 * Returns the connections entering {@code wire} in the specified tile
+	 * without building the tile's reverse wire hash map.
+	 *
+	 * @return the connections of the wire or null if the wire does not exist
+	 *   in the tile
+	 */
+	public WireConnection[] getReverseConnections(int row, int column, int wire) {
+		return lookupConnections(tileField(row, column, 5), wire);
+	}
+
+	/**
+	 * Builds the complete device stored in this file.  The resulting device is
+	 * equivalent to one read from the Hessian device file the mapped file was
+	 * converted from.
+	 *
+	 * @return the device or null if the device in the file is of a version
+	 *   which is no longer supported
+	 * @throws IOException if the embedded site template block cannot be read
+	 */
+	public Device loadDevice() throws IOException {
+		return loadDevice(false);
+	}
+
+	/**
+	 * Builds the device stored in this file.  If {@code lazyWireConnections} is
+	 * true, the tiles and sites are built but the wire connections of a tile are
+	 * not decoded until they are first requested from the tile.  Memory use then
+	 * grows with the part of the device that is used.  The mapped file is kept
+	 * open by the device's tiles in this mode.
+	 *
+	 * @param lazyWireConnections load the wire connections of each tile on first use
+	 * @return the device or null if the device in the file is of a version
+	 *   which is no longer supported
+	 * @throws IOException if the embedded site template block cannot be read
+	 */
+	public Device loadDevice(boolean lazyWireConnections) throws IOException {
+		if (!Device.isSupportedDeviceFileVersion(getDeviceVersion()))
+			return null;
+
+		Device device = new Device();
+		device.setPartName(getPartName());
+		FamilyType family = getFamily();
+		device.setFamily(family);
+		device.setWireEnumerator(loadWireEnumerator());
+
+		Extras extras = readExtras();
+		Map<SiteType, SiteTemplate> siteTemplates = new HashMap<>();
+		for (SiteTemplate template : extras.siteTemplates)
+			siteTemplates.put(template.getType(), template);
+		device.setSiteTemplates(siteTemplates);
+		device.setPrimitiveDefs(extras.primitiveDefs);
+
+		Map<Integer, TileType> tileTypes = new HashMap<>();
+		Map<Integer, SiteType> siteTypes = new HashMap<>();
+		Map<Integer, SiteType[]> siteTypeArrayCache = new HashMap<>();
+		Map<Integer, Map<SiteType, Map<String, Integer>>> externalWiresCache = new HashMap<>();
+		Map<Integer, Map<String, Integer>> pinMapCache = new HashMap<>();
+
+		Tile[][] tiles = new Tile[rows][columns];
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < columns; col++) {
+				Tile tile = new Tile();
+				tile.setDevice(device);
+				tile.setRow(row);
+				tile.setColumn(col);
+				tile.setName(getString(tileField(row, col, 0)));
+				tile.setType(tileTypes.computeIfAbsent(tileField(row, col, 1),
+						k -> TileType.valueOf(family, getString(k))));
+
+				int firstSite = tileField(row, col, 2);
+				int numSites = tileField(row, col, 3);
+				if (numSites >= 0) {
+					Site[] sites = new Site[numSites];
+					for (int i = 0; i < numSites; i++) {
+						sites[i] = loadSite(firstSite + i, family, siteTypes,
+								siteTypeArrayCache, externalWiresCache, pinMapCache);
+						sites[i].setIndex(i);
+						sites[i].setTile(tile);
+					}
+					tile.setSites(sites);
+				}
+
+				if (lazyWireConnections) {
+					tile.setLazyWireConnections(this, tileField(row, col, 4), tileField(row, col, 5));
+				} else {
+					tile.setWireHashMap(getWireHashMap(tileField(row, col, 4)));
+					tile.setReverseWireConnections(getWireHashMap(tileField(row, col, 5)));
+				}
+				tiles[row][col] = tile;
+			}
+		}
+		device.setTileArray(tiles);
+		loadRouteThroughs(device, family, siteTypes);
+
+		device.constructTileMap();
+		device.constructDependentResources();
+		if (extras.packagePins != null) {
+			for (PackagePin packagePin : extras.packagePins)
+				device.addPackagePin(packagePin);
+		}
+		return device;
+	}
+
+	private int tileField(int row, int column, int field) {
+		if (row < 0 || column < 0 || row >= rows || column >= columns)
+			throw new IndexOutOfBoundsException("Tile " + row + ", " + column);
+		int tile = row * columns + column;
+		return buffer.getInt(tileRecords + 4 * (tile * TILE_RECORD_SIZE + field));
+	}
+
+	private String getString(int index) {
+		if (index < 0)
+			return null;
+		String s = stringCache[index];
+		if (s == null) {
+			int start = strings.start(index);
+			byte[] bytes = new byte[strings.end(index) - start];
+			ByteBuffer dup = buffer.duplicate();
+			dup.position(strings.data + start);
+			dup.get(bytes);
+			s = new String(bytes, StandardCharsets.UTF_8);
+			stringCache[index] = s;
+		}
+		return s;
+	}
+
+	private WireEnumerator loadWireEnumerator() {
+		int base = sections[WIRES];
+		int count = buffer.getInt(base);
+		int flags = buffer.getInt(base + 4);
+		int typeOrdinals = base + 8 + 4 * count;
+		int directionOrdinals = typeOrdinals + count;
+
+		String[] wires = new String[count];
+		Map<String, Integer> wireMap = new HashMap<>((int) (count / 0.75 + 1));
+		WireType[] wireTypes = (flags & 1) != 0 ? new WireType[count] : null;
+		WireDirection[] wireDirections = (flags & 2) != 0 ? new WireDirection[count] : null;
+		WireType[] typeValues = WireType.values();
+		WireDirection[] directionValues = WireDirection.values();
+		for (int i = 0; i < count; i++) {
+			wires[i] = getString(buffer.getInt(base + 8 + 4 * i));
+			wireMap.put(wires[i], i);
+			if (wireTypes != null) {
+				byte ordinal = buffer.get(typeOrdinals + i);
+				wireTypes[i] = ordinal < 0 ? null : typeValues[ordinal];
+			}
+			if (wireDirections != null) {
+				byte ordinal = buffer.get(directionOrdinals + i);
+				wireDirections[i] = ordinal < 0 ? null : directionValues[ordinal];
+			}
+		}
+
+		WireEnumerator we = new WireEnumerator();
+		we.setWires(wires);
+		we.setWireMap(wireMap);
+		we.setWireTypes(wireTypes);
+		we.setWireDirections(wireDirections);
+		return we;
+	}
+
+	private Site loadSite(
+			int index, FamilyType family, Map<Integer, SiteType> siteTypes,
+			Map<Integer, SiteType[]> siteTypeArrayCache,
+			Map<Integer, Map<SiteType, Map<String, Integer>>> externalWiresCache,
+			Map<Integer, Map<String, Integer>> pinMapCache
+	) {
+		int record = siteRecords + 4 * index * SITE_RECORD_SIZE;
+		Site site = new Site();
+		site.setName(getString(buffer.getInt(record)));
+		int bonded = buffer.getInt(record + 4);
+		site.setBondedType(bonded < 0 ? null : BondedType.values()[bonded]);
+		site.setInstanceCoordinates(buffer.getInt(record + 8), buffer.getInt(record + 12));
+
+		int typesId = buffer.getInt(record + 16);
+		if (typesId >= 0) {
+			site.setPossibleTypes(siteTypeArrayCache.computeIfAbsent(typesId, id -> {
+				SiteType[] types = new SiteType[siteTypeArrays.length(id)];
+				for (int i = 0; i < types.length; i++)
+					types[i] = getSiteType(siteTypeArrays.get(id, i), family, siteTypes);
+				return types;
+			}));
+		}
+
+		int externalWiresId = buffer.getInt(record + 20);
+		if (externalWiresId >= 0) {
+			site.setExternalWires(externalWiresCache.computeIfAbsent(externalWiresId, id -> {
+				Map<SiteType, Map<String, Integer>> externalWires = new HashMap<>();
+				for (int i = 0; i < externalWireMaps.length(id); i += 2) {
+					SiteType type = getSiteType(externalWireMaps.get(id, i), family, siteTypes);
+					int pinMapId = externalWireMaps.get(id, i + 1);
+					externalWires.put(type, pinMapCache.computeIfAbsent(pinMapId, this::loadPinMap));
+				}
+				return externalWires;
+			}));
+		}
+		return site;
+	}
+
+	private Map<String, Integer> loadPinMap(int id) {
+		Map<String, Integer> pinMap = new HashMap<>();
+		for (int i = 0; i < pinMaps.length(id); i += 2)
+			pinMap.put(getString(pinMaps.get(id, i)), pinMaps.get(id, i + 1));
+		return pinMap;
+	}
+
+	private SiteType getSiteType(int nameRef, FamilyType family, Map<Integer, SiteType> siteTypes) {
+		return siteTypes.computeIfAbsent(nameRef, k -> SiteType.valueOf(family, getString(k)));
+	}
+
+	private void loadRouteThroughs(
+			Device device, FamilyType family, Map<Integer, SiteType> siteTypes
+	) {
+		int base = sections[ROUTE_THROUGHS];
+		int count = buffer.getInt(base);
+		HashPool<PIPRouteThrough> pool = new HashPool<>();
+		for (int i = 0; i < count; i++) {
+			int record = base + 4 + 4 * i * ROUTE_THROUGH_RECORD_SIZE;
+			int endWire = buffer.getInt(record);
+			int startWire = buffer.getInt(record + 4);
+			PIPRouteThrough rt = pool.add(new PIPRouteThrough(
+					getSiteType(buffer.getInt(record + 8), family, siteTypes),
+					getString(buffer.getInt(record + 12)),
+					getString(buffer.getInt(record + 16))));
+			device.addRouteThrough(startWire, endWire, rt);
+		}
+	}
+
+	private Extras readExtras() throws IOException {
+		int base = sections[EXTRAS];
+		byte[] bytes = new byte[buffer.getInt(base)];
+		ByteBuffer dup = buffer.duplicate();
+		dup.position(base + 4);
+		dup.get(bytes);
+
+		Hessian2Input his = new Hessian2Input(new ByteArrayInputStream(bytes));
+		his.setCloseStreamOnClose(true);
+		his = new Deflation().unwrap(his);
+		try {
+			return (Extras) his.readObject();
+		} finally {
+			his.close();
+		}
+	}
+
+	/**
+	 * Returns the wire hash map with the given index, decoding it on first use.
+	 * Synchronized since lazily loaded tiles may request maps from any thread.
+	 */
+	synchronized WireHashMap getWireHashMap(int id) {
+		if (id < 0)
+			return null;
+		WireHashMap map = wireMapCache[id];
+		if (map == null) {
+			int record = wireMapRecords + 4 * id * WIRE_MAP_RECORD_SIZE;
+			int capacity = buffer.getInt(record);
+			float loadFactor = Float.intBitsToFloat(buffer.getInt(record + 4));
+			int first = buffer.getInt(record + 8);
+			int size = buffer.getInt(record + 8 + 4 * WIRE_MAP_RECORD_SIZE) - first;
+
+			int[] keys = new int[size];
+			int[] slots = new int[size];
+			WireConnection[][] values = new WireConnection[size][];
+			for (int i = 0; i < size; i++) {
+				int entry = wireMapEntries + 4 * (first + i) * WIRE_MAP_ENTRY_SIZE;
+				keys[i] = buffer.getInt(entry);
+				slots[i] = buffer.getInt(entry + 4);
+				values[i] = getConnectionArray(buffer.getInt(entry + 8));
+			}
+			map = WireHashMap.fromSlots(capacity, loadFactor, keys, slots, values);
+			wireMapCache[id] = map;
+		}
+		return map;
+	}
+
+	/*
+	   Binary searches the entries of the wire map for the wire.  The entries of
+	   each map are written sorted by key.
+	 */
+	private WireConnection[] lookupConnections(int mapId, int wire) {
+		// matches Tile which returns an empty array for tiles without a map
+		if (mapId < 0)
+			return new WireConnection[0];
+		int record = wireMapRecords + 4 * mapId * WIRE_MAP_RECORD_SIZE;
+		int lo = buffer.getInt(record + 8);
+		int hi = buffer.getInt(record + 8 + 4 * WIRE_MAP_RECORD_SIZE) - 1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			int entry = wireMapEntries + 4 * mid * WIRE_MAP_ENTRY_SIZE;
+			int key = buffer.getInt(entry);
+			if (key < wire)
+				lo = mid + 1;
+			else if (key > wire)
+				hi = mid - 1;
+			else
+				return getConnectionArray(buffer.getInt(entry + 8));
+		}
+		return null;
+	}
+
+	private synchronized WireConnection[] getConnectionArray(int id) {
+		if (id < 0)
+			return null;
+		WireConnection[] array = connectionArrayCache[id];
+		if (array == null) {
+			array = new WireConnection[connectionArrays.length(id)];
+			for (int i = 0; i < array.length; i++)
+				array[i] = getConnection(connectionArrays.get(id, i));
+			connectionArrayCache[id] = array;
+		}
+		return array;
+	}
+
+	private WireConnection getConnection(int id) {
+		WireConnection wc = connectionCache[id];
+		if (wc == null) {
+			long packed = buffer.getLong(connections + 8 * id);
+			wc = new WireConnection(unpackWire(packed), unpackRowOffset(packed),
+					unpackColumnOffset(packed), unpackPIP(packed));
+			connectionCache[id] = wc;
+		}
+		return wc;
+	}
+
+	/*
+	   Wire connections are packed into a long as
+	     bits  0-31  wire
+	     bits 32-47  column offset
+	     bits 48-62  row offset
+	     bit  63     is PIP
+	 */
+	static long packConnection(WireConnection wc) {
+		int rowOffset = wc.getRowOffset();
+		int columnOffset = wc.getColumnOffset();
+		if (rowOffset < ROW_OFFSET_MIN || rowOffset > ROW_OFFSET_MAX ||
+				columnOffset < Short.MIN_VALUE || columnOffset > Short.MAX_VALUE) {
+			throw new IllegalArgumentException("Wire connection offset out of range: " + wc);
+		}
+		return (wc.getWire() & 0xFFFFFFFFL) |
+				((columnOffset & 0xFFFFL) << 32) |
+				((rowOffset & 0x7FFFL) << 48) |
+				(wc.isPIP() ? 1L << 63 : 0L);
+	}
+
+	static int unpackWire(long packed) {
+		return (int) packed;
+	}
+
+	static int unpackColumnOffset(long packed) {
+		return (short) (packed >>> 32);
+	}
+
+	static int unpackRowOffset(long packed) {
+		return ((int) (packed >>> 48) << 17) >> 17;
+	}
+
+	static boolean unpackPIP(long packed) {
+		return packed < 0;
+	}
+
+	/*
+	   A table of variable length int arrays stored as a count, count + 1
+	   offsets and the concatenated data.  The strings section uses the same
+	   layout with byte data.
+	 */
+	private final class Table {
+		private final int count;
+		private final int offsets;
+		private final int data;
+
+		Table(int base) {
+			count = buffer.getInt(base);
+			offsets = base + 4;
+			data = offsets + 4 * (count + 1);
+		}
+
+		int start(int index) {
+			return buffer.getInt(offsets + 4 * index);
+		}
+
+		int end(int index) {
+			return buffer.getInt(offsets + 4 * (index + 1));
+		}
+
+		int length(int index) {
+			return end(index) - start(index);
+		}
+
+		int get(int index, int i) {
+			return buffer.getInt(data + 4 * (start(index) + i));
+		}
+	}
+
+	/*
+	   The parts of the device small enough to keep in Hessian.
+	 */
+	private static final class Extras implements Serializable {
+		private static final long serialVersionUID = 6245178410915093267L;
+		private ArrayList<SiteTemplate> siteTemplates;
+		private PrimitiveDefList primitiveDefs;
+		private ArrayList<PackagePin> packagePins;
+	}
+
+	//===================================================================================//
+	/* Writing                                                                           */
+	//===================================================================================//
+
+	/**
+	 * Writes {@code device} to {@code path} in the mapped device file format.
+	 *
+	 * @param device the device to write
+	 * @param path the file to write to
+	 * @throws IOException if the file cannot be written or the device is too
+	 *   large for the format
+	 */
+	public static void write(Device device, Path path) throws IOException {
+		new Writer(device).write(path);
+	}
+
+	private static final class Writer {
+		private final Device device;
+		private final HashPool<String> strings = new HashPool<>();
+		private final HashPool<WireConnection> connections = new HashPool<>();
+		private final Map<WireConnection[], Integer> connectionArrayIds = new IdentityHashMap<>();
+		private final List<WireConnection[]> connectionArrays = new ArrayList<>();
+		private final Map<WireHashMap, Integer> wireMapIds = new IdentityHashMap<>();
+		private final List<WireHashMap> wireMaps = new ArrayList<>();
+		private final Map<SiteType[], Integer> siteTypeArrayIds = new IdentityHashMap<>();
+		private final List<SiteType[]> siteTypeArrays = new ArrayList<>();
+		private final Map<Map<SiteType, Map<String, Integer>>, Integer> externalWireIds = new IdentityHashMap<>();
+		private final List<Map<SiteType, Map<String, Integer>>> externalWires = new ArrayList<>();
+		private final Map<Map<String, Integer>, Integer> pinMapIds = new IdentityHashMap<>();
+		private final List<Map<String, Integer>> pinMaps = new ArrayList<>();
+		private final List<Site> sites = new ArrayList<>();
+
+		private DataOutputStream out;
+
+		Writer(Device device) {
+			this.device = device;
+		}
+
+		void write(Path path) throws IOException {
+			int[] sections = new int[SECTION_COUNT];
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+				out.write(new byte[HEADER_SIZE]);
+
+				// Everything referencing the string and object pools is buffered
+				// so the pools are complete before the sections holding them are written.
+				byte[] info = buffer(this::writeInfo);
+				byte[] wires = buffer(this::writeWires);
+				byte[] tiles = buffer(this::writeTiles);
+				byte[] siteRecords = buffer(this::writeSites);
+				byte[] routeThroughs = buffer(this::writeRouteThroughs);
+				byte[] siteTypeSection = buffer(this::writeSiteTypeArrays);
+				byte[] externalWireSection = buffer(this::writeExternalWireMaps);
+				byte[] pinMapSection = buffer(this::writePinMaps);
+				byte[] wireMapSection = buffer(this::writeWireMaps);
+				byte[] connectionArraySection = buffer(this::writeConnectionArrays);
+
+				sections[STRINGS] = beginSection();
+				writeStrings();
+				sections[INFO] = beginSection();
+				out.write(info);
+				sections[WIRES] = beginSection();
+				out.write(wires);
+				sections[TILES] = beginSection();
+				out.write(tiles);
+				sections[SITES] = beginSection();
+				out.write(siteRecords);
+				sections[SITE_TYPE_ARRAYS] = beginSection();
+				out.write(siteTypeSection);
+				sections[EXTERNAL_WIRE_MAPS] = beginSection();
+				out.write(externalWireSection);
+				sections[PIN_MAPS] = beginSection();
+				out.write(pinMapSection);
+				sections[CONNECTIONS] = beginSection();
+				writeConnections();
+				sections[CONNECTION_ARRAYS] = beginSection();
+				out.write(connectionArraySection);
+				sections[WIRE_MAPS] = beginSection();
+				out.write(wireMapSection);
+				sections[ROUTE_THROUGHS] = beginSection();
+				out.write(routeThroughs);
+				sections[EXTRAS] = beginSection();
+				writeExtras();
+				beginSection();
+				out.flush();
+
+				ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+				header.putInt(MAGIC);
+				header.putInt(FORMAT_VERSION);
+				header.putInt(SECTION_COUNT);
+				for (int section : sections)
+					header.putInt(section);
+				header.flip();
+				while (header.hasRemaining())
+					channel.write(header, header.position());
+			}
+		}
+
+		private interface SectionWriter {
+			void write(DataOutputStream out) throws IOException;
+		}
+
+		private byte[] buffer(SectionWriter writer) throws IOException {
+			ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			DataOutputStream dos = new DataOutputStream(baos);
+			writer.write(dos);
+			dos.flush();
+			return baos.toByteArray();
+		}
+
+		/* Pads the file to an 8 byte boundary and returns the section offset. */
+		private int beginSection() throws IOException {
+			while (out.size() % 8 != 0)
+				out.write(0);
+			// DataOutputStream.size saturates at Integer.MAX_VALUE
+			if (out.size() == Integer.MAX_VALUE)
+				throw new IOException("Device is too large for the mapped device file format");
+			return out.size();
+		}
+
+		private int string(String s) {
+			return s == null ? -1 : strings.add2(s);
+		}
+
+		private static <T> int intern(Map<T, Integer> ids, List<T> list, T obj) {
+			if (obj == null)
+				return -1;
+			return ids.computeIfAbsent(obj, k -> {
+				list.add(k);
+				return list.size() - 1;
+			});
+		}
+
+		private void writeInfo(DataOutputStream dos) throws IOException {
+			dos.writeInt(string(Device.LATEST_DEVICE_FILE_VERSION));
+			dos.writeInt(string(device.getPartName()));
+			dos.writeInt(string(device.getFamily().name()));
+		}
+
+		private void writeWires(DataOutputStream dos) throws IOException {
+			WireEnumerator we = device.getWireEnumerator();
+			String[] wires = we.getWires();
+			WireType[] wireTypes = we.getWireTypes();
+			WireDirection[] wireDirections = we.getWireDirections();
+
+			dos.writeInt(wires.length);
+			dos.writeInt((wireTypes != null ? 1 : 0) | (wireDirections != null ? 2 : 0));
+			for (String wire : wires)
+				dos.writeInt(string(wire));
+			for (int i = 0; i < wires.length; i++) {
+				WireType type = wireTypes == null ? null : wireTypes[i];
+				dos.writeByte(type == null ? -1 : type.ordinal());
+			}
+			for (int i = 0; i < wires.length; i++) {
+				WireDirection direction = wireDirections == null ? null : wireDirections[i];
+				dos.writeByte(direction == null ? -1 : direction.ordinal());
+			}
+		}
+
+		private void writeTiles(DataOutputStream dos) throws IOException {
+			dos.writeInt(device.getRows());
+			dos.writeInt(device.getColumns());
+			for (int row = 0; row < device.getRows(); row++) {
+				for (int col = 0; col < device.getColumns(); col++) {
+					Tile tile = device.getTile(row, col);
+					dos.writeInt(string(tile.getName()));
+					dos.writeInt(string(tile.getType().name()));
+					Site[] tileSites = tile.getSites();
+					dos.writeInt(sites.size());
+					dos.writeInt(tileSites == null ? -1 : tileSites.length);
+					if (tileSites != null)
+						sites.addAll(Arrays.asList(tileSites));
+					dos.writeInt(intern(wireMapIds, wireMaps, tile.getWireHashMap()));
+					dos.writeInt(intern(wireMapIds, wireMaps, tile.getReverseWireHashMap()));
+				}
+			}
+		}
+
+		private void writeSites(DataOutputStream dos) throws IOException {
+			dos.writeInt(sites.size());
+			for (Site site : sites) {
+				dos.writeInt(string(site.getName()));
+				BondedType bonded = site.getBondedType();
+				dos.writeInt(bonded == null ? -1 : bonded.ordinal());
+				dos.writeInt(site.getInstanceX());
+				dos.writeInt(site.getInstanceY());
+				dos.writeInt(intern(siteTypeArrayIds, siteTypeArrays, site.getPossibleTypes()));
+				dos.writeInt(intern(externalWireIds, externalWires, site.getExternalWires()));
+			}
+		}
+
+		private void writeRouteThroughs(DataOutputStream dos) throws IOException {
+			RouteThroughTable table = device.getRouteThroughTable();
+			int count = table.size();
+			int[] startWires = new int[count];
+			int[] endWires = new int[count];
+			PIPRouteThrough[] rts = new PIPRouteThrough[count];
+			table.copyTo(startWires, endWires, rts);
+			dos.writeInt(count);
+			for (int i = 0; i < count; i++) {
+				dos.writeInt(endWires[i]);
+				dos.writeInt(startWires[i]);
+				dos.writeInt(string(rts[i].getType().name()));
+				dos.writeInt(string(rts[i].getInPin()));
+				dos.writeInt(string(rts[i].getOutPin()));
+			}
+		}
+
+		private void writeWireMaps(DataOutputStream dos) throws IOException {
+			// the readers rebuild the maps from their slots, so each is written
+			// in a layout which lookups probe
+			List<WireHashMap> laidOut = new ArrayList<>(wireMaps.size());
+			for (WireHashMap map : wireMaps)
+				laidOut.add(map.slotLayout());
+
+			dos.writeInt(laidOut.size());
+			int first = 0;
+			for (WireHashMap map : laidOut) {
+				dos.writeInt(map.capacity());
+				dos.writeInt(Float.floatToIntBits(map.loadFactor()));
+				dos.writeInt(first);
+				first += map.size();
+			}
+			// sentinel record holding the total entry count
+			dos.writeInt(0);
+			dos.writeInt(0);
+			dos.writeInt(first);
+
+			for (WireHashMap map : laidOut) {
+				List<Integer> slots = new ArrayList<>(map.size());
+				for (int slot = 0; slot < map.capacity(); slot++) {
+					if (map.keyAt(slot) != -1)
+						slots.add(slot);
+				}
+				slots.sort(Comparator.comparingInt(map::keyAt));
+				for (int slot : slots) {
+					dos.writeInt(map.keyAt(slot));
+					dos.writeInt(slot);
+					dos.writeInt(intern(connectionArrayIds, connectionArrays, map.valueAt(slot)));
+				}
+			}
+		}
+
+		private void writeConnectionArrays(DataOutputStream dos) throws IOException {
+			List<int[]> arrays = new ArrayList<>(connectionArrays.size());
+			for (WireConnection[] array : connectionArrays) {
+				int[] ids = new int[array.length];
+				for (int i = 0; i < array.length; i++)
+					ids[i] = connections.add2(array[i]);
+				arrays.add(ids);
+			}
+			writeTable(dos, arrays);
+		}
+
+		private void writePinMaps(DataOutputStream dos) throws IOException {
+			List<int[]> entries = new ArrayList<>(pinMaps.size());
+			for (Map<String, Integer> pinMap : pinMaps) {
+				int[] data = new int[2 * pinMap.size()];
+				int i = 0;
+				for (Map.Entry<String, Integer> e : pinMap.entrySet()) {
+					data[i++] = string(e.getKey());
+					data[i++] = e.getValue();
+				}
+				entries.add(data);
+			}
+			writeTable(dos, entries);
+		}
+
+		private void writeExternalWireMaps(DataOutputStream dos) throws IOException {
+			List<int[]> entries = new ArrayList<>(externalWires.size());
+			for (Map<SiteType, Map<String, Integer>> map : externalWires) {
+				int[] data = new int[2 * map.size()];
+				int i = 0;
+				for (Map.Entry<SiteType, Map<String, Integer>> e : map.entrySet()) {
+					data[i++] = string(e.getKey().name());
+					data[i++] = intern(pinMapIds, pinMaps, e.getValue());
+				}
+				entries.add(data);
+			}
+			writeTable(dos, entries);
+		}
+
+		private void writeSiteTypeArrays(DataOutputStream dos) throws IOException {
+			List<int[]> entries = new ArrayList<>(siteTypeArrays.size());
+			for (SiteType[] types : siteTypeArrays) {
+				int[] data = new int[types.length];
+				for (int i = 0; i < types.length; i++)
+					data[i] = string(types[i].name());
+				entries.add(data);
+			}
+			writeTable(dos, entries);
+		}
+
+		private static void writeTable(DataOutputStream dos, List<int[]> entries) throws IOException {
+			dos.writeInt(entries.size());
+			int offset = 0;
+			dos.writeInt(offset);
+			for (int[] entry : entries) {
+				offset += entry.length;
+				dos.writeInt(offset);
+			}
+			for (int[] entry : entries) {
+				for (int value : entry)
+					dos.writeInt(value);
+			}
+		}
+
+		private void writeStrings() throws IOException {
+			List<byte[]> encoded = new ArrayList<>(strings.size());
+			for (String s : strings.values())
+				encoded.add(s.getBytes(StandardCharsets.UTF_8));
+
+			out.writeInt(encoded.size());
+			int offset = 0;
+			out.writeInt(offset);
+			for (byte[] bytes : encoded) {
+				offset += bytes.length;
+				out.writeInt(offset);
+			}
+			for (byte[] bytes : encoded)
+				out.write(bytes);
+		}
+
+		private void writeConnections() throws IOException {
+			out.writeInt(connections.size());
+			out.writeInt(0); // pad so the packed connections are 8 byte aligned
+			for (WireConnection wc : connections.values())
+				out.writeLong(packConnection(wc));
+		}
+
+		private void writeExtras() throws IOException {
+			Extras extras = new Extras();
+			extras.siteTemplates = new ArrayList<>(device.getSiteTemplates().values());
+			extras.primitiveDefs = device.getPrimitiveDefs();
+			Collection<PackagePin> packagePins = device.getPackagePins();
+			extras.packagePins = packagePins == null ? null : new ArrayList<>(packagePins);
+
+			ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			Hessian2Output hos = new Hessian2Output(baos);
+			hos.setCloseStreamOnClose(true);
+			hos = new Deflation().wrap(hos);
+			hos.writeObject(extras);
+			hos.close();
+
+			byte[] bytes = baos.toByteArray();
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+package edu.byu.ece.rapidSmith.device;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * A compact, immutable index from names to integer IDs.  The names are stored
+ * once as UTF-8 in a single byte array with an offset per name, and are found
+ * through an open addressing table of IDs.  The ID of a name is its position in
+ * the list the index was built from.
+ * <p>
+ * Names can be looked up from a {@link CharSequence}, a region of one, or a
+ * region of a byte array holding UTF-8 text, so parsers can resolve tokens
+ * without creating strings.  Lookups of ASCII keys do not allocate.  The index
+ * is safe for concurrent readers.
+ */
+public final class NameIndex {
+	private static final int FNV_OFFSET = 0x811C9DC5;
+	private static final int FNV_PRIME = 0x01000193;
+
+	/** The UTF-8 bytes of all names */
+	private final byte[] names;
+	/** Start of each name in names, with the end of the last name at the end */
+	private final int[] offsets;
+	/** ID + 1 of the name hashed to each slot, or 0 for an empty slot */
+	private final int[] table;
+	private final int mask;
+
+	/**
+	 * Builds an index of the names.
+	 *
+	 * @param names the names to index.  The ID of each name is its position in the list.
+	 * @throws IllegalArgumentException if a name appears more than once
+	 * @throws NullPointerException if a name is null
+	 */
+	public NameIndex(List<String> names) {
+		int count = names.size();
+		byte[][] encoded = new byte[count][];
+		int total = 0;
+		for (int i = 0; i < count; i++) {
+			encoded[i] = names.get(i).getBytes(StandardCharsets.UTF_8);
+			total += encoded[i].length;
+		}
+
+		this.names = new byte[total];
+		this.offsets = new int[count + 1];
+		int offset = 0;
+		for (int i = 0; i < count; i++) {
+			offsets[i] = offset;
+			System.arraycopy(encoded[i], 0, this.names, offset, encoded[i].length);
+			offset += encoded[i].length;
+		}
+		offsets[count] = offset;
+
+		// keep the table at most half full
+		int capacity = Integer.highestOneBit(Math.max(2, count) * 2 - 1) * 2;
+		this.table = new int[capacity];
+		this.mask = capacity - 1;
+		for (int id = 0; id < count; id++) {
+			int length = offsets[id + 1] - offsets[id];
+			int slot = spread(hash(this.names, offsets[id], length)) & mask;
+			while (table[slot] != 0) {
+				if (matches(table[slot] - 1, this.names, offsets[id], length))
+					throw new IllegalArgumentException("Duplicate name: " + names.get(id));
+				slot = (slot + 1) & mask;
+			}
+			table[slot] = id + 1;
+		}
+	}
+
+	/**
+	 * Returns the number of names in this index.
+	 */
+	public int size() {
+		return offsets.length - 1;
+	}
+
+	/**
+	 * Returns the name with the given ID.
+	 *
+	 * @throws IndexOutOfBoundsException if there is no name with the ID
+	 */
+	public String getName(int id) {
+		if (id < 0 || id >= size())
+			throw new IndexOutOfBoundsException("No name with ID " + id);
+		return new String(names, offsets[id], offsets[id + 1] - offsets[id], StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Returns the ID of the name, or -1 if the name is not in this index.
+	 */
+	public int indexOf(CharSequence name) {
+		return indexOf(name, 0, name.length());
+	}
+
+	/**
+	 * Returns the ID of the name held by the region {@code [start, end)} of the
+	 * character sequence, or -1 if the name is not in this index.
+	 */
+	public int indexOf(CharSequence chars, int start, int end) {
+		int hash = FNV_OFFSET;
+		for (int i = start; i < end; i++) {
+			char c = chars.charAt(i);
+			if (c >= 0x80) {
+				// non-ASCII names are compared by their UTF-8 bytes
+				byte[] bytes = chars.subSequence(start, end).toString().getBytes(StandardCharsets.UTF_8);
+				return indexOf(bytes, 0, bytes.length);
+			}
+			hash = (hash ^ c) * FNV_PRIME;
+		}
+
+		int length = end - start;
+		for (int slot = spread(hash) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+			int id = table[slot] - 1;
+			int offset = offsets[id];
+			if (offsets[id + 1] - offset != length)
+				continue;
+			int i = 0;
+			while (i < length && names[offset + i] == chars.charAt(start + i))
+				i++;
+			if (i == length)
+				return id;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the ID of the name held as UTF-8 by the region of the byte array,
+	 * or -1 if the name is not in this index.
+	 */
+	public int indexOf(byte[] bytes, int offset, int length) {
+		int hash = hash(bytes, offset, length);
+		for (int slot = spread(hash) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+			int id = table[slot] - 1;
+			if (matches(id, bytes, offset, length))
+				return id;
+		}
+		return -1;
+	}
+
+	private boolean matches(int id, byte[] bytes, int offset, int length) {
+		int start = offsets[id];
+		if (offsets[id + 1] - start != length)
+			return false;
+		for (int i = 0; i < length; i++) {
+			if (names[start + i] != bytes[offset + i])
+				return false;
+		}
+		return true;
+	}
+
+	// FNV-1a over the bytes, equal to the hash of the chars of an ASCII name
+	private static int hash(byte[] bytes, int offset, int length) {
+		int hash = FNV_OFFSET;
+		for (int i = offset; i < offset + length; i++)
+			hash = (hash ^ (bytes[i] & 0xFF)) * FNV_PRIME;
+		return hash;
+	}
+
+	// mixes the high bits into the low bits used to pick a slot
+	private static int spread(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Returns the number of bytes used by the names and tables of this index.
+	 */
+	public long getSizeInBytes() {
+		return names.length + 4L * offsets.length + 4L * table.length;
+	}
+}
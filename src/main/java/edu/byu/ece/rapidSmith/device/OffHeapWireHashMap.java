@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+package edu.byu.ece.rapidSmith.device;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+
+/**
+ * An immutable {@link WireHashMap} which keeps its keys and wire connections in
+ * a direct {@link ByteBuffer} instead of in {@code int} and
+ * {@code WireConnection} arrays.  A map of a large device holds only a few
+ * objects this way, no matter how many connections it has, which keeps the
+ * garbage collector from having to trace the connections of every tile.
+ * <p>
+ * The buffer holds the slots of the map in the same layout as the map it was
+ * copied from so that lookups probe the same slots:
+ * <pre>
+ *   int[capacity]  keys, -1 for an empty slot
+ *   int[capacity]  index of the first connection of each slot
+ *   int[capacity]  number of connections of each slot, -1 for a null value
+ *   long[n]        the packed connections
+ * </pre>
+ * Each connection is packed into a long holding the wire in bits 0-30, the PIP
+ * flag in bit 31, the row offset in bits 32-47 and the column offset in bits
+ * 48-63.
+ * <p>
+ * {@link #get(int)} decodes the connections into a new array on each call.
+ * The arrays are short lived and are collected with the young generation.
+ * {@link ConnectionCursor} reads the packed connections directly and does not
+ * decode them into objects.
+ * Maps are created with {@link WireHashMap#toOffHeap()} and cannot be modified.
+ */
+public final class OffHeapWireHashMap extends WireHashMap {
+	private static final long serialVersionUID = 3905733155349524738L;
+
+	private static final long WIRE_MASK = 0x7FFFFFFFL;
+	private static final long PIP_BIT = 0x80000000L;
+
+	private final ByteBuffer buffer;
+	private final int capacity;
+	private final int size;
+	private final int startsOffset;
+	private final int lengthsOffset;
+	private final int connectionsOffset;
+
+	private OffHeapWireHashMap(WireHashMap orig) {
+		super(orig.loadFactor());
+		this.capacity = orig.capacity();
+		this.size = orig.size();
+		this.startsOffset = 4 * capacity;
+		this.lengthsOffset = 8 * capacity;
+		// align the connections on a long boundary
+		this.connectionsOffset = (12 * capacity + 7) & ~7;
+
+		int numConnections = 0;
+		for (int slot = 0; slot < capacity; slot++) {
+			WireConnection[] wcs = orig.valueAt(slot);
+			if (orig.keyAt(slot) != -1 && wcs != null)
+				numConnections += wcs.length;
+		}
+
+		buffer = ByteBuffer.allocateDirect(connectionsOffset + 8 * numConnections)
+				.order(ByteOrder.nativeOrder());
+		int next = 0;
+		for (int slot = 0; slot < capacity; slot++) {
+			int key = orig.keyAt(slot);
+			WireConnection[] wcs = key == -1 ? null : orig.valueAt(slot);
+			buffer.putInt(4 * slot, key);
+			buffer.putInt(startsOffset + 4 * slot, next);
+			buffer.putInt(lengthsOffset + 4 * slot, wcs == null ? -1 : wcs.length);
+			if (wcs != null) {
+				for (WireConnection wc : wcs)
+					buffer.putLong(connectionsOffset + 8 * next++, pack(wc));
+			}
+		}
+	}
+
+	/**
+	 * Returns an off-heap copy of the map.  Returns the map itself if it is
+	 * already stored off-heap.
+	 *
+	 * @param orig the map to copy
+	 * @return the off-heap copy of the map
+	 * @throws IllegalArgumentException if a connection of the map has a negative
+	 *   wire or an offset which does not fit in 16 bits
+	 */
+	public static OffHeapWireHashMap copyOf(WireHashMap orig) {
+		if (orig instanceof OffHeapWireHashMap)
+			return (OffHeapWireHashMap) orig;
+		return new OffHeapWireHashMap(orig.slotLayout());
+	}
+
+	private static long pack(WireConnection wc) {
+		int wire = wc.getWire();
+		int rowOffset = wc.getRowOffset();
+		int columnOffset = wc.getColumnOffset();
+		if (wire < 0 || rowOffset != (short) rowOffset || columnOffset != (short) columnOffset)
+			throw new IllegalArgumentException("Connection cannot be stored off-heap: " + wc);
+		return wire | (wc.isPIP() ? PIP_BIT : 0L) |
+				((rowOffset & 0xFFFFL) << 32) | ((columnOffset & 0xFFFFL) << 48);
+	}
+
+	private static WireConnection unpack(long packed) {
+		return new WireConnection(wireOf(packed), rowOffsetOf(packed),
+				columnOffsetOf(packed), isPipOf(packed));
+	}
+
+	static int wireOf(long packed) {
+		return (int) (packed & WIRE_MASK);
+	}
+
+	static int rowOffsetOf(long packed) {
+		return (short) (packed >>> 32);
+	}
+
+	static int columnOffsetOf(long packed) {
+		return (short) (packed >>> 48);
+	}
+
+	static boolean isPipOf(long packed) {
+		return (packed & PIP_BIT) != 0;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	// mirrors WireHashMap.indexFor so that the copied slot layout can be probed
+	private int indexFor(int key) {
+		int i = key & (capacity - 1);
+		int k;
+		while ((k = buffer.getInt(4 * i)) != key && k != -1) {
+			i += 3;
+			if (i >= capacity) i = i & 3;
+		}
+		return i;
+	}
+
+	@Override
+	public WireConnection[] get(int key) {
+		int i = indexFor(key);
+		if (buffer.getInt(4 * i) == -1)
+			return null;
+		return valueAt(i);
+	}
+
+	/**
+	 * Returns the slot holding the connections of the key, or -1 if the key is
+	 * not in the map or maps to null.
+	 */
+	int connectionSlot(int key) {
+		int i = indexFor(key);
+		if (buffer.getInt(4 * i) == -1 || buffer.getInt(lengthsOffset + 4 * i) == -1)
+			return -1;
+		return i;
+	}
+
+	/**
+	 * Returns the index of the first packed connection of a slot returned by
+	 * {@link #connectionSlot(int)}.
+	 */
+	int firstConnection(int slot) {
+		return buffer.getInt(startsOffset + 4 * slot);
+	}
+
+	/**
+	 * Returns the number of connections of a slot returned by
+	 * {@link #connectionSlot(int)}.
+	 */
+	int connectionCount(int slot) {
+		return buffer.getInt(lengthsOffset + 4 * slot);
+	}
+
+	/**
+	 * Returns the packed connection at the index.  The fields are read with
+	 * {@link #wireOf(long)}, {@link #rowOffsetOf(long)},
+	 * {@link #columnOffsetOf(long)} and {@link #isPipOf(long)}.
+	 */
+	long connectionAt(int index) {
+		return buffer.getLong(connectionsOffset + 8 * index);
+	}
+
+	/**
+	 * Off-heap maps cannot be modified.
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public void put(int key, WireConnection[] value) {
+		throw new UnsupportedOperationException("Off-heap wire maps cannot be modified");
+	}
+
+	/**
+	 * Returns the connections of all of the keys in this map.  Unlike the heap
+	 * backed map, the list is not cached since it would keep every connection
+	 * of the map on the heap.
+	 */
+	@Override
+	public ArrayList<WireConnection[]> values() {
+		ArrayList<WireConnection[]> values = new ArrayList<>(size);
+		for (int slot = 0; slot < capacity; slot++) {
+			if (buffer.getInt(4 * slot) != -1)
+				values.add(valueAt(slot));
+		}
+		return values;
+	}
+
+	@Override
+	int capacity() {
+		return capacity;
+	}
+
+	@Override
+	int keyAt(int slot) {
+		return buffer.getInt(4 * slot);
+	}
+
+	@Override
+	WireConnection[] valueAt(int slot) {
+		int length = buffer.getInt(lengthsOffset + 4 * slot);
+		if (length == -1)
+			return null;
+		int start = connectionsOffset + 8 * buffer.getInt(startsOffset + 4 * slot);
+		WireConnection[] wcs = new WireConnection[length];
+		for (int i = 0; i < length; i++)
+			wcs[i] = unpack(buffer.getLong(start + 8 * i));
+		return wcs;
+	}
+
+	@Override
+	public WireHashMap toOffHeap() {
+		return this;
+	}
+
+	@Override
+	public boolean isOffHeap() {
+		return true;
+	}
+
+	/** Off-heap maps cannot be modified and are always frozen. */
+	@Override
+	public boolean isFrozen() {
+		return true;
+	}
+
+	/**
+	 * Returns the number of bytes of native memory used by this map.
+	 */
+	public int getOffHeapSize() {
+		return buffer.capacity();
+	}
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+
+package edu.byu.ece.rapidSmith.device;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Open addressing hash table from a (start wire, end wire) pair to the
+ * {@link PIPRouteThrough} connecting them.  The pair is packed into a single
+ * long key so a lookup is one primitive probe sequence with no boxing.
+ * Wire enumerations are never negative, so -1 marks an empty slot.
+ */
+final class RouteThroughTable {
+	private static final long EMPTY = -1L;
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private long[] keys;
+	private PIPRouteThrough[] values;
+	private int size;
+
+	RouteThroughTable() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	RouteThroughTable(int expectedSize) {
+		int capacity = DEFAULT_CAPACITY;
+		while (capacity < expectedSize * 2)
+			capacity <<= 1;
+		keys = new long[capacity];
+		Arrays.fill(keys, EMPTY);
+		values = new PIPRouteThrough[capacity];
+	}
+
+	private static long key(int startWire, int endWire) {
+		return ((long) startWire << 32) | (endWire & 0xFFFFFFFFL);
+	}
+
+	private static int hash(long key) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		return (int) key;
+	}
+
+	private int indexFor(long key) {
+		int mask = keys.length - 1;
+		int i = hash(key) & mask;
+		while (keys[i] != key && keys[i] != EMPTY)
+			i = (i + 1) & mask;
+		return i;
+	}
+
+	int size() {
+		return size;
+	}
+
+	PIPRouteThrough get(int startWire, int endWire) {
+		if (startWire < 0 || endWire < 0)
+			return null;
+		return values[indexFor(key(startWire, endWire))];
+	}
+
+	boolean contains(int startWire, int endWire) {
+		return get(startWire, endWire) != null;
+	}
+
+	/**
+	 * Adds the route-through, replacing any existing one for the pair.
+	 *
+	 * @return the replaced route-through or null
+	 * @throws NullPointerException if the route-through is null
+	 */
+	PIPRouteThrough put(int startWire, int endWire, PIPRouteThrough rt) {
+		Objects.requireNonNull(rt);
+		if (startWire < 0 || endWire < 0)
+			throw new IllegalArgumentException("Negative wire enumeration");
+		long key = key(startWire, endWire);
+		int i = indexFor(key);
+		PIPRouteThrough old = values[i];
+		if (keys[i] == EMPTY) {
+			keys[i] = key;
+			size++;
+		}
+		values[i] = rt;
+		if (size * 2 > keys.length)
+			grow();
+		return old;
+	}
+
+	private void grow() {
+		long[] oldKeys = keys;
+		PIPRouteThrough[] oldValues = values;
+		keys = new long[oldKeys.length * 2];
+		Arrays.fill(keys, EMPTY);
+		values = new PIPRouteThrough[oldKeys.length * 2];
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY) {
+				int j = indexFor(oldKeys[i]);
+				keys[j] = oldKeys[i];
+				values[j] = oldValues[i];
+			}
+		}
+	}
+
+	/**
+	 * Calls {@code visitor} for each entry in the table.
+	 */
+	void forEach(Visitor visitor) {
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != EMPTY)
+				visitor.visit((int) (keys[i] >>> 32), (int) keys[i], values[i]);
+		}
+	}
+
+	/**
+	 * Copies the entries of the table into the parallel arrays.  The arrays must
+	 * have at least {@link #size()} elements.
+	 */
+	void copyTo(int[] startWires, int[] endWires, PIPRouteThrough[] rts) {
+		int j = 0;
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != EMPTY) {
+				startWires[j] = (int) (keys[i] >>> 32);
+				endWires[j] = (int) keys[i];
+				rts[j++] = values[i];
+			}
+		}
+	}
+
+	interface Visitor {
+		void visit(int startWire, int endWire, PIPRouteThrough rt);
+	}
+}
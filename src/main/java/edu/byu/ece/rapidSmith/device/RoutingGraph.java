@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+
+package edu.byu.ece.rapidSmith.device;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * An index of the general routing of a device stored in primitive arrays.
+ * Every tile wire in the device is given a dense integer node ID and the
+ * connections between tile wires are stored as edges in compressed sparse row
+ * form.  The fanout edges of node {@code n} are the edges in the range
+ * [{@link #getFanoutStart(int) getFanoutStart(n)}, {@link #getFanoutEnd(int) getFanoutEnd(n)})
+ * and the fanin edges are stored the same way.
+ * <p>
+ * The node IDs of the wires in a tile are contiguous and ordered by wire
+ * enumeration.  Nodes are translated to and from {@link TileWire}s with
+ * {@link #getTileWire(int)} and {@link #getNode(TileWire)}.
+ * <p>
+ * The graph is a snapshot of the device's wire connections at the time it was
+ * built and is immutable once built.  Building the graph touches every tile
+ * so it is best built once and shared.
+ */
+public final class RoutingGraph {
+	/** Edge flag set if the edge is a PIP */
+	public static final byte PIP = 0x1;
+	/** Edge flag set if the edge is a route-through */
+	public static final byte ROUTE_THROUGH = 0x2;
+
+	private final Device device;
+	private final int columns;
+
+	/** First node of each tile indexed by the tile's unique address */
+	private final int[] tileNodeStart;
+	/** Wire enumeration of each node */
+	private final int[] nodeWire;
+	/** Unique address of the tile of each node */
+	private final int[] nodeTile;
+
+	private final int[] fanoutStart;
+	private final int[] fanoutNode;
+	private final byte[] fanoutFlags;
+
+	private final int[] faninStart;
+	private final int[] faninNode;
+	private final byte[] faninFlags;
+
+	/**
+	 * Builds the routing graph of {@code device}.
+	 *
+	 * @param device the device to build the graph of
+	 */
+	public RoutingGraph(Device device) {
+		this.device = Objects.requireNonNull(device);
+		this.columns = device.getColumns();
+		int numTiles = device.getRows() * columns;
+
+		// Collect the wires of each tile.  Wires only appearing as the sink of
+		// a connection from another tile are included as well.
+		int[][] tileWires = new int[numTiles][];
+		int[] tileWireCounts = new int[numTiles];
+		for (int t = 0; t < numTiles; t++) {
+			Tile tile = device.getTile(t);
+			tileWires[t] = new int[8];
+			addKeys(tile.getWireHashMap(), t, tileWires, tileWireCounts);
+			addKeys(tile.getReverseWireHashMap(), t, tileWires, tileWireCounts);
+		}
+		for (int t = 0; t < numTiles; t++) {
+			Tile tile = device.getTile(t);
+			WireHashMap wires = tile.getWireHashMap();
+			if (wires == null)
+				continue;
+			for (WireConnection[] wcs : wires.values()) {
+				if (wcs == null)
+					continue;
+				for (WireConnection wc : wcs) {
+					Tile sinkTile = wc.getTile(tile);
+					if (sinkTile != null)
+						add(sinkTile.getUniqueAddress(), wc.getWire(), tileWires, tileWireCounts);
+				}
+			}
+		}
+
+		// Assign the node IDs
+		tileNodeStart = new int[numTiles + 1];
+		int numNodes = 0;
+		for (int t = 0; t < numTiles; t++) {
+			int[] wires = tileWires[t];
+			Arrays.sort(wires, 0, tileWireCounts[t]);
+			int unique = 0;
+			for (int i = 0; i < tileWireCounts[t]; i++) {
+				if (unique == 0 || wires[unique - 1] != wires[i])
+					wires[unique++] = wires[i];
+			}
+			tileWireCounts[t] = unique;
+			tileNodeStart[t] = numNodes;
+			numNodes += unique;
+		}
+		tileNodeStart[numTiles] = numNodes;
+
+		nodeWire = new int[numNodes];
+		nodeTile = new int[numNodes];
+		for (int t = 0; t < numTiles; t++) {
+			System.arraycopy(tileWires[t], 0, nodeWire, tileNodeStart[t], tileWireCounts[t]);
+			Arrays.fill(nodeTile, tileNodeStart[t], tileNodeStart[t + 1], t);
+			tileWires[t] = null;
+		}
+
+		// Build the fanout edges, counting them first to size the arrays
+		fanoutStart = new int[numNodes + 1];
+		int numEdges = 0;
+		for (int node = 0; node < numNodes; node++) {
+			fanoutStart[node] = numEdges;
+			Tile tile = device.getTile(nodeTile[node]);
+			WireConnection[] wcs = tile.getWireConnections(nodeWire[node]);
+			if (wcs == null)
+				continue;
+			for (WireConnection wc : wcs) {
+				if (wc.getTile(tile) != null)
+					numEdges++;
+			}
+		}
+		fanoutStart[numNodes] = numEdges;
+
+		fanoutNode = new int[numEdges];
+		fanoutFlags = new byte[numEdges];
+		for (int node = 0; node < numNodes; node++) {
+			Tile tile = device.getTile(nodeTile[node]);
+			int wire = nodeWire[node];
+			WireConnection[] wcs = tile.getWireConnections(wire);
+			if (wcs == null)
+				continue;
+			int edge = fanoutStart[node];
+			for (WireConnection wc : wcs) {
+				Tile sinkTile = wc.getTile(tile);
+				if (sinkTile == null)
+					continue;
+				fanoutNode[edge] = getNode(sinkTile, wc.getWire());
+				byte flags = 0;
+				if (wc.isPIP())
+					flags |= PIP;
+				if (device.isRouteThrough(wire, wc.getWire()))
+					flags |= ROUTE_THROUGH;
+				fanoutFlags[edge] = flags;
+				edge++;
+			}
+		}
+
+		// The fanin edges are the transpose of the fanout edges
+		faninStart = new int[numNodes + 1];
+		for (int edge = 0; edge < numEdges; edge++)
+			faninStart[fanoutNode[edge] + 1]++;
+		for (int node = 0; node < numNodes; node++)
+			faninStart[node + 1] += faninStart[node];
+		faninNode = new int[numEdges];
+		faninFlags = new byte[numEdges];
+		int[] next = Arrays.copyOf(faninStart, numNodes);
+		for (int node = 0; node < numNodes; node++) {
+			for (int edge = fanoutStart[node]; edge < fanoutStart[node + 1]; edge++) {
+				int i = next[fanoutNode[edge]]++;
+				faninNode[i] = node;
+				faninFlags[i] = fanoutFlags[edge];
+			}
+		}
+	}
+
+	private static void addKeys(WireHashMap map, int tile, int[][] tileWires, int[] tileWireCounts) {
+		if (map == null)
+			return;
+		for (int slot = 0; slot < map.capacity(); slot++) {
+			int key = map.keyAt(slot);
+			if (key != -1)
+				add(tile, key, tileWires, tileWireCounts);
+		}
+	}
+
+	private static void add(int tile, int wire, int[][] tileWires, int[] tileWireCounts) {
+		int[] wires = tileWires[tile];
+		int count = tileWireCounts[tile];
+		if (count == wires.length) {
+			wires = Arrays.copyOf(wires, wires.length * 2);
+			tileWires[tile] = wires;
+		}
+		wires[count] = wire;
+		tileWireCounts[tile] = count + 1;
+	}
+
+	/**
+	 * Returns the device this graph was built from.
+	 */
+	public Device getDevice() {
+		return device;
+	}
+
+	public int getNodeCount() {
+		return nodeWire.length;
+	}
+
+	public int getEdgeCount() {
+		return fanoutNode.length;
+	}
+
+	/**
+	 * Returns the node ID of the wire {@code wire} in {@code tile}.
+	 *
+	 * @return the node ID or -1 if the wire does not exist in the tile
+	 */
+	public int getNode(Tile tile, int wire) {
+		int t = tile.getUniqueAddress();
+		int start = tileNodeStart[t];
+		int end = tileNodeStart[t + 1];
+		int i = Arrays.binarySearch(nodeWire, start, end, wire);
+		return i < 0 ? -1 : i;
+	}
+
+	/**
+	 * Returns the node ID of {@code wire}.
+	 *
+	 * @return the node ID or -1 if the wire does not exist
+	 */
+	public int getNode(TileWire wire) {
+		return getNode(wire.getTile(), wire.getWireEnum());
+	}
+
+	public TileWire getTileWire(int node) {
+		return new TileWire(getTile(node), nodeWire[node]);
+	}
+
+	public Tile getTile(int node) {
+		return device.getTile(nodeTile[node]);
+	}
+
+	/**
+	 * Returns the unique address of the tile of the node.  The address can be
+	 * used to compare tiles without creating objects.
+	 *
+	 * @see Tile#getUniqueAddress()
+	 */
+	public int getTileAddress(int node) {
+		return nodeTile[node];
+	}
+
+	public int getTileRow(int node) {
+		return nodeTile[node] / columns;
+	}
+
+	public int getTileColumn(int node) {
+		return nodeTile[node] % columns;
+	}
+
+	public int getWireEnum(int node) {
+		return nodeWire[node];
+	}
+
+	/** Returns the index of the first fanout edge of the node. */
+	public int getFanoutStart(int node) {
+		return fanoutStart[node];
+	}
+
+	/** Returns the index after the last fanout edge of the node. */
+	public int getFanoutEnd(int node) {
+		return fanoutStart[node + 1];
+	}
+
+	/** Returns the node driven by the fanout edge. */
+	public int getFanoutNode(int edge) {
+		return fanoutNode[edge];
+	}
+
+	/** Returns the {@link #PIP} and {@link #ROUTE_THROUGH} flags of the fanout edge. */
+	public byte getFanoutFlags(int edge) {
+		return fanoutFlags[edge];
+	}
+
+	/** Returns the index of the first fanin edge of the node. */
+	public int getFaninStart(int node) {
+		return faninStart[node];
+	}
+
+	/** Returns the index after the last fanin edge of the node. */
+	public int getFaninEnd(int node) {
+		return faninStart[node + 1];
+	}
+
+	/** Returns the node driving the fanin edge. */
+	public int getFaninNode(int edge) {
+		return faninNode[edge];
+	}
+
+	/** Returns the {@link #PIP} and {@link #ROUTE_THROUGH} flags of the fanin edge. */
+	public byte getFaninFlags(int edge) {
+		return faninFlags[edge];
+	}
+}
@@ -44,8 +44,11 @@ public final class Site implements Serializable{
 	private Integer instanceY;
 	/** The bondedness of the site */
 	private BondedType bondedType;
-	/** Stores the template of the type that has been assigned to this site. */
-	private SiteTemplate template;
+	/**
+	 * Stores the template of the type that has been assigned to this site.
+	 * Volatile since the type may be changed while the device is shared.
+	 */
+	private volatile SiteTemplate template;
 	/** List of possible types for this site. */
 	private SiteType[] possibleTypes;
 	/**
@@ -137,6 +140,15 @@ public final class Site implements Serializable{
 		return instanceY;
 	}
 	
+	/**
+	 * Sets the XY coordinates of this site directly.  Used when loading
+	 * devices whose coordinates have already been computed.
+	 */
+	void setInstanceCoordinates(int instanceX, int instanceY) {
+		this.instanceX = instanceX;
+		this.instanceY = instanceY;
+	}
+
 	/**
 	 * Sets the XY coordinates for this site based on the name.
 	 * @param name the name of the site to infer and set the XY coordinates of.
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+
+package edu.byu.ece.rapidSmith.device;
+
+import java.util.*;
+
+/**
+ * A spatial index over a set of sites.  Sites are located by the row and column
+ * of their tile and distances are Manhattan distances in tiles.  The sites are
+ * stored in square buckets of tiles so queries only visit the buckets near the
+ * queried location.
+ * <p>
+ * Indexes of the sites compatible with a site type are built and cached by
+ * {@link Device#getCompatibleSiteIndex(SiteType)}.  An index is immutable and
+ * safe to share between threads.
+ */
+public final class SiteIndex {
+	/** Width and height of a bucket in tiles */
+	private static final int BUCKET_SIZE = 8;
+
+	private final int bucketRows;
+	private final int bucketColumns;
+	/** Index of the first site of each bucket in the sites array */
+	private final int[] bucketStart;
+	/** The sites ordered by bucket */
+	private final Site[] sites;
+	private final int[] siteRows;
+	private final int[] siteColumns;
+
+	/**
+	 * Builds an index over {@code sites}.
+	 *
+	 * @param device the device the sites are in
+	 * @param sites the sites to index
+	 */
+	public SiteIndex(Device device, Collection<Site> sites) {
+		bucketRows = Math.max(1, (device.getRows() + BUCKET_SIZE - 1) / BUCKET_SIZE);
+		bucketColumns = Math.max(1, (device.getColumns() + BUCKET_SIZE - 1) / BUCKET_SIZE);
+
+		bucketStart = new int[bucketRows * bucketColumns + 1];
+		for (Site site : sites)
+			bucketStart[bucketOf(site.getTile()) + 1]++;
+		for (int b = 0; b < bucketRows * bucketColumns; b++)
+			bucketStart[b + 1] += bucketStart[b];
+
+		this.sites = new Site[sites.size()];
+		this.siteRows = new int[sites.size()];
+		this.siteColumns = new int[sites.size()];
+		int[] next = Arrays.copyOf(bucketStart, bucketRows * bucketColumns);
+		for (Site site : sites) {
+			Tile tile = site.getTile();
+			int i = next[bucketOf(tile)]++;
+			this.sites[i] = site;
+			siteRows[i] = tile.getRow();
+			siteColumns[i] = tile.getColumn();
+		}
+	}
+
+	private int bucketOf(Tile tile) {
+		return bucketRow(tile.getRow()) * bucketColumns + bucketColumn(tile.getColumn());
+	}
+
+	private int bucketRow(int row) {
+		return Math.max(0, Math.min(bucketRows - 1, row / BUCKET_SIZE));
+	}
+
+	private int bucketColumn(int column) {
+		return Math.max(0, Math.min(bucketColumns - 1, column / BUCKET_SIZE));
+	}
+
+	/**
+	 * @return the number of sites in the index
+	 */
+	public int size() {
+		return sites.length;
+	}
+
+	/**
+	 * @return an unmodifiable list of all sites in the index
+	 */
+	public List<Site> getSites() {
+		return Collections.unmodifiableList(Arrays.asList(sites));
+	}
+
+	/**
+	 * Returns the sites whose tiles are in the rectangle.  The bounds are inclusive.
+	 */
+	public List<Site> getSitesInRectangle(int minRow, int minColumn, int maxRow, int maxColumn) {
+		List<Site> found = new ArrayList<>();
+		if (minRow > maxRow || minColumn > maxColumn)
+			return found;
+		for (int br = bucketRow(minRow); br <= bucketRow(maxRow); br++) {
+			for (int bc = bucketColumn(minColumn); bc <= bucketColumn(maxColumn); bc++) {
+				int bucket = br * bucketColumns + bc;
+				for (int i = bucketStart[bucket]; i < bucketStart[bucket + 1]; i++) {
+					if (siteRows[i] >= minRow && siteRows[i] <= maxRow &&
+							siteColumns[i] >= minColumn && siteColumns[i] <= maxColumn)
+						found.add(sites[i]);
+				}
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Returns the sites whose tiles are within Manhattan distance {@code distance}
+	 * of the tile at {@code row}, {@code column}.
+	 */
+	public List<Site> getSitesWithinDistance(int row, int column, int distance) {
+		List<Site> found = new ArrayList<>();
+		if (distance < 0)
+			return found;
+		for (int br = bucketRow(row - distance); br <= bucketRow(row + distance); br++) {
+			for (int bc = bucketColumn(column - distance); bc <= bucketColumn(column + distance); bc++) {
+				int bucket = br * bucketColumns + bc;
+				for (int i = bucketStart[bucket]; i < bucketStart[bucket + 1]; i++) {
+					if (distance(i, row, column) <= distance)
+						found.add(sites[i]);
+				}
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Returns the sites whose tiles are within Manhattan distance {@code distance}
+	 * of {@code tile}.
+	 */
+	public List<Site> getSitesWithinDistance(Tile tile, int distance) {
+		return getSitesWithinDistance(tile.getRow(), tile.getColumn(), distance);
+	}
+
+	/**
+	 * Returns the {@code k} sites nearest to the tile at {@code row}, {@code column}
+	 * ordered from nearest to farthest.  Fewer sites are returned if the index
+	 * contains fewer than {@code k} sites.
+	 */
+	public List<Site> getNearestSites(int row, int column, int k) {
+		if (k <= 0 || sites.length == 0)
+			return new ArrayList<>();
+
+		// max heap of the nearest sites found so far
+		PriorityQueue<Integer> nearest = new PriorityQueue<>(k, (a, b) -> {
+			int cmp = Integer.compare(distance(b, row, column), distance(a, row, column));
+			return cmp != 0 ? cmp : Integer.compare(b, a);
+		});
+
+		// visit the buckets in rings around the bucket of the location
+		int centerRow = bucketRow(row);
+		int centerColumn = bucketColumn(column);
+		int maxRing = Math.max(bucketRows, bucketColumns);
+		for (int ring = 0; ring <= maxRing; ring++) {
+			if (nearest.size() == k && minDistance(ring, centerRow, centerColumn, row, column) >
+					distance(nearest.peek(), row, column))
+				break;
+			for (int br = centerRow - ring; br <= centerRow + ring; br++) {
+				if (br < 0 || br >= bucketRows)
+					continue;
+				boolean edgeRow = br == centerRow - ring || br == centerRow + ring;
+				int step = edgeRow ? 1 : Math.max(1, 2 * ring);
+				for (int bc = centerColumn - ring; bc <= centerColumn + ring; bc += step) {
+					if (bc < 0 || bc >= bucketColumns)
+						continue;
+					int bucket = br * bucketColumns + bc;
+					for (int i = bucketStart[bucket]; i < bucketStart[bucket + 1]; i++) {
+						nearest.add(i);
+						if (nearest.size() > k)
+							nearest.poll();
+					}
+				}
+			}
+		}
+
+		Site[] found = new Site[nearest.size()];
+		for (int i = found.length - 1; i >= 0; i--)
+			found[i] = sites[nearest.poll()];
+		return new ArrayList<>(Arrays.asList(found));
+	}
+
+	/**
+	 * Returns the {@code k} sites nearest to {@code tile} ordered from nearest to
+	 * farthest.
+	 */
+	public List<Site> getNearestSites(Tile tile, int k) {
+		return getNearestSites(tile.getRow(), tile.getColumn(), k);
+	}
+
+	private int distance(int site, int row, int column) {
+		return Math.abs(siteRows[site] - row) + Math.abs(siteColumns[site] - column);
+	}
+
+	/**
+	 * Returns a lower bound of the distance from the location to any site in the
+	 * buckets of the ring.
+	 */
+	private int minDistance(int ring, int centerRow, int centerColumn, int row, int column) {
+		int min = Integer.MAX_VALUE;
+		for (int br = centerRow - ring; br <= centerRow + ring; br++) {
+			if (br < 0 || br >= bucketRows)
+				continue;
+			boolean edgeRow = br == centerRow - ring || br == centerRow + ring;
+			int step = edgeRow ? 1 : Math.max(1, 2 * ring);
+			for (int bc = centerColumn - ring; bc <= centerColumn + ring; bc += step) {
+				if (bc < 0 || bc >= bucketColumns)
+					continue;
+				int dr = Math.max(0, Math.max(br * BUCKET_SIZE - row, row - (br * BUCKET_SIZE + BUCKET_SIZE - 1)));
+				int dc = Math.max(0, Math.max(bc * BUCKET_SIZE - column, column - (bc * BUCKET_SIZE + BUCKET_SIZE - 1)));
+				min = Math.min(min, dr + dc);
+			}
+		}
+		return min;
+	}
+}
@@ -114,6 +114,12 @@ public class SiteWire implements Wire, Serializable {
 		return site.getWireConnections(siteType, wire);
 	}
 
+	@Override
+	public ConnectionCursor getWireConnections(ConnectionCursor cursor) {
+		cursor.reset(this, site.getWireConnections(siteType, wire), false);
+		return cursor;
+	}
+
 	@Override
 	public Collection<SitePin> getAllConnectedPins() {
 		return singleton(getConnectedPin());
@@ -150,6 +156,12 @@ public class SiteWire implements Wire, Serializable {
 		return site.getReverseConnections(siteType, wire);
 	}
 
+	@Override
+	public ConnectionCursor getReverseWireConnections(ConnectionCursor cursor) {
+		cursor.reset(this, site.getReverseConnections(siteType, wire), true);
+		return cursor;
+	}
+
 	@Override
 	public Collection<SitePin> getAllReverseSitePins() {
 		return singleton(getReverseConnectedPin());
@@ -59,6 +59,18 @@ public class Tile implements Serializable {
 
 	private WireHashMap reverseWireConnections;
 
+	/** Marks a wire map that is not waiting to be loaded */
+	private static final int LOADED = Integer.MIN_VALUE;
+	/**
+	 * Device file the wire connections of this tile are loaded from on first use.
+	 * Null unless the device was loaded with lazy wire connections.
+	 */
+	private transient MappedDeviceFile connectionSource;
+	/** Index of the forward wire map in the connection source or LOADED */
+	private transient volatile int pendingWireMap = LOADED;
+	/** Index of the reverse wire map in the connection source or LOADED */
+	private transient volatile int pendingReverseWireMap = LOADED;
+
 	/**
 	 * Map of the wires to the index of the site the wire connects to.  This is
 	 * needed since it is the job of the site to create the site pin, but we need
@@ -245,7 +257,7 @@ public class Tile implements Serializable {
 	 * @return The wires HashMap for this tile.
 	 */
 	public WireHashMap getWireHashMap() {
-		return wireConnections;
+		return wireConnections();
 	}
 
 	/**
@@ -256,6 +268,7 @@ public class Tile implements Serializable {
 	 */
 	public void setWireHashMap(WireHashMap wires) {
 		this.wireConnections = wires;
+		pendingWireMap = LOADED;
 	}
 
 	/**
@@ -263,7 +276,7 @@ public class Tile implements Serializable {
 	 * @return Collection of TileWire objects.
 	 */
 	public Collection<Wire> getWires() {
-		Stream<Integer> allWires = wireConnections.keySet().stream();
+		Stream<Integer> allWires = wireConnections().keySet().stream();
 		return allWires
 			.distinct()
 			.map(w -> new TileWire(this, w))
@@ -291,7 +304,7 @@ public class Tile implements Serializable {
 		// TODO wireConnections.keySet method creates a hashSet.  We can speed this
 		// up by adding a containsKey to the WireConnections class
 		Integer wireEnum = getDevice().getWireEnumerator().getWireEnum(wireName);
-		return wireEnum != null && wireConnections.keySet().contains(wireEnum);
+		return wireEnum != null && wireConnections().keySet().contains(wireEnum);
 	}
 
 	/**
@@ -302,16 +315,18 @@ public class Tile implements Serializable {
 	 * @return An array of wires which connect to the given wire.
 	 */
 	public WireConnection[] getWireConnections(int wire) {
+		WireHashMap wireConnections = wireConnections();
 		if (wireConnections == null)
 			return new WireConnection[0];
 		return wireConnections.get(wire);
 	}
 
 	public WireHashMap getReverseWireHashMap() {
-		return reverseWireConnections;
+		return reverseWireConnections();
 	}
 
 	public WireConnection[] getReverseConnections(int wire) {
+		WireHashMap reverseWireConnections = reverseWireConnections();
 		if (reverseWireConnections == null)
 			return new WireConnection[0];
 		return reverseWireConnections.get(wire);
@@ -319,6 +334,49 @@ public class Tile implements Serializable {
 
 	public void setReverseWireConnections(WireHashMap reverseWireConnections) {
 		this.reverseWireConnections = reverseWireConnections;
+		pendingReverseWireMap = LOADED;
+	}
+
+	/**
+	 * Defers loading the wire connections of this tile until they are first
+	 * requested.  The maps are decoded from {@code source} then.
+	 */
+	void setLazyWireConnections(MappedDeviceFile source, int wireMap, int reverseWireMap) {
+		this.connectionSource = source;
+		this.wireConnections = null;
+		this.reverseWireConnections = null;
+		this.pendingWireMap = wireMap;
+		this.pendingReverseWireMap = reverseWireMap;
+	}
+
+	/**
+	 * Returns true if the forward or reverse wire connections of this tile
+	 * have not been loaded yet.
+	 */
+	boolean hasPendingWireConnections() {
+		return pendingWireMap != LOADED || pendingReverseWireMap != LOADED;
+	}
+
+	/*
+	   Wire map accessors which load the maps if the tile was loaded lazily.  The
+	   source caches the decoded maps, so concurrent first calls get the same map.
+	 */
+	private WireHashMap wireConnections() {
+		int pending = pendingWireMap;
+		if (pending != LOADED) {
+			wireConnections = connectionSource.getWireHashMap(pending);
+			pendingWireMap = LOADED;
+		}
+		return wireConnections;
+	}
+
+	private WireHashMap reverseWireConnections() {
+		int pending = pendingReverseWireMap;
+		if (pending != LOADED) {
+			reverseWireConnections = connectionSource.getWireHashMap(pending);
+			pendingReverseWireMap = LOADED;
+		}
+		return reverseWireConnections;
 	}
 
 	/**
@@ -333,7 +391,7 @@ public class Tile implements Serializable {
 	}
 
 	private boolean hasConnection(int startWire, int endWire) {
-		WireConnection[] wireConns = wireConnections.get(startWire);
+		WireConnection[] wireConns = wireConnections().get(startWire);
 		if (wireConns != null && wireConns.length >= 0) {
 			for (WireConnection wc : wireConns) {
 				if (wc.getWire() == endWire && wc.isPIP()) {
@@ -355,6 +413,7 @@ public class Tile implements Serializable {
 	 */
 	public ArrayList<PIP> getPIPs() {
 		ArrayList<PIP> pips = new ArrayList<>();
+		WireHashMap wireConnections = wireConnections();
 		for (Integer startWire : wireConnections.keySet()) {
 			TileWire start = new TileWire(this, startWire);
 			for (WireConnection endWire : wireConnections.get(startWire)) {
@@ -516,8 +575,8 @@ public class Tile implements Serializable {
 		repl.name = name;
 		repl.type = type;
 		repl.sites = sites;
-		repl.wireConnections = wireConnections;
-		repl.reverseConnections = reverseWireConnections;
+		repl.wireConnections = wireConnections();
+		repl.reverseConnections = reverseWireConnections();
 
 		return repl;
 	}
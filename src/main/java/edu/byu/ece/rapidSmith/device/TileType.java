@@ -20,9 +20,10 @@
 package edu.byu.ece.rapidSmith.device;
 
 import java.io.Serializable;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This class represents the types of tiles in a device (eg. CLBLM, RAMB36E1).  Values
@@ -30,8 +31,8 @@ import java.util.Objects;
  */
 public final class TileType implements Comparable<TileType>, Serializable {
 	private static final long serialVersionUID = -4299672560706873783L;
-	private static int nextOrdinal = 0;
-	private static final Map<FamilyType, Map<String, TileType>> types = new HashMap<>();
+	private static final AtomicInteger nextOrdinal = new AtomicInteger();
+	private static final Map<FamilyType, Map<String, TileType>> types = new ConcurrentHashMap<>();
 	private final FamilyType family;
 	private final String name;
 	private final int ordinal;
@@ -92,7 +93,8 @@ public final class TileType implements Comparable<TileType>, Serializable {
 	/**
 	 * Returns the constant of this type with the specified name. The string must match
 	 * exactly an identifier used to declare an enum constant in this type. (Extraneous
-	 * whitespace characters are not permitted.)
+	 * whitespace characters are not permitted.)  Types are kept in a concurrent
+	 * registry, so this method may be called from multiple threads.
 	 * @return the constant with the specified name
 	 */
 	public static TileType valueOf(FamilyType family, String name) {
@@ -100,10 +102,14 @@ public final class TileType implements Comparable<TileType>, Serializable {
 		Objects.requireNonNull(name);
 
 		name = name.toUpperCase();
-		synchronized (types) {
-			Map<String, TileType> familyTypes = types.computeIfAbsent(family, k -> new HashMap<>());
-			return familyTypes.computeIfAbsent(name, k -> new TileType(family, k, nextOrdinal++));
-		}
+		Map<String, TileType> familyTypes = types.get(family);
+		if (familyTypes == null)
+			familyTypes = types.computeIfAbsent(family, k -> new ConcurrentHashMap<>());
+		TileType type = familyTypes.get(name);
+		if (type != null)
+			return type;
+		// computeIfAbsent creates each type once, so no ordinal is used twice
+		return familyTypes.computeIfAbsent(name, k -> new TileType(family, k, nextOrdinal.getAndIncrement()));
 	}
 
 	private static class TileTypeReplace implements Serializable {
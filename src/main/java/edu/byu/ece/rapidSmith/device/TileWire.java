@@ -112,6 +112,12 @@ public class TileWire implements Wire, Serializable {
 		return tile.getWireConnections(wire);
 	}
 
+	@Override
+	public ConnectionCursor getWireConnections(ConnectionCursor cursor) {
+		cursor.reset(this, tile.getWireHashMap(), false);
+		return cursor;
+	}
+
 	@Override
 	public Collection<SitePin> getAllConnectedPins() {
 		Collection<SitePin> sitePins = tile.getSitePinsOfWire(this.wire);
@@ -157,6 +163,12 @@ public class TileWire implements Wire, Serializable {
 		return tile.getReverseConnections(wire);
 	}
 
+	@Override
+	public ConnectionCursor getReverseWireConnections(ConnectionCursor cursor) {
+		cursor.reset(this, tile.getReverseWireHashMap(), true);
+		return cursor;
+	}
+
 	@Override
 	public Collection<SitePin> getAllReverseSitePins() {
 		Collection<SitePin> sitePins = tile.getSitePinsOfWire(this.wire);
@@ -55,6 +55,16 @@ public interface Wire extends Serializable {
 	
 	WireConnection[] getWireConnectionsArray();
 
+	/**
+	 * Positions {@code cursor} before the first connection linking this wire to
+	 * other wires in the same hierarchy.  Unlike {@link #getWireConnections()},
+	 * this method does not create any objects.
+	 *
+	 * @param cursor the cursor to reuse
+	 * @return {@code cursor}
+	 */
+	ConnectionCursor getWireConnections(ConnectionCursor cursor);
+
 	/**
 	 * Returns the connected site pins for each possible type of the connected site.
 	 * @return all connected sites pins of this wire
@@ -80,6 +90,16 @@ public interface Wire extends Serializable {
 	
 	WireConnection[] getReverseWireConnectionsArray();
 
+	/**
+	 * Positions {@code cursor} before the first connection linking this wire to
+	 * its drivers in the same hierarchy.  Unlike {@link #getReverseWireConnections()},
+	 * this method does not create any objects.
+	 *
+	 * @param cursor the cursor to reuse
+	 * @return {@code cursor}
+	 */
+	ConnectionCursor getReverseWireConnections(ConnectionCursor cursor);
+
 	/**
 	 * Returns the connected site pins for each possible type of the connected site.
 	 * @return all connected sites pins of this wire
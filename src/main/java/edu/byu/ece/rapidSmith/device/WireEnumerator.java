@@ -21,6 +21,7 @@
 package edu.byu.ece.rapidSmith.device;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -40,6 +41,8 @@ public class WireEnumerator implements Serializable {
     private WireType[] wireTypes;
     /** The Directions of each wire */
     private WireDirection[] wireDirections;
+    /** Compact index of the wire names, created on demand by findWireEnum() */
+    private transient volatile NameIndex nameIndex;
 
     /**
      * Returns the map of wire names to wire enumerations.
@@ -61,6 +64,51 @@ public class WireEnumerator implements Serializable {
         return wireMap.get(wireName);
     }
 
+    /**
+     * Returns the enumeration of the wire with the specified name.  Unlike
+     * {@link #getWireEnum(String)}, this method does not box the enumeration.
+     *
+     * @param wireName name of the wire
+     * @return the enumeration of the wire or -1 if no wire with the name exists
+     */
+    public int findWireEnum(CharSequence wireName) {
+        return getNameIndex().indexOf(wireName);
+    }
+
+    /**
+     * Returns the enumeration of the wire with the name held by the region
+     * {@code [start, end)} of the character sequence.  Lets parsers look up
+     * wire names without creating a string for each name.
+     *
+     * @return the enumeration of the wire or -1 if no wire with the name exists
+     */
+    public int findWireEnum(CharSequence chars, int start, int end) {
+        return getNameIndex().indexOf(chars, start, end);
+    }
+
+    /**
+     * Returns the enumeration of the wire with the name held as UTF-8 by the
+     * region of the byte array.
+     *
+     * @return the enumeration of the wire or -1 if no wire with the name exists
+     */
+    public int findWireEnum(byte[] bytes, int offset, int length) {
+        return getNameIndex().indexOf(bytes, offset, length);
+    }
+
+    /**
+     * Returns the index of the wire names, building it on first use.  The ID of
+     * each name in the index is the enumeration of the wire.
+     */
+    NameIndex getNameIndex() {
+        NameIndex index = nameIndex;
+        if (index == null) {
+            index = new NameIndex(Arrays.asList(wires));
+            nameIndex = index;
+        }
+        return index;
+    }
+
     /**
      * Sets the map of wire names to wire enumerations.
      *
@@ -100,6 +148,7 @@ public class WireEnumerator implements Serializable {
      */
     public void setWires(String[] wires) {
         this.wires = wires;
+        this.nameIndex = null;
     }
 
     /**
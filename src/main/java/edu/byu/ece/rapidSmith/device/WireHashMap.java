@@ -65,17 +65,19 @@ public class WireHashMap implements Serializable {
 	 */
 	private int size;
 
-	// These variables are used to track the whether the caches are up to date.
-	// A cache is up to date if it is equivalent to the wireHashMapModification
-	// value.  Any put operation updates the wireHashMapModification value
+	// Tracks whether the caches are up to date.  A cache is up to date if it was
+	// built at the current wireHashMapModification value.  Any put operation
+	// updates the wireHashMapModification value.
 	private transient int wireHashMapModification = 0;
-	private transient int keySetCacheModification = -1; // initialize as out of date
-	private transient int valuesCacheModification = -1; // initialize as out of date
 
 	// Caches are stored as soft references to avoid being a memory drain
-	// when not in use.
-	private transient SoftReference<Set<Integer>> keySetCache;
-	private transient SoftReference<ArrayList<WireConnection[]>> valuesCache;
+	// when not in use.  A cache is replaced rather than updated, so readers of a
+	// frozen map always see a complete cache.
+	private transient volatile SoftReference<Cache<Set<Integer>>> keySetCache;
+	private transient volatile SoftReference<Cache<ArrayList<WireConnection[]>>> valuesCache;
+
+	/** Set once the map may be shared between threads.  Frozen maps cannot be modified. */
+	private transient volatile boolean frozen;
 
 	/**
 	 * The next size value at which to resize (capacity * load factor).
@@ -117,7 +119,8 @@ public class WireHashMap implements Serializable {
 		size = 0;
 	}
 
-	private WireHashMap(float loadFactor) {
+	/** Creates a map without backing arrays for subclasses storing their entries elsewhere. */
+	WireHashMap(float loadFactor) {
 		this.loadFactor = loadFactor;
 	}
 
@@ -155,13 +158,20 @@ public class WireHashMap implements Serializable {
 		return values[i];
 	} 
 
+	/**
+	 * Maps the key to the connections.
+	 * @throws UnsupportedOperationException if this map is frozen
+	 */
 	public void put(int key, WireConnection[] value){
+		if (frozen)
+			throw new UnsupportedOperationException("Frozen wire maps cannot be modified");
 		int i = indexFor(key);
 		if(keys[i] == -1)
 			size++;
 		keys[i] = key;
 		values[i] = value;
 		wireHashMapModification++;
+		hash = null;
 
 		if(size > threshold){
 			grow();
@@ -184,59 +194,101 @@ public class WireHashMap implements Serializable {
 		}
 	}
 	
+	/**
+	 * Returns the keys of this map.  The set is cached and shared by all callers
+	 * and must not be modified.
+	 */
 	public Set<Integer> keySet(){
-		// check if the cached keySets are current
-		Set<Integer> keySet = keySetCache == null ? null : keySetCache.get();
-		if (keySet != null && keySetCacheModification == wireHashMapModification)
-			return keySet;
-		keySetCacheModification = wireHashMapModification;
+		// check if the cached keySet is current
+		SoftReference<Cache<Set<Integer>>> ref = keySetCache;
+		Cache<Set<Integer>> cache = ref == null ? null : ref.get();
+		int modification = wireHashMapModification;
+		if (cache != null && cache.modification == modification)
+			return cache.value;
 
 		// build the keyset cache
-		keySet = new HashSet<>();
-		for (int key : keys) {
+		Set<Integer> keySet = new HashSet<>();
+		for (int i = 0; i < capacity(); i++) {
+			int key = keyAt(i);
 			if (key != -1)
 				keySet.add(key);
 		}
-		keySetCache = new SoftReference<>(keySet);
+		keySetCache = new SoftReference<>(new Cache<>(modification, keySet));
 		return keySet;
 	}
-	
+
+	/**
+	 * Returns the connections of the keys of this map.  The list is cached and
+	 * shared by all callers and must not be modified.
+	 */
 	public ArrayList<WireConnection[]> values(){
-		// check if the cached values are current;
-		ArrayList<WireConnection[]> valuesList = valuesCache == null ? null : valuesCache.get();
-		if (valuesList != null && valuesCacheModification == wireHashMapModification)
-			return valuesList;
-		valuesCacheModification = wireHashMapModification;
+		// check if the cached values are current
+		SoftReference<Cache<ArrayList<WireConnection[]>>> ref = valuesCache;
+		Cache<ArrayList<WireConnection[]>> cache = ref == null ? null : ref.get();
+		int modification = wireHashMapModification;
+		if (cache != null && cache.modification == modification)
+			return cache.value;
 
 		// build the values cache
-		valuesList = new ArrayList<>(size);
+		ArrayList<WireConnection[]> valuesList = new ArrayList<>(size);
 		for (int i = 0; i < keys.length; i++) {
 			if(keys[i] != -1)
 				valuesList.add(values[i]);
 		}
-		valuesCache = new SoftReference<>(valuesList);
+		valuesCache = new SoftReference<>(new Cache<>(modification, valuesList));
 		return valuesList;
 	}
 
+	/** A cached view of the map and the modification it was built at. */
+	private static final class Cache<T> {
+		final int modification;
+		final T value;
+
+		Cache(int modification, T value) {
+			this.modification = modification;
+			this.value = value;
+		}
+	}
+
+	/**
+	 * Prevents further modification of this map.  A frozen map can be read by
+	 * any number of threads without locking.
+	 */
+	public void freeze() {
+		frozen = true;
+	}
+
+	/**
+	 * Returns true if this map has been frozen.
+	 */
+	public boolean isFrozen() {
+		return frozen;
+	}
+
 	@Override
 	public int hashCode() {
+		Integer hash = this.hash;
 		if (hash != null)
 			return hash;
-		hash = 0;
+		// computed locally so concurrent callers never see a partial hash
+		int h = 0;
 		for (Integer i : keySet()) {
-			hash += i * 7;
-			if (get(i) != null) {
-				hash += Arrays.deepHashCode(get(i)) * 13;
+			h += i * 7;
+			WireConnection[] wcs = get(i);
+			if (wcs != null) {
+				h += Arrays.deepHashCode(wcs) * 13;
 			}
 		}
-		return hash;
+		this.hash = h;
+		return h;
 	}
 
 	@Override
 	public boolean equals(Object obj) {
 		if (this == obj)
 			return true;
-		if ((obj == null) || (getClass() != obj.getClass()))
+		// heap and off-heap maps with the same entries are equal
+		if (!(obj instanceof WireHashMap))
 			return false;
 
 		WireHashMap other = (WireHashMap) obj;
@@ -261,45 +313,102 @@ public class WireHashMap implements Serializable {
 
 		@SuppressWarnings("unused")
 		private WireHashMap readResolve() {
-			WireHashMap whm = new WireHashMap(loadFactor);
-			whm.keys = new int[arrSize];
-			Arrays.fill(whm.keys, -1);
-			whm.values = new WireConnection[arrSize][];
-
-			for (int i = 0; i < keys.length; i++) {
-				whm.keys[indices[i]] = keys[i];
-				whm.values[indices[i]] = values[i];
-			}
+			return fromSlots(arrSize, loadFactor, keys, indices, values);
+		}
+	}
 
-			whm.size = keys.length;
-			whm.threshold = (int) (arrSize * loadFactor);
-			return whm;
+	/**
+	 * Rebuilds a map with the exact slot layout of a previously written map.
+	 * Used by the device file readers so that iteration order is preserved.
+	 */
+	static WireHashMap fromSlots(int arrSize, float loadFactor, int[] keys,
+			int[] indices, WireConnection[][] values) {
+		WireHashMap whm = new WireHashMap(loadFactor);
+		whm.keys = new int[arrSize];
+		Arrays.fill(whm.keys, -1);
+		whm.values = new WireConnection[arrSize][];
+
+		for (int i = 0; i < keys.length; i++) {
+			whm.keys[indices[i]] = keys[i];
+			whm.values[indices[i]] = values[i];
 		}
+
+		whm.size = keys.length;
+		whm.threshold = (int) (arrSize * loadFactor);
+		return whm;
+	}
+
+	/** Returns the number of slots in the backing arrays of this map. */
+	int capacity() {
+		return keys.length;
+	}
+
+	/** Returns the key stored in the given slot or -1 if the slot is empty. */
+	int keyAt(int slot) {
+		return keys[slot];
 	}
 
+	/** Returns the value stored in the given slot or null if the slot is empty. */
+	WireConnection[] valueAt(int slot) {
+		return values[slot];
+	}
+
+	float loadFactor() {
+		return loadFactor;
+	}
+
+	/**
+	 * Returns this map if lookups probe its slots, otherwise a heap map with the
+	 * same entries.  Used by the code which copies the slot layout of a map.
+	 */
+	WireHashMap slotLayout() {
+		return this;
+	}
+
+	// package private so that it also replaces the off-heap maps and can be
+	// overridden by maps written in another form
 	@SuppressWarnings("unused")
-	private WireHashMapReplace writeReplace() {
+	Object writeReplace() {
 		WireHashMapReplace repl = new WireHashMapReplace();
-		repl.arrSize = keys.length;
+		int size = size();
+		repl.arrSize = capacity();
 		repl.keys = new int[size];
 		repl.indices = new int[size];
 		repl.values = new WireConnection[size][];
 
 		int j = 0;
-		for (int i = 0; i < keys.length; i++) {
-			if (keys[i] != -1) {
-				repl.keys[j] = keys[i];
+		for (int i = 0; i < repl.arrSize; i++) {
+			int key = keyAt(i);
+			if (key != -1) {
+				repl.keys[j] = key;
 				repl.indices[j] = i;
-				repl.values[j] = values[i];
+				repl.values[j] = valueAt(i);
 				j++;
 			}
 		}
 
-		repl.loadFactor = loadFactor;
+		repl.loadFactor = loadFactor();
 
 		return repl;
 	}
 
+	/**
+	 * Returns a copy of this map which stores its keys and connections outside
+	 * of the Java heap.  See {@link OffHeapWireHashMap}.
+	 *
+	 * @return the off-heap copy of this map
+	 */
+	public WireHashMap toOffHeap() {
+		return OffHeapWireHashMap.copyOf(this);
+	}
+
+	/**
+	 * Returns true if the entries of this map are stored outside of the Java heap.
+	 */
+	public boolean isOffHeap() {
+		return false;
+	}
+
 	public static WireHashMap EMPTY_WIRE_HASHMAP;
 
 	static {
@@ -39,9 +39,20 @@ import java.io.IOException;
  */
 public class DeviceFilesCreator {
 	private final XDLRCRetriever xdlrcRetriever;
+	private final boolean singlePass;
 
 	public DeviceFilesCreator(XDLRCRetriever xdlrcRetriever) {
+		this(xdlrcRetriever, false);
+	}
+
+	/**
+	 * @param singlePass parse the XDLRC once, holding a recording of its tiles
+	 *   in memory instead of parsing it a second time
+	 * @see DeviceGenerator#generate(XDLRCSource, boolean)
+	 */
+	public DeviceFilesCreator(XDLRCRetriever xdlrcRetriever, boolean singlePass) {
 		this.xdlrcRetriever = xdlrcRetriever;
+		this.singlePass = singlePass;
 	}
 
 	/**
@@ -56,7 +67,7 @@ public class DeviceFilesCreator {
 
 		// Initialize Parser
 		DeviceGenerator generator = new DeviceGenerator();
-		Device device = generator.generate(source);
+		Device device = generator.generate(source, singlePass);
 
 		// Write the Device to File
 		System.out.println("Writing device to compact file");
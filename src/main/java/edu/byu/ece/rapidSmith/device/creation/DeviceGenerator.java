@@ -25,8 +25,10 @@ import edu.byu.ece.rapidSmith.device.*;
 import edu.byu.ece.rapidSmith.device.xdlrc.XDLRCParseProgressListener;
 import edu.byu.ece.rapidSmith.device.xdlrc.XDLRCParserListener;
 import edu.byu.ece.rapidSmith.device.xdlrc.XDLRCSource;
+import edu.byu.ece.rapidSmith.device.xdlrc.XDLRCTileRecorder;
 import edu.byu.ece.rapidSmith.primitiveDefs.*;
 import edu.byu.ece.rapidSmith.util.Exceptions;
+import edu.byu.ece.rapidSmith.util.ConcurrentHashPool;
 import edu.byu.ece.rapidSmith.util.HashPool;
 import edu.byu.ece.rapidSmith.util.PartNameTools;
 import org.jdom2.Document;
@@ -63,6 +65,10 @@ import static edu.byu.ece.rapidSmith.util.Exceptions.FileFormatException;
  * 2) Second parse
  * a) Build wire connection for each tile.  Preserve all connections that
  * are either sources or sinks of a site or a PIP
+ * <p>
+ * In single pass mode, the tiles are recorded by an {@link XDLRCTileRecorder}
+ * during the first parse and the listeners of the second parse are run on the
+ * recording instead of the file.
  */
 public final class DeviceGenerator {
 	private Device device;
@@ -74,19 +80,22 @@ public final class DeviceGenerator {
 	private final Set<String> pipSinks = new HashSet<>(PIP_CAPACITY);
 
 	/** Keeps track of each unique Wire object in the device */
-	private HashPool<WireConnection> wirePool;
+	private ConcurrentHashPool<WireConnection> wirePool;
 	/** Keeps track of each unique Wire[] object in the device */
-	private HashPool<WireArray> wireArrayPool;
+	private ConcurrentHashPool<WireArray> wireArrayPool;
 	/** Keeps track of all PIPRouteThrough objects */
-	private HashPool<PIPRouteThrough> routeThroughPool;
+	private ConcurrentHashPool<PIPRouteThrough> routeThroughPool;
 	/** Keeps Track of all unique Wire Lists that exist in Tiles */
-	private HashPool<WireHashMap> tileWiresPool;
+	private ConcurrentHashPool<WireHashMap> tileWiresPool;
 
-	private HashPool<Map<String, Integer>> externalWiresPool;
-	private HashPool<Map<SiteType, Map<String, Integer>>> externalWiresMapPool;
-	private HashPool<AlternativeTypes> alternativeTypesPool;
+	private ConcurrentHashPool<Map<String, Integer>> externalWiresPool;
+	private ConcurrentHashPool<Map<SiteType, Map<String, Integer>>> externalWiresMapPool;
+	private ConcurrentHashPool<AlternativeTypes> alternativeTypesPool;
 	private Set<Integer> siteWireSourceSet;
 	private Set<Integer> siteWireSinkSet;
+	/** Enumerations of the wires in pipSources and pipSinks */
+	private BitSet pipSourceWires;
+	private BitSet pipSinkWires;
 
 	/**
 	 * Generates and returns the Device created from the XDLRC at the specified
@@ -96,49 +105,71 @@ public final class DeviceGenerator {
 	 * @return the generated Device representation
 	 */
 	public Device generate(XDLRCSource xdlrcSource) throws IOException {
+		return generate(xdlrcSource, false);
+	}
+
+	/**
+	 * Generates and returns the Device created from the XDLRC at the specified
+	 * source.  In single pass mode, the XDLRC is parsed once and the wires,
+	 * connections and sites of each tile are recorded with the names replaced
+	 * by integer IDs.  The connections are resolved from the recording once the
+	 * tiles and wires of the device are known, creating the same device as the
+	 * two pass build while holding the recording in memory.
+	 *
+	 * @param xdlrcSource the XDLRC source containing the device description
+	 * @param singlePass parse the XDLRC once and resolve the connections from
+	 *   a recording of the tiles
+	 * @return the generated Device representation
+	 */
+	public Device generate(XDLRCSource xdlrcSource, boolean singlePass) throws IOException {
 		System.out.println("Generating device for file " + xdlrcSource.getFilePath());
 
 		this.device = new Device();
 		this.we = new WireEnumerator();
 		this.device.setWireEnumerator(we);
 
-		this.wirePool = new HashPool<>();
-		this.wireArrayPool = new HashPool<>();
-		this.routeThroughPool = new HashPool<>();
-		this.tileWiresPool = new HashPool<>();
-		this.externalWiresPool = new HashPool<>();
-		this.externalWiresMapPool = new HashPool<>();
-		this.alternativeTypesPool = new HashPool<>();
+		this.wirePool = new ConcurrentHashPool<>();
+		this.wireArrayPool = new ConcurrentHashPool<>();
+		this.routeThroughPool = new ConcurrentHashPool<>();
+		this.tileWiresPool = new ConcurrentHashPool<>();
+		this.externalWiresPool = new ConcurrentHashPool<>();
+		this.externalWiresMapPool = new ConcurrentHashPool<>();
+		this.alternativeTypesPool = new ConcurrentHashPool<>();
 
 		// Requires a two part iteration, the first to obtain the tiles and sites,
-		// and the second to gather the wires.  Two parses are required since the
-		// wires need to know the source and sink tiles.
-		System.out.println("Starting first pass");
+		// and the second to gather the wires.  Two parts are required since the
+		// wires need to know the source and sink tiles.  In single pass mode the
+		// second part runs on a recording of the tiles made during the first.
+		System.out.println(singlePass ? "Starting single pass" : "Starting first pass");
 		xdlrcSource.registerListener(new FamilyTypeListener());
 		xdlrcSource.registerListener(new WireEnumeratorListener());
 		xdlrcSource.registerListener(new TileAndSiteGeneratorListener());
 		xdlrcSource.registerListener(new PrimitiveDefsListener());
 		xdlrcSource.registerListener(new XDLRCParseProgressListener());
-		try {
-			xdlrcSource.parse();
-		} catch (IOException e) {
-			throw new IOException("Error handling file " + xdlrcSource.getFilePath(), e);
+		XDLRCTileRecorder recorder = null;
+		if (singlePass) {
+			recorder = new XDLRCTileRecorder();
+			xdlrcSource.registerListener(recorder);
 		}
+		parse(xdlrcSource);
 		xdlrcSource.clearListeners();
 
 		device.constructTileMap();
 		PrimitiveDefsCorrector.makeCorrections(device.getPrimitiveDefs(), familyInfo);
 		device.setSiteTemplates(createSiteTemplates());
 
-		System.out.println("Starting second pass");
-		xdlrcSource.registerListener(new WireConnectionGeneratorListener());
-		xdlrcSource.registerListener(new ReverseWireConnectionGeneratorListener());
-		xdlrcSource.registerListener(new SourceAndSinkListener());
-		xdlrcSource.registerListener(new XDLRCParseProgressListener());
-		try {
-			xdlrcSource.parse();
-		} catch (IOException e) {
-			throw new IOException("Error handling file " + xdlrcSource.getFilePath(), e);
+		List<XDLRCParserListener> connectionListeners = Arrays.asList(
+				new WireConnectionGeneratorListener(),
+				new ReverseWireConnectionGeneratorListener(),
+				new SourceAndSinkListener(),
+				new XDLRCParseProgressListener());
+		if (singlePass) {
+			System.out.println("Resolving recorded connections");
+			recorder.replay(connectionListeners);
+		} else {
+			System.out.println("Starting second pass");
+			connectionListeners.forEach(xdlrcSource::registerListener);
+			parse(xdlrcSource);
 		}
 
 		Map<Tile, Map<Integer, Set<WireConnection>>> wcsToAdd = getWCsToAdd(true);
@@ -148,9 +179,9 @@ public final class DeviceGenerator {
 
 		// These take up a lot of memory and we're going to regenerate each of these in the
 		// next step.  Clearing these will allow for better garbage collection
-		wirePool = new HashPool<>();
-		wireArrayPool = new HashPool<>();
-		tileWiresPool = new HashPool<>();
+		wirePool = new ConcurrentHashPool<>();
+		wireArrayPool = new ConcurrentHashPool<>();
+		tileWiresPool = new ConcurrentHashPool<>();
 
 		System.out.println("Parsing Device Info file");
 		if (!parseDeviceInfo(device)) {
@@ -161,6 +192,10 @@ public final class DeviceGenerator {
 		makeWireCorrections(revwcsToAdd, revwcsToRemove, false);
 
 		device.constructDependentResources();
+
+		// tiles of a type differing in a few edge wires share the routing of the type
+		System.out.println("Applying tile type templates");
+		device.applyTileTypeTemplates();
 		
 		// free unneeded pools for garbage collection when done with
 		routeThroughPool = null;
@@ -170,6 +205,14 @@ public final class DeviceGenerator {
 		return device;
 	}
 
+	private static void parse(XDLRCSource xdlrcSource) throws IOException {
+		try {
+			xdlrcSource.parse();
+		} catch (IOException e) {
+			throw new IOException("Error handling file " + xdlrcSource.getFilePath(), e);
+		}
+	}
+
 	/**
 	 * Creates the templates for the primitive sites with information from the
 	 * primitive defs and device information file.
@@ -758,6 +801,26 @@ public final class DeviceGenerator {
 		return tileWiresPool.add(orig);
 	}
 
+	/**
+	 * Looks up the enumeration of a wire parsed from the XDLRC.
+	 */
+	private int getWireEnum(CharSequence wireName) {
+		int wireEnum = we.findWireEnum(wireName);
+		if (wireEnum == -1)
+			throw new Exceptions.ParseException("Unknown wire " + wireName);
+		return wireEnum;
+	}
+
+	/**
+	 * Looks up a tile parsed from the XDLRC.
+	 */
+	private Tile getTile(CharSequence tileName) {
+		Tile tile = device.findTile(tileName);
+		if (tile == null)
+			throw new Exceptions.ParseException("Unknown tile " + tileName);
+		return tile;
+	}
+
 	private static String getIntrasiteWireName(
 			SiteType type, String element, String pinName) {
 		return "intrasite:" + type.name() + "/" + element + "." + pinName;
@@ -826,10 +889,41 @@ public final class DeviceGenerator {
 		private final Set<String> wireSet = new TreeSet<>();
 		private final Set<String> inpinSet = new HashSet<>(PIN_SET_CAPACITY);
 		private final Set<String> outpinSet = new HashSet<>(PIN_SET_CAPACITY);
+		private final Set<String> pipSources;
+		private final Set<String> pipSinks;
 
 		private SiteType currType;
 		private String currElement;
 
+		WireEnumeratorListener() {
+			this(DeviceGenerator.this.pipSources, DeviceGenerator.this.pipSinks);
+		}
+
+		private WireEnumeratorListener(Set<String> pipSources, Set<String> pipSinks) {
+			this.pipSources = pipSources;
+			this.pipSinks = pipSinks;
+		}
+
+		@Override
+		protected Concurrency getConcurrency() {
+			return Concurrency.PER_THREAD;
+		}
+
+		@Override
+		protected XDLRCParserListener createThreadInstance() {
+			return new WireEnumeratorListener(new HashSet<>(), new HashSet<>());
+		}
+
+		@Override
+		protected void mergeThreadInstance(XDLRCParserListener instance) {
+			WireEnumeratorListener other = (WireEnumeratorListener) instance;
+			wireSet.addAll(other.wireSet);
+			inpinSet.addAll(other.inpinSet);
+			outpinSet.addAll(other.outpinSet);
+			pipSources.addAll(other.pipSources);
+			pipSinks.addAll(other.pipSinks);
+		}
+
 		/**
 		 * Tracks special site pin wires.
 		 */
@@ -903,6 +997,11 @@ public final class DeviceGenerator {
 			// create the global source and sinks wire set
 			siteWireSourceSet = sourceWireSetLocal;
 			siteWireSinkSet = sinkWireSetLocal;
+
+			pipSourceWires = new BitSet(wires.length);
+			pipSources.forEach(wire -> pipSourceWires.set(wireMap.get(wire)));
+			pipSinkWires = new BitSet(wires.length);
+			pipSinks.forEach(wire -> pipSinkWires.set(wireMap.get(wire)));
 		}
 	}
 
@@ -981,12 +1080,29 @@ public final class DeviceGenerator {
 
 	private final class WireConnectionGeneratorListener extends XDLRCParserListener {
 		private Tile currTile;
-		private Integer currTileWire;
+		private int currTileWire;
 		private boolean currTileWireIsSource;
-		private Integer pipStartWire;
-		private Integer pipEndWire;
+		private int pipStartWire;
+		private int pipEndWire;
 		private WireHashMap whm;
 
+		// the pools are concurrent, so each parse thread only needs its own tile state
+		@Override
+		protected Concurrency getConcurrency() {
+			return Concurrency.PER_THREAD;
+		}
+
+		// names are looked up from the token views without creating strings
+		@Override
+		protected boolean usesTokenStrings() {
+			return false;
+		}
+
+		@Override
+		protected XDLRCParserListener createThreadInstance() {
+			return new WireConnectionGeneratorListener();
+		}
+
 		@Override
 		protected void enterTile(pl_Tile tokens) {
 			int row = tokens.row;
@@ -1004,25 +1120,23 @@ public final class DeviceGenerator {
 
 		@Override
 		protected void enterWire(pl_Wire tokens) {
-			String wireName = tokens.name;
-			currTileWire = we.getWireEnum(wireName);
-			currTileWireIsSource = siteWireSourceSet.contains(currTileWire) || pipSinks.contains(wireName);
+			currTileWire = getWireEnum(tokens.nameToken);
+			currTileWireIsSource = siteWireSourceSet.contains(currTileWire) || pipSinkWires.get(currTileWire);
 		}
 
 		@Override
 		protected void exitWire(pl_Wire tokens) {
-			currTileWire = null;
+			currTileWire = -1;
 		}
 
 		@Override
 		protected void enterConn(pl_Conn tokens) {
-			String currWireName = tokens.wire;
-			int currWire = we.getWireEnum(currWireName);
+			int currWire = getWireEnum(tokens.wireToken);
 			boolean currWireIsSiteSink = siteWireSinkSet.contains(currWire);
-			boolean currWireIsPIPSource = pipSources.contains(currWireName);
+			boolean currWireIsPIPSource = pipSourceWires.get(currWire);
 			boolean currWireIsSink = currWireIsSiteSink || currWireIsPIPSource;
 			if (currTileWireIsSource || currWireIsSink) {
-				Tile t = device.getTile(tokens.tile);
+				Tile t = getTile(tokens.tileToken);
 				WireConnection wc = new WireConnection(currWire,
 						currTile.getRow() - t.getRow(),
 						currTile.getColumn() - t.getColumn(),
@@ -1033,8 +1147,8 @@ public final class DeviceGenerator {
 
 		@Override
 		protected void enterPip(pl_Pip tokens) {
-			Integer startWire = we.getWireEnum(tokens.start_wire);
-			Integer endWire = we.getWireEnum(tokens.end_wire);
+			int startWire = getWireEnum(tokens.startWireToken);
+			int endWire = getWireEnum(tokens.endWireToken);
 			WireConnection wc = wirePool.add(new WireConnection(endWire, 0, 0, true));
 			addConnection(startWire, wc, whm);
 
@@ -1044,8 +1158,8 @@ public final class DeviceGenerator {
 
 		@Override
 		protected void exitPip(pl_Pip tokens) {
-			pipStartWire = null;
-			pipEndWire = null;
+			pipStartWire = -1;
+			pipEndWire = -1;
 		}
 
 		@Override
@@ -1058,7 +1172,9 @@ public final class DeviceGenerator {
 
 			PIPRouteThrough currRouteThrough = new PIPRouteThrough(type, inPin, outPin);
 			currRouteThrough = routeThroughPool.add(currRouteThrough);
-			device.addRouteThrough(pipStartWire, pipEndWire, currRouteThrough);
+			synchronized (device) {
+				device.addRouteThrough(pipStartWire, pipEndWire, currRouteThrough);
+			}
 		}
 
 		void addConnection(int src, WireConnection dest, WireHashMap whm) {
@@ -1082,10 +1198,27 @@ public final class DeviceGenerator {
 
 	private final class ReverseWireConnectionGeneratorListener extends XDLRCParserListener {
 		private Tile currTile;
-		private Integer currTileWire;
+		private int currTileWire;
 		private boolean currTileWireIsSink;
 		private WireHashMap whm;
 
+		// the pools are concurrent, so each parse thread only needs its own tile state
+		@Override
+		protected Concurrency getConcurrency() {
+			return Concurrency.PER_THREAD;
+		}
+
+		// names are looked up from the token views without creating strings
+		@Override
+		protected boolean usesTokenStrings() {
+			return false;
+		}
+
+		@Override
+		protected XDLRCParserListener createThreadInstance() {
+			return new ReverseWireConnectionGeneratorListener();
+		}
+
 		@Override
 		protected void enterTile(pl_Tile tokens) {
 			int row = tokens.row;
@@ -1103,25 +1236,23 @@ public final class DeviceGenerator {
 
 		@Override
 		protected void enterWire(pl_Wire tokens) {
-			String wireName = tokens.name;
-			currTileWire = we.getWireEnum(wireName);
-			currTileWireIsSink = siteWireSinkSet.contains(currTileWire) || pipSources.contains(wireName);
+			currTileWire = getWireEnum(tokens.nameToken);
+			currTileWireIsSink = siteWireSinkSet.contains(currTileWire) || pipSourceWires.get(currTileWire);
 		}
 
 		@Override
 		protected void exitWire(pl_Wire tokens) {
-			currTileWire = null;
+			currTileWire = -1;
 		}
 
 		@Override
 		protected void enterConn(pl_Conn tokens) {
-			String currWireName = tokens.wire;
-			int currWire = we.getWireEnum(currWireName);
+			int currWire = getWireEnum(tokens.wireToken);
 			boolean currWireIsSiteSource = siteWireSourceSet.contains(currWire);
-			boolean currWireIsPIPSink = pipSinks.contains(currWireName);
+			boolean currWireIsPIPSink = pipSinkWires.get(currWire);
 			boolean currWireIsSource = currWireIsSiteSource || currWireIsPIPSink;
 			if (currTileWireIsSink || currWireIsSource) {
-				Tile t = device.getTile(tokens.tile);
+				Tile t = getTile(tokens.tileToken);
 				WireConnection wc = new WireConnection(currWire,
 					currTile.getRow() - t.getRow(),
 					currTile.getColumn() - t.getColumn(),
@@ -1132,8 +1263,8 @@ public final class DeviceGenerator {
 
 		@Override
 		protected void enterPip(pl_Pip tokens) {
-			Integer startWire = we.getWireEnum(tokens.start_wire);
-			Integer endWire = we.getWireEnum(tokens.end_wire);
+			int startWire = getWireEnum(tokens.startWireToken);
+			int endWire = getWireEnum(tokens.endWireToken);
 			WireConnection wc = wirePool.add(new WireConnection(startWire, 0, 0, true));
 			addConnection(endWire, wc, whm);
 		}
@@ -1163,6 +1294,11 @@ public final class DeviceGenerator {
 		private Set<Integer> tileSinks;
 		private Map<String, Integer> externalPinWires;
 
+		@Override
+		protected boolean usesTokenStrings() {
+			return false;
+		}
+
 		@Override
 		protected void enterTile(pl_Tile tokens) {
 			tileSources = new TreeSet<>();
@@ -47,12 +47,12 @@ public class ISE_XDLRCRetriever implements XDLRCRetriever {
 	// If the file already exists, mark it as such so it is not later deleted.
 	public XDLRCSource getXDLRCSource() throws DeviceCreationException {
 		if (Files.isRegularFile(xdlrcFile))
-			return new XDLRCSource.XDLRCFileSource(xdlrcFile);
+			return new XDLRCSource.XDLRCFileSource(xdlrcFile, PARSE_THREADS);
 		if(!RunXilinxTools.generateFullXDLRCFile(part, xdlrcFile.toString())){
 			throw new DeviceCreationException("Failed generating part " + part + ".");
 		}
 		removeWhenDone = true;
-		return new XDLRCSource.XDLRCFileSource(xdlrcFile);
+		return new XDLRCSource.XDLRCFileSource(xdlrcFile, PARSE_THREADS);
 	}
 
 	public void cleanup() throws IOException {
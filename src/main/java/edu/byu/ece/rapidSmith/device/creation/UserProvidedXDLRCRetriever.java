@@ -44,7 +44,7 @@ public class UserProvidedXDLRCRetriever implements XDLRCRetriever {
 		if (!Files.isRegularFile(xdlrcFile)) {
 			throw new DeviceCreationException("XDLRC file " + xdlrcFile + " does not exist.");
 		}
-		return new XDLRCSource.XDLRCFileSource(xdlrcFile);
+		return new XDLRCSource.XDLRCFileSource(xdlrcFile, PARSE_THREADS);
 	}
 
 	@Override
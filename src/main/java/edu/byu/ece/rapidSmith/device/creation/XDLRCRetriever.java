@@ -31,6 +31,11 @@ import java.nio.file.Path;
  * finished using the file.
  */
 public interface XDLRCRetriever {
+	/**
+	 * Number of threads the retrieved sources parse the tiles of the XDLRC with.
+	 */
+	int PARSE_THREADS = Runtime.getRuntime().availableProcessors();
+
 	/**
 	 * Returns the path to the XDLRC file for the specified part.  Create it if
 	 * it does not exist.
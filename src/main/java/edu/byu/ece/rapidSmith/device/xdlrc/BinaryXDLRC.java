@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+
+package edu.byu.ece.rapidSmith.device.xdlrc;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ *  The layout of binary XDLRC files, written by {@link BinaryXDLRCWriter} and
+ *  read by {@link BinaryXDLRCReader}.  A file holds, in order:
+ *  <ul>
+ *    <li>a fixed size header giving the number of tiles and the offsets of
+ *      the sections following the tiles,</li>
+ *    <li>one record per tile,</li>
+ *    <li>the report, primitive defs and summary,</li>
+ *    <li>the string table, holding each name of the file once, and</li>
+ *    <li>the tile index, holding the offset of each tile record.</li>
+ *  </ul>
+ *  All values after the header are unsigned LEB128 varints, and names are
+ *  written as their IDs in the string table.  The elements of a tile and of a
+ *  primitive def are each written as a tag followed by the fields of the
+ *  element, in the order of the XDLRC file.  The connections of a wire give
+ *  the tile of their sink as the zigzag encoded difference from the ID of the
+ *  name of the tile, and PIPs give their tile as 0 when it is the tile they
+ *  are in.
+ */
+final class BinaryXDLRC {
+	static final byte[] MAGIC = "RSBXDLRC".getBytes(StandardCharsets.ISO_8859_1);
+	static final int VERSION = 1;
+	/** magic, version, tile count and the offsets of the report, strings and index */
+	static final int HEADER_SIZE = 8 + 4 + 4 + 8 + 8 + 8;
+
+	// tags of the elements of a tile
+	static final int TILE_END = 0;
+	static final int SITE = 1;          // name, type, bonded, pinwire_count, pinwires, SITE_END
+	static final int SITE_END = 2;
+	static final int PINWIRE = 3;       // name, direction, external_wire
+	static final int WIRE = 4;          // name, connections_count, count, (tile, wire)*
+	static final int PIP = 5;           // tile, start_wire, type, end_wire
+	static final int RT_PIP = 6;        // tile, start_wire, type, end_wire, pins, site_type
+	static final int TILE_SUMMARY = 7;  // name, type, pin_count, wire_count, pip_count
+
+	// tags of the elements of the primitive defs
+	static final int DEFS_END = 0;
+	static final int DEF = 1;           // name, pin_count, element_count, elements, DEF_END
+	static final int DEF_END = 2;
+	static final int PIN = 3;           // external_name, internal_name, direction
+	static final int ELEMENT = 4;       // name, pin_count, isBel, elements, ELEMENT_END
+	static final int ELEMENT_END = 5;
+	static final int ELEMENT_PIN = 6;   // name, direction
+	static final int ELEMENT_CFG = 7;   // count, cfgs
+	static final int ELEMENT_CONN = 8;  // element0, pin0, direction, element1, pin1
+
+	private BinaryXDLRC() { }
+
+	static int zigzag(int value) {
+		return (value << 1) ^ (value >> 31);
+	}
+
+	static int unzigzag(int value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * Reads the values of a region of a buffer with absolute gets, so that
+	 * several readers can share a buffer.
+	 */
+	static final class Input {
+		private final ByteBuffer buffer;
+		private int pos;
+
+		Input(ByteBuffer buffer, int pos) {
+			this.buffer = buffer;
+			this.pos = pos;
+		}
+
+		int readInt() {
+			int value = 0;
+			int shift = 0;
+			while (true) {
+				byte b = buffer.get(pos++);
+				value |= (b & 0x7F) << shift;
+				if (b >= 0)
+					return value;
+				shift += 7;
+			}
+		}
+
+		long readLong() {
+			long value = 0;
+			int shift = 0;
+			while (true) {
+				byte b = buffer.get(pos++);
+				value |= (long) (b & 0x7F) << shift;
+				if (b >= 0)
+					return value;
+				shift += 7;
+			}
+		}
+
+		String readBytes(int length) {
+			byte[] bytes = new byte[length];
+			for (int i = 0; i < length; i++)
+				bytes[i] = buffer.get(pos++);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+	}
+}
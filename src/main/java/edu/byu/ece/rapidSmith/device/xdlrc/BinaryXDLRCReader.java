@@ -0,0 +1,445 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+
+package edu.byu.ece.rapidSmith.device.xdlrc;
+
+import edu.byu.ece.rapidSmith.device.xdlrc.XDLRCParserListener.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static edu.byu.ece.rapidSmith.device.xdlrc.BinaryXDLRC.*;
+import static edu.byu.ece.rapidSmith.util.Exceptions.FileFormatException;
+
+/**
+ *  Replays a binary XDLRC file written by {@link BinaryXDLRCWriter} to the
+ *  registered listeners, delivering the same events as parsing the XDLRC file
+ *  it was written from.  The file is memory mapped and the tiles are decoded as
+ *  they are delivered, so only the names and the offsets of the tiles are kept
+ *  in memory.  Both the string fields and the {@link XDLRCToken} views of the
+ *  holders are filled in.
+ *  <p>
+ *  A reader created with more than one thread splits the tiles into ranges
+ *  using the tile index of the file and delivers the ranges from a pool of
+ *  worker threads, calling the listeners as described by
+ *  {@link XDLRCParser#XDLRCParser(int)}.
+ */
+public class BinaryXDLRCReader {
+	/** Size of the mapped windows of the tiles */
+	private static final int WINDOW_SIZE = 1 << 30;
+
+	// List of listeners to call when a parser element is detected
+	private final List<XDLRCParserListener> listeners;
+	// Number of threads delivering the tiles
+	private final int threads;
+
+	/**
+	 * Creates a new reader which delivers the tiles on the calling thread.
+	 */
+	public BinaryXDLRCReader() {
+		this(1);
+	}
+
+	/**
+	 * Creates a new reader which delivers the tiles with the given number of
+	 * threads.
+	 * @param threads number of threads to deliver the tiles with.  With one
+	 *   thread, the tiles are delivered in order on the calling thread.
+	 * @throws IllegalArgumentException if threads is less than 1
+	 */
+	public BinaryXDLRCReader(int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException("Illegal thread count: " + threads);
+		this.listeners = new ArrayList<>();
+		this.threads = threads;
+	}
+
+	public static void main(String[] args) throws IOException {
+		BinaryXDLRCReader reader = new BinaryXDLRCReader();
+		reader.registerListener(new XDLRCRegurgitatorListener());
+		reader.parse(Paths.get(args[0]));
+	}
+
+	/**
+	 * Register a new listener with this reader.
+	 * @param listener listener to register with this reader
+	 */
+	public void registerListener(XDLRCParserListener listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * Clears all listeners currently associated with this reader.
+	 */
+	public void clearListeners() {
+		listeners.clear();
+	}
+
+	/**
+	 * Replays the binary XDLRC file specified by the given path.
+	 * @param path path to the binary XDLRC file to read
+	 * @throws IOException if an error occurs while opening or reading the file
+	 * @throws FileFormatException if the file is not a binary XDLRC file
+	 */
+	public void parse(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			new FileReader(channel).read();
+		}
+	}
+
+	private final class FileReader {
+		private final FileChannel channel;
+		private final int tileCount;
+		private final long reportOffset;
+		private final long stringsOffset;
+		private final long indexOffset;
+		private String[] names;
+		private long[] tileOffsets;
+
+		FileReader(FileChannel channel) throws IOException {
+			this.channel = channel;
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			while (header.hasRemaining() && channel.read(header, header.position()) > 0) { }
+			header.flip();
+			byte[] magic = new byte[MAGIC.length];
+			if (header.remaining() == HEADER_SIZE)
+				header.get(magic);
+			if (!Arrays.equals(magic, MAGIC))
+				throw new FileFormatException("Not a binary XDLRC file");
+			int version = header.getInt();
+			if (version != VERSION)
+				throw new FileFormatException("Unsupported binary XDLRC version " + version);
+			this.tileCount = header.getInt();
+			this.reportOffset = header.getLong();
+			this.stringsOffset = header.getLong();
+			this.indexOffset = header.getLong();
+		}
+
+		private ByteBuffer map(long start, long end) throws IOException {
+			if (end - start > Integer.MAX_VALUE)
+				throw new FileFormatException("Section of " + (end - start) + " bytes is too large to map");
+			return channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+		}
+
+		void read() throws IOException {
+			Input in = new Input(map(stringsOffset, indexOffset), 0);
+			names = new String[in.readInt()];
+			for (int i = 0; i < names.length; i++)
+				names[i] = in.readBytes(in.readInt());
+
+			in = new Input(map(indexOffset, channel.size()), 0);
+			tileOffsets = new long[tileCount];
+			long offset = 0;
+			for (int i = 0; i < tileCount; i++) {
+				offset += in.readLong();
+				tileOffsets[i] = offset;
+			}
+
+			in = new Input(map(reportOffset, stringsOffset), 0);
+			pl_XdlResourceReport reportTokens = new pl_XdlResourceReport();
+			reportTokens.version = names[in.readInt()];
+			reportTokens.part = names[in.readInt()];
+			reportTokens.family = names[in.readInt()];
+			listeners.forEach(listener -> listener.enterXdlResourceReport(reportTokens));
+
+			pl_Tiles tilesTokens = new pl_Tiles();
+			tilesTokens.rows = in.readInt();
+			tilesTokens.columns = in.readInt();
+			listeners.forEach(listener -> listener.enterTiles(tilesTokens));
+			readTiles();
+			listeners.forEach(listener -> listener.exitTiles(tilesTokens));
+
+			if (in.readInt() != 0)
+				new DefsReader(in, names).readDefs();
+
+			int summaryCount = in.readInt();
+			if (summaryCount != 0) {
+				pl_Summary summaryTokens = new pl_Summary();
+				summaryTokens.stats = new ArrayList<>(summaryCount - 1);
+				for (int i = 1; i < summaryCount; i++)
+					summaryTokens.stats.add(names[in.readInt()]);
+				listeners.forEach(listener -> listener.enterSummary(summaryTokens));
+				listeners.forEach(listener -> listener.exitSummary(summaryTokens));
+			}
+
+			listeners.forEach(listener -> listener.exitXdlResourceReport(reportTokens));
+		}
+
+		private long tileEnd(int tile) {
+			return tile + 1 < tileCount ? tileOffsets[tile + 1] : reportOffset;
+		}
+
+		/**
+		 * Maps the tiles in windows holding as many whole tiles as fit and
+		 * delivers them on this thread or hands them to the workers.
+		 */
+		private void readTiles() throws IOException {
+			TileDispatcher dispatcher = threads > 1 ? new TileDispatcher(listeners, threads, "Binary XDLRC reader") : null;
+			try {
+				int first = 0;
+				while (first < tileCount) {
+					long start = tileOffsets[first];
+					int last = first + 1;
+					while (last < tileCount && tileEnd(last) - start <= WINDOW_SIZE)
+						last++;
+					ByteBuffer window = map(start, tileEnd(last - 1));
+					for (int tile = first; tile < last; tile++) {
+						TileRecord record = new TileRecord(window, (int) (tileOffsets[tile] - start), names);
+						if (dispatcher != null)
+							dispatcher.add(record);
+						else
+							record.deliver(listeners);
+					}
+					first = last;
+				}
+				if (dispatcher != null)
+					dispatcher.finish();
+			} finally {
+				if (dispatcher != null)
+					dispatcher.shutdown();
+			}
+		}
+	}
+
+	/**
+	 * A tile record in a mapped window of the file.
+	 */
+	private static final class TileRecord implements TileDispatcher.Tile {
+		private final ByteBuffer window;
+		private final int offset;
+		private final String[] names;
+
+		TileRecord(ByteBuffer window, int offset, String[] names) {
+			this.window = window;
+			this.offset = offset;
+			this.names = names;
+		}
+
+		@Override
+		public void deliver(List<XDLRCParserListener> listeners) {
+			Input in = new Input(window, offset);
+			pl_Tile tileTokens = new pl_Tile();
+			tileTokens.row = in.readInt();
+			tileTokens.column = in.readInt();
+			int tileName = in.readInt();
+			tileTokens.name = names[tileName];
+			tileTokens.type = names[in.readInt()];
+			tileTokens.site_count = in.readInt();
+			listeners.forEach(listener -> listener.enterTile(tileTokens));
+
+			pl_PrimitiveSite siteTokens = null;
+			pl_PinWire pwTokens = new pl_PinWire();
+			pl_Wire wireTokens = new pl_Wire();
+			pl_Conn connTokens = new pl_Conn();
+			pl_Pip pipTokens = new pl_Pip();
+			pl_Routethrough rtTokens = new pl_Routethrough();
+			while (true) {
+				int tag = in.readInt();
+				switch (tag) {
+					case TILE_END:
+						listeners.forEach(listener -> listener.exitTile(tileTokens));
+						return;
+					case SITE: {
+						pl_PrimitiveSite tokens = new pl_PrimitiveSite();
+						tokens.name = names[in.readInt()];
+						tokens.type = names[in.readInt()];
+						tokens.bonded = names[in.readInt()];
+						tokens.pinwire_count = in.readInt();
+						listeners.forEach(listener -> listener.enterPrimitiveSite(tokens));
+						siteTokens = tokens;
+						break;
+					}
+					case SITE_END: {
+						pl_PrimitiveSite tokens = siteTokens;
+						listeners.forEach(listener -> listener.exitPrimitiveSite(tokens));
+						break;
+					}
+					case PINWIRE:
+						pwTokens.name = names[in.readInt()];
+						pwTokens.direction = names[in.readInt()];
+						pwTokens.external_wire = names[in.readInt()];
+						listeners.forEach(listener -> listener.enterPinWire(pwTokens));
+						listeners.forEach(listener -> listener.exitPinWire(pwTokens));
+						break;
+					case WIRE: {
+						wireTokens.name = names[in.readInt()];
+						wireTokens.nameToken.set(wireTokens.name);
+						wireTokens.connections_count = in.readInt();
+						listeners.forEach(listener -> listener.enterWire(wireTokens));
+						int count = in.readInt();
+						for (int i = 0; i < count; i++) {
+							connTokens.tile = names[tileName + unzigzag(in.readInt())];
+							connTokens.tileToken.set(connTokens.tile);
+							connTokens.wire = names[in.readInt()];
+							connTokens.wireToken.set(connTokens.wire);
+							listeners.forEach(listener -> listener.enterConn(connTokens));
+							listeners.forEach(listener -> listener.exitConn(connTokens));
+						}
+						listeners.forEach(listener -> listener.exitWire(wireTokens));
+						break;
+					}
+					case PIP:
+					case RT_PIP: {
+						int pipTile = in.readInt();
+						pipTokens.tile = pipTile == 0 ? tileTokens.name : names[pipTile - 1];
+						pipTokens.tileToken.set(pipTokens.tile);
+						pipTokens.start_wire = names[in.readInt()];
+						pipTokens.startWireToken.set(pipTokens.start_wire);
+						pipTokens.type = names[in.readInt()];
+						pipTokens.typeToken.set(pipTokens.type);
+						pipTokens.end_wire = names[in.readInt()];
+						pipTokens.endWireToken.set(pipTokens.end_wire);
+						listeners.forEach(listener -> listener.enterPip(pipTokens));
+						if (tag == RT_PIP) {
+							rtTokens.pins = names[in.readInt()];
+							rtTokens.site_type = names[in.readInt()];
+							listeners.forEach(listener -> listener.enterRoutethrough(rtTokens));
+							listeners.forEach(listener -> listener.exitRoutethrough(rtTokens));
+						}
+						listeners.forEach(listener -> listener.exitPip(pipTokens));
+						break;
+					}
+					case TILE_SUMMARY: {
+						pl_TileSummary tokens = new pl_TileSummary();
+						tokens.name = names[in.readInt()];
+						tokens.type = names[in.readInt()];
+						tokens.pin_count = in.readInt();
+						tokens.wire_count = in.readInt();
+						tokens.pip_count = in.readInt();
+						listeners.forEach(listener -> listener.enterTileSummary(tokens));
+						listeners.forEach(listener -> listener.exitTileSummary(tokens));
+						break;
+					}
+					default:
+						throw new FileFormatException("Unknown tile element " + tag);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads the primitive defs following the tiles.
+	 */
+	private final class DefsReader {
+		private final Input in;
+		private final String[] names;
+
+		DefsReader(Input in, String[] names) {
+			this.in = in;
+			this.names = names;
+		}
+
+		private String string() {
+			return names[in.readInt()];
+		}
+
+		void readDefs() {
+			pl_PrimitiveDefs defsTokens = new pl_PrimitiveDefs();
+			defsTokens.num_defs = in.readInt();
+			listeners.forEach(listener -> listener.enterPrimitiveDefs(defsTokens));
+
+			pl_PrimitiveDef defTokens = null;
+			pl_Element elementTokens = null;
+			while (true) {
+				int tag = in.readInt();
+				switch (tag) {
+					case DEFS_END:
+						listeners.forEach(listener -> listener.exitPrimitiveDefs(defsTokens));
+						return;
+					case DEF: {
+						pl_PrimitiveDef tokens = new pl_PrimitiveDef();
+						tokens.name = string();
+						tokens.pin_count = in.readInt();
+						tokens.element_count = in.readInt();
+						listeners.forEach(listener -> listener.enterPrimitiveDef(tokens));
+						defTokens = tokens;
+						break;
+					}
+					case DEF_END: {
+						pl_PrimitiveDef tokens = defTokens;
+						listeners.forEach(listener -> listener.exitPrimitiveDef(tokens));
+						break;
+					}
+					case PIN: {
+						pl_Pin tokens = new pl_Pin();
+						tokens.external_name = string();
+						tokens.internal_name = string();
+						tokens.direction = string();
+						listeners.forEach(listener -> listener.enterPin(tokens));
+						listeners.forEach(listener -> listener.exitPin(tokens));
+						break;
+					}
+					case ELEMENT: {
+						pl_Element tokens = new pl_Element();
+						tokens.name = string();
+						tokens.pin_count = in.readInt();
+						tokens.isBel = in.readInt() != 0;
+						listeners.forEach(listener -> listener.enterElement(tokens));
+						elementTokens = tokens;
+						break;
+					}
+					case ELEMENT_END: {
+						pl_Element tokens = elementTokens;
+						listeners.forEach(listener -> listener.exitElement(tokens));
+						break;
+					}
+					case ELEMENT_PIN: {
+						pl_ElementPin tokens = new pl_ElementPin();
+						tokens.name = string();
+						tokens.direction = string();
+						listeners.forEach(listener -> listener.enterElementPin(tokens));
+						listeners.forEach(listener -> listener.exitElementPin(tokens));
+						break;
+					}
+					case ELEMENT_CFG: {
+						pl_ElementCfg tokens = new pl_ElementCfg();
+						int count = in.readInt();
+						tokens.cfgs = new ArrayList<>(count);
+						for (int i = 0; i < count; i++)
+							tokens.cfgs.add(string());
+						listeners.forEach(listener -> listener.enterElementCfg(tokens));
+						listeners.forEach(listener -> listener.exitElementCfg(tokens));
+						break;
+					}
+					case ELEMENT_CONN: {
+						pl_ElementConn tokens = new pl_ElementConn();
+						tokens.element0 = string();
+						tokens.pin0 = string();
+						tokens.direction = string();
+						tokens.element1 = string();
+						tokens.pin1 = string();
+						listeners.forEach(listener -> listener.enterElementConn(tokens));
+						listeners.forEach(listener -> listener.exitElementConn(tokens));
+						break;
+					}
+					default:
+						throw new FileFormatException("Unknown primitive def element " + tag);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,441 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+
+package edu.byu.ece.rapidSmith.device.xdlrc;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import static edu.byu.ece.rapidSmith.device.xdlrc.BinaryXDLRC.*;
+
+/**
+ *  Writes the events of a parse to a binary XDLRC file, which
+ *  {@link BinaryXDLRCReader} replays much faster than the XDLRC can be parsed.
+ *  The file is written in a single pass as the tiles are parsed, with only the
+ *  tile being parsed, the names and the offsets of the tiles kept in memory.
+ *  See {@link BinaryXDLRC} for the layout of the file.
+ *  <p>
+ *  The file is complete once the parse exits the resource report.  Errors
+ *  writing the file are thrown from the listener methods as
+ *  {@link UncheckedIOException}s.
+ */
+public final class BinaryXDLRCWriter extends XDLRCParserListener implements Closeable {
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+	// offset in the file of the start of the buffer
+	private long flushed = HEADER_SIZE;
+
+	private final XDLRCNameTable names = new XDLRCNameTable();
+	private long[] tileOffsets = new long[1024];
+	private int tileCount;
+
+	private final Output tile = new Output();
+	private final Output defs = new Output();
+	private int[] report;
+	private int rows;
+	private int columns;
+	private List<String> summary;
+	private boolean hasDefs;
+
+	private int tileName;
+	private int wireName;
+	private int wireConnections;
+	private int[] conns = new int[64];
+	private int connCount;
+	private final int[] pip = new int[6];
+	private boolean routethrough;
+
+	/**
+	 * Creates a writer of the binary XDLRC file at the path, replacing any
+	 * existing file.
+	 */
+	public BinaryXDLRCWriter(Path outputPath) throws IOException {
+		this.channel = FileChannel.open(outputPath, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+	}
+
+	/**
+	 * Converts an XDLRC file to a binary XDLRC file.
+	 *
+	 * @param xdlrcPath the XDLRC file to convert
+	 * @param outputPath the binary XDLRC file to write
+	 */
+	public static void convert(Path xdlrcPath, Path outputPath) throws IOException {
+		try (BinaryXDLRCWriter writer = new BinaryXDLRCWriter(outputPath)) {
+			XDLRCParser parser = new XDLRCParser();
+			parser.registerListener(writer);
+			parser.registerListener(new XDLRCParseProgressListener());
+			parser.parse(xdlrcPath);
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		Path output;
+		if (args.length > 1) {
+			output = Paths.get(args[1]);
+		} else {
+			output = Paths.get(args[0].substring(0, args[0].lastIndexOf('.')) + ".bxdlrc");
+		}
+		convert(Paths.get(args[0]), output);
+	}
+
+	// the names are interned from the token views
+	@Override
+	protected boolean usesTokenStrings() {
+		return false;
+	}
+
+	@Override
+	protected void enterXdlResourceReport(pl_XdlResourceReport tokens) {
+		report = new int[] {
+				names.intern(tokens.version), names.intern(tokens.part), names.intern(tokens.family)
+		};
+	}
+
+	@Override
+	protected void enterTiles(pl_Tiles tokens) {
+		rows = tokens.rows;
+		columns = tokens.columns;
+	}
+
+	@Override
+	protected void enterTile(pl_Tile tokens) {
+		tile.clear();
+		tileName = names.intern(tokens.name);
+		tile.writeInt(tokens.row);
+		tile.writeInt(tokens.column);
+		tile.writeInt(tileName);
+		tile.writeInt(names.intern(tokens.type));
+		tile.writeInt(tokens.site_count);
+	}
+
+	@Override
+	protected void exitTile(pl_Tile tokens) {
+		tile.writeInt(TILE_END);
+		if (tileCount == tileOffsets.length)
+			tileOffsets = Arrays.copyOf(tileOffsets, tileCount * 2);
+		tileOffsets[tileCount++] = position();
+		write(tile);
+	}
+
+	@Override
+	protected void enterPrimitiveSite(pl_PrimitiveSite tokens) {
+		tile.writeInt(SITE);
+		tile.writeInt(names.intern(tokens.name));
+		tile.writeInt(names.intern(tokens.type));
+		tile.writeInt(names.intern(tokens.bonded));
+		tile.writeInt(tokens.pinwire_count);
+	}
+
+	@Override
+	protected void exitPrimitiveSite(pl_PrimitiveSite tokens) {
+		tile.writeInt(SITE_END);
+	}
+
+	@Override
+	protected void enterPinWire(pl_PinWire tokens) {
+		tile.writeInt(PINWIRE);
+		tile.writeInt(names.intern(tokens.name));
+		tile.writeInt(names.intern(tokens.direction));
+		tile.writeInt(names.intern(tokens.external_wire));
+	}
+
+	@Override
+	protected void enterWire(pl_Wire tokens) {
+		wireName = names.intern(tokens.nameToken);
+		wireConnections = tokens.connections_count;
+		connCount = 0;
+	}
+
+	@Override
+	protected void enterConn(pl_Conn tokens) {
+		if (connCount + 2 > conns.length)
+			conns = Arrays.copyOf(conns, conns.length * 2);
+		conns[connCount++] = zigzag(names.intern(tokens.tileToken) - tileName);
+		conns[connCount++] = names.intern(tokens.wireToken);
+	}
+
+	// the connections are counted before they are written
+	@Override
+	protected void exitWire(pl_Wire tokens) {
+		tile.writeInt(WIRE);
+		tile.writeInt(wireName);
+		tile.writeInt(wireConnections);
+		tile.writeInt(connCount / 2);
+		for (int i = 0; i < connCount; i++)
+			tile.writeInt(conns[i]);
+	}
+
+	@Override
+	protected void enterPip(pl_Pip tokens) {
+		int pipTile = names.intern(tokens.tileToken);
+		pip[0] = pipTile == tileName ? 0 : pipTile + 1;
+		pip[1] = names.intern(tokens.startWireToken);
+		pip[2] = names.intern(tokens.typeToken);
+		pip[3] = names.intern(tokens.endWireToken);
+		routethrough = false;
+	}
+
+	@Override
+	protected void enterRoutethrough(pl_Routethrough tokens) {
+		pip[4] = names.intern(tokens.pins);
+		pip[5] = names.intern(tokens.site_type);
+		routethrough = true;
+	}
+
+	@Override
+	protected void exitPip(pl_Pip tokens) {
+		tile.writeInt(routethrough ? RT_PIP : PIP);
+		for (int i = 0; i < (routethrough ? 6 : 4); i++)
+			tile.writeInt(pip[i]);
+	}
+
+	@Override
+	protected void enterTileSummary(pl_TileSummary tokens) {
+		tile.writeInt(TILE_SUMMARY);
+		tile.writeInt(names.intern(tokens.name));
+		tile.writeInt(names.intern(tokens.type));
+		tile.writeInt(tokens.pin_count);
+		tile.writeInt(tokens.wire_count);
+		tile.writeInt(tokens.pip_count);
+	}
+
+	@Override
+	protected void enterPrimitiveDefs(pl_PrimitiveDefs tokens) {
+		hasDefs = true;
+		defs.writeInt(tokens.num_defs);
+	}
+
+	@Override
+	protected void exitPrimitiveDefs(pl_PrimitiveDefs tokens) {
+		defs.writeInt(DEFS_END);
+	}
+
+	@Override
+	protected void enterPrimitiveDef(pl_PrimitiveDef tokens) {
+		defs.writeInt(DEF);
+		defs.writeInt(names.intern(tokens.name));
+		defs.writeInt(tokens.pin_count);
+		defs.writeInt(tokens.element_count);
+	}
+
+	@Override
+	protected void exitPrimitiveDef(pl_PrimitiveDef tokens) {
+		defs.writeInt(DEF_END);
+	}
+
+	@Override
+	protected void enterPin(pl_Pin tokens) {
+		defs.writeInt(PIN);
+		defs.writeInt(names.intern(tokens.external_name));
+		defs.writeInt(names.intern(tokens.internal_name));
+		defs.writeInt(names.intern(tokens.direction));
+	}
+
+	@Override
+	protected void enterElement(pl_Element tokens) {
+		defs.writeInt(ELEMENT);
+		defs.writeInt(names.intern(tokens.name));
+		defs.writeInt(tokens.pin_count);
+		defs.writeInt(tokens.isBel ? 1 : 0);
+	}
+
+	@Override
+	protected void exitElement(pl_Element tokens) {
+		defs.writeInt(ELEMENT_END);
+	}
+
+	@Override
+	protected void enterElementPin(pl_ElementPin tokens) {
+		defs.writeInt(ELEMENT_PIN);
+		defs.writeInt(names.intern(tokens.name));
+		defs.writeInt(names.intern(tokens.direction));
+	}
+
+	@Override
+	protected void enterElementCfg(pl_ElementCfg tokens) {
+		defs.writeInt(ELEMENT_CFG);
+		defs.writeInt(tokens.cfgs.size());
+		for (String cfg : tokens.cfgs)
+			defs.writeInt(names.intern(cfg));
+	}
+
+	@Override
+	protected void enterElementConn(pl_ElementConn tokens) {
+		defs.writeInt(ELEMENT_CONN);
+		defs.writeInt(names.intern(tokens.element0));
+		defs.writeInt(names.intern(tokens.pin0));
+		defs.writeInt(names.intern(tokens.direction));
+		defs.writeInt(names.intern(tokens.element1));
+		defs.writeInt(names.intern(tokens.pin1));
+	}
+
+	@Override
+	protected void enterSummary(pl_Summary tokens) {
+		summary = tokens.stats;
+	}
+
+	/**
+	 * Writes the sections following the tiles and the header.
+	 */
+	@Override
+	protected void exitXdlResourceReport(pl_XdlResourceReport tokens) {
+		Output out = new Output();
+
+		long reportOffset = position();
+		for (int name : report)
+			out.writeInt(name);
+		out.writeInt(rows);
+		out.writeInt(columns);
+		// the counts of the optional sections are written plus one, with 0 for missing
+		out.writeInt(hasDefs ? 1 : 0);
+		write(out);
+		write(defs);
+		out.clear();
+		if (summary == null) {
+			out.writeInt(0);
+		} else {
+			out.writeInt(summary.size() + 1);
+			for (String stat : summary)
+				out.writeInt(names.intern(stat));
+		}
+		write(out);
+
+		long stringsOffset = position();
+		out.clear();
+		out.writeInt(names.size());
+		for (int i = 0; i < names.size(); i++) {
+			byte[] bytes = names.get(i).getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+			if (out.size > BUFFER_SIZE) {
+				write(out);
+				out.clear();
+			}
+		}
+		write(out);
+
+		// the offsets are increasing and written as the differences
+		long indexOffset = position();
+		out.clear();
+		long previous = 0;
+		for (int i = 0; i < tileCount; i++) {
+			out.writeLong(tileOffsets[i] - previous);
+			previous = tileOffsets[i];
+		}
+		write(out);
+
+		try {
+			flush();
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.put(MAGIC);
+			header.putInt(VERSION);
+			header.putInt(tileCount);
+			header.putLong(reportOffset);
+			header.putLong(stringsOffset);
+			header.putLong(indexOffset);
+			header.flip();
+			while (header.hasRemaining())
+				channel.write(header, header.position());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void write(Output out) {
+		try {
+			int offset = 0;
+			while (offset < out.size) {
+				if (!buffer.hasRemaining())
+					flush();
+				int length = Math.min(buffer.remaining(), out.size - offset);
+				buffer.put(out.bytes, offset, length);
+				offset += length;
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private long position() {
+		return flushed + buffer.position();
+	}
+
+	private void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining())
+			flushed += channel.write(buffer, flushed);
+		buffer.clear();
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * A growable array of bytes holding varints.
+	 */
+	private static final class Output {
+		byte[] bytes = new byte[4096];
+		int size;
+
+		void clear() {
+			size = 0;
+		}
+
+		void writeInt(int value) {
+			writeLong(value & 0xFFFFFFFFL);
+		}
+
+		void writeLong(long value) {
+			ensure(10);
+			while ((value & ~0x7FL) != 0) {
+				bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			bytes[size++] = (byte) value;
+		}
+
+		void write(byte[] b) {
+			ensure(b.length);
+			System.arraycopy(b, 0, bytes, size, b.length);
+			size += b.length;
+		}
+
+		private void ensure(int count) {
+			if (size + count > bytes.length)
+				bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + count));
+		}
+	}
+}
@@ -139,6 +139,7 @@ public class CompressedXDLRCReader {
 
 	private void visit(CompressedXDLRC cxdlrc, CompressedTile ctile, Integer wire, ArrayList<CompressedConn> conns) {
 		pl_wire.name = cxdlrc.wireNames.get(wire);
+		pl_wire.nameToken.set(pl_wire.name);
 		pl_wire.connections_count = conns.size();
 		listeners.forEach(it -> it.enterWire(pl_wire));
 
@@ -146,6 +147,8 @@ public class CompressedXDLRCReader {
 			int actual = ctile.name + conn.sinkTileOffset;
 			pl_conn.tile = cxdlrc.tileNames.get(actual);
 			pl_conn.wire = cxdlrc.wireNames.get(conn.sinkWire);
+			pl_conn.tileToken.set(pl_conn.tile);
+			pl_conn.wireToken.set(pl_conn.wire);
 			listeners.forEach(it -> it.enterConn(pl_conn));
 			listeners.forEach(it -> it.exitConn(pl_conn));
 		}
@@ -158,6 +161,10 @@ public class CompressedXDLRCReader {
 		pl_pip.start_wire = cxdlrc.wireNames.get(pip.source);
 		pl_pip.end_wire = cxdlrc.wireNames.get(pip.sink);
 		pl_pip.type = CompressedXDLRC.getPipTypeString(pip.type);
+		pl_pip.tileToken.set(pl_pip.tile);
+		pl_pip.startWireToken.set(pl_pip.start_wire);
+		pl_pip.endWireToken.set(pl_pip.end_wire);
+		pl_pip.typeToken.set(pl_pip.type);
 
 		listeners.forEach(it -> it.enterPip(pl_pip));
 
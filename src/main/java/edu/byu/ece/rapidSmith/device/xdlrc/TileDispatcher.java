@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+
+package edu.byu.ece.rapidSmith.device.xdlrc;
+
+import edu.byu.ece.rapidSmith.device.xdlrc.XDLRCParserListener.Concurrency;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+
+import static edu.byu.ece.rapidSmith.util.Exceptions.ParseException;
+
+/**
+ *  Hands the tiles read by a parsing thread to a pool of worker threads, which
+ *  deliver the events of the tiles to the listeners.  The listeners are called
+ *  as declared by their {@link XDLRCParserListener#getConcurrency()}.
+ */
+final class TileDispatcher {
+	/** Number of tiles handed to a worker at once */
+	private static final int TILES_PER_TASK = 64;
+
+	/**
+	 * A tile waiting to be delivered.
+	 */
+	interface Tile {
+		/**
+		 * Delivers the events of the tile to the listeners.
+		 */
+		void deliver(List<XDLRCParserListener> listeners);
+	}
+
+	private final ExecutorService executor;
+	// bounds the number of tiles waiting to be delivered
+	private final Semaphore pending;
+	private final List<Future<?>> futures = new ArrayList<>();
+
+	private final List<XDLRCParserListener> concurrent = new ArrayList<>();
+	private final List<XDLRCParserListener> sequential = new ArrayList<>();
+	private final Queue<XDLRCParserListener[]> threadInstances = new ConcurrentLinkedQueue<>();
+	private final ThreadLocal<List<XDLRCParserListener>> threadListeners =
+			ThreadLocal.withInitial(this::createThreadListeners);
+
+	private List<Tile> batch = new ArrayList<>(TILES_PER_TASK);
+
+	/**
+	 * @param listeners the listeners to deliver the tiles to
+	 * @param threads the number of worker threads
+	 * @param name the name of the worker threads
+	 */
+	TileDispatcher(List<XDLRCParserListener> listeners, int threads, String name) {
+		this.executor = Executors.newFixedThreadPool(threads, r -> {
+			Thread thread = new Thread(r, name);
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.pending = new Semaphore(threads * 2);
+		for (XDLRCParserListener listener : listeners) {
+			if (listener.getConcurrency() == Concurrency.SEQUENTIAL)
+				sequential.add(listener);
+			else
+				concurrent.add(listener);
+		}
+	}
+
+	private List<XDLRCParserListener> createThreadListeners() {
+		List<XDLRCParserListener> instances = new ArrayList<>(concurrent.size());
+		for (XDLRCParserListener listener : concurrent) {
+			if (listener.getConcurrency() == Concurrency.PER_THREAD) {
+				XDLRCParserListener instance = listener.createThreadInstance();
+				threadInstances.add(new XDLRCParserListener[] { listener, instance });
+				instances.add(instance);
+			} else {
+				instances.add(listener);
+			}
+		}
+		return instances;
+	}
+
+	void add(Tile tile) throws IOException {
+		batch.add(tile);
+		if (batch.size() == TILES_PER_TASK)
+			submit();
+	}
+
+	private void submit() throws IOException {
+		List<Tile> tiles = batch;
+		batch = new ArrayList<>(TILES_PER_TASK);
+		try {
+			pending.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while parsing tiles");
+		}
+		futures.add(executor.submit(() -> {
+			try {
+				for (Tile tile : tiles)
+					deliver(tile);
+			} finally {
+				pending.release();
+			}
+		}));
+	}
+
+	private void deliver(Tile tile) {
+		if (!concurrent.isEmpty())
+			tile.deliver(threadListeners.get());
+		if (!sequential.isEmpty()) {
+			synchronized (sequential) {
+				tile.deliver(sequential);
+			}
+		}
+	}
+
+	/**
+	 * Waits for the submitted tiles to be delivered and merges the thread
+	 * instances of the listeners.
+	 */
+	void finish() throws IOException {
+		if (!batch.isEmpty())
+			submit();
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while parsing tiles");
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException)
+					throw (RuntimeException) cause;
+				if (cause instanceof Error)
+					throw (Error) cause;
+				throw new ParseException(cause);
+			}
+		}
+		futures.clear();
+
+		for (XDLRCParserListener[] pair : threadInstances)
+			pair[0].mergeThreadInstance(pair[1]);
+		threadInstances.clear();
+	}
+
+	void shutdown() {
+		executor.shutdownNow();
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+
+package edu.byu.ece.rapidSmith.device.xdlrc;
+
+import java.util.ArrayList;
+
+/**
+ * Assigns each distinct name an ID in the order the names are first seen.
+ * Names are found through an open addressing table of IDs using the hash
+ * of {@link String#hashCode()}, so a name is only copied into a string the
+ * first time it is seen.
+ */
+final class XDLRCNameTable {
+	private final ArrayList<String> names = new ArrayList<>();
+	/** ID + 1 of the name hashed to each slot, or 0 for an empty slot */
+	private int[] table = new int[1024];
+
+	int intern(CharSequence name) {
+		int mask = table.length - 1;
+		int slot = spread(hash(name)) & mask;
+		while (table[slot] != 0) {
+			int id = table[slot] - 1;
+			if (names.get(id).contentEquals(name))
+				return id;
+			slot = (slot + 1) & mask;
+		}
+
+		int id = names.size();
+		names.add(name.toString());
+		table[slot] = id + 1;
+		// keep the table at most half full
+		if (names.size() * 2 > table.length)
+			rehash();
+		return id;
+	}
+
+	String get(int id) {
+		return names.get(id);
+	}
+
+	int size() {
+		return names.size();
+	}
+
+	long getSizeInBytes() {
+		return 4L * table.length + 8L * names.size();
+	}
+
+	private void rehash() {
+		table = new int[table.length * 2];
+		int mask = table.length - 1;
+		for (int id = 0; id < names.size(); id++) {
+			int slot = spread(names.get(id).hashCode()) & mask;
+			while (table[slot] != 0)
+				slot = (slot + 1) & mask;
+			table[slot] = id + 1;
+		}
+	}
+
+	// the same hash as String.hashCode() without creating the string
+	private static int hash(CharSequence name) {
+		if (name instanceof String)
+			return name.hashCode();
+		int hash = 0;
+		for (int i = 0; i < name.length(); i++)
+			hash = 31 * hash + name.charAt(i);
+		return hash;
+	}
+
+	// mixes the high bits into the low bits used to pick a slot
+	private static int spread(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+}
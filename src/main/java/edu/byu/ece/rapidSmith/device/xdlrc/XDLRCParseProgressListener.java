@@ -20,23 +20,35 @@
 
 package edu.byu.ece.rapidSmith.device.xdlrc;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  *  Convenience class to report the current progress of ongoing parsing.
  */
 public class XDLRCParseProgressListener extends XDLRCParserListener {
 
 	private int totalTiles;
-	private int tilesParsed;
+	private final AtomicInteger tilesParsed;
 
 	public XDLRCParseProgressListener() {
 		this.totalTiles = 0;
-		this.tilesParsed = 0;
+		this.tilesParsed = new AtomicInteger();
+	}
+
+	@Override
+	protected Concurrency getConcurrency() {
+		return Concurrency.THREAD_SAFE;
+	}
+
+	@Override
+	protected boolean usesTokenStrings() {
+		return false;
 	}
 
 	@Override
 	protected void enterXdlResourceReport(pl_XdlResourceReport tokens) {
 		this.totalTiles = 0;
-		this.tilesParsed = 0;
+		this.tilesParsed.set(0);
 	}
 
 	/**
@@ -50,14 +62,15 @@ public class XDLRCParseProgressListener extends XDLRCParserListener {
 	@Override
 	protected void enterTiles(pl_Tiles tokens) {
 		totalTiles = tokens.rows * tokens.columns;
-		System.out.println(String.format("Parsing tile %6d of %6d tiles.", tilesParsed, totalTiles));
+		System.out.println(String.format("Parsing tile %6d of %6d tiles.", tilesParsed.get(), totalTiles));
 	}
 
 	@Override
 	protected void enterTile(pl_Tile tokens) {
 		// print out a heartbeat to the console every 1000 tiles
-		if (++tilesParsed % 1000 == 0) {
-			System.out.println(String.format("Parsing tile %6d of %6d tiles.", tilesParsed, totalTiles));
+		int parsed = tilesParsed.incrementAndGet();
+		if (parsed % 1000 == 0) {
+			System.out.println(String.format("Parsing tile %6d of %6d tiles.", parsed, totalTiles));
 		}
 	}
 }
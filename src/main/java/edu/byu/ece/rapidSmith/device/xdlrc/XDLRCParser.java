@@ -22,11 +22,11 @@ package edu.byu.ece.rapidSmith.device.xdlrc;
 
 import edu.byu.ece.rapidSmith.device.xdlrc.XDLRCParserListener.*;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.nio.charset.Charset;
-import java.nio.file.Files;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -37,27 +37,45 @@ import static edu.byu.ece.rapidSmith.util.Exceptions.ParseException;
  *  parse element.  This parser is very brittle and expects the file to be
  *  formatted very similar to the structure produced by calling "xdl -report"
  *  including closing parentheses on their own line when appropriate.
+ *  <p>
+ *  The file is memory mapped and split into tokens without copying them.  The
+ *  wires, PIPs and connections are delivered with {@link XDLRCToken} views of
+ *  their names, and their string fields are only filled in when a registered
+ *  listener {@link XDLRCParserListener#usesTokenStrings() uses them}.
+ *  <p>
+ *  A parser created with more than one thread finds the extent of each tile on
+ *  the calling thread and hands batches of tiles to a pool of worker threads,
+ *  which tokenize the tiles and deliver their events.  The
+ *  listeners declare through {@link XDLRCParserListener#getConcurrency()} how
+ *  they may be called from the workers.  The tiles are delivered in no
+ *  particular order, so listeners relying on the order of the file should
+ *  use a single threaded parser.
  */
 public class XDLRCParser {
 	// List of listeners to call when a parser element is detected
 	private final List<XDLRCParserListener> listeners;
-
-	// XDLRC input stream reader
-	private BufferedReader in;
-	// Tokens detected on the line
-	private List<String> tokens;
-
-	private pl_Conn pl_conn = new pl_Conn();
-	private pl_Pip pl_pip = new pl_Pip();
-	private pl_Wire pl_wire = new pl_Wire();
-	private pl_PinWire pl_pinwire = new pl_PinWire();
-	private pl_Routethrough rtTokens = new pl_Routethrough();
+	// Number of threads parsing the tiles
+	private final int threads;
 
 	/**
-	 * Creates a new XDLRC parser.
+	 * Creates a new XDLRC parser which parses on the calling thread.
 	 */
 	public XDLRCParser() {
+		this(1);
+	}
+
+	/**
+	 * Creates a new XDLRC parser which parses the tiles with the given number
+	 * of threads.
+	 * @param threads number of threads to parse the tiles with.  With one
+	 *   thread, the file is parsed in order on the calling thread.
+	 * @throws IllegalArgumentException if threads is less than 1
+	 */
+	public XDLRCParser(int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException("Illegal thread count: " + threads);
 		this.listeners = new ArrayList<>();
+		this.threads = threads;
 	}
 
 	/**
@@ -66,17 +84,14 @@ public class XDLRCParser {
 	 * @throws IOException if an error occurs while opening or reading the file
 	 */
 	public void parse(Path xdlrcFilePath) throws IOException {
-		try (BufferedReader in = Files.newBufferedReader(xdlrcFilePath, Charset.defaultCharset())) {
-			this.in = in;
-			// (xdl_resource_report <version> <part> <family>
-			findMatch("(xdl_resource_report");
-			pl_XdlResourceReport xdlReportTokens = new pl_XdlResourceReport();
-			xdlReportTokens.version = tokens.get(1);
-			xdlReportTokens.part = tokens.get(2);
-			xdlReportTokens.family = tokens.get(3);
-			listeners.forEach(listener -> listener.enterXdlResourceReport(xdlReportTokens));
-			parseXdlResourceReport();
-			listeners.forEach(listener -> listener.exitXdlResourceReport(xdlReportTokens));
+		try (FileChannel channel = FileChannel.open(xdlrcFilePath, StandardOpenOption.READ)) {
+			TileDispatcher dispatcher = threads > 1 ? new TileDispatcher(listeners, threads, "XDLRC parser") : null;
+			try {
+				new Parser(listeners, new XDLRCTokenizer(channel), dispatcher).parseFile();
+			} finally {
+				if (dispatcher != null)
+					dispatcher.shutdown();
+			}
 		}
 	}
 
@@ -95,324 +110,354 @@ public class XDLRCParser {
 		listeners.clear();
 	}
 
-	private void parseXdlResourceReport() throws IOException {
-		// (tiles <rows> <columns>
-		findMatch("(tiles");
-		parseTiles();
+	/**
+	 * The region of a mapped window of the file holding a tile.
+	 */
+	private static final class TileBlock implements TileDispatcher.Tile {
+		final ByteBuffer buffer;
+		final int start;
+		final int end;
+
+		TileBlock(ByteBuffer buffer, int[] region) {
+			this.buffer = buffer;
+			this.start = region[0];
+			this.end = region[1];
+		}
+
+		@Override
+		public void deliver(List<XDLRCParserListener> listeners) {
+			new Parser(listeners, new XDLRCTokenizer(buffer, start, end), null).parseTileBlock();
+		}
+	}
+
+	/**
+	 * Parses the lines of a tokenizer and calls the listeners for each element.
+	 */
+	private static final class Parser {
+		private final List<XDLRCParserListener> listeners;
+		private final XDLRCTokenizer in;
+		// hands the tiles to the worker threads when not null
+		private final TileDispatcher dispatcher;
+		// fill in the string fields of the wires, PIPs and connections
+		private final boolean strings;
+
+		private final pl_Conn pl_conn = new pl_Conn();
+		private final pl_Pip pl_pip = new pl_Pip();
+		private final pl_Wire pl_wire = new pl_Wire();
+		private final pl_PinWire pl_pinwire = new pl_PinWire();
+		private final pl_Routethrough rtTokens = new pl_Routethrough();
+
+		Parser(List<XDLRCParserListener> listeners, XDLRCTokenizer in, TileDispatcher dispatcher) {
+			this.listeners = listeners;
+			this.in = in;
+			this.dispatcher = dispatcher;
+			this.strings = listeners.stream().anyMatch(XDLRCParserListener::usesTokenStrings);
+		}
+
+		void parseFile() throws IOException {
+			// (xdl_resource_report <version> <part> <family>
+			findMatch("(xdl_resource_report");
+			pl_XdlResourceReport xdlReportTokens = new pl_XdlResourceReport();
+			xdlReportTokens.version = string(1);
+			xdlReportTokens.part = string(2);
+			xdlReportTokens.family = string(3);
+			listeners.forEach(listener -> listener.enterXdlResourceReport(xdlReportTokens));
+			parseXdlResourceReport();
+			listeners.forEach(listener -> listener.exitXdlResourceReport(xdlReportTokens));
+		}
+
+		/**
+		 * Parses a tile from a tokenizer starting at the (tile line.
+		 */
+		void parseTileBlock() {
+			try {
+				in.next();
+				parseTile();
+			} catch (IOException e) {
+				// the tiles are parsed from mapped windows already read
+				throw new AssertionError(e);
+			}
+		}
+
+		private String string(int index) {
+			return in.token(index).toString();
+		}
+
+		private int integer(int index) {
+			return in.token(index).parseInt();
+		}
+
+		private boolean is(String keyword) {
+			return in.token(0).contentEquals(keyword);
+		}
+
+		private List<String> strings(int from, int to) {
+			List<String> list = new ArrayList<>(to - from);
+			for (int i = from; i < to; i++)
+				list.add(string(i));
+			return list;
+		}
+
+		private void parseXdlResourceReport() throws IOException {
+			// (tiles <rows> <columns>
+			findMatch("(tiles");
+			parseTiles();
 
-		while (readLine()) {
-			switch (tokens.get(0)) {
+			while (readLine()) {
 				// (primitive_defs <count>
-				case "(primitive_defs" :
+				if (is("(primitive_defs")) {
 					parsePrimitiveDefs();
 					findMatch("(summary");
+				}
 				// (summary x=y ...
-				case "(summary" :
+				if (is("(summary")) {
 					pl_Summary summaryTokens = new pl_Summary();
 					// remove the start and trailing parens
-					summaryTokens.stats = tokens.subList(1, tokens.size() - 1);
+					summaryTokens.stats = strings(1, in.size() - 1);
 					listeners.forEach(listener -> listener.enterSummary(summaryTokens));
 					listeners.forEach(listener -> listener.exitSummary(summaryTokens));
 
 					findMatch(")");
 					return;
+				}
 			}
+			throw new ParseException();
 		}
-		throw new ParseException();
-	}
 
-	private void parseTiles() throws IOException {
-		pl_Tiles tilesTokens = new pl_Tiles();
-		tilesTokens.rows = Integer.parseInt(tokens.get(1));
-		tilesTokens.columns = Integer.parseInt(tokens.get(2));
-		listeners.forEach(listener -> listener.enterTiles(tilesTokens));
+		private void parseTiles() throws IOException {
+			pl_Tiles tilesTokens = new pl_Tiles();
+			tilesTokens.rows = integer(1);
+			tilesTokens.columns = integer(2);
+			listeners.forEach(listener -> listener.enterTiles(tilesTokens));
 
-		while (readLine()) {
-			switch (tokens.get(0)) {
+			while (readLine()) {
 				// (tile <row> <column> <name> <type> <site_count>
-				case "(tile" :
-					parseTile();
-					break;
-				case ")" :
+				if (is("(tile")) {
+					if (dispatcher != null)
+						dispatcher.add(new TileBlock(in.buffer(), in.skipElement()));
+					else
+						parseTile();
+				} else if (is(")")) {
+					if (dispatcher != null)
+						dispatcher.finish();
 					listeners.forEach(listener -> listener.exitTiles(tilesTokens));
 					return;
+				}
 			}
+			throw new ParseException();
 		}
-		throw new ParseException();
-	}
 
-	private void parseTile() throws IOException {
-		pl_Tile tileTokens = new pl_Tile();
-		tileTokens.row = Integer.parseInt(tokens.get(1));
-		tileTokens.column = Integer.parseInt(tokens.get(2));
-		tileTokens.name = tokens.get(3);
-		tileTokens.type = tokens.get(4);
-		tileTokens.site_count = Integer.parseInt(tokens.get(5));
-		listeners.forEach(listener -> listener.enterTile(tileTokens));
-
-		while (readLine()) {
-			switch (tokens.get(0)) {
+		private void parseTile() throws IOException {
+			pl_Tile tileTokens = new pl_Tile();
+			tileTokens.row = integer(1);
+			tileTokens.column = integer(2);
+			tileTokens.name = string(3);
+			tileTokens.type = string(4);
+			tileTokens.site_count = integer(5);
+			listeners.forEach(listener -> listener.enterTile(tileTokens));
+
+			while (readLine()) {
 				// (primitive_site <name> <type> <bonded> <pinwire_count>
-				case "(primitive_site" :
+				if (is("(primitive_site")) {
 					parsePrimitiveSite();
-					break;
 				// (wire <name> <connection_count>
-				case "(wire" :
+				} else if (is("(wire")) {
 					parseWire();
-					break;
 				// (pip <tile> <start_wire> <direction> <end_wire> <rt_name> <rt_site>
-				case "(pip" :
+				} else if (is("(pip")) {
 					pl_Pip pipTokens = pl_pip;
-					pipTokens.tile = tokens.get(1);
-					pipTokens.start_wire = tokens.get(2);
-					pipTokens.type = tokens.get(3);
-					pipTokens.end_wire = tokens.get(4);
+					pipTokens.tileToken.set(in.token(1));
+					pipTokens.startWireToken.set(in.token(2));
+					pipTokens.typeToken.set(in.token(3));
+					pipTokens.endWireToken.set(in.token(4));
+					if (strings) {
+						pipTokens.tile = string(1);
+						pipTokens.start_wire = string(2);
+						pipTokens.type = string(3);
+						pipTokens.end_wire = string(4);
+					}
 					listeners.forEach(listener -> listener.enterPip(pipTokens));
 
-					if (tokens.size() > 6) {
-						String lastValue = tokens.get(6);
-						tokens.set(6, lastValue.substring(0, lastValue.length()-1));
-						tokens.add(")");
-						rtTokens.pins = tokens.get(5);
-						rtTokens.site_type = tokens.get(6);
+					if (in.size() > 6) {
+						String lastValue = string(6);
+						rtTokens.pins = string(5);
+						rtTokens.site_type = lastValue.substring(0, lastValue.length()-1);
 						listeners.forEach(listener -> listener.enterRoutethrough(rtTokens));
 						listeners.forEach(listener -> listener.exitRoutethrough(rtTokens));
 					}
 
 					listeners.forEach(listener -> listener.exitPip(pipTokens));
-					break;
 				// (tile_summary <name> <type> <pin_count> <wire_count> <pip_count>
-				case "(tile_summary" :
+				} else if (is("(tile_summary")) {
 					pl_TileSummary tsTokens = new pl_TileSummary();
-					tsTokens.name = tokens.get(1);
-					tsTokens.type = tokens.get(2);
-					tsTokens.pin_count = Integer.parseInt(tokens.get(3));
-					tsTokens.wire_count = Integer.parseInt(tokens.get(4));
-					tsTokens.pip_count = Integer.parseInt(tokens.get(5));
+					tsTokens.name = string(1);
+					tsTokens.type = string(2);
+					tsTokens.pin_count = integer(3);
+					tsTokens.wire_count = integer(4);
+					tsTokens.pip_count = integer(5);
 					listeners.forEach(listener -> listener.enterTileSummary(tsTokens));
 					listeners.forEach(listener -> listener.exitTileSummary(tsTokens));
-					break;
-				case ")" :
+				} else if (is(")")) {
 					listeners.forEach(listener -> listener.exitTile(tileTokens));
 					return;
+				}
 			}
+			throw new ParseException();
 		}
-		throw new ParseException();
-	}
 
-	private void parsePrimitiveSite() throws IOException {
-		pl_PrimitiveSite siteTokens = new pl_PrimitiveSite();
-		siteTokens.name = tokens.get(1);
-		siteTokens.type = tokens.get(2);
-		siteTokens.bonded = tokens.get(3);
-		siteTokens.pinwire_count = Integer.parseInt(tokens.get(4));
-		listeners.forEach(listener -> listener.enterPrimitiveSite(siteTokens));
+		private void parsePrimitiveSite() throws IOException {
+			pl_PrimitiveSite siteTokens = new pl_PrimitiveSite();
+			siteTokens.name = string(1);
+			siteTokens.type = string(2);
+			siteTokens.bonded = string(3);
+			siteTokens.pinwire_count = integer(4);
+			listeners.forEach(listener -> listener.enterPrimitiveSite(siteTokens));
 
-		while(readLine()) {
-			switch (tokens.get(0)) {
+			while(readLine()) {
 				// (pinwire <name> <direction> <external_wire>
-				case "(pinwire" :
+				if (is("(pinwire")) {
 					pl_PinWire pwTokens = pl_pinwire;
-					pwTokens.name = tokens.get(1);
-					pwTokens.direction = tokens.get(2);
-					pwTokens.external_wire = tokens.get(3);
+					pwTokens.name = string(1);
+					pwTokens.direction = string(2);
+					pwTokens.external_wire = string(3);
 					listeners.forEach(listener -> listener.enterPinWire(pwTokens));
 					listeners.forEach(listener -> listener.exitPinWire(pwTokens));
-					break;
-				case ")" :
+				} else if (is(")")) {
 					listeners.forEach(listener -> listener.exitPrimitiveSite(siteTokens));
 					return;
+				}
 			}
+			throw new ParseException();
 		}
-		throw new ParseException();
-	}
 
-	private void parseWire() throws IOException {
-		pl_Wire wireTokens = pl_wire;
-		pl_wire.name = tokens.get(1);
-		pl_wire.connections_count = Integer.parseInt(tokens.get(2));
-		listeners.forEach(listener -> listener.enterWire(wireTokens));
+		private void parseWire() throws IOException {
+			pl_Wire wireTokens = pl_wire;
+			wireTokens.nameToken.set(in.token(1));
+			wireTokens.name = strings ? string(1) : null;
+			wireTokens.connections_count = integer(2);
+			listeners.forEach(listener -> listener.enterWire(wireTokens));
 
-		if (tokens.get(tokens.size()-1).equals(")")) {
-			listeners.forEach(listener -> listener.exitWire(wireTokens));
-			return;
-		}
+			if (in.token(in.size()-1).contentEquals(")")) {
+				listeners.forEach(listener -> listener.exitWire(wireTokens));
+				return;
+			}
 
-		while (readLine()) {
-			switch (tokens.get(0)) {
+			while (readLine()) {
 				// (conn <tile> <name>
-				case "(conn" :
+				if (is("(conn")) {
 					pl_Conn connTokens = pl_conn;
-					connTokens.tile = tokens.get(1);
-					connTokens.wire = tokens.get(2);
+					connTokens.tileToken.set(in.token(1));
+					connTokens.wireToken.set(in.token(2));
+					if (strings) {
+						connTokens.tile = string(1);
+						connTokens.wire = string(2);
+					}
 					listeners.forEach(listener -> listener.enterConn(connTokens));
 					listeners.forEach(listener -> listener.exitConn(connTokens));
-					break;
-				case ")" :
+				} else if (is(")")) {
 					listeners.forEach(listener -> listener.exitWire(wireTokens));
 					return;
+				}
 			}
+			throw new ParseException();
 		}
-		throw new ParseException();
-	}
 
-	private void parsePrimitiveDefs() throws IOException {
-		pl_PrimitiveDefs pdTokens = new pl_PrimitiveDefs();
-		pdTokens.num_defs = Integer.parseInt(tokens.get(1));
-		listeners.forEach(listener -> listener.enterPrimitiveDefs(pdTokens));
+		private void parsePrimitiveDefs() throws IOException {
+			pl_PrimitiveDefs pdTokens = new pl_PrimitiveDefs();
+			pdTokens.num_defs = integer(1);
+			listeners.forEach(listener -> listener.enterPrimitiveDefs(pdTokens));
 
-		while (readLine()) {
-			switch (tokens.get(0)) {
-				case "(primitive_def" :
+			while (readLine()) {
+				if (is("(primitive_def")) {
 					parsePrimitiveDef();
-					break;
-				case ")" :
+				} else if (is(")")) {
 					listeners.forEach(listener -> listener.exitPrimitiveDefs(pdTokens));
 					return;
+				}
 			}
 		}
-	}
 
-	private void parsePrimitiveDef() throws IOException {
-		pl_PrimitiveDef pdTokens = new pl_PrimitiveDef();
-		pdTokens.name = tokens.get(1);
-		pdTokens.pin_count = Integer.parseInt(tokens.get(2));
-		pdTokens.element_count = Integer.parseInt(tokens.get(3));
-		listeners.forEach(listener -> listener.enterPrimitiveDef(pdTokens));
+		private void parsePrimitiveDef() throws IOException {
+			pl_PrimitiveDef pdTokens = new pl_PrimitiveDef();
+			pdTokens.name = string(1);
+			pdTokens.pin_count = integer(2);
+			pdTokens.element_count = integer(3);
+			listeners.forEach(listener -> listener.enterPrimitiveDef(pdTokens));
 
-		while (readLine()) {
-			switch (tokens.get(0)) {
-				case "(pin" :
+			while (readLine()) {
+				if (is("(pin")) {
 					pl_Pin pinTokens = new pl_Pin();
-					pinTokens.external_name = tokens.get(1);
-					pinTokens.internal_name = tokens.get(2);
-					pinTokens.direction = tokens.get(3);
+					pinTokens.external_name = string(1);
+					pinTokens.internal_name = string(2);
+					pinTokens.direction = string(3);
 					listeners.forEach(listener -> listener.enterPin(pinTokens));
 					listeners.forEach(listener -> listener.exitPin(pinTokens));
-					break;
-				case "(element" :
+				} else if (is("(element")) {
 					parseElement();
-					break;
-				case ")" :
+				} else if (is(")")) {
 					listeners.forEach(listener -> listener.exitPrimitiveDef(pdTokens));
 					return;
+				}
 			}
+			throw new ParseException();
 		}
-		throw new ParseException();
-	}
 
-	private void parseElement() throws IOException {
-		pl_Element elementTokens = new pl_Element();
-		elementTokens.name = tokens.get(1);
-		elementTokens.pin_count = Integer.parseInt(tokens.get(2));
-		elementTokens.isBel = tokens.size() >= 5 && tokens.get(3).equals("#") && tokens.get(4).equals("BEL");
+		private void parseElement() throws IOException {
+			pl_Element elementTokens = new pl_Element();
+			elementTokens.name = string(1);
+			elementTokens.pin_count = integer(2);
+			elementTokens.isBel = in.size() >= 5 && in.token(3).contentEquals("#") &&
+					in.token(4).contentEquals("BEL");
 
-		listeners.forEach(listener -> listener.enterElement(elementTokens));
+			listeners.forEach(listener -> listener.enterElement(elementTokens));
 
-		while (readLine()) {
-			switch (tokens.get(0)) {
-				case "(pin" :
+			while (readLine()) {
+				if (is("(pin")) {
 					pl_ElementPin pinTokens = new pl_ElementPin();
-					pinTokens.name = tokens.get(1);
-					pinTokens.direction = tokens.get(2);
+					pinTokens.name = string(1);
+					pinTokens.direction = string(2);
 					listeners.forEach(listener -> listener.enterElementPin(pinTokens));
 					listeners.forEach(listener -> listener.exitElementPin(pinTokens));
-					break;
-				case "(cfg" :
+				} else if (is("(cfg")) {
 					pl_ElementCfg cfgTokens = new pl_ElementCfg();
 					// remove the start and trailing parens
-					cfgTokens.cfgs = tokens.subList(1, tokens.size() - 1);
+					cfgTokens.cfgs = strings(1, in.size() - 1);
 					listeners.forEach(listener -> listener.enterElementCfg(cfgTokens));
 					listeners.forEach(listener -> listener.exitElementCfg(cfgTokens));
-					break;
-				case "(conn" :
+				} else if (is("(conn")) {
 					pl_ElementConn connTokens = new pl_ElementConn();
-					connTokens.element0 = tokens.get(1);
-					connTokens.pin0 = tokens.get(2);
-					connTokens.direction = tokens.get(3);
-					connTokens.element1 = tokens.get(4);
-					connTokens.pin1 = tokens.get(5);
+					connTokens.element0 = string(1);
+					connTokens.pin0 = string(2);
+					connTokens.direction = string(3);
+					connTokens.element1 = string(4);
+					connTokens.pin1 = string(5);
 					listeners.forEach(listener -> listener.enterElementConn(connTokens));
 					listeners.forEach(listener -> listener.exitElementConn(connTokens));
-					break;
-				case ")" :
+				} else if (is(")")) {
 					listeners.forEach(listener -> listener.exitElement(elementTokens));
 					return;
+				}
 			}
+			throw new ParseException();
 		}
-		throw new ParseException();
-	}
-
-	/**
-	 * Iterates through the lines in the file until a line is found that starts
-	 * with the specified token.
-	 */
-	private void findMatch(String token) throws IOException {
-		while (readLine()) {
-			if (tokens.get(0).equals(token))
-				return;
-		}
-		throw new ParseException();
-	}
 
-	/**
-	 * Reads the next line from the file and parses it into tokens
-	 */
-	private boolean readLine() throws IOException {
-		// filter out empty lines
-		while (true) {
-			// read next line
-			String line = in.readLine();
-
-			// check if end of file
-			if (line == null) {
-				tokens = null;
-				return false;
-			}
-
-			tokens = split(line);
-			if (!tokens.isEmpty())
-				return true;
-		}
-	}
-
-	private static List<String> split(String line) {
-		List<String> parts = new ArrayList<>();
-		int startIndex = 0, endIndex;
-
-		// Strip any starting tabs and check for empty lines
-		while (line.length() > startIndex && line.charAt(startIndex) == '\t')
-			startIndex++;
-
-		// Continue while there are more unread characters on the line
-		while (line.length() > startIndex) {
-			// find the next space character.  Three outcomes
-			// 1. word found ending at end of line -- add word to the list
-			// 2. word found ending in space -- add the word to the list
-			// 3. next space is next character -- strip the space character
-			endIndex = line.indexOf(" ", startIndex);
-
-			if (endIndex == -1) {
-				parts.add(line.substring(startIndex));
-				break;
-			} else if (endIndex != startIndex) {
-				parts.add(line.substring(startIndex, endIndex));
+		/**
+		 * Iterates through the lines in the file until a line is found that starts
+		 * with the specified token.
+		 */
+		private void findMatch(String token) throws IOException {
+			while (readLine()) {
+				if (is(token))
+					return;
 			}
-			startIndex = endIndex + 1;
+			throw new ParseException();
 		}
 
-		// strip any trailing parenthesis
-		stripTrailingParen(parts);
-
-		return parts;
-	}
-
-	private static void stripTrailingParen(List<String> tokens) {
-		int lastIndex = tokens.size() - 1;
-		String lastValue = tokens.get(lastIndex);
-		if (lastValue.length() > 1 && lastValue.endsWith(")")) {
-			tokens.set(lastIndex, lastValue.substring(0, lastValue.length()-1));
-			tokens.add(")");
+		/**
+		 * Reads the next line holding tokens from the file
+		 */
+		private boolean readLine() throws IOException {
+			return in.next();
 		}
 	}
 }
@@ -65,6 +65,57 @@ public abstract class XDLRCParserListener {
 	protected void enterSummary(pl_Summary tokens) { }
 	protected void exitSummary(pl_Summary tokens) { }
 
+	/**
+	 * Returns true if this listener reads the string fields of {@link pl_Wire},
+	 * {@link pl_Pip} and {@link pl_Conn}.  The parser only creates the strings
+	 * when a registered listener reads them.  Listeners returning false read
+	 * the {@link XDLRCToken} views of the holders instead.
+	 */
+	protected boolean usesTokenStrings() {
+		return true;
+	}
+
+	/**
+	 * How a parser using several threads may call a listener for the events
+	 * inside of tiles.  The events outside of tiles are always delivered to the
+	 * registered listener on the thread calling the parser, and the events of
+	 * a tile are always delivered in order on a single thread.
+	 */
+	public enum Concurrency {
+		/** The listener receives one tile at a time, in no particular order. */
+		SEQUENTIAL,
+		/** The listener receives the tiles from several threads at once. */
+		THREAD_SAFE,
+		/**
+		 * Each parse thread calls its own instance of the listener created by
+		 * {@link #createThreadInstance()}.  The instances are passed to
+		 * {@link #mergeThreadInstance} before the parser exits the tiles.
+		 */
+		PER_THREAD
+	}
+
+	/**
+	 * Returns how a parser using several threads may call this listener.
+	 * Listeners are {@link Concurrency#SEQUENTIAL} unless they override this.
+	 */
+	protected Concurrency getConcurrency() {
+		return Concurrency.SEQUENTIAL;
+	}
+
+	/**
+	 * Creates the instance of a {@link Concurrency#PER_THREAD} listener for a
+	 * parse thread.  The instance only receives the events inside of tiles.
+	 */
+	protected XDLRCParserListener createThreadInstance() {
+		throw new UnsupportedOperationException(getClass().getName() + " has no thread instances");
+	}
+
+	/**
+	 * Merges the results of an instance created by {@link #createThreadInstance()}
+	 * into this listener.  Called on the thread calling the parser.
+	 */
+	protected void mergeThreadInstance(XDLRCParserListener instance) { }
+
 	public static final class pl_XdlResourceReport {
 		public String version;
 		public String part;
@@ -100,11 +151,16 @@ public abstract class XDLRCParserListener {
 	public static final class pl_Wire {
 		public String name;
 		public int connections_count;
+		/** View of the name, valid until the next wire */
+		public final XDLRCToken nameToken = new XDLRCToken();
 	}
 
 	public static final class pl_Conn {
 		public String tile;
 		public String wire;
+		/** Views of the tile and wire, valid until the next connection */
+		public final XDLRCToken tileToken = new XDLRCToken();
+		public final XDLRCToken wireToken = new XDLRCToken();
 	}
 
 	public static final class pl_TileSummary {
@@ -121,6 +177,11 @@ public abstract class XDLRCParserListener {
 		public String start_wire;
 		public String type;
 		public String end_wire;
+		/** Views of the fields, valid until the next PIP */
+		public final XDLRCToken tileToken = new XDLRCToken();
+		public final XDLRCToken startWireToken = new XDLRCToken();
+		public final XDLRCToken typeToken = new XDLRCToken();
+		public final XDLRCToken endWireToken = new XDLRCToken();
 	}
 
 	public static final class pl_Routethrough {
@@ -13,11 +13,20 @@ public interface XDLRCSource {
 	Path getFilePath();
 
 	class XDLRCFileSource implements XDLRCSource {
-		private XDLRCParser parser = new XDLRCParser();
+		private XDLRCParser parser;
 		private Path xdlrcPath;
 
 		public XDLRCFileSource(Path xdlrcPath) {
+			this(xdlrcPath, 1);
+		}
+
+		/**
+		 * Creates a source parsing the tiles of the file with the given number
+		 * of threads.  See {@link XDLRCParser#XDLRCParser(int)}.
+		 */
+		public XDLRCFileSource(Path xdlrcPath, int threads) {
 			this.xdlrcPath = xdlrcPath;
+			this.parser = new XDLRCParser(threads);
 		}
 
 		@Override
@@ -78,4 +87,45 @@ public interface XDLRCSource {
 			return cxdlrcPath;
 		}
 	}
+
+	/**
+	 * A source replaying a binary XDLRC file written by {@link BinaryXDLRCWriter}.
+	 */
+	class BinaryXDLRCSource implements XDLRCSource {
+		private final BinaryXDLRCReader reader;
+		private final Path path;
+
+		public BinaryXDLRCSource(Path path) {
+			this(path, 1);
+		}
+
+		/**
+		 * Creates a source delivering the tiles of the file with the given
+		 * number of threads.  See {@link BinaryXDLRCReader#BinaryXDLRCReader(int)}.
+		 */
+		public BinaryXDLRCSource(Path path, int threads) {
+			this.path = path;
+			this.reader = new BinaryXDLRCReader(threads);
+		}
+
+		@Override
+		public void registerListener(XDLRCParserListener listener) {
+			reader.registerListener(listener);
+		}
+
+		@Override
+		public void clearListeners() {
+			reader.clearListeners();
+		}
+
+		@Override
+		public void parse() throws IOException {
+			reader.parse(path);
+		}
+
+		@Override
+		public Path getFilePath() {
+			return path;
+		}
+	}
 }
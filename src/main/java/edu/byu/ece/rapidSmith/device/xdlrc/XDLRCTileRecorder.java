@@ -0,0 +1,334 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+
+package edu.byu.ece.rapidSmith.device.xdlrc;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ *  Records the events inside of the tiles of an XDLRC file so that they can be
+ *  replayed to other listeners after the parse.  Listeners which need the
+ *  whole file to have been read before they can handle a tile, such as those
+ *  resolving the connections of wires to tiles not yet parsed, can then be
+ *  run without parsing the file a second time.
+ *  <p>
+ *  The events are kept as a stream of ints in fixed size blocks, with each
+ *  name replaced by its ID in a table holding each distinct name once.  Names
+ *  are interned from the token views of the parser, so the strings of repeated
+ *  names are never created.  Recording a file still takes memory in
+ *  proportion to the number of wire connections in it.
+ */
+public final class XDLRCTileRecorder extends XDLRCParserListener {
+	// event codes of the stream, each followed by its fields
+	private static final int TILE = 0;          // row, column, name, type, site_count
+	private static final int TILE_END = 1;
+	private static final int SITE = 2;          // name, type, bonded, pinwire_count
+	private static final int SITE_END = 3;
+	private static final int PINWIRE = 4;       // name, direction, external_wire
+	private static final int WIRE = 5;          // name, connections_count
+	private static final int WIRE_END = 6;
+	private static final int CONN = 7;          // tile, wire
+	private static final int PIP = 8;           // tile, start_wire, type, end_wire
+	private static final int PIP_END = 9;
+	private static final int ROUTETHROUGH = 10; // pins, site_type
+	private static final int TILE_SUMMARY = 11; // name, type, pin_count, wire_count, pip_count
+
+	private final IntBlocks events = new IntBlocks();
+	private final XDLRCNameTable names = new XDLRCNameTable();
+	private int rows;
+	private int columns;
+
+	// the names are interned from the token views
+	@Override
+	protected boolean usesTokenStrings() {
+		return false;
+	}
+
+	@Override
+	protected void enterTiles(pl_Tiles tokens) {
+		rows = tokens.rows;
+		columns = tokens.columns;
+	}
+
+	@Override
+	protected void enterTile(pl_Tile tokens) {
+		events.add(TILE);
+		events.add(tokens.row);
+		events.add(tokens.column);
+		events.add(names.intern(tokens.name));
+		events.add(names.intern(tokens.type));
+		events.add(tokens.site_count);
+	}
+
+	@Override
+	protected void exitTile(pl_Tile tokens) {
+		events.add(TILE_END);
+	}
+
+	@Override
+	protected void enterPrimitiveSite(pl_PrimitiveSite tokens) {
+		events.add(SITE);
+		events.add(names.intern(tokens.name));
+		events.add(names.intern(tokens.type));
+		events.add(names.intern(tokens.bonded));
+		events.add(tokens.pinwire_count);
+	}
+
+	@Override
+	protected void exitPrimitiveSite(pl_PrimitiveSite tokens) {
+		events.add(SITE_END);
+	}
+
+	@Override
+	protected void enterPinWire(pl_PinWire tokens) {
+		events.add(PINWIRE);
+		events.add(names.intern(tokens.name));
+		events.add(names.intern(tokens.direction));
+		events.add(names.intern(tokens.external_wire));
+	}
+
+	@Override
+	protected void enterWire(pl_Wire tokens) {
+		events.add(WIRE);
+		events.add(names.intern(tokens.nameToken));
+		events.add(tokens.connections_count);
+	}
+
+	@Override
+	protected void exitWire(pl_Wire tokens) {
+		events.add(WIRE_END);
+	}
+
+	@Override
+	protected void enterConn(pl_Conn tokens) {
+		events.add(CONN);
+		events.add(names.intern(tokens.tileToken));
+		events.add(names.intern(tokens.wireToken));
+	}
+
+	@Override
+	protected void enterPip(pl_Pip tokens) {
+		events.add(PIP);
+		events.add(names.intern(tokens.tileToken));
+		events.add(names.intern(tokens.startWireToken));
+		events.add(names.intern(tokens.typeToken));
+		events.add(names.intern(tokens.endWireToken));
+	}
+
+	@Override
+	protected void exitPip(pl_Pip tokens) {
+		events.add(PIP_END);
+	}
+
+	@Override
+	protected void enterRoutethrough(pl_Routethrough tokens) {
+		events.add(ROUTETHROUGH);
+		events.add(names.intern(tokens.pins));
+		events.add(names.intern(tokens.site_type));
+	}
+
+	@Override
+	protected void enterTileSummary(pl_TileSummary tokens) {
+		events.add(TILE_SUMMARY);
+		events.add(names.intern(tokens.name));
+		events.add(names.intern(tokens.type));
+		events.add(tokens.pin_count);
+		events.add(tokens.wire_count);
+		events.add(tokens.pip_count);
+	}
+
+	/**
+	 * Returns the number of distinct names recorded.
+	 */
+	public int getNameCount() {
+		return names.size();
+	}
+
+	/**
+	 * Returns the number of bytes used by the recorded events, not counting
+	 * the strings of the names.
+	 */
+	public long getSizeInBytes() {
+		return events.getSizeInBytes() + names.getSizeInBytes();
+	}
+
+	/**
+	 * Delivers the recorded tiles to the listeners on the calling thread, in
+	 * the order they were recorded.  The listeners receive the events from
+	 * {@code enterTiles} to {@code exitTiles}, with both the string fields and
+	 * the token views of the holders filled in.
+	 *
+	 * @param listeners the listeners to deliver the events to
+	 */
+	public void replay(List<? extends XDLRCParserListener> listeners) {
+		pl_Tiles tilesTokens = new pl_Tiles();
+		tilesTokens.rows = rows;
+		tilesTokens.columns = columns;
+		listeners.forEach(listener -> listener.enterTiles(tilesTokens));
+
+		pl_Tile tileTokens = null;
+		pl_PrimitiveSite siteTokens = null;
+		pl_PinWire pwTokens = new pl_PinWire();
+		pl_Wire wireTokens = new pl_Wire();
+		pl_Conn connTokens = new pl_Conn();
+		pl_Pip pipTokens = new pl_Pip();
+		pl_Routethrough rtTokens = new pl_Routethrough();
+
+		long pos = 0;
+		long end = events.size();
+		while (pos < end) {
+			int code = events.get(pos++);
+			switch (code) {
+				case TILE: {
+					pl_Tile tokens = new pl_Tile();
+					tokens.row = events.get(pos++);
+					tokens.column = events.get(pos++);
+					tokens.name = name(events.get(pos++));
+					tokens.type = name(events.get(pos++));
+					tokens.site_count = events.get(pos++);
+					listeners.forEach(listener -> listener.enterTile(tokens));
+					tileTokens = tokens;
+					break;
+				}
+				case TILE_END: {
+					pl_Tile tokens = tileTokens;
+					listeners.forEach(listener -> listener.exitTile(tokens));
+					break;
+				}
+				case SITE: {
+					pl_PrimitiveSite tokens = new pl_PrimitiveSite();
+					tokens.name = name(events.get(pos++));
+					tokens.type = name(events.get(pos++));
+					tokens.bonded = name(events.get(pos++));
+					tokens.pinwire_count = events.get(pos++);
+					listeners.forEach(listener -> listener.enterPrimitiveSite(tokens));
+					siteTokens = tokens;
+					break;
+				}
+				case SITE_END: {
+					pl_PrimitiveSite tokens = siteTokens;
+					listeners.forEach(listener -> listener.exitPrimitiveSite(tokens));
+					break;
+				}
+				case PINWIRE:
+					pwTokens.name = name(events.get(pos++));
+					pwTokens.direction = name(events.get(pos++));
+					pwTokens.external_wire = name(events.get(pos++));
+					listeners.forEach(listener -> listener.enterPinWire(pwTokens));
+					listeners.forEach(listener -> listener.exitPinWire(pwTokens));
+					break;
+				case WIRE:
+					wireTokens.name = name(events.get(pos++));
+					wireTokens.nameToken.set(wireTokens.name);
+					wireTokens.connections_count = events.get(pos++);
+					listeners.forEach(listener -> listener.enterWire(wireTokens));
+					break;
+				case WIRE_END:
+					listeners.forEach(listener -> listener.exitWire(wireTokens));
+					break;
+				case CONN:
+					connTokens.tile = name(events.get(pos++));
+					connTokens.tileToken.set(connTokens.tile);
+					connTokens.wire = name(events.get(pos++));
+					connTokens.wireToken.set(connTokens.wire);
+					listeners.forEach(listener -> listener.enterConn(connTokens));
+					listeners.forEach(listener -> listener.exitConn(connTokens));
+					break;
+				case PIP:
+					pipTokens.tile = name(events.get(pos++));
+					pipTokens.tileToken.set(pipTokens.tile);
+					pipTokens.start_wire = name(events.get(pos++));
+					pipTokens.startWireToken.set(pipTokens.start_wire);
+					pipTokens.type = name(events.get(pos++));
+					pipTokens.typeToken.set(pipTokens.type);
+					pipTokens.end_wire = name(events.get(pos++));
+					pipTokens.endWireToken.set(pipTokens.end_wire);
+					listeners.forEach(listener -> listener.enterPip(pipTokens));
+					break;
+				case PIP_END:
+					listeners.forEach(listener -> listener.exitPip(pipTokens));
+					break;
+				case ROUTETHROUGH:
+					rtTokens.pins = name(events.get(pos++));
+					rtTokens.site_type = name(events.get(pos++));
+					listeners.forEach(listener -> listener.enterRoutethrough(rtTokens));
+					listeners.forEach(listener -> listener.exitRoutethrough(rtTokens));
+					break;
+				case TILE_SUMMARY: {
+					pl_TileSummary tokens = new pl_TileSummary();
+					tokens.name = name(events.get(pos++));
+					tokens.type = name(events.get(pos++));
+					tokens.pin_count = events.get(pos++);
+					tokens.wire_count = events.get(pos++);
+					tokens.pip_count = events.get(pos++);
+					listeners.forEach(listener -> listener.enterTileSummary(tokens));
+					listeners.forEach(listener -> listener.exitTileSummary(tokens));
+					break;
+				}
+				default:
+					throw new AssertionError("Unknown event " + code);
+			}
+		}
+
+		listeners.forEach(listener -> listener.exitTiles(tilesTokens));
+	}
+
+	private String name(int id) {
+		return names.get(id);
+	}
+
+	/**
+	 * A growable stream of ints kept in fixed size blocks, so that it can grow
+	 * past the size of an array without copying the ints already added.
+	 */
+	private static final class IntBlocks {
+		private static final int BLOCK_BITS = 16;
+		private static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+
+		private int[][] blocks = new int[16][];
+		private int blockCount;
+		private int[] last;
+		private int lastSize = BLOCK_SIZE;
+
+		void add(int value) {
+			if (lastSize == BLOCK_SIZE) {
+				if (blockCount == blocks.length)
+					blocks = Arrays.copyOf(blocks, blockCount * 2);
+				last = new int[BLOCK_SIZE];
+				blocks[blockCount++] = last;
+				lastSize = 0;
+			}
+			last[lastSize++] = value;
+		}
+
+		int get(long index) {
+			return blocks[(int) (index >>> BLOCK_BITS)][(int) index & (BLOCK_SIZE - 1)];
+		}
+
+		long size() {
+			return blockCount == 0 ? 0 : (long) (blockCount - 1) * BLOCK_SIZE + lastSize;
+		}
+
+		long getSizeInBytes() {
+			return 4L * BLOCK_SIZE * blockCount + 8L * blocks.length;
+		}
+	}
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+
+package edu.byu.ece.rapidSmith.device.xdlrc;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ *  A reusable view of a token of an XDLRC file.  The view reads the characters
+ *  of the token from the bytes of the file without copying them, with each
+ *  byte read as one character.  The parser points the view at the next token
+ *  instead of creating a new one, so listeners must not keep a view past the
+ *  event it was delivered with.  {@link #toString()} creates a string of the
+ *  token for listeners needing to keep it.
+ *  <p>
+ *  A view can be used wherever a {@link CharSequence} is accepted, such as the
+ *  name lookups of the device, which look up ASCII names without allocating.
+ */
+public final class XDLRCToken implements CharSequence {
+	private ByteBuffer bytes;
+	private int offset;
+	private int length;
+	// the token as a string when created from one or once converted
+	private String string;
+
+	/**
+	 * Points this view at the bytes {@code [offset, offset + length)} of the buffer.
+	 */
+	void set(ByteBuffer bytes, int offset, int length) {
+		this.bytes = bytes;
+		this.offset = offset;
+		this.length = length;
+		this.string = null;
+	}
+
+	/**
+	 * Points this view at the token viewed by another view.
+	 */
+	void set(XDLRCToken other) {
+		this.bytes = other.bytes;
+		this.offset = other.offset;
+		this.length = other.length;
+		this.string = other.string;
+	}
+
+	/**
+	 * Points this view at the characters of a string.  Used by the sources
+	 * which do not read the tokens from a file.
+	 */
+	void set(String string) {
+		this.bytes = null;
+		this.offset = 0;
+		this.length = string.length();
+		this.string = string;
+	}
+
+	/**
+	 * Shortens this view by the given number of characters.
+	 */
+	void shorten(int count) {
+		if (string != null)
+			set(string.substring(0, length - count));
+		else
+			length -= count;
+	}
+
+	int offset() {
+		return offset;
+	}
+
+	@Override
+	public int length() {
+		return length;
+	}
+
+	@Override
+	public char charAt(int index) {
+		if (index < 0 || index >= length)
+			throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+		if (string != null)
+			return string.charAt(index);
+		return (char) (bytes.get(offset + index) & 0xFF);
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		return toString().substring(start, end);
+	}
+
+	/**
+	 * Returns true if the token holds the same characters as the sequence.
+	 */
+	public boolean contentEquals(CharSequence cs) {
+		if (cs.length() != length)
+			return false;
+		for (int i = 0; i < length; i++) {
+			if (charAt(i) != cs.charAt(i))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns true if the last character of the token is {@code c}.
+	 */
+	public boolean endsWith(char c) {
+		return length > 0 && charAt(length - 1) == c;
+	}
+
+	/**
+	 * Parses the token as a signed decimal integer without creating a string.
+	 *
+	 * @throws NumberFormatException if the token is not a decimal integer
+	 */
+	public int parseInt() {
+		int i = 0;
+		boolean negative = false;
+		if (length > 0 && (charAt(0) == '-' || charAt(0) == '+')) {
+			negative = charAt(0) == '-';
+			i = 1;
+		}
+		if (i == length)
+			throw new NumberFormatException("For input string: \"" + this + "\"");
+
+		// accumulated negatively so that Integer.MIN_VALUE can be parsed
+		int limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+		int result = 0;
+		for (; i < length; i++) {
+			int digit = charAt(i) - '0';
+			if (digit < 0 || digit > 9 || result < limit / 10)
+				throw new NumberFormatException("For input string: \"" + this + "\"");
+			result *= 10;
+			if (result < limit + digit)
+				throw new NumberFormatException("For input string: \"" + this + "\"");
+			result -= digit;
+		}
+		return negative ? result : -result;
+	}
+
+	/**
+	 * Returns the token as a string.  The string is kept until the view is
+	 * pointed at another token.
+	 */
+	@Override
+	public String toString() {
+		String string = this.string;
+		if (string == null) {
+			byte[] chars = new byte[length];
+			for (int i = 0; i < length; i++)
+				chars[i] = bytes.get(offset + i);
+			string = new String(chars, StandardCharsets.ISO_8859_1);
+			this.string = string;
+		}
+		return string;
+	}
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+
+package edu.byu.ece.rapidSmith.device.xdlrc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import static edu.byu.ece.rapidSmith.util.Exceptions.ParseException;
+
+/**
+ *  Splits the lines of an XDLRC file into tokens without copying them.  The
+ *  file is memory mapped in windows of up to a gigabyte, since a single
+ *  mapping cannot exceed 2GB, and the tokens of each line are delivered as
+ *  {@link XDLRCToken} views of the mapped bytes.  The views are reused for
+ *  each line.
+ *  <p>
+ *  Lines are split the same way the parser always has: leading tabs are
+ *  stripped, tokens are separated by spaces, empty lines are skipped and a
+ *  closing parenthesis ending the last token becomes a token of its own.
+ */
+final class XDLRCTokenizer {
+	/** Size of the mapped windows of a file */
+	static final int WINDOW_SIZE = 1 << 30;
+
+	// the file being mapped, or null when tokenizing a region of a buffer
+	private final FileChannel channel;
+	private final long fileSize;
+	private final int windowSize;
+	private long windowStart;
+
+	private ByteBuffer buffer;
+	private int pos;
+	private int limit;
+	// start of the last line read
+	private int lineStart;
+
+	private XDLRCToken[] tokens = newTokens(new XDLRCToken[16], 0);
+	private int count;
+
+	/**
+	 * Creates a tokenizer of the file open in the channel.
+	 */
+	XDLRCTokenizer(FileChannel channel) throws IOException {
+		this(channel, WINDOW_SIZE);
+	}
+
+	XDLRCTokenizer(FileChannel channel, int windowSize) throws IOException {
+		this.channel = channel;
+		this.fileSize = channel.size();
+		this.windowSize = windowSize;
+		map(0);
+	}
+
+	/**
+	 * Creates a tokenizer of the bytes {@code [start, end)} of the buffer.
+	 * The buffer is only read with absolute gets, so several tokenizers can
+	 * share it.
+	 */
+	XDLRCTokenizer(ByteBuffer buffer, int start, int end) {
+		this.channel = null;
+		this.fileSize = end;
+		this.windowSize = 0;
+		this.buffer = buffer;
+		this.pos = start;
+		this.limit = end;
+	}
+
+	private void map(long start) throws IOException {
+		windowStart = start;
+		long size = Math.min(windowSize, fileSize - start);
+		buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+		pos = 0;
+		limit = (int) size;
+	}
+
+	private static XDLRCToken[] newTokens(XDLRCToken[] tokens, int from) {
+		for (int i = from; i < tokens.length; i++)
+			tokens[i] = new XDLRCToken();
+		return tokens;
+	}
+
+	/**
+	 * Maps the window of the file starting at the given offset of the current
+	 * window.  Returns false if the current window ends at the end of the file.
+	 */
+	private boolean remap(int from) throws IOException {
+		if (channel == null || windowStart + limit >= fileSize)
+			return false;
+		if (from == 0)
+			throw new ParseException("Line or tile larger than " + windowSize + " bytes at offset " + windowStart);
+		map(windowStart + from);
+		return true;
+	}
+
+	/**
+	 * Reads the next line holding tokens.
+	 *
+	 * @return false at the end of the input
+	 */
+	boolean next() throws IOException {
+		while (true) {
+			int end = lineEnd(pos);
+			if (end == -1) {
+				if (remap(pos))
+					continue;
+				if (pos >= limit) {
+					count = 0;
+					return false;
+				}
+				end = limit;
+			}
+			lineStart = pos;
+			pos = Math.min(end + 1, limit);
+			split(lineStart, end);
+			if (count > 0)
+				return true;
+		}
+	}
+
+	// returns the index of the next newline or -1 if the window holds none
+	private int lineEnd(int from) {
+		for (int i = from; i < limit; i++) {
+			if (buffer.get(i) == '\n')
+				return i;
+		}
+		return -1;
+	}
+
+	private void split(int start, int end) {
+		count = 0;
+		if (end > start && buffer.get(end - 1) == '\r')
+			end--;
+
+		// Strip any starting tabs
+		int i = start;
+		while (i < end && buffer.get(i) == '\t')
+			i++;
+
+		while (i < end) {
+			int space = i;
+			while (space < end && buffer.get(space) != ' ')
+				space++;
+			if (space != i)
+				add(i, space - i);
+			i = space + 1;
+		}
+
+		// split a closing paren off of the last token
+		if (count > 0) {
+			XDLRCToken last = tokens[count - 1];
+			if (last.length() > 1 && last.endsWith(')')) {
+				last.shorten(1);
+				add(last.offset() + last.length(), 1);
+			}
+		}
+	}
+
+	private void add(int offset, int length) {
+		if (count == tokens.length)
+			tokens = newTokens(Arrays.copyOf(tokens, count * 2), count);
+		tokens[count++].set(buffer, offset, length);
+	}
+
+	/**
+	 * Returns the number of tokens of the current line.
+	 */
+	int size() {
+		return count;
+	}
+
+	/**
+	 * Returns the view of a token of the current line.  The view is reused
+	 * for the next line.
+	 */
+	XDLRCToken token(int index) {
+		if (index >= count)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+		return tokens[index];
+	}
+
+	/**
+	 * Skips the lines of the element opened by the current line and returns the
+	 * region of the current window holding the element, including the current
+	 * line.  Each line opening an element not closed on the same line is closed
+	 * by a line holding only a parenthesis.  The window is moved if the element
+	 * does not fit in it.
+	 *
+	 * @return the start and end of the element in {@link #buffer()}
+	 */
+	int[] skipElement() throws IOException {
+		int start = lineStart;
+		int depth = 1;
+		int p = pos;
+		while (depth > 0) {
+			int end = lineEnd(p);
+			if (end == -1) {
+				if (!remap(start)) {
+					if (p >= limit)
+						throw new ParseException("Unterminated element at offset " + (windowStart + start));
+					end = limit;
+				} else {
+					// rescan the element from the start of the new window
+					start = 0;
+					depth = 1;
+					p = lineEnd(0) + 1;
+					continue;
+				}
+			}
+			depth += depthChange(p, end);
+			p = Math.min(end + 1, limit);
+		}
+		pos = p;
+		return new int[] { start, p };
+	}
+
+	// +1 for a line opening an element, -1 for a line closing one
+	private int depthChange(int start, int end) {
+		while (start < end && isBlank(buffer.get(start)))
+			start++;
+		while (end > start && isBlank(buffer.get(end - 1)))
+			end--;
+		if (start == end)
+			return 0;
+		byte first = buffer.get(start);
+		byte last = buffer.get(end - 1);
+		if (end - start == 1 && first == ')')
+			return -1;
+		if (first == '(' && last != ')')
+			return 1;
+		return 0;
+	}
+
+	private static boolean isBlank(byte b) {
+		return b == ' ' || b == '\t' || b == '\r';
+	}
+
+	/**
+	 * Returns the buffer holding the current window.
+	 */
+	ByteBuffer buffer() {
+		return buffer;
+	}
+}
@@ -8,6 +8,7 @@ import org.jdom2.JDOMException;
 import edu.byu.ece.rapidSmith.RSEnvironment;
 import edu.byu.ece.rapidSmith.device.Connection;
 import edu.byu.ece.rapidSmith.device.Device;
+import edu.byu.ece.rapidSmith.device.DeviceMemoryReport;
 import edu.byu.ece.rapidSmith.device.Tile;
 import edu.byu.ece.rapidSmith.device.Wire;
 
@@ -21,6 +22,9 @@ public class DeviceAnalyzer {
 
 		// Load the device file
 		device = RSEnvironment.defaultEnv().getDevice("xc7a100tcsg324");
+
+		// Print where the memory of the device goes
+		msg(DeviceMemoryReport.create(device).toString());
 		
 		// Grab a few tiles and print out their wires
 		printTileWires(device.getTile("CLBLL_R_X17Y181"));
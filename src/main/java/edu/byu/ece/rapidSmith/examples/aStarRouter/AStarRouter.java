@@ -55,6 +55,7 @@ public class AStarRouter {
 		// Initialize the route
 		RouteTreeWithCost start = initializeRoute(net);
 		Set<RouteTree> terminals = new HashSet<>();
+		ConnectionCursor cursor = new ConnectionCursor();
 		
 		// Find the pins that need to be routed for the net
 		Iterator<SitePin> sinksToRoute = getSinksToRoute(net).iterator();
@@ -81,13 +82,14 @@ public class AStarRouter {
 				Set<Wire> existingBranches = usedConnectionMap.getOrDefault(current, new HashSet<Wire>());
 				
 				// Search all connections for the wire of the current RouteTree
-				for (Connection connection : current.getWire().getWireConnections()) {
+				current.getWire().getWireConnections(cursor);
+				while (cursor.next()) {
 					
-					Wire sinkWire = connection.getSinkWire();
+					Wire sinkWire = cursor.getSinkWire();
 					
 					// Solution has been found
 					if (sinkWire.equals(targetWire)) {
-						RouteTreeWithCost sinkTree = current.connect(connection);
+						RouteTreeWithCost sinkTree = current.connect(cursor.getConnection());
 						sinkTree = finializeRoute(sinkTree);
 						terminals.add(sinkTree);
 						routeFound = true;
@@ -96,7 +98,7 @@ public class AStarRouter {
 					
 					// Only create and add a new RouteTree object if it doesn't already exist in the queue
 					if (!existingBranches.contains(sinkWire)) {
-						RouteTreeWithCost sinkTree = current.connect(connection);
+						RouteTreeWithCost sinkTree = current.connect(cursor.getConnection());
 						sinkTree.setCost(current.getCost() + 1);
 						priorityQueue.add(sinkTree);
 						existingBranches.add(sinkWire);
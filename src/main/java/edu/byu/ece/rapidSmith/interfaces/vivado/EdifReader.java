@@ -0,0 +1,903 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+
+package edu.byu.ece.rapidSmith.interfaces.vivado;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import edu.byu.ece.rapidSmith.design.NetType;
+import edu.byu.ece.rapidSmith.design.subsite.Cell;
+import edu.byu.ece.rapidSmith.design.subsite.CellDesign;
+import edu.byu.ece.rapidSmith.design.subsite.CellLibrary;
+import edu.byu.ece.rapidSmith.design.subsite.CellNet;
+import edu.byu.ece.rapidSmith.design.subsite.CellPin;
+import edu.byu.ece.rapidSmith.design.subsite.LibraryCell;
+import edu.byu.ece.rapidSmith.design.subsite.LibraryMacro;
+import edu.byu.ece.rapidSmith.design.subsite.Property;
+import edu.byu.ece.rapidSmith.design.subsite.PropertyType;
+import edu.byu.ece.rapidSmith.util.Exceptions;
+
+/**
+ *  Reads an EDIF netlist <b>from Vivado</b> into a {@link CellDesign} while the
+ *  file is tokenized.  Cells, nets and pin connections are created as their
+ *  EDIF forms are read, so no intermediate EDIF object model of the netlist is
+ *  built.  Only the interfaces of the library cells and the instances whose
+ *  EDIF names differ from their Vivado names are kept while reading.
+ *  <p>
+ *  Vivado writes the design form, which names the top-level cell and holds the
+ *  part of the design, at the end of the file.  Every cell with contents is
+ *  therefore built into a design, and the design of the cell referenced by the
+ *  design form is returned after its static nets are collapsed.
+ */
+final class EdifReader implements Closeable {
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	// token kinds
+	private static final int END = -1;
+	private static final int OPEN = 0;
+	private static final int CLOSE = 1;
+	private static final int ATOM = 2;
+	private static final int STRING = 3;
+
+	private static final Pattern busNamePattern = Pattern.compile("(.*)\\[.+:(.+)\\]");
+
+	private final FileChannel channel;
+	private final CellLibrary libCells;
+
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+	private int position;
+	private int limit;
+	private int lineNumber = 1;
+
+	// the current token
+	private int kind;
+	private byte[] text = new byte[256];
+	private int textLength;
+	// the Vivado name of the last name read by readName
+	private String originalName;
+
+	// library name -> cell name -> cell
+	private final Map<String, Map<String, EdifCellType>> libraries = new HashMap<>();
+	private String currentLibrary;
+	private CellDesign result;
+
+	/**
+	 * A port of an EDIF cell interface.
+	 */
+	private static final class EdifPort {
+		final String name;
+		final String originalName;
+		final int width;
+		final String direction;
+		// the bus offset of a top-level bus port
+		int offset;
+
+		EdifPort(String name, String originalName, int width, String direction) {
+			this.name = name;
+			this.originalName = originalName;
+			this.width = width;
+			this.direction = direction;
+		}
+	}
+
+	/**
+	 * An EDIF cell.  Cells with contents are built into a {@link Netlist}.
+	 */
+	private static final class EdifCellType {
+		final String name;
+		final Map<String, EdifPort> ports = new LinkedHashMap<>();
+		final List<Property> properties = new ArrayList<>();
+		Netlist netlist;
+
+		EdifCellType(String name) {
+			this.name = name;
+		}
+	}
+
+	/**
+	 * The design built from the contents of an EDIF cell.
+	 */
+	private static final class Netlist {
+		final EdifCellType type;
+		final CellDesign design = new CellDesign();
+		final List<CellNet> vccNets = new ArrayList<>();
+		final List<CellNet> gndNets = new ArrayList<>();
+		// EDIF name -> Vivado name of the instances with renamed names
+		final Map<String, String> renamedInstances = new HashMap<>();
+		// the ports of the EDIF cell of each library cell instanced
+		final Map<LibraryCell, Map<String, EdifPort>> instancePorts = new HashMap<>();
+		int instanceCount;
+		int netCount;
+
+		Netlist(EdifCellType type) {
+			this.type = type;
+		}
+	}
+
+	/**
+	 * Creates a reader of the EDIF file whose cells are created from the
+	 * specified cell library.
+	 */
+	EdifReader(Path edifFile, CellLibrary libCells) throws IOException {
+		this.channel = FileChannel.open(edifFile, StandardOpenOption.READ);
+		this.libCells = libCells;
+	}
+
+	/**
+	 * Reads the EDIF file.
+	 *
+	 * @return the design of the top-level cell of the netlist
+	 * @throws Exceptions.ParseException if the file is not a valid EDIF netlist
+	 */
+	CellDesign read() throws IOException {
+		if (next() != OPEN || next() != ATOM || !isKeyword("edif"))
+			throw error("Expected an edif form");
+		readName();
+
+		while (nextForm()) {
+			if (isKeyword("library") || isKeyword("external"))
+				parseLibrary();
+			else if (isKeyword("design"))
+				parseDesign();
+			else
+				skipForm();
+		}
+
+		if (result == null)
+			throw error("No design found in the edif netlist");
+		return result;
+	}
+
+	/* ********************
+	 *     Parsing
+	 *********************/
+
+	private void parseLibrary() throws IOException {
+		currentLibrary = readName();
+		Map<String, EdifCellType> cells = libraries.computeIfAbsent(currentLibrary, k -> new HashMap<>());
+
+		while (nextForm()) {
+			if (isKeyword("cell")) {
+				EdifCellType type = new EdifCellType(readName());
+				cells.put(type.name, type);
+				parseCell(type);
+			}
+			else {
+				skipForm();
+			}
+		}
+	}
+
+	private void parseCell(EdifCellType type) throws IOException {
+		while (nextForm()) {
+			if (isKeyword("view")) {
+				parseView(type);
+			}
+			else if (isKeyword("property")) {
+				addCellProperty(type, parseProperty());
+			}
+			else {
+				skipForm();
+			}
+		}
+	}
+
+	private void parseView(EdifCellType type) throws IOException {
+		readName();
+		while (nextForm()) {
+			if (isKeyword("interface")) {
+				while (nextForm()) {
+					if (isKeyword("port"))
+						parsePort(type);
+					else
+						skipForm();
+				}
+			}
+			else if (isKeyword("contents")) {
+				parseContents(type);
+			}
+			else if (isKeyword("property")) {
+				addCellProperty(type, parseProperty());
+			}
+			else {
+				skipForm();
+			}
+		}
+	}
+
+	private void addCellProperty(EdifCellType type, Property property) {
+		if (property == null)
+			return;
+		if (type.netlist != null)
+			type.netlist.design.getProperties().update(property);
+		else
+			type.properties.add(property);
+	}
+
+	/*
+	 * Reads a port of the form (port name (direction INPUT)) or
+	 * (port (array name width) (direction INPUT))
+	 */
+	private void parsePort(EdifCellType type) throws IOException {
+		int width = 1;
+		String name = readNameOr("array");
+		if (name == null) {
+			name = readName();
+			width = parseInt();
+			skipForm();
+		}
+		String originalName = this.originalName;
+
+		String direction = null;
+		while (nextForm()) {
+			if (isKeyword("direction")) {
+				next();
+				direction = tokenString();
+			}
+			skipForm();
+		}
+		type.ports.put(name, new EdifPort(name, originalName, width, direction));
+	}
+
+	private void parseContents(EdifCellType type) throws IOException {
+		Netlist netlist = new Netlist(type);
+		type.netlist = netlist;
+		netlist.design.setName(type.name);
+		netlist.design.getProperties().updateAll(type.properties);
+		createPortCells(netlist);
+
+		while (nextForm()) {
+			if (isKeyword("instance"))
+				parseInstance(netlist);
+			else if (isKeyword("net"))
+				parseNet(netlist);
+			else
+				skipForm();
+		}
+
+		// TODO: think about throwing an error or warning here
+		if (netlist.instanceCount == 0 && !EdifInterface.warningsSuppressed())
+			System.err.println("[Warning] No cells found in the edif netlist");
+		if (netlist.netCount == 0 && !EdifInterface.warningsSuppressed())
+			System.err.println("[Warning] No nets found in the edif netlist");
+	}
+
+	/*
+	 * Converts EDIF top level ports to equivalent RapidSmith port cells and adds them to the design
+	 */
+	private void createPortCells(Netlist netlist) {
+		for (EdifPort port : netlist.type.ports.values()) {
+			String libraryPortType;
+			if ("INOUT".equalsIgnoreCase(port.direction)) {
+				libraryPortType = "IOPORT";
+			}
+			else if ("INPUT".equalsIgnoreCase(port.direction)) {
+				libraryPortType = "IPORT";
+			}
+			else {
+				libraryPortType = "OPORT";
+			}
+
+			// find the port prefix and offset
+			String portPrefix = port.originalName;
+			if (port.width > 1) {
+				Matcher matcher = busNamePattern.matcher(port.originalName);
+				if (matcher.matches()) {
+					portPrefix = matcher.group(1);
+					port.offset = Integer.parseInt(matcher.group(2));
+				}
+				else {
+					throw new AssertionError("Vivado Naming pattern for bus does not match expected pattern");
+				}
+			}
+
+			// Create a new RapidSmith cell for each bit of the port
+			LibraryCell libCell = libCells.get(libraryPortType);
+			for (int bit = 0; bit < port.width; bit++) {
+				String portName = port.width > 1 ?
+						String.format("%s[%d]", portPrefix, EdifInterface.reverseBusIndex(port.width, bit, port.offset)) :
+						portPrefix;
+				netlist.design.addCell(new Cell(portName, libCell));
+			}
+		}
+	}
+
+	/*
+	 * Reads an instance of the form
+	 * (instance name (viewref netlist (cellref type (libraryref library))) (property ...)*)
+	 * and adds the equivalent RapidSmith cell to the design
+	 */
+	private void parseInstance(Netlist netlist) throws IOException {
+		String edifName = readName();
+		String name = originalName;
+		String typeName = null;
+		String typeLibrary = currentLibrary;
+		List<Property> properties = new ArrayList<>();
+
+		while (nextForm()) {
+			if (isKeyword("viewref")) {
+				readName();
+				while (nextForm()) {
+					if (isKeyword("cellref")) {
+						typeName = readName();
+						while (nextForm()) {
+							if (isKeyword("libraryref"))
+								typeLibrary = readName();
+							skipForm();
+						}
+					}
+					else {
+						skipForm();
+					}
+				}
+			}
+			else if (isKeyword("property")) {
+				Property property = parseProperty();
+				if (property != null)
+					properties.add(property);
+			}
+			else {
+				skipForm();
+			}
+		}
+
+		if (typeName == null)
+			throw error("Instance " + name + " has no cell reference");
+
+		// create the corresponding RS2 cell
+		LibraryCell lcType = libCells.get(typeName);
+		if (lcType == null) {
+			throw new Exceptions.ParseException("Unable to find library cell of type: " + typeName);
+		}
+
+		CellDesign design = netlist.design;
+		// Check for naming conflicts and rename cells as required...this should not be necessary for designs
+		// synthesized and implemented in Vivado, but if the netlist is manipulated by an external tool,
+		// this can happen
+		if (design.hasCell(name)) {
+			handleNamingConflict(design, design.getCell(name));
+		}
+
+		Cell newcell = design.addCell(new Cell(name, lcType));
+		newcell.getProperties().updateAll(properties);
+		netlist.instanceCount++;
+
+		if (!edifName.equals(name))
+			netlist.renamedInstances.put(edifName, name);
+		if (!netlist.instancePorts.containsKey(lcType)) {
+			EdifCellType edifType = libraries.getOrDefault(typeLibrary, Collections.emptyMap()).get(typeName);
+			if (edifType != null)
+				netlist.instancePorts.put(lcType, edifType.ports);
+		}
+
+		// look for internal macro nets
+		if (newcell.isMacro()) {
+			for (CellNet net : newcell.getInternalNets()) {
+				if (net.isVCCNet()) {
+					netlist.vccNets.add(net);
+				}
+				else if (net.isGNDNet()) {
+					netlist.gndNets.add(net);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Some EDIF netlists from Vivado can have identical port and cell names. This function renames the ports
+	 * so that there is no naming conflict in RapidSmith.
+	 *
+	 * @param design CellDesign
+	 * @param cell Cell to rename (should be a port cell)
+	 */
+	private static void handleNamingConflict(CellDesign design, Cell cell) {
+		assert cell.isPort() : "Conflicting cell names should only happen with Port cells: " + cell.getName();
+
+		// print a warning to the user
+		if (!EdifInterface.warningsSuppressed()) {
+			System.err.println("[Warning] A top-level port and another cell in the netlist have identical names: " + cell.getName()
+			              + ". The port cell will be renamed to " + cell.getName() + "_rsport");
+		}
+
+		// update the name of the cell
+		design.removeCell(cell);
+		Cell newPortCell = new Cell(cell.getName() + "_rsport", cell.getLibCell());
+		design.addCell(newPortCell);
+	}
+
+	/*
+	 * Reads a net of the form (net name (joined (portref ...)*) (property ...)*),
+	 * connecting the pins of the net as the port references are read
+	 */
+	private void parseNet(Netlist netlist) throws IOException {
+		readName();
+		String name = originalName;
+		CellNet cn = new CellNet(name, NetType.WIRE);
+		List<Property> properties = new ArrayList<>();
+
+		while (nextForm()) {
+			if (isKeyword("joined")) {
+				while (nextForm()) {
+					if (isKeyword("portref"))
+						parsePortRef(netlist, cn);
+					else
+						skipForm();
+				}
+			}
+			else if (isKeyword("property")) {
+				Property property = parseProperty();
+				if (property != null)
+					properties.add(property);
+			}
+			else {
+				skipForm();
+			}
+		}
+		netlist.netCount++;
+
+		//report a warning if no sources on a net are found
+		if (cn.getAllSourcePins().size() == 0) {
+			if (!EdifInterface.warningsSuppressed()) {
+				System.err.println("[Warning] No source for net " + name);
+			}
+		}
+
+		// Add the net to the design if is is NOT a static net.
+		// Otherwise, store it for later use (will collapse later)
+		if (cn.isVCCNet()) {
+			netlist.vccNets.add(cn);
+		}
+		else if (cn.isGNDNet()) {
+			netlist.gndNets.add(cn);
+		}
+		else {
+			netlist.design.addNet(cn);
+		}
+
+		cn.getProperties().updateAll(properties);
+	}
+
+	/*
+	 * Reads a port reference of the form (portref port (instanceref instance)) or
+	 * (portref (member port index) (instanceref instance)) and connects the net to
+	 * the referenced pin.  Port references without an instance reference are to
+	 * the top-level ports.
+	 */
+	private void parsePortRef(Netlist netlist, CellNet net) throws IOException {
+		int member = 0;
+		String portName = readNameOr("member");
+		if (portName == null) {
+			portName = readName();
+			member = parseInt();
+			skipForm();
+		}
+
+		String instanceName = null;
+		while (nextForm()) {
+			if (isKeyword("instanceref"))
+				instanceName = readName();
+			skipForm();
+		}
+
+		CellDesign design = netlist.design;
+
+		// Connects to a top-level port
+		if (instanceName == null) {
+			EdifPort port = netlist.type.ports.get(portName);
+			if (port == null)
+				throw error("Port " + portName + " does not exist on cell " + netlist.type.name);
+
+			String portname = port.width == 1 ? port.originalName :
+					String.format("%s[%d]", getPortNamePrefix(port.originalName), EdifInterface.reverseBusIndex(port.width, member, port.offset));
+
+			Cell portCell = design.getCell(portname);
+
+			if (portCell == null) {
+				throw new Exceptions.ParseException("Port Cell " + portname + " does not exist in the design!");
+			}
+			else if (!portCell.isPort()) {
+				portCell = design.getCell(portname + "_rsport");
+			}
+
+			net.connectToPin(portCell.getPin("PAD"));
+			return;
+		}
+
+		String cellName = netlist.renamedInstances.getOrDefault(instanceName, instanceName);
+		Cell node = design.getCell(cellName);
+		if (node == null) {
+			throw new Exceptions.ParseException("Cell: " + cellName + " does not exist in the design!");
+		}
+
+		Map<String, EdifPort> ports = netlist.instancePorts.get(node.getLibCell());
+		EdifPort port = ports == null ? null : ports.get(portName);
+		if (port == null)
+			throw error("Port " + portName + " does not exist on the cell type of " + cellName);
+
+		int busOffset = 0;
+		if (node.isMacro()) {
+			LibraryMacro macro = (LibraryMacro) node.getLibCell();
+			busOffset = macro.getPinOffset(port.name);
+		}
+
+		// Connects to a cell pin
+		// TODO: take a closer look at this...I am using the edif name of a cell pin name which should be ok, but be aware
+		String pinname = port.width == 1 ? port.name
+				: String.format("%s[%d]", port.name, EdifInterface.reverseBusIndex(port.width, member, busOffset));
+
+		// Mark GND and VCC nets
+		if (node.isVccSource()) {
+			net.setType(NetType.VCC);
+		}
+		else if (node.isGndSource()) {
+			net.setType(NetType.GND);
+		}
+
+		net.connectToPin(node.getPin(pinname));
+	}
+
+	/*
+	 * Vivado ports that are buses are named portName[15:0]
+	 * This function will return the "portName" portion of the bus name
+	 */
+	private static String getPortNamePrefix(String portName) {
+		int bracketIndex = portName.lastIndexOf("[");
+		return bracketIndex == -1 ? portName : portName.substring(0, bracketIndex);
+	}
+
+	/*
+	 * Reads the (design name (cellref top (libraryref library)) (property part ...)) form
+	 * and completes the design of the top-level cell
+	 */
+	private void parseDesign() throws IOException {
+		String name = readName();
+		String cellName = null;
+		String cellLibrary = null;
+		String partName = null;
+
+		while (nextForm()) {
+			if (isKeyword("cellref")) {
+				cellName = readName();
+				while (nextForm()) {
+					if (isKeyword("libraryref"))
+						cellLibrary = readName();
+					skipForm();
+				}
+			}
+			else if (isKeyword("property")) {
+				Property property = parseProperty();
+				if (property != null && property.getKey().equals("part"))
+					partName = property.getValue().toString();
+			}
+			else {
+				skipForm();
+			}
+		}
+
+		EdifCellType top = libraries.getOrDefault(cellLibrary, Collections.emptyMap()).get(cellName);
+		if (top == null || top.netlist == null)
+			throw error("Top-level cell " + cellName + " has no contents");
+		if (partName == null)
+			throw error("Design " + name + " has no part property");
+
+		Netlist netlist = top.netlist;
+		CellDesign design = netlist.design;
+		design.setName(name);
+		design.setPartName(partName);
+		collapseStaticNets(design, libCells, netlist.vccNets, netlist.gndNets);
+		result = design;
+	}
+
+	/*
+	 * Reads a property of the form (property name (string "value")), returning
+	 * null for properties with values other than strings, integers and booleans
+	 */
+	private Property parseProperty() throws IOException {
+		String name = readName();
+		Object value = null;
+
+		while (nextForm()) {
+			if (isKeyword("string")) {
+				next();
+				value = tokenString();
+			}
+			else if (isKeyword("integer")) {
+				value = parseInt();
+			}
+			else if (isKeyword("boolean")) {
+				if (nextForm())
+					value = isKeyword("true");
+				skipForm();
+			}
+			skipForm();
+		}
+
+		return value == null ? null : new Property(name, PropertyType.EDIF, value);
+	}
+
+	private static void collapseStaticNets(CellDesign design, CellLibrary libCells, List<CellNet> vccNets, List<CellNet> gndNets) {
+
+		// Create new global VCC/GND cells and nets
+		Cell globalVCC = new Cell("RapidSmithGlobalVCC", libCells.getVccSource());
+		Cell globalGND = new Cell("RapidSmithGlobalGND", libCells.getGndSource());
+		CellNet globalVCCNet = new CellNet("RapidSmithGlobalVCCNet", NetType.VCC);
+		CellNet globalGNDNet = new CellNet("RapidSmithGlobalGNDNet", NetType.GND);
+
+		// Connect the global sources to the global nets
+		globalVCCNet.connectToPin(globalVCC.getOutputPins().iterator().next());
+		globalGNDNet.connectToPin(globalGND.getOutputPins().iterator().next());
+
+		// Add all VCC/GND sink pins to the global nets
+		for(CellNet net : vccNets) {
+			transferSinkPins(net, globalVCCNet);
+		}
+
+		for(CellNet net : gndNets) {
+			transferSinkPins(net, globalGNDNet);
+		}
+
+		// Remove the old VCC/GND cells from the list
+		List<Cell> cellsToRemove = new ArrayList<>();
+		for (Cell cell : design.getCells()) {
+			if (cell.isVccSource() || cell.isGndSource()) {
+				cellsToRemove.add(cell);
+			}
+		}
+		cellsToRemove.forEach(design::removeCell);
+
+		// Add the new master cells/nets to the design
+		design.addCell(globalVCC);
+		design.addNet(globalVCCNet);
+		design.addCell(globalGND);
+		design.addNet(globalGNDNet);
+
+		// For macro pins tied to power or ground, make them point to the appropriate global static net
+		for (Cell c : design.getCells()) {
+			for (CellPin cp : c.getPins()) {
+				if (cp.getNet()!= null) {
+					if (cp.getNet() != globalGNDNet && cp.getNet().getType() == NetType.GND)
+						cp.setMacroPinToGlobalNet(globalGNDNet);
+					else if (cp.getNet() != globalVCCNet && cp.getNet().getType() == NetType.VCC)
+						cp.setMacroPinToGlobalNet(globalVCCNet);
+				}
+			}
+		}
+	}
+
+	private static void transferSinkPins(CellNet oldNet, CellNet newNet) {
+		Collection<CellPin> sinkPins = oldNet.getSinkPins();
+		oldNet.detachNet();
+		oldNet.unrouteFull();
+		newNet.connectToPins(sinkPins);
+	}
+
+	/* ********************
+	 *     Tokenizing
+	 *********************/
+
+	/*
+	 * Advances to the next form of the current form, skipping any atoms before
+	 * it.  The keyword of the form is the current token when true is returned.
+	 * Returns false when the current form ends.
+	 */
+	private boolean nextForm() throws IOException {
+		while (true) {
+			switch (next()) {
+				case OPEN:
+					if (next() != ATOM)
+						throw error("Expected a keyword");
+					return true;
+				case CLOSE:
+					return false;
+				case END:
+					throw error("Unexpected end of file");
+				default:
+					break;
+			}
+		}
+	}
+
+	/*
+	 * Skips the remainder of the current form, including its closing parenthesis.
+	 */
+	private void skipForm() throws IOException {
+		int depth = 1;
+		while (depth > 0) {
+			switch (next()) {
+				case OPEN:
+					depth++;
+					break;
+				case CLOSE:
+					depth--;
+					break;
+				case END:
+					throw error("Unexpected end of file");
+				default:
+					break;
+			}
+		}
+	}
+
+	/*
+	 * Reads a name of the form name or (rename name "original name"), returning
+	 * the EDIF name and storing the original name in originalName.
+	 */
+	private String readName() throws IOException {
+		String name = readNameOr(null);
+		if (name == null)
+			throw error("Expected a name");
+		return name;
+	}
+
+	/*
+	 * Reads a name, or the keyword of a form with the specified keyword in place
+	 * of the name.  Returns null if the form is found, leaving the form to be read
+	 * by the caller.
+	 */
+	private String readNameOr(String keyword) throws IOException {
+		if (next() == ATOM) {
+			String name = identifier();
+			originalName = name;
+			return name;
+		}
+		if (kind != OPEN || next() != ATOM)
+			throw error("Expected a name");
+		if (keyword != null && isKeyword(keyword))
+			return null;
+		if (!isKeyword("rename") || next() != ATOM)
+			throw error("Expected a rename form");
+		String name = identifier();
+		next();
+		originalName = tokenString();
+		skipForm();
+		return name;
+	}
+
+	private int parseInt() throws IOException {
+		if (next() != ATOM)
+			throw error("Expected an integer");
+		try {
+			return Integer.parseInt(tokenString());
+		} catch (NumberFormatException e) {
+			throw error("Expected an integer");
+		}
+	}
+
+	// EDIF identifiers not starting with a letter are escaped with a leading '&'
+	private String identifier() {
+		int start = textLength > 1 && text[0] == '&' ? 1 : 0;
+		return new String(text, start, textLength - start, StandardCharsets.UTF_8);
+	}
+
+	private String tokenString() {
+		return new String(text, 0, textLength, StandardCharsets.UTF_8);
+	}
+
+	private boolean isKeyword(String keyword) {
+		if (kind != ATOM || textLength != keyword.length())
+			return false;
+		for (int i = 0; i < textLength; i++) {
+			if (Character.toLowerCase((char) text[i]) != keyword.charAt(i))
+				return false;
+		}
+		return true;
+	}
+
+	private Exceptions.ParseException error(String message) {
+		return new Exceptions.ParseException(message + " on line " + lineNumber + " of the edif netlist");
+	}
+
+	/*
+	 * Reads the next token, returning its kind.  The text of atoms and strings
+	 * is stored in text, without the quotes of strings.
+	 */
+	private int next() throws IOException {
+		int c = readByte();
+		while (isWhitespace(c))
+			c = readByte();
+
+		textLength = 0;
+		switch (c) {
+			case -1:
+				kind = END;
+				break;
+			case '(':
+				kind = OPEN;
+				break;
+			case ')':
+				kind = CLOSE;
+				break;
+			case '"':
+				c = readByte();
+				while (c != '"') {
+					if (c == -1)
+						throw error("Unterminated string");
+					append(c);
+					c = readByte();
+				}
+				kind = STRING;
+				break;
+			default:
+				while (c != -1 && c != '(' && c != ')' && c != '"' && !isWhitespace(c)) {
+					append(c);
+					c = readByte();
+				}
+				// the delimiter is part of the next token
+				if (c != -1)
+					unreadByte(c);
+				kind = ATOM;
+				break;
+		}
+		return kind;
+	}
+
+	private boolean isWhitespace(int c) {
+		if (c == '\n') {
+			lineNumber++;
+			return true;
+		}
+		return c == ' ' || c == '\t' || c == '\r' || c == '\f';
+	}
+
+	private void append(int c) {
+		if (textLength == text.length)
+			text = Arrays.copyOf(text, textLength * 2);
+		text[textLength++] = (byte) c;
+	}
+
+	private int readByte() throws IOException {
+		if (position == limit) {
+			int read = channel.read(ByteBuffer.wrap(buffer));
+			if (read <= 0)
+				return -1;
+			position = 0;
+			limit = read;
+		}
+		return buffer[position++] & 0xFF;
+	}
+
+	// the last character read is still in the buffer
+	private void unreadByte(int c) {
+		if (c == '\n')
+			lineNumber--;
+		position--;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
@@ -26,9 +26,15 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
 
 import edu.byu.ece.edif.core.EdifNameConflictException;
 import edu.byu.ece.edif.core.InvalidEdifNameException;
@@ -61,40 +67,125 @@ public final class VivadoInterface {
 	 */
 	public static VivadoCheckpoint loadRSCP (String rscp, boolean storeAdditionalInfo) throws IOException {
 	
+		Path rscpPath = getRscpPath(rscp);
+					
+		// load the device
+		DesignInfoInterface designInfo = parseDesignInfo(rscpPath);
+		String partName = designInfo.getPart();
+		Device device = loadDevice(RSEnvironment.defaultEnv(), partName);
+
+		// load the cell library and create the RS2 netlist
+		CellLibrary libCells = loadCellLibrary(RSEnvironment.defaultEnv(), rscpPath, partName);
+		CellDesign design = parseNetlist(rscpPath, libCells, designInfo.getMode());
+
+		return applyImplementation(rscpPath, partName, design, device, libCells,
+				designInfo.getMode(), storeAdditionalInfo, null);
+	}
+
+	/**
+	 * Asynchronously parses a RSCP generated from Tincr, and creates an equivalent
+	 * RapidSmith2 design.  The device is loaded as soon as the part name is read from
+	 * the design.info file and the cell library and EDIF netlist are parsed while the
+	 * device loads.  The constraints, placement and routing are applied once both are
+	 * done.  The work is done in the common fork join pool, and the routes of the nets
+	 * are imported in parallel in it.
+	 *
+	 * @param rscp Path to the RSCP to import
+	 * @return a future completed with the checkpoint.  If the import fails, the future
+	 *   is completed exceptionally; {@link IOException}s are wrapped in
+	 *   {@link UncheckedIOException}s.
+	 * @see #loadRSCP(String, boolean)
+	 */
+	public static CompletableFuture<VivadoCheckpoint> loadRSCPAsync(String rscp) {
+		return loadRSCPAsync(rscp, false, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Asynchronously parses a RSCP generated from Tincr, and creates an equivalent
+	 * RapidSmith2 design.  See {@link #loadRSCPAsync(String)}.
+	 *
+	 * @param rscp Path to the RSCP to import
+	 * @param storeAdditionalInfo store the routethrough, static source and pin map
+	 *   information in the checkpoint
+	 * @param executor executor to run the import tasks in.  If the executor is a
+	 *   {@link ForkJoinPool}, the routes of the nets are also imported in parallel in it.
+	 * @return a future completed with the checkpoint
+	 */
+	public static CompletableFuture<VivadoCheckpoint> loadRSCPAsync(String rscp, boolean storeAdditionalInfo, Executor executor) {
+		Path rscpPath = getRscpPath(rscp);
+		// get the environment here to avoid racing on its lazy creation
+		RSEnvironment env = RSEnvironment.defaultEnv();
+		ForkJoinPool routingPool = executor instanceof ForkJoinPool ? (ForkJoinPool) executor : null;
+
+		CompletableFuture<DesignInfoInterface> designInfo = CompletableFuture.supplyAsync(
+				unchecked(() -> parseDesignInfo(rscpPath)), executor);
+		CompletableFuture<Device> device = designInfo.thenApplyAsync(
+				info -> loadDevice(env, info.getPart()), executor);
+		CompletableFuture<CellLibrary> libCells = designInfo.thenApplyAsync(
+				info -> unchecked(() -> loadCellLibrary(env, rscpPath, info.getPart())).get(), executor);
+		CompletableFuture<CellDesign> design = libCells.thenCombineAsync(designInfo,
+				(lib, info) -> parseNetlist(rscpPath, lib, info.getMode()), executor);
+
+		return CompletableFuture.allOf(device, design).thenApplyAsync(v -> {
+			DesignInfoInterface info = designInfo.join();
+			return unchecked(() -> applyImplementation(rscpPath, info.getPart(), design.join(),
+					device.join(), libCells.join(), info.getMode(), storeAdditionalInfo, routingPool)).get();
+		}, executor);
+	}
+
+	private static Path getRscpPath(String rscp) {
 		Path rscpPath = Paths.get(rscp);
 		
 		if (!rscpPath.getFileName().toString().endsWith(".rscp")) {
 			throw new AssertionError("Specified directory is not a RSCP. The directory should end in \".rscp\"");
 		}
-					
-		// load the device
+		return rscpPath;
+	}
+
+	private static DesignInfoInterface parseDesignInfo(Path rscpPath) throws IOException {
 		DesignInfoInterface designInfo = new DesignInfoInterface();
 		designInfo.parse(rscpPath);
-		String partName = designInfo.getPart();
-		ImplementationMode mode = designInfo.getMode();
-		if (partName == null) {
+		if (designInfo.getPart() == null) {
 			throw new Exceptions.ParseException("Part name for the design not found in the design.info file!");
 		}
-		
-		Device device = RSEnvironment.defaultEnv().getDevice(partName);
+		return designInfo;
+	}
+
+	private static Device loadDevice(RSEnvironment env, String partName) {
+		Device device = env.getDevice(partName);
 		
 		if (device == null) {
 			throw new Exceptions.EnvironmentException("Device files for part: " + partName + " cannot be found.");
 		}
+		return device;
+	}
 
-		// load the cell library
-		CellLibrary libCells = new CellLibrary(RSEnvironment.defaultEnv()
+	private static CellLibrary loadCellLibrary(RSEnvironment env, Path rscpPath, String partName) throws IOException {
+		CellLibrary libCells = new CellLibrary(env
 				.getPartFolderPath(partName)
 				.resolve(CELL_LIBRARY_NAME));
 		
 		// add additional macro cell specifications to the cell library before parsing the EDIF netlist
 		libCells.loadMacroXML(rscpPath.resolve("macros.xml"));
-		
-		// create the RS2 netlist
+		return libCells;
+	}
+
+	private static CellDesign parseNetlist(Path rscpPath, CellLibrary libCells, ImplementationMode mode) {
 		String edifFile = rscpPath.resolve("netlist.edf").toString();
 		CellDesign design = EdifInterface.parseEdif(edifFile, libCells);
 		design.setImplementationMode(mode);
-		
+		return design;
+	}
+
+	/**
+	 * Applies the constraints, placement and routing of the RSCP to the design.
+	 * The routing is imported in parallel in {@code routingPool} if it is not null.
+	 */
+	private static VivadoCheckpoint applyImplementation(
+			Path rscpPath, String partName, CellDesign design, Device device,
+			CellLibrary libCells, ImplementationMode mode, boolean storeAdditionalInfo,
+			ForkJoinPool routingPool
+	) throws IOException {
 		// parse the constraints into RapidSmith
 		String constraintsFile = rscpPath.resolve("constraints.xdc").toString();
 		XdcConstraintsInterface constraintsInterface = new XdcConstraintsInterface(design, device);
@@ -107,7 +198,7 @@ public final class VivadoInterface {
  
 		String routingFile = rscpPath.resolve("routing.rsc").toString();
 		XdcRoutingInterface routingInterface = new XdcRoutingInterface(design, device, placementInterface.getPinMap(), mode);
-		routingInterface.parseRoutingXDC(routingFile);
+		routingInterface.parseRoutingXDC(routingFile, routingPool);
 		
 		VivadoCheckpoint vivadoCheckpoint = new VivadoCheckpoint(partName, design, device, libCells); 
 		
@@ -120,6 +211,34 @@ public final class VivadoInterface {
 		return vivadoCheckpoint;
 	}
 
+	private interface IOSupplier<T> {
+		T get() throws IOException;
+	}
+
+	private interface IORunnable {
+		void run() throws IOException;
+	}
+
+	private static Runnable uncheckedRun(IORunnable runnable) {
+		return () -> {
+			try {
+				runnable.run();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		};
+	}
+
+	private static <T> Supplier<T> unchecked(IOSupplier<T> supplier) {
+		return () -> {
+			try {
+				return supplier.get();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		};
+	}
+
 	/**
 	 * Export the RapidSmith2 design into an existing TINCR checkpoint file.
 	 *
@@ -135,6 +254,8 @@ public final class VivadoInterface {
 
 	/**
 	 * Export the RapidSmith2 design into an existing TINCR checkpoint file. 
+	 * The files of the checkpoint are written concurrently in the common
+	 * {@link ForkJoinPool}. See {@link #writeTCPAsync}.
 	 *   
 	 * @param tcpDirectory TINCR checkpoint directory to write XDC files to
 	 * @param design CellDesign to convert to a TINCR checkpoint
@@ -144,34 +265,80 @@ public final class VivadoInterface {
 	 * @throws EdifNameConflictException 
 	 */
 	public static void writeTCP(String tcpDirectory, CellDesign design, Device device, CellLibrary libCells, boolean intrasiteRouting) throws IOException {
-				
-		new File(tcpDirectory).mkdir();
-		
-		// insert routethrough buffers
-		LutRoutethroughInserter inserter = new LutRoutethroughInserter(design, libCells);
-		inserter.execute();
-		
+		try {
+			writeTCPAsync(tcpDirectory, design, device, libCells, intrasiteRouting, ForkJoinPool.commonPool()).join();
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof UncheckedIOException)
+				throw ((UncheckedIOException) cause).getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw e;
+		}
+	}
+
+	/**
+	 * Asynchronously exports the RapidSmith2 design into an existing TINCR checkpoint
+	 * file.  The routethrough buffers are first inserted into the design, after
+	 * which the placement.xdc, routing.xdc, netlist.edf, constraints.xdc and
+	 * design.info files are written concurrently.  The design should not be
+	 * modified until the returned future completes.  Exceptions thrown while
+	 * writing the files complete the future exceptionally, with
+	 * {@link IOException}s wrapped in {@link UncheckedIOException}s.
+	 *
+	 * @param tcpDirectory TINCR checkpoint directory to write XDC files to
+	 * @param design CellDesign to convert to a TINCR checkpoint
+	 * @param intrasiteRouting Whether to include commands to manually set intrasite routing in Vivado
+	 * @param executor executor to write the files in.  If the executor is a
+	 *   {@link ForkJoinPool}, the routes of the nets are also rendered in parallel in it.
+	 * @return a future completed when all files are written
+	 */
+	public static CompletableFuture<Void> writeTCPAsync(String tcpDirectory, CellDesign design, Device device,
+			CellLibrary libCells, boolean intrasiteRouting, Executor executor) {
+		ForkJoinPool routingPool = executor instanceof ForkJoinPool ? (ForkJoinPool) executor : null;
+
+		// insert routethrough buffers before any file is written
+		CompletableFuture<Void> inserted = CompletableFuture.runAsync(() -> {
+			new File(tcpDirectory).mkdir();
+			LutRoutethroughInserter inserter = new LutRoutethroughInserter(design, libCells);
+			inserter.execute();
+		}, executor);
+
 		// Write placement.xdc
-		String placementOut = Paths.get(tcpDirectory, "placement.xdc").toString();	
-		XdcPlacementInterface placementInterface = new XdcPlacementInterface(design, device);
-		placementInterface.writePlacementXDC(placementOut);
-		
+		CompletableFuture<Void> placement = inserted.thenRunAsync(uncheckedRun(() -> {
+			String placementOut = Paths.get(tcpDirectory, "placement.xdc").toString();
+			XdcPlacementInterface placementInterface = new XdcPlacementInterface(design, device);
+			placementInterface.writePlacementXDC(placementOut);
+		}), executor);
+
 		// Write routing.xdc
-		String routingOut = Paths.get(tcpDirectory, "routing.xdc").toString();
-		XdcRoutingInterface routingInterface = new XdcRoutingInterface(design, device, null, ImplementationMode.REGULAR);
-		routingInterface.writeRoutingXDC(routingOut, design, intrasiteRouting);
-		
+		CompletableFuture<Void> routing = inserted.thenRunAsync(uncheckedRun(() -> {
+			String routingOut = Paths.get(tcpDirectory, "routing.xdc").toString();
+			XdcRoutingInterface routingInterface = new XdcRoutingInterface(design, device, null, ImplementationMode.REGULAR);
+			routingInterface.writeRoutingXDC(routingOut, design, intrasiteRouting, routingPool);
+		}), executor);
+
 		// Write EDIF netlist
-		String edifOut = Paths.get(tcpDirectory, "netlist.edf").toString();
-		EdifInterface.writeEdif(edifOut, design);
+		CompletableFuture<Void> edif = inserted.thenRunAsync(uncheckedRun(() -> {
+			String edifOut = Paths.get(tcpDirectory, "netlist.edf").toString();
+			EdifInterface.writeEdif(edifOut, design);
+		}), executor);
 
 		// write constraints.xdc
-		String constraintsOut = Paths.get(tcpDirectory, "constraints.xdc").toString();
-		XdcConstraintsInterface constraintsInterface = new XdcConstraintsInterface(design, device);
-		constraintsInterface.writeConstraintsXdc(constraintsOut);
+		CompletableFuture<Void> constraints = inserted.thenRunAsync(uncheckedRun(() -> {
+			String constraintsOut = Paths.get(tcpDirectory, "constraints.xdc").toString();
+			XdcConstraintsInterface constraintsInterface = new XdcConstraintsInterface(design, device);
+			constraintsInterface.writeConstraintsXdc(constraintsOut);
+		}), executor);
 
 		// write design.info
-		String partInfoOut = Paths.get(tcpDirectory, "design.info").toString();
-		DesignInfoInterface.writeInfoFile(partInfoOut, design.getPartName());
+		CompletableFuture<Void> designInfo = inserted.thenRunAsync(uncheckedRun(() -> {
+			String partInfoOut = Paths.get(tcpDirectory, "design.info").toString();
+			DesignInfoInterface.writeInfoFile(partInfoOut, design.getPartName());
+		}), executor);
+
+		return CompletableFuture.allOf(placement, routing, edif, constraints, designInfo);
 	}
 } // END CLASS 
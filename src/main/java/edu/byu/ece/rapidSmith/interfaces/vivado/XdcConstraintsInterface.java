@@ -24,6 +24,7 @@ import edu.byu.ece.rapidSmith.design.subsite.*;
 import edu.byu.ece.rapidSmith.device.*;
 
 import java.io.*;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -67,20 +68,15 @@ public class XdcConstraintsInterface {
 	 * @throws IOException
 	 */
 	public void parseConstraintsXDC(String xdcFile) throws IOException {
-		LineNumberReader br = new LineNumberReader(new BufferedReader(new FileReader(xdcFile)));
-		String line;
+		try (XdcTokenizer toks = new XdcTokenizer(Paths.get(xdcFile))) {
+			while (toks.nextLine()) {
+				// Skip empty and comment lines without creating strings for them
+				if (toks.getTokenCount() == 0 || toks.getToken(0).charAt(0) == '#')
+					continue;
 
-		while ((line = br.readLine()) != null) {
-			String trimmed = line.trim();
-
-			// Skip empty and comment lines
-			if (trimmed.length() < 1 || trimmed.startsWith("#"))
-				continue;
-
-			parseConstraintsLine(trimmed);
+				parseConstraintsLine(toks.getLine().trim());
+			}
 		}
-
-		br.close();
 	}
 
     /**
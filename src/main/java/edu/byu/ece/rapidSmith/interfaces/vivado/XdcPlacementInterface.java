@@ -20,18 +20,15 @@
 
 package edu.byu.ece.rapidSmith.interfaces.vivado;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.LineNumberReader;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.function.Function;
-import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
 import edu.byu.ece.rapidSmith.design.subsite.Cell;
@@ -79,82 +76,90 @@ public class XdcPlacementInterface {
 	public void parsePlacementXDC(String xdcFile) throws IOException {
 		
 		currentFile = xdcFile;
-		LineNumberReader br = new LineNumberReader(new BufferedReader(new FileReader(xdcFile)));
-		String line;
-		// Regex used to split lines via whitespace
-		Pattern whitespacePattern = Pattern.compile("\\s+");
 		
-		while ((line = br.readLine()) != null) {
-			currentLineNumber = br.getLineNumber();
-			
-			String[] toks = whitespacePattern.split(line);
-			
-			switch (toks[0]) {
-				case "LOC" : applyCellPlacement(toks);
-					break;
-				case "PINMAP" : applyCellPinMappings(toks);
-					break;
-				case "PACKAGE_PIN" : applyPortPlacement(toks) ;
-					break;
-				case "IPROP" : applyInternalCellProperty(toks) ; 
-					break;
-				default :
-					throw new ParseException(String.format("Unrecognized Token: %s \nOn %d of %s", toks[0], currentLineNumber, currentFile));
+		try (XdcTokenizer toks = new XdcTokenizer(Paths.get(xdcFile))) {
+			while (toks.nextLine()) {
+				currentLineNumber = toks.getLineNumber();
+				if (toks.getTokenCount() == 0) {
+					continue;
+				}
+				
+				String command = toks.getToken(0).toString();
+				switch (command) {
+					case "LOC" : applyCellPlacement(toks);
+						break;
+					case "PINMAP" : applyCellPinMappings(toks);
+						break;
+					case "PACKAGE_PIN" : applyPortPlacement(toks) ;
+						break;
+					case "IPROP" : applyInternalCellProperty(toks) ; 
+						break;
+					default :
+						throw new ParseException(String.format("Unrecognized Token: %s \nOn %d of %s", command, currentLineNumber, currentFile));
+				}
 			}
 		}
-
-		br.close();
 	}
 	
-	private void applyCellPlacement(String[] toks) {
+	private void applyCellPlacement(XdcTokenizer toks) {
 		
-		Cell cell = tryGetCell(toks[1]);
-		Site site = tryGetSite(toks[2]);
+		Cell cell = tryGetCell(toks.getToken(1).toString());
+		Site site = tryGetSite(toks.getToken(2));
 		
-		String siteType = toks[3];
+		String siteType = toks.getToken(3).toString();
 		site.setType(SiteType.valueOf(device.getFamily(), siteType));
 		
-		Bel bel = tryGetBel(site, toks[4]);
+		Bel bel = tryGetBel(site, toks.getToken(4).toString());
 		
 		design.placeCell(cell, bel);
 	}
 	
-	private void applyCellPinMappings(String[] toks) {
+	private void applyCellPinMappings(XdcTokenizer toks) {
 		
-		Cell cell = tryGetPlacedCell(toks[1]);
+		Cell cell = tryGetPlacedCell(toks.getToken(1).toString());
 		Bel bel = cell.getBel();
 		
-		for (int i = 2; i < toks.length; i++) {
-			String[] pinmap = toks[i].split(":");
+		for (int i = 2; i < toks.getTokenCount(); i++) {
+			XdcToken pinmap = toks.getToken(i);
+			// trailing colons do not separate bel pins
+			int length = pinmap.length();
+			while (length > 0 && pinmap.charAt(length - 1) == ':') {
+				length--;
+			}
+			int colon = pinmap.indexOf(':', 0);
 
-			// If pinmap.length = 1, this mean the cell pin has no belPinMapping.
-			if (pinmap.length > 1) {
-				CellPin cellPin = tryGetCellPin(cell, pinmap[0]);
+			// If there is no colon, this mean the cell pin has no belPinMapping.
+			if (colon >= 0 && colon < length) {
+				CellPin cellPin = tryGetCellPin(cell, pinmap.subSequence(0, colon));
 				
-				for (int j = 1; j < pinmap.length; j++) {
-					BelPin belPin = tryGetBelPin(bel, pinmap[j]);
+				while (colon >= 0 && colon < length) {
+					int next = pinmap.indexOf(':', colon + 1);
+					int end = next < 0 || next > length ? length : next;
+					BelPin belPin = tryGetBelPin(bel, pinmap.subSequence(colon + 1, end));
 					cellPin.mapToBelPin(belPin);
 					belPinToCellPinMap.put(belPin, cellPin);
+					colon = next;
 				}
 			}
 		}
 	}
 	
-	private void applyPortPlacement(String[] toks) {
+	private void applyPortPlacement(XdcTokenizer toks) {
 		
-		if (toks.length != 4) {
+		if (toks.getTokenCount() != 4) {
 			throw new ParseException("PACKAGE_PIN declaration should be followed by 3 tokens: cell site bel.\n"
 					+ "On line: " + currentLineNumber + " of " + currentFile);
 		}
 		
-		Cell cell = tryGetCell(toks[1]);
+		String cellName = toks.getToken(1).toString();
+		Cell cell = tryGetCell(cellName);
 		
 		if (!cell.isPort()) {
-			cell = tryGetCell(toks[1] + "_rsport");
+			cell = tryGetCell(cellName + "_rsport");
 		}
 		
-		Site site = tryGetSite(toks[2]);
-		Bel bel = tryGetBel(site, toks[3]);
+		Site site = tryGetSite(toks.getToken(2));
+		Bel bel = tryGetBel(site, toks.getToken(3).toString());
 				
 		design.placeCell(cell, bel);
 		
@@ -172,17 +177,17 @@ public class XdcPlacementInterface {
 	 * Applies a property to an internal cell based on the tokens read from the placement.rsc file
 	 * Expected format of toks : "IPROP cellName propertyName propertyValue"
 	 */
-	private void applyInternalCellProperty(String[] toks) {
+	private void applyInternalCellProperty(XdcTokenizer toks) {
 		
 		// throw an exception if the number of tokens on the line is not correct
-		if (toks.length != 4) {
-			throw new ParseException("Expected 3 parameters after token IPROP, found " + toks.length + " instead\n" 
+		if (toks.getTokenCount() != 4) {
+			throw new ParseException("Expected 3 parameters after token IPROP, found " + toks.getTokenCount() + " instead\n" 
 					+ "On line " + this.currentLineNumber + " of " + currentFile);
 		}
 		
 		// add the property to the cell
-		Cell cell = tryGetCell(toks[1]);
-		cell.getProperties().update(new Property(toks[2], PropertyType.EDIF, toks[3]));
+		Cell cell = tryGetCell(toks.getToken(1).toString());
+		cell.getProperties().update(new Property(toks.getToken(2).toString(), PropertyType.EDIF, toks.getToken(3).toString()));
 	}
 
 	/**
@@ -251,11 +256,11 @@ public class XdcPlacementInterface {
 	 * from the currently loaded device. If the site does not exist
 	 * a ParseException is thrown
 	 * 
-	 * @param siteName Name of the site to retrieve
+	 * @param siteName Name of the site to retrieve, looked up without creating a string
 	 */
-	private Site tryGetSite(String siteName) {
+	private Site tryGetSite(CharSequence siteName) {
 		
-		Site site = device.getSite(siteName);
+		Site site = device.findSite(siteName);
 		
 		if (site == null) {
 			throw new ParseException("Site \"" + siteName + "\" not found in the current device. \n" 
@@ -25,9 +25,12 @@ import edu.byu.ece.rapidSmith.device.families.FamilyInfo;
 import edu.byu.ece.rapidSmith.device.families.FamilyInfos;
 
 import java.io.*;
+import java.nio.file.Paths;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static edu.byu.ece.rapidSmith.util.Exceptions.ParseException;
@@ -38,6 +41,13 @@ import static edu.byu.ece.rapidSmith.util.Exceptions.ParseException;
  */
 public class XdcRoutingInterface {
 
+	/** Maximum number of ROUTE lines waiting to be imported in parallel */
+	private static final int ROUTES_PER_BATCH = 4096;
+	/** Number of ROUTE lines rendered by each task when writing in parallel */
+	private static final int ROUTES_PER_WRITE_TASK = 1024;
+	/** Size of the character buffer of the routing.xdc writer */
+	private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
 	private final Device device;
 	private final CellDesign design;
 	private final WireEnumerator wireEnumerator;
@@ -48,10 +58,11 @@ public class XdcRoutingInterface {
 	private int currentLineNumber;
 	private String currentFile;
 	private Map<Bel, BelRoutethrough> belRoutethroughMap;
-	private Pattern pipNamePattern;
 	private Map<String, String> oocPortMap;
 	private ImplementationMode implementationMode;
-	private boolean pipUsedInRoute = false;
+	private final List<NetRoute> pendingRoutes = new ArrayList<>();
+	private final Set<String> pendingRouteNets = new HashSet<>();
+	private final StringBuilder pipWireName = new StringBuilder();
 	
 	/**
 	 * Creates a new XdcRoutingInterface object.
@@ -69,7 +80,6 @@ public class XdcRoutingInterface {
 		this.staticSourceMap = new HashMap<>();
 		this.belPinToCellPinMap = pinMap;
 		this.currentLineNumber = 0;
-		this.pipNamePattern = Pattern.compile("(.*)/.*\\.([^<]*)((?:<<)?->>?)(.*)"); 
 		this.implementationMode = mode;
 	}
 	
@@ -103,23 +113,58 @@ public class XdcRoutingInterface {
 	 * @throws IOException
 	 */
 	public void parseRoutingXDC(String xdcFile) throws IOException {
+		parseRoutingXDC(xdcFile, null);
+	}
+
+	/**
+	 * Parses the specified routing.xdc file, and applies the physical wire information to the nets of the design.
+	 * If a pool is given, the ROUTE lines of the file are tokenized and the {@link RouteTree}s of their nets
+	 * are built in parallel in the pool. The routes are applied to the design in the order they appear
+	 * in the file, so the imported design is the same as when the file is parsed on one thread.
+	 * 
+	 * @param xdcFile routing.xdc file
+	 * @param pool fork join pool to build the routes of the nets in, or {@code null} to parse the
+	 * 		file on the calling thread
+	 * @throws IOException
+	 */
+	public void parseRoutingXDC(String xdcFile, ForkJoinPool pool) throws IOException {
 		
 		currentFile = xdcFile;
-		// Regex used to split lines via whitespace
-		Pattern whitespacePattern = Pattern.compile("\\s+");
 		
 		// try-with-resources to guarantee no resource leakage
-		try (LineNumberReader br = new LineNumberReader(new BufferedReader(new FileReader(xdcFile)))) {
+		try (XdcTokenizer toks = new XdcTokenizer(Paths.get(xdcFile))) {
 		
-			String line;
-			while ((line = br.readLine()) != null) {
-				this.currentLineNumber = br.getLineNumber();
-				String[] toks = whitespacePattern.split(line);
+			while (toks.nextLine()) {
+				this.currentLineNumber = toks.getLineNumber();
+				if (toks.getTokenCount() == 0) {
+					continue;
+				}
+				XdcToken command = toks.getToken(0);
+
+				// ROUTE lines are deferred and imported in batches. The routes of a net only depend on
+				// the INTERSITE line of the net, and the INTERSITE and INTRASITE lines of a net only
+				// modify that net. These lines are interleaved with the ROUTE lines in the file, so they
+				// are imported right away unless their net has a pending route. Other lines wait for
+				// the pending routes to be applied.
+				if (pool != null) {
+					if (command.contentEquals("ROUTE")) {
+						pendingRoutes.add(new NetRoute(currentLineNumber, toks.copyLine()));
+						pendingRouteNets.add(toks.getToken(1).toString());
+						if (pendingRoutes.size() == ROUTES_PER_BATCH) {
+							processPendingRoutes(pool);
+						}
+						continue;
+					}
+					boolean netLine = command.contentEquals("INTERSITE") || command.contentEquals("INTRASITE");
+					if (!netLine || pendingRouteNets.contains(toks.getToken(1).toString())) {
+						processPendingRoutes(pool);
+					}
+				}
 	
 				// TODO: I know the order these things appear in the file, so I probably don't need a big switch statement
 				// SITE_PIPS -> STATIC_SOURCES -> LUT_RTS -> INTRASITE/INTERSITE/ROUTE
 				// Update this if there is a performance issue, but it should be fine
-				switch (toks[0]) {
+				switch (command.toString()) {
 				
 					case "SITE_PIPS" : processSitePips(toks);
 						break;
@@ -136,21 +181,18 @@ public class XdcRoutingInterface {
 					case "GND_SOURCES" : processStaticSources(toks, false);
 						break;
 					case "VCC": 
-						String[] vccStartwires = br.readLine().split("\\s+");
-						assert (vccStartwires[0].equals("START_WIRES"));
-						processStaticNet2(toks, vccStartwires);
-						break; 
 					case "GND": 
-						String[] gndStartWires = br.readLine().split("\\s+");
-						assert (gndStartWires[0].equals("START_WIRES"));
-						processStaticNet2(toks, gndStartWires);
+						processStaticNet2(toks);
 						break;
 					case "OOC_PORT" : processOocPort(toks);
 						break;
 					default : 
-						throw new ParseException("Unrecognized Token: " + toks[0]);
+						throw new ParseException("Unrecognized Token: " + command);
 				}
 			}
+			if (pool != null) {
+				processPendingRoutes(pool);
+			}
 			
 			// compute the routing status for the GND and VCC nets at the end
 			if (design.getVccNet() != null) {
@@ -162,6 +204,26 @@ public class XdcRoutingInterface {
 		}
 	}
 	
+	/**
+	 * Imports the deferred ROUTE lines. The lines are tokenized and the routes of the nets are
+	 * searched in the pool, while the steps that modify the design run on this thread in file order.
+	 */
+	private void processPendingRoutes(ForkJoinPool pool) {
+		if (pendingRoutes.isEmpty()) {
+			return;
+		}
+		int lineNumber = currentLineNumber;
+		
+		pool.invoke(new NetRouteTask(pendingRoutes, 0, pendingRoutes.size(), NetRoute::tokenize));
+		pendingRoutes.forEach(NetRoute::prepare);
+		pool.invoke(new NetRouteTask(pendingRoutes, 0, pendingRoutes.size(), NetRoute::search));
+		pendingRoutes.forEach(NetRoute::apply);
+		pendingRoutes.clear();
+		pendingRouteNets.clear();
+		
+		currentLineNumber = lineNumber;
+	}
+	
 	/**
 	 * Loads the site PIP information for a site.
 	 *  
@@ -171,9 +233,9 @@ public class XdcRoutingInterface {
 	 * <br> 
 	 * where space separated elements are different elements in the array
 	 */
-	private void processSitePips (String[] toks) {
+	private void processSitePips (XdcTokenizer toks) {
 		
-		Site site = tryGetSite(toks[1]);
+		Site site = tryGetSite(toks.getToken(1));
 		readUsedSitePips(site, toks);
 		createStaticSubsiteRouteTrees(site);
 	}
@@ -188,18 +250,19 @@ public class XdcRoutingInterface {
 	 * <br> 
 	 * where space separated elements are different elements in the array
 	 */
-	private void processIntersitePins(String[] toks) {
+	private void processIntersitePins(XdcTokenizer toks) {
 		
-		CellNet net = tryGetCellNet(toks[1]);		
+		CellNet net = tryGetCellNet(toks.getToken(1).toString());		
 		
-		for (int index = 2 ; index < toks.length; index++) {
+		for (int index = 2 ; index < toks.getTokenCount(); index++) {
 			
-			String[] sitePinToks = toks[index].split("/");
+			XdcToken sitePinTok = toks.getToken(index);
+			int slash = sitePinTok.indexOf('/', 0);
 			
-			assert (sitePinToks.length == 2);
+			assert (slash >= 0 && sitePinTok.indexOf('/', slash + 1) < 0);
 			
-			Site site = tryGetSite(sitePinToks[0]);
-			SitePin pin = tryGetSitePin(site, sitePinToks[1]);
+			Site site = tryGetSite(sitePinTok, 0, slash);
+			SitePin pin = tryGetSitePin(site, sitePinTok.subSequence(slash + 1, sitePinTok.length()));
 			
 			if (pin.isInput()) { // of a site
 				createIntrasiteRoute(pin, net, design.getUsedSitePipsAtSite(site));
@@ -233,9 +296,9 @@ public class XdcRoutingInterface {
 	 * <br> 
 	 * where space separated elements are different elements in the array
 	 */
-	private void processIntrasiteRoute(String[] toks) {
+	private void processIntrasiteRoute(XdcTokenizer toks) {
 		
-		CellNet net = tryGetCellNet(toks[1]);		
+		CellNet net = tryGetCellNet(toks.getToken(1).toString());		
 		
 		if (net.getSourcePin() == null) {
 			return;
@@ -251,50 +314,82 @@ public class XdcRoutingInterface {
 	}
 	
 	/**
-	 * Creates the routing data structures for a VCC or GND net
+	 * Creates the routing data structures for a VCC or GND net. The line of the net
+	 * is followed by a line with the start wires of the net, which is read by this method.
 	 * 
-	 * @param wireToks A string array of the form: <br>
+	 * @param toks The tokens of a line of the form: <br>
 	 * {@code "VCC tile0/wire0 tile1/wire1 ... tileN/wireN"} <br>
-	 * where space separated elements are different elements in the array. The {@code tile/wire} elements
+	 * where space separated elements are different tokens. The {@code tile/wire} elements
 	 * are the wires that are used in the static net. GND could also be the first token. <br>
-	 * @param startWires A string array of the form: <br>
+	 * The next line is of the form: <br>
 	 * {@code "START_WIRES tile0/wire0 tile1/wire1 ... tileN/wireN"} <br>
-	 * where space separated elements are different elements in the array. The {@code tile/wire} elements
+	 * where space separated elements are different tokens. The {@code tile/wire} elements
 	 * are the <b>starting wires</b> of the net (i.e. the wires connected to tieoffs).
 	 */
-	private void processStaticNet2(String[] wireToks, String[] startWires) {
-		CellNet net = tryGetCellNet(wireToks[0]);
-		Map<String, Set<String>> pipMap = buildPipMap(wireToks, 1);
+	private void processStaticNet2(XdcTokenizer toks) throws IOException {
+		CellNet net = tryGetCellNet(toks.getToken(0).toString());
+		Map<Wire, Set<Wire>> pipMap = buildPipMap(toks, 1);
+		
+		if (!toks.nextLine() || toks.getTokenCount() == 0) {
+			throw new ParseException("Expected the START_WIRES of net " + net.getName() + "\n"
+					+ "On line " + toks.getLineNumber() + " of " + currentFile);
+		}
+		this.currentLineNumber = toks.getLineNumber();
+		assert (toks.getToken(0).contentEquals("START_WIRES"));
 		
 		// Recreate the routing structure for each of the start wires
 		// The first token is either VCC or START_WIRES, not a wire name
-		for (int i = 1; i < startWires.length; i++ ) {
-			Wire startWire = createTileWire(startWires[i]);
+		for (int i = 1; i < toks.getTokenCount(); i++ ) {
+			Wire startWire = createTileWire(toks.getToken(i));
 			RouteTree netRouteTree = recreateRoutingNetwork2(net, startWire, pipMap);
 			net.addIntersiteRouteTree(netRouteTree);
 		}
 	}
 	
-	private Map<String, Set<String>> buildPipMap(String[] toks, int startIndex) {
-		Map<String, Set<String>> pipMap = new HashMap<String, Set<String>>();
+	/**
+	 * Builds a map from the source wire of each PIP on a line to the sink wires it enables.
+	 * The PIPs are of the form {@code tile/tileType.wireA->wireB}, with {@code ->>} for buffered
+	 * PIPs and {@code <<->>} for bi-directional PIPs. The wires are looked up in the device without
+	 * creating strings. PIPs of wires not in the device are skipped as they can not be in a route.
+	 */
+	private Map<Wire, Set<Wire>> buildPipMap(XdcTokenizer toks, int startIndex) {
+		Map<Wire, Set<Wire>> pipMap = new HashMap<>();
 		
 		// build the pip map for connections
-		for (int i = startIndex; i < toks.length; i++ ) {			
-			Matcher m = pipNamePattern.matcher(toks[i]);
+		for (int i = startIndex; i < toks.getTokenCount(); i++ ) {			
+			XdcToken pip = toks.getToken(i);
 			
-			if (m.matches()) {
-				String source = m.group(1) + "/" + m.group(2);
-				String sink = m.group(1) + "/" + m.group(4);
-				pipMap.computeIfAbsent(source, k -> new HashSet<String>()).add(sink);
-				
-				// if the PIP is a bi-directional pip, add both directions to the map...
-				// the correct pip direction will be determined later in the routing import.
-				if (m.group(3).equals("<<->>")) {
-					pipMap.computeIfAbsent(sink, k -> new HashSet<String>()).add(source);
-				}
+			int slash = pip.indexOf('/', 0);
+			int dot = pip.indexOf('.', slash + 1);
+			int arrow = dot < 0 ? -1 : pip.indexOf('-', dot + 1);
+			while (arrow >= 0 && arrow + 1 < pip.length() && pip.charAt(arrow + 1) != '>') {
+				arrow = pip.indexOf('-', arrow + 1);
 			}
-			else {
-				throw new ParseException("Invalid Pip String configuration: " + toks[i]);
+			if (slash < 0 || arrow < 0 || arrow + 1 == pip.length()) {
+				throw new ParseException("Invalid Pip String configuration: " + pip);
+			}
+			boolean bidirectional = arrow - dot >= 3 && pip.charAt(arrow - 1) == '<' && pip.charAt(arrow - 2) == '<';
+			int sourceEnd = bidirectional ? arrow - 2 : arrow;
+			int sinkStart = arrow + 2;
+			if (sinkStart < pip.length() && pip.charAt(sinkStart) == '>') {
+				sinkStart++;
+			}
+			
+			Tile tile = device.findTile(pip, 0, slash);
+			int source = wireEnumerator.findWireEnum(pip, dot + 1, sourceEnd);
+			int sink = wireEnumerator.findWireEnum(pip, sinkStart, pip.length());
+			if (tile == null || source == -1 || sink == -1) {
+				continue;
+			}
+			
+			Wire sourceWire = new TileWire(tile, source);
+			Wire sinkWire = new TileWire(tile, sink);
+			pipMap.computeIfAbsent(sourceWire, k -> new HashSet<>()).add(sinkWire);
+			
+			// if the PIP is a bi-directional pip, add both directions to the map...
+			// the correct pip direction will be determined later in the routing import.
+			if (bidirectional) {
+				pipMap.computeIfAbsent(sinkWire, k -> new HashSet<>()).add(sourceWire);
 			}
 		}
 		return pipMap;
@@ -310,67 +405,180 @@ public class XdcRoutingInterface {
 	 * 
 	 * {@code ROUTE q_reg[0]_i_1_n_0 CLBLL_L_X2Y69/CLBLL_L.CLBLL_LL_COUT->CLBLL_LL_COUT_N}
 	 */
-	private void processIntersiteRoutePips(String[] toks) {
-		CellNet net = tryGetCellNet(toks[1]);
-		Map<String, Set<String>> pipMap = buildPipMap(toks, 2);
-
-		// There is a bug in Vivado where site pins for some nets starting at PAD's are
-		// not returned through the Tcl interface.
-		if (net.sourceSitePinCount() == 0 && implementationMode == ImplementationMode.REGULAR) {
-			Site site = net.getSourceBelPin().getBel().getSite();
-			createIntrasiteRoute(net, net.getSourceBelPin(), false, design.getUsedSitePipsAtSite(site));
+	private void processIntersiteRoutePips(XdcTokenizer toks) {
+		NetRoute route = new NetRoute(currentLineNumber, toks.getToken(1).toString(), buildPipMap(toks, 2));
+		route.prepare();
+		route.search();
+		route.apply();
+	}
+	
+	/**
+	 * The import of a single ROUTE line. The import is split into steps so that the
+	 * tokenizing of the line and the search of the routes can be done in parallel with
+	 * other nets. {@link #prepare()} and {@link #apply()} modify the design and must be
+	 * called on the parsing thread in the order the lines appear in the file.
+	 */
+	private final class NetRoute {
+		private final int lineNumber;
+		private byte[] line;
+		private String netName;
+		private CellNet net;
+		private Map<Wire, Set<Wire>> pipMap;
+		private final List<SitePin> sourceSitePins = new ArrayList<>();
+		private final List<RouteSearch> searches = new ArrayList<>();
+		private Wire oocStartWire;
+		
+		NetRoute(int lineNumber, byte[] line) {
+			this.lineNumber = lineNumber;
+			this.line = line;
 		}
 		
-		assert (net.sourceSitePinCount() > 0 || implementationMode == ImplementationMode.OUT_OF_CONTEXT) : 
-			net.getName() + " should have at least one source site pin";
+		NetRoute(int lineNumber, String netName, Map<Wire, Set<Wire>> pipMap) {
+			this.lineNumber = lineNumber;
+			this.netName = netName;
+			this.pipMap = pipMap;
+		}
 		
-		// Using the pip map, recreate each route as a RouteTree object
-		List<SitePin> pinsToRemove = new ArrayList<SitePin>(); 
-		//System.out.println(net.getSourceSitePins().size() + " " + net.getSourceSitePin().getName() + " " + net.getSourceSitePin().getExternalWire().getFullName());
-		for (SitePin sitePin : net.getSourceSitePins()) {
-			RouteTree netRouteTree = recreateRoutingNetwork2(net, sitePin.getExternalWire(), pipMap);
+		/**
+		 * Splits the line and builds the pip map of the net. 
+		 */
+		void tokenize() {
+			try (XdcTokenizer toks = new XdcTokenizer(line)) {
+				toks.nextLine();
+				netName = toks.getToken(1).toString();
+				pipMap = buildPipMap(toks, 2);
+			} catch (IOException e) {
+				// lines in memory are not read from a file
+				throw new AssertionError(e);
+			}
+			line = null;
+		}
+		
+		/**
+		 * Finds the net and the wires its routes start at. 
+		 */
+		void prepare() {
+			currentLineNumber = lineNumber;
+			net = tryGetCellNet(netName);
+
+			// There is a bug in Vivado where site pins for some nets starting at PAD's are
+			// not returned through the Tcl interface.
+			if (net.sourceSitePinCount() == 0 && implementationMode == ImplementationMode.REGULAR) {
+				Site site = net.getSourceBelPin().getBel().getSite();
+				createIntrasiteRoute(net, net.getSourceBelPin(), false, design.getUsedSitePipsAtSite(site));
+			}
+			
+			assert (net.sourceSitePinCount() > 0 || implementationMode == ImplementationMode.OUT_OF_CONTEXT) : 
+				net.getName() + " should have at least one source site pin";
+			
+			sourceSitePins.addAll(net.getSourceSitePins());
 			
-			// Routes are only valid if they actually use a PIP connections. Otherwise they are unused
-			if (pipUsedInRoute) {
-				net.addIntersiteRouteTree(netRouteTree);
-			} else {
-				pinsToRemove.add(sitePin);
+			// For out-of-context checkpoints, look for hierarchical ports that are routed to floating wires
+			if (implementationMode==ImplementationMode.OUT_OF_CONTEXT && net.getSourcePin().getCell().isPort()) {
+				
+				Cell port = net.getSourcePin().getCell();
+				String startWireName = oocPortMap.get(port.getName());
+				if (startWireName != null) {
+					String[] wireToks = startWireName.split("/");
+					assert (wireToks.length == 2);
+					Tile tile = tryGetTile(wireToks[0]);
+					int wireEnum = tryGetWireEnum(wireToks[1]);
+					oocStartWire = new TileWire(tile, wireEnum);
+				}
 			}
-			/*
-			// If the only wire in the route is the wire connecting to the source site pin, then the
-			// site pin is not a valid source, and so we remove it.
-			if (netRouteTree.getChildren().size() == 0) {
-				pinsToRemove.add(sitePin);
+		}
+		
+		/**
+		 * Recreates each route of the net as a RouteTree object using the pip map.
+		 */
+		void search() {
+			for (SitePin sitePin : sourceSitePins) {
+				searches.add(searchRoutingNetwork(sitePin.getExternalWire(), pipMap));
 			}
-			else {
-				net.addIntersiteRouteTree(netRouteTree);
+			if (oocStartWire != null) {
+				searches.add(searchRoutingNetwork(oocStartWire, pipMap));
 			}
-			*/
+			pipMap = null;
 		}
 		
-		// remove all invalid site pins sources for the net
-		pinsToRemove.forEach(pin -> net.removeSourceSitePin(pin));
+		/**
+		 * Adds the routes to the net and marks the sinks they reach as routed.
+		 */
+		void apply() {
+			currentLineNumber = lineNumber;
+			
+			List<SitePin> pinsToRemove = new ArrayList<SitePin>(); 
+			for (int i = 0; i < sourceSitePins.size(); i++) {
+				RouteSearch search = searches.get(i);
+				processSitePinSinks(net, search);
 				
-		// For out-of-context checkpoints, look for hierarchical ports that are routed to floating wires
-		if (implementationMode==ImplementationMode.OUT_OF_CONTEXT && net.getSourcePin().getCell().isPort()) {
+				// Routes are only valid if they actually use a PIP connections. Otherwise they are unused
+				if (search.pipUsed) {
+					net.addIntersiteRouteTree(search.route);
+				} else {
+					pinsToRemove.add(sourceSitePins.get(i));
+				}
+			}
+			
+			// remove all invalid site pins sources for the net
+			pinsToRemove.forEach(pin -> net.removeSourceSitePin(pin));
 			
-			Cell port = net.getSourcePin().getCell();
-			String startWireName = oocPortMap.get(port.getName());
-			if (startWireName != null) {
-				String[] wireToks = startWireName.split("/");
-				assert (wireToks.length == 2);
-				Tile tile = tryGetTile(wireToks[0]);
-				int wireEnum = tryGetWireEnum(wireToks[1]);
-				Wire startTileWire = new TileWire(tile, wireEnum);
-				RouteTree netRouteTree = recreateRoutingNetwork2(net, startTileWire, pipMap);
-				net.addIntersiteRouteTree(netRouteTree);
-				//assert this.pipUsedInRoute;
+			if (oocStartWire != null) {
+				RouteSearch search = searches.get(searches.size() - 1);
+				processSitePinSinks(net, search);
+				net.addIntersiteRouteTree(search.route);
 			}
-		}
 
-		assert net.sourceSitePinCount() > 0 || implementationMode==ImplementationMode.OUT_OF_CONTEXT : 
-			"Net " + net.getName() + " should have a source site pin. ";
-		net.computeRouteStatus();
+			assert net.sourceSitePinCount() > 0 || implementationMode==ImplementationMode.OUT_OF_CONTEXT : 
+				"Net " + net.getName() + " should have a source site pin. ";
+			net.computeRouteStatus();
+		}
+	}
+	
+	/**
+	 * Runs a step of the import of a range of ROUTE lines in a fork join pool,
+	 * splitting the range until each task imports a single net. 
+	 */
+	private static final class NetRouteTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final List<NetRoute> routes;
+		private final int start;
+		private final int end;
+		private final Consumer<NetRoute> step;
+		
+		NetRouteTask(List<NetRoute> routes, int start, int end, Consumer<NetRoute> step) {
+			this.routes = routes;
+			this.start = start;
+			this.end = end;
+			this.step = step;
+		}
+		
+		@Override
+		protected void compute() {
+			if (end - start == 1) {
+				step.accept(routes.get(start));
+			}
+			else {
+				int mid = (start + end) >>> 1;
+				invokeAll(new NetRouteTask(routes, start, mid, step), new NetRouteTask(routes, mid, end, step));
+			}
+		}
+	}
+	
+	/**
+	 * The result of searching the route of a net from a start wire.
+	 */
+	private static final class RouteSearch {
+		/** The route found */
+		final RouteTree route;
+		/** Site pins reached by the route, in the order they were reached */
+		final List<SitePin> sinkSitePins = new ArrayList<>();
+		/** Whether the route uses any of the PIPs of the net */
+		boolean pipUsed = false;
+		
+		RouteSearch(RouteTree route) {
+			this.route = route;
+		}
 	}
 	
 	/**
@@ -380,24 +588,38 @@ public class XdcRoutingInterface {
 	 * 
 	 * @param net {@link CellNet} to create a routing data structure for
 	 * @param startWire The source wire for the net (connected to a site pin). Used to initialize the route 
-	 * @param pipMap A map of PIPs used in the net from source wire name -> enabled sink wire names 
+	 * @param pipMap A map of PIPs used in the net from source wire -> enabled sink wires 
 	 * @return {@link RouteTree} representing the physical intersite route of the net
 	 */
-	private RouteTree recreateRoutingNetwork2(CellNet net, Wire startWire, Map<String, Set<String>> pipMap) {
+	private RouteTree recreateRoutingNetwork2(CellNet net, Wire startWire, Map<Wire, Set<Wire>> pipMap) {
+		RouteSearch search = searchRoutingNetwork(startWire, pipMap);
+		processSitePinSinks(net, search);
+		return search.route;
+	}
+	
+	/**
+	 * Searches the route of a net from a start wire following the enabled PIPs of the net.
+	 * The search only reads the device, so the routes of different nets can be searched
+	 * concurrently. The site pins reached are processed by {@link #processSitePinSinks}.
+	 * 
+	 * @param startWire The source wire for the net (connected to a site pin). Used to initialize the route 
+	 * @param pipMap A map of PIPs used in the net from source wire -> enabled sink wires 
+	 * @return the route found and the site pins it reaches 
+	 */
+	private RouteSearch searchRoutingNetwork(Wire startWire, Map<Wire, Set<Wire>> pipMap) {
 				
 		// initialize the routing data structure with the start wire
-		this.pipUsedInRoute = false;
 		RouteTree start = new RouteTree(startWire);
+		RouteSearch search = new RouteSearch(start);
 		Queue<RouteTree> searchQueue = new ArrayDeque<>();
 		Set<Wire> visited = new HashSet<>();
 		
-		Set<RouteTree> terminals = new HashSet<>();
-		
 		// initialize the search queue and visited wire set
 		searchQueue.add(start); 
 		visited.add(start.getWire());
 		
-		Set<String> emptySet = new HashSet<String>(1);
+		Set<Wire> emptySet = Collections.emptySet();
+		ConnectionCursor cursor = new ConnectionCursor();
 		
 		while (!searchQueue.isEmpty()) {
 			
@@ -405,50 +627,67 @@ public class XdcRoutingInterface {
 			Wire sourceWire = routeTree.getWire();			
 			// add connecting wires that exist in the net to the search queue
 			int connectionCount = 0; 
+			Set<Wire> enabledSinks = null;
 
-			for (Connection conn : routeTree.getWire().getWireConnections()) {
+			sourceWire.getWireConnections(cursor);
+			while (cursor.next()) {
 				
-				Wire sinkWire = conn.getSinkWire();
+				Wire sinkWire = cursor.getSinkWire();
 								
 				if (visited.contains(sinkWire)) {
 					continue;
 				}
 				
-				if (conn.isPip()) { 
-					if (pipMap.getOrDefault(sourceWire.getFullName(), emptySet).contains(sinkWire.getFullName())) {
-						this.pipUsedInRoute = true;
+				if (cursor.isPip()) { 
+					if (enabledSinks == null) {
+						enabledSinks = pipMap.getOrDefault(sourceWire, emptySet);
+					}
+					if (!enabledSinks.isEmpty() && enabledSinks.contains(sinkWire)) {
+						search.pipUsed = true;
 						connectionCount++;
-						RouteTree sinkTree = routeTree.connect(conn);
+						RouteTree sinkTree = routeTree.connect(cursor.getConnection());
 						searchQueue.add(sinkTree);
 						visited.add(sinkWire);
 					}
 				}
 				else { // if (!visited.contains(sinkWire)) {
 					connectionCount++;
-					RouteTree sinkTree = routeTree.connect(conn);
+					RouteTree sinkTree = routeTree.connect(cursor.getConnection());
 					searchQueue.add(sinkTree);
 					visited.add(sinkWire);
 				}
 			}
 			
-			// check to see if the current route tree object is connected to a valid sink site pin 
+			// check to see if the current route tree object is connected to a sink site pin 
 			// the connection count is used to filter out routethrough site pins
 			SitePin sinkSitePin = routeTree.getConnectedSitePin();
 			
-			if (sinkSitePin != null && connectionCount == 0 && processSitePinSink(net, sinkSitePin)) {
-				terminals.add(routeTree);
+			if (sinkSitePin != null && connectionCount == 0) {
+				search.sinkSitePins.add(sinkSitePin);
 			}
 		}
-			
-		// prune useless paths from the route tree (i.e paths that go nowhere)
-		//start.prune(terminals);	
-		return start;
+		
+		return search;
+	}
+	
+	/**
+	 * Marks the sinks of the site pins reached by a route as routed.
+	 */
+	private void processSitePinSinks(CellNet net, RouteSearch search) {
+		for (SitePin sinkSitePin : search.sinkSitePins) {
+			processSitePinSink(net, sinkSitePin);
+		}
 	}
 	
-	private Wire createTileWire(String startWireName) {
-		String[] startWireToks = startWireName.split("/");
-		Tile tile = tryGetTile(startWireToks[0]);
-		int wireEnum = tryGetWireEnum(startWireToks[1]);
+	private Wire createTileWire(XdcToken startWireName) {
+		// looks up the tile and wire in place rather than splitting the name
+		int slash = startWireName.indexOf('/', 0);
+		int end = startWireName.indexOf('/', slash + 1);
+		if (slash < 0)
+			throw new ParseException("Expected a tile/wire name but found \"" + startWireName + "\"\n"
+					+ "On line " + this.currentLineNumber + " of " + currentFile);
+		Tile tile = tryGetTile(startWireName, 0, slash);
+		int wireEnum = tryGetWireEnum(startWireName, slash + 1, end < 0 ? startWireName.length() : end);
 		return new TileWire(tile, wireEnum);
 	}
 	
@@ -491,19 +730,20 @@ public class XdcRoutingInterface {
 	 * @param toks List of routethrough tokens in the form: <br>
 	 * {@code LUT_RTS site0/bel0/inputPin0/outputPin0 site1/bel1/inputPin1/outputPin1 ...}
 	 */
-	private void processLutRoutethroughs(String[] toks) {
+	private void processLutRoutethroughs(XdcTokenizer toks) {
 
 		this.belRoutethroughMap = new HashMap<>();
+		int[] slashes = new int[4];
 		
-		for (int i = 1; i < toks.length; i++) {
-			String[] routethroughToks = toks[i].split("/");			
-			checkTokenLength(routethroughToks.length, 4);
+		for (int i = 1; i < toks.getTokenCount(); i++) {
+			XdcToken routethroughTok = toks.getToken(i);
+			checkTokenLength(findSlashes(routethroughTok, slashes), 4);
 			
 			// TODO: Check that the input pin is an input pin and the output pin is an output pin?
-			Site site = tryGetSite(routethroughToks[0]);
-			Bel bel = tryGetBel(site, routethroughToks[1]);
-			BelPin inputPin = tryGetBelPin(bel, routethroughToks[2]);
-			BelPin outputPin = tryGetBelPin(bel, routethroughToks[3]);
+			Site site = tryGetSite(routethroughTok, 0, slashes[0]);
+			Bel bel = tryGetBel(site, routethroughTok.subSequence(slashes[0] + 1, slashes[1]));
+			BelPin inputPin = tryGetBelPin(bel, routethroughTok.subSequence(slashes[1] + 1, slashes[2]));
+			BelPin outputPin = tryGetBelPin(bel, routethroughTok.subSequence(slashes[2] + 1, slashes[3]));
 		
 			belRoutethroughMap.put(bel, new BelRoutethrough(inputPin, outputPin));
 		}
@@ -516,21 +756,22 @@ public class XdcRoutingInterface {
 	 * @param toks A list of static source bels in the form: <br>
 	 * {@code STATIC_SOURCES site0/bel0/outputPin0 site1/bel1/outputPin1 ... siteN/belN/outputPinN}
 	 */
-	private void processStaticSources(String[] toks, boolean isVcc) {
+	private void processStaticSources(XdcTokenizer toks, boolean isVcc) {
 		
-		if (toks.length > 1) {
+		if (toks.getTokenCount() > 1) {
 			this.staticSourceBels = new HashSet<>();
 		}
 		
 		CellNet net = isVcc ? design.getVccNet() : design.getGndNet(); 
+		int[] slashes = new int[3];
 		
-		for (int i = 1; i < toks.length; i++) {
-			String[] staticToks = toks[i].split("/");
-			checkTokenLength(staticToks.length, 3);
+		for (int i = 1; i < toks.getTokenCount(); i++) {
+			XdcToken staticTok = toks.getToken(i);
+			checkTokenLength(findSlashes(staticTok, slashes), 3);
 			
-			Site site = tryGetSite(staticToks[0]);
-			Bel bel = tryGetBel(site, staticToks[1]);
-			BelPin sourcePin = tryGetBelPin(bel, staticToks[2]);
+			Site site = tryGetSite(staticTok, 0, slashes[0]);
+			Bel bel = tryGetBel(site, staticTok.subSequence(slashes[0] + 1, slashes[1]));
+			BelPin sourcePin = tryGetBelPin(bel, staticTok.subSequence(slashes[1] + 1, slashes[2]));
 			boolean routeFound = tryCreateStaticIntrasiteRoute(net, sourcePin, design.getUsedSitePipsAtSite(site));
 			assert routeFound : site.getName() + "/" + bel.getName() + "/" + sourcePin.getName();
 			staticSourceBels.add(bel);
@@ -545,15 +786,37 @@ public class XdcRoutingInterface {
 	 * Expected Format: OOC_PORT portName Tile/Wire
 	 * @param toks An array of space separated string values parsed from the placement.rsc
 	 */
-	private void processOocPort(String[] toks) {
+	private void processOocPort(XdcTokenizer toks) {
 	
-		assert (toks.length == 3) : String.format("Token error on line %d: Expected format is \"OOC_PORT\" PortName Tile/Wire ", this.currentLineNumber); 
+		assert (toks.getTokenCount() == 3) : String.format("Token error on line %d: Expected format is \"OOC_PORT\" PortName Tile/Wire ", this.currentLineNumber); 
 		
 		if (this.oocPortMap == null) {
 			this.oocPortMap = new HashMap<String, String>();
 		}
 		
-		oocPortMap.put(toks[1], toks[2]); 
+		oocPortMap.put(toks.getToken(1).toString(), toks.getToken(2).toString()); 
+	}
+	
+	/**
+	 * Finds the '/' separated parts of a token. The end of each part is stored in {@code ends}
+	 * 
+	 * @return the number of parts of the token, which may be more than the size of {@code ends}
+	 */
+	private static int findSlashes(XdcToken token, int[] ends) {
+		int count = 0;
+		int start = 0;
+		while (true) {
+			int slash = token.indexOf('/', start);
+			int end = slash < 0 ? token.length() : slash;
+			if (count < ends.length) {
+				ends[count] = end;
+			}
+			count++;
+			if (slash < 0) {
+				return count;
+			}
+			start = slash + 1;
+		}
 	}
 	
 	/**
@@ -561,22 +824,31 @@ public class XdcRoutingInterface {
 	 * data structure. These site pips are used to correctly import intrasite routing later in the parse process. 
 	 * 
 	 * @param site {@link Site} object
-	 * @param toks An array of used site PIPS in the form: <br>
+	 * @param toks The used site PIPS in the form: <br>
 	 * {@code SITE_PIPS siteName pip0:input0 pip1:input1 ... pipN:inputN}
 	 */
-	private void readUsedSitePips(Site site, String[] toks) {
+	private void readUsedSitePips(Site site, XdcTokenizer toks) {
 		
 		HashSet<Integer> usedSitePips = new HashSet<>();
 		
-		String namePrefix = "intrasite:" + site.getType().name() + "/";
+		// the wire names are built in place to look them up without creating strings
+		pipWireName.setLength(0);
+		pipWireName.append("intrasite:").append(site.getType().name()).append('/');
+		int namePrefixLength = pipWireName.length();
 
 		//create hashmap that shows pip used to input val
 		HashMap<String, String> pipToInputVal = new HashMap<String, String>();
 		
 		// Iterate over the list of used site pips, and store them in the site
-		for(int i = 2; i < toks.length; i++) {
-			String pipWireName = (namePrefix + toks[i].replace(":", "."));
-			Integer wireEnum = tryGetWireEnum(pipWireName); 
+		for(int i = 2; i < toks.getTokenCount(); i++) {
+			XdcToken pipTok = toks.getToken(i);
+			int colon = pipTok.indexOf(':', 0);
+			pipWireName.setLength(namePrefixLength);
+			pipWireName.append(pipTok);
+			if (colon >= 0) {
+				pipWireName.setCharAt(namePrefixLength + colon, '.');
+			}
+			int wireEnum = tryGetWireEnum(pipWireName, 0, pipWireName.length()); 
 			
 			SiteWire sw = new SiteWire(site, wireEnum);
 			Collection<Connection> connList = sw.getWireConnections();
@@ -598,9 +870,8 @@ public class XdcRoutingInterface {
 			usedSitePips.add(wireEnum); 	
 			usedSitePips.add(conn.getSinkWire().getWireEnum());
 			// tryGetWireEnum(pipWireName.split("\\.")[0] + ".OUT")
-			String[] vals = toks[i].split(":");
-			assert vals.length == 2;
-			pipToInputVal.put(vals[0], vals[1]);
+			assert colon >= 0 && pipTok.indexOf(':', colon + 1) < 0;
+			pipToInputVal.put(pipTok.subSequence(0, colon), pipTok.subSequence(colon + 1, pipTok.length()));
 		}
 		
 		design.setUsedSitePipsAtSite(site, usedSitePips);
@@ -893,12 +1164,20 @@ public class XdcRoutingInterface {
 	 * 
 	 * @param siteName Name of the site to retrieve
 	 */
-	private Site tryGetSite(String siteName) {
+	private Site tryGetSite(CharSequence siteName) {
+		return tryGetSite(siteName, 0, siteName.length());
+	}
+	
+	/**
+	 * Same as {@link #tryGetSite(CharSequence)} for the site name held by the region
+	 * {@code [start, end)} of the characters.
+	 */
+	private Site tryGetSite(CharSequence chars, int start, int end) {
 		
-		Site site = device.getSite(siteName);
+		Site site = device.findSite(chars, start, end);
 		
 		if (site == null) {
-			throw new ParseException("Site \"" + siteName + "\" not found in the current device. \n" 
+			throw new ParseException("Site \"" + chars.subSequence(start, end) + "\" not found in the current device. \n" 
 									+ "On line " + this.currentLineNumber + " of " + currentFile);
 		}
 		
@@ -913,10 +1192,18 @@ public class XdcRoutingInterface {
 	 * @return {@link Tile} object
 	 */
 	private Tile tryGetTile(String tileName) {
-		Tile tile = device.getTile(tileName);
+		return tryGetTile(tileName, 0, tileName.length());
+	}
+
+	/**
+	 * Same as {@link #tryGetTile(String)} for the tile name held by the region
+	 * {@code [start, end)} of the string.
+	 */
+	private Tile tryGetTile(CharSequence token, int start, int end) {
+		Tile tile = device.findTile(token, start, end);
 		
 		if (tile == null) {
-			throw new ParseException("Tile \"" + tileName + "\" not found in device " + device.getPartName() + ". \n"  
+			throw new ParseException("Tile \"" + token.subSequence(start, end) + "\" not found in device " + device.getPartName() + ". \n"  
 					+ "On line " + this.currentLineNumber + " of " + currentFile); 
 		}
 		return tile;
@@ -1058,12 +1345,20 @@ public class XdcRoutingInterface {
 	 * If the wire does not exist, a ParseException is thrown <br>
 	 */
 	private int tryGetWireEnum(String wireName) {
+		return tryGetWireEnum(wireName, 0, wireName.length());
+	}
+
+	/**
+	 * Same as {@link #tryGetWireEnum(String)} for the wire name held by the region
+	 * {@code [start, end)} of the string.
+	 */
+	private int tryGetWireEnum(CharSequence token, int start, int end) {
 		
-		Integer wireEnum = wireEnumerator.getWireEnum(wireName);
+		int wireEnum = wireEnumerator.findWireEnum(token, start, end);
 		
-		if (wireEnum == null) {
+		if (wireEnum == -1) {
 			throw new ParseException(String.format("Wire: \"%s\" does not exist in the current device. \n"
-												 + "On line %d of %s", wireName, currentLineNumber, currentFile));
+												 + "On line %d of %s", token.subSequence(start, end), currentLineNumber, currentFile));
 		}
 		
 		return wireEnum;
@@ -1145,23 +1440,82 @@ public class XdcRoutingInterface {
 	 * @throws IOException if the file {@code xdcOut} could not be opened
 	 */
 	public void writeRoutingXDC(String xdcOut, CellDesign design, boolean intrasiteRouting) throws IOException {
-		BufferedWriter fileout = new BufferedWriter (new FileWriter(xdcOut));
+		writeRoutingXDC(xdcOut, design, intrasiteRouting, null);
+	}
 
-		if (intrasiteRouting) {
-			// Write the intrasite routing commands for the design
-			writeIntrasiteRouting(design, fileout);
-		}
+	/**
+	 * Creates a routing.xdc file from the nets of the given design, rendering the
+	 * ROUTE strings of the nets in parallel in the specified pool. The ROUTE lines
+	 * are rendered in batches of consecutive nets, and the batches are written in
+	 * the order of the nets, so the file is the same as the file written sequentially.
+	 *
+	 * @param xdcOut Location to write the routing.xdc file
+	 * @param design Design with nets to export
+	 * @param intrasiteRouting Whether to export commands to manually set the intrasite routing in Vivado
+	 * @param pool pool to render the ROUTE strings in. If null, the strings are rendered sequentially.
+	 * @throws IOException if the file {@code xdcOut} could not be opened
+	 */
+	public void writeRoutingXDC(String xdcOut, CellDesign design, boolean intrasiteRouting, ForkJoinPool pool) throws IOException {
+		try (BufferedWriter fileout = new BufferedWriter(new FileWriter(xdcOut), WRITE_BUFFER_SIZE)) {
 
-		// Write the intersite routing information for each net
-		for(CellNet net : design.getNets()) {
+			if (intrasiteRouting) {
+				// Write the intrasite routing commands for the design
+				writeIntrasiteRouting(design, fileout);
+			}
 
 			// only print nets that have routing information. Grab the first RouteTree of the net and use this as the final route
-			if (net.getIntersiteRouteTree() != null ) {
-				fileout.write(String.format("set_property ROUTE %s [get_nets {%s}]\n", getVivadoRouteString(net), net.getName()));
+			List<CellNet> routedNets = new ArrayList<>();
+			for (CellNet net : design.getNets()) {
+				if (net.getIntersiteRouteTree() != null) {
+					routedNets.add(net);
+				}
+			}
+
+			// Write the intersite routing information for each net
+			if (pool == null) {
+				StringBuilder routeLine = new StringBuilder();
+				for (CellNet net : routedNets) {
+					routeLine.setLength(0);
+					appendRouteCommand(net, routeLine);
+					fileout.append(routeLine);
+				}
+				return;
+			}
+
+			// keep a bounded number of batches rendering ahead of the writer
+			int maxPending = pool.getParallelism() * 2;
+			ArrayDeque<ForkJoinTask<String>> pending = new ArrayDeque<>();
+			for (int start = 0; start < routedNets.size(); start += ROUTES_PER_WRITE_TASK) {
+				List<CellNet> batch = routedNets.subList(start, Math.min(start + ROUTES_PER_WRITE_TASK, routedNets.size()));
+				pending.add(pool.submit(() -> renderRouteCommands(batch)));
+				if (pending.size() == maxPending) {
+					fileout.write(pending.remove().join());
+				}
+			}
+			while (!pending.isEmpty()) {
+				fileout.write(pending.remove().join());
 			}
 		}
-		
-		fileout.close();
+	}
+
+	/*
+	 * Renders the ROUTE commands of the nets into a single string
+	 */
+	private static String renderRouteCommands(List<CellNet> nets) {
+		StringBuilder routeLines = new StringBuilder(nets.size() * 256);
+		for (CellNet net : nets) {
+			appendRouteCommand(net, routeLines);
+		}
+		return routeLines.toString();
+	}
+
+	/*
+	 * Appends the line "set_property ROUTE <route string> [get_nets {<net>}]" of the net
+	 */
+	private static void appendRouteCommand(CellNet net, StringBuilder routeLine) {
+		routeLine.append("set_property ROUTE ");
+		appendVivadoRouteString(net, routeLine);
+		routeLine.append(" [get_nets {").append(net.getName()).append("}]\n");
 	}
 	
 	/**
@@ -1176,33 +1530,42 @@ public class XdcRoutingInterface {
 	 * @return Vivado ROUTE string
 	 */
 	public static String getVivadoRouteString(CellNet net) {
+		StringBuilder routeString = new StringBuilder();
+		appendVivadoRouteString(net, routeString);
+		return routeString.toString();
+	}
+
+	private static void appendVivadoRouteString(CellNet net, StringBuilder routeString) {
 		
 		if (net.getIntersiteRouteTreeList().size() == 1) {
 			RouteTree route = net.getIntersiteRouteTree();
-			return createVivadoRoutingString(route.getRoot());
+			appendVivadoRoutingString(route.getRoot(), routeString);
+			return;
 		}
 		
 		// otherwise we assume its a VCC or GND net, which has a special Route string
-		String routeString = "\" ";
+		routeString.append("\" ");
 		for (RouteTree rt : net.getIntersiteRouteTreeList()) {
-			routeString += "( " + createVivadoRoutingString(rt.getRoot()) + ") ";
+			routeString.append("( ");
+			appendVivadoRoutingString(rt.getRoot(), routeString);
+			routeString.append(") ");
 		}
-
-		return routeString + "\"";
+		routeString.append("\"");
 	}
 	
 	/*
-	 * Creates and formats the route tree into a string that Vivado understands and can be applied to a Vivado net
+	 * Formats the route tree into a string that Vivado understands and can be applied to a Vivado net,
+	 * appending it to the builder
 	 * TODO: refactor...this code is confusing to read
 	 */
-	private static String createVivadoRoutingString (RouteTree rt) {
+	private static void appendVivadoRoutingString(RouteTree rt, StringBuilder routeString) {
 		
 		RouteTree currentRoute = rt; 
-		String routeString = "{ ";
+		routeString.append("{ ");
 			
 		while ( true ) {
 			Tile t = currentRoute.getWire().getTile();
-			routeString = routeString.concat(t.getName() + "/" + currentRoute.getWire().getName() + " ");
+			routeString.append(t.getName()).append('/').append(currentRoute.getWire().getName()).append(' ');
 						
 			// children may be changed in the following loop, so make a copy
 			ArrayList<RouteTree> children = new ArrayList<>(currentRoute.getChildren());
@@ -1226,12 +1589,12 @@ public class XdcRoutingInterface {
 				break;
 			
 			for(int i = 0; i < trueChildren.size() - 1; i++) 
-				routeString = routeString.concat(createVivadoRoutingString(trueChildren.get(i)));
+				appendVivadoRoutingString(trueChildren.get(i), routeString);
 			
 			currentRoute = trueChildren.get(trueChildren.size() - 1) ; 
 		}
 		
-		return routeString + "} ";
+		routeString.append("} ");
 	}
 	
 	/* **************
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+
+package edu.byu.ece.rapidSmith.interfaces.vivado;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ *  A reusable view of a token of a line read by a {@link XdcTokenizer}.  The view
+ *  reads the characters of the token from the bytes of the line without copying
+ *  them, with each byte read as one character.  The views of a line are only
+ *  valid until the tokenizer reads the next line.  {@link #toString()} creates
+ *  a string of the token for callers needing to keep it.
+ *  <p>
+ *  A view can be used wherever a {@link CharSequence} is accepted, such as the
+ *  name lookups of the device, which look up ASCII names without allocating.
+ */
+final class XdcToken implements CharSequence {
+	private byte[] bytes;
+	private int offset;
+	private int length;
+	// the token as a string once converted
+	private String string;
+
+	/**
+	 * Points this view at the bytes {@code [offset, offset + length)} of the array.
+	 */
+	void set(byte[] bytes, int offset, int length) {
+		this.bytes = bytes;
+		this.offset = offset;
+		this.length = length;
+		this.string = null;
+	}
+
+	@Override
+	public int length() {
+		return length;
+	}
+
+	@Override
+	public char charAt(int index) {
+		if (index < 0 || index >= length)
+			throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+		return (char) (bytes[offset + index] & 0xFF);
+	}
+
+	/**
+	 * Returns the characters {@code [start, end)} of the token as a string.
+	 */
+	@Override
+	public String subSequence(int start, int end) {
+		if (start < 0 || end > length || start > end)
+			throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+		return new String(bytes, offset + start, end - start, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Returns the index of the first occurrence of the character in the token at
+	 * or after {@code from}, or -1 if the character does not occur.
+	 */
+	public int indexOf(char c, int from) {
+		for (int i = Math.max(from, 0); i < length; i++) {
+			if (bytes[offset + i] == c)
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns true if the token holds the same characters as the sequence.
+	 */
+	public boolean contentEquals(CharSequence cs) {
+		if (cs.length() != length)
+			return false;
+		for (int i = 0; i < length; i++) {
+			if ((bytes[offset + i] & 0xFF) != cs.charAt(i))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the token as a string.  The string is kept until the view is
+	 * pointed at another token.
+	 */
+	@Override
+	public String toString() {
+		String string = this.string;
+		if (string == null) {
+			string = new String(bytes, offset, length, StandardCharsets.UTF_8);
+			this.string = string;
+		}
+		return string;
+	}
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+
+package edu.byu.ece.rapidSmith.interfaces.vivado;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ *  Splits the lines of the .rsc and .xdc files of a checkpoint into whitespace
+ *  separated tokens.  The file is read through a reusable byte buffer and the
+ *  tokens of the current line are returned as reusable {@link XdcToken} views of
+ *  the buffer, so reading a line does not create strings.  The buffer grows to
+ *  hold the longest line of the file.
+ *  <p>
+ *  The views returned by {@link #getToken(int)} are only valid until the next
+ *  call to {@link #nextLine()}.
+ */
+final class XdcTokenizer implements Closeable {
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final FileChannel channel;
+	private byte[] buffer;
+	// the unread bytes of the buffer are [position, limit)
+	private int position;
+	private int limit;
+	private boolean eof;
+
+	private int lineNumber;
+	private int lineStart;
+	private int lineEnd;
+
+	// the tokens of the current line, split on first use
+	private boolean split;
+	private int tokenCount;
+	private int[] tokenStarts = new int[16];
+	private int[] tokenEnds = new int[16];
+	private XdcToken[] tokens = new XdcToken[0];
+
+	/**
+	 * Creates a tokenizer reading the lines of the file.
+	 */
+	XdcTokenizer(Path file) throws IOException {
+		this.channel = FileChannel.open(file, StandardOpenOption.READ);
+		this.buffer = new byte[BUFFER_SIZE];
+	}
+
+	/**
+	 * Creates a tokenizer reading the lines held by the byte array.  Used to
+	 * tokenize lines copied with {@link #copyLine()}.
+	 */
+	XdcTokenizer(byte[] lines) {
+		this.channel = null;
+		this.buffer = lines;
+		this.limit = lines.length;
+		this.eof = true;
+	}
+
+	/**
+	 * Advances to the next line of the file.
+	 *
+	 * @return false if there are no more lines
+	 */
+	boolean nextLine() throws IOException {
+		int scan = position;
+		while (true) {
+			for (int i = scan; i < limit; i++) {
+				if (buffer[i] == '\n') {
+					startLine(position, i);
+					position = i + 1;
+					return true;
+				}
+			}
+			if (eof) {
+				if (position == limit)
+					return false;
+				startLine(position, limit);
+				position = limit;
+				return true;
+			}
+			scan = limit - position;
+			fill();
+			scan += position;
+		}
+	}
+
+	private void startLine(int start, int end) {
+		if (end > start && buffer[end - 1] == '\r')
+			end--;
+		lineNumber++;
+		lineStart = start;
+		lineEnd = end;
+		split = false;
+	}
+
+	// moves the unread bytes to the front of the buffer, growing it if they
+	// fill it, and reads more bytes after them
+	private void fill() throws IOException {
+		int unread = limit - position;
+		if (unread == buffer.length)
+			buffer = Arrays.copyOf(buffer, buffer.length * 2);
+		else
+			System.arraycopy(buffer, position, buffer, 0, unread);
+		position = 0;
+		limit = unread;
+
+		int read = channel.read(ByteBuffer.wrap(buffer, limit, buffer.length - limit));
+		if (read < 0)
+			eof = true;
+		else
+			limit += read;
+	}
+
+	/**
+	 * Returns the number of the current line, starting at 1.
+	 */
+	int getLineNumber() {
+		return lineNumber;
+	}
+
+	/**
+	 * Returns the number of tokens on the current line.
+	 */
+	int getTokenCount() {
+		splitLine();
+		return tokenCount;
+	}
+
+	/**
+	 * Returns a view of a token of the current line.
+	 *
+	 * @throws IndexOutOfBoundsException if the line has no such token
+	 */
+	XdcToken getToken(int index) {
+		splitLine();
+		if (index < 0 || index >= tokenCount)
+			throw new IndexOutOfBoundsException("Token " + index + " of line " + lineNumber
+					+ " with " + tokenCount + " tokens");
+		XdcToken token = tokens[index];
+		token.set(buffer, tokenStarts[index], tokenEnds[index] - tokenStarts[index]);
+		return token;
+	}
+
+	private void splitLine() {
+		if (split)
+			return;
+		split = true;
+		tokenCount = 0;
+		int i = lineStart;
+		while (true) {
+			while (i < lineEnd && isWhitespace(buffer[i]))
+				i++;
+			if (i == lineEnd)
+				break;
+			int start = i;
+			while (i < lineEnd && !isWhitespace(buffer[i]))
+				i++;
+			addToken(start, i);
+		}
+	}
+
+	private void addToken(int start, int end) {
+		if (tokenCount == tokenStarts.length) {
+			tokenStarts = Arrays.copyOf(tokenStarts, tokenCount * 2);
+			tokenEnds = Arrays.copyOf(tokenEnds, tokenCount * 2);
+		}
+		if (tokenCount == tokens.length) {
+			tokens = Arrays.copyOf(tokens, tokenStarts.length);
+			for (int i = tokenCount; i < tokens.length; i++)
+				tokens[i] = new XdcToken();
+		}
+		tokenStarts[tokenCount] = start;
+		tokenEnds[tokenCount] = end;
+		tokenCount++;
+	}
+
+	// the whitespace characters matched by \s
+	private static boolean isWhitespace(byte b) {
+		return b == ' ' || b == '\t' || b == '\r' || b == '\f' || b == 0x0B;
+	}
+
+	/**
+	 * Returns the current line as a string.
+	 */
+	String getLine() {
+		return new String(buffer, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Returns a copy of the bytes of the current line, which can be tokenized
+	 * later with {@link #XdcTokenizer(byte[])}.
+	 */
+	byte[] copyLine() {
+		return Arrays.copyOfRange(buffer, lineStart, lineEnd);
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (channel != null)
+			channel.close();
+	}
+}
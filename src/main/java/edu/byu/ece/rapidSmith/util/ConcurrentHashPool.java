@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+package edu.byu.ece.rapidSmith.util;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link HashPool} which can be added to from many threads at once.  Like
+ * HashPool, it keeps exactly one copy of each distinct object and assigns each
+ * object a unique integer enumeration in the order the objects were added.
+ * <p>
+ * The objects are kept in a {@link ConcurrentHashMap}, so adding an object
+ * already in the pool only reads the map without locking, and adding a new
+ * object only locks the bin of the map it hashes to.  The objects are also
+ * kept by their enumeration in blocks which are never moved once created.
+ * <p>
+ * {@link #values()} and {@link #iterator()} should only be used once the
+ * threads adding to the pool are done.
+ *
+ * @param <E> The type of object to use.
+ */
+public class ConcurrentHashPool<E> implements Iterable<E> {
+	private static final int BLOCK_BITS = 12;
+	private static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+
+	private final ConcurrentHashMap<E, Entry<E>> map;
+	private final AtomicInteger size = new AtomicInteger();
+	/** The objects by their enumeration */
+	private volatile Object[][] blocks = new Object[16][];
+
+	private static final class Entry<E> {
+		final E value;
+		final int index;
+
+		Entry(E value, int index) {
+			this.value = value;
+			this.index = index;
+		}
+	}
+
+	public ConcurrentHashPool() {
+		map = new ConcurrentHashMap<>();
+	}
+
+	public ConcurrentHashPool(int initialSize) {
+		map = new ConcurrentHashMap<>(initialSize);
+	}
+
+	/**
+	 * Adds an object to the pool.
+	 * <p/>
+	 * If the object is distinct from all others in the pool, the object will be
+	 * added and the value is returned.  If a similar object already exists
+	 * in the pool, this object is not added and the similar object is returned
+	 * instead.
+	 *
+	 * @param obj the object to add
+	 * @return the object in the pool equal to {@code obj}
+	 */
+	public E add(E obj) {
+		return entry(obj).value;
+	}
+
+	/**
+	 * Adds an object to the pool.
+	 * <p/>
+	 * If the object is distinct from all others in the pool, the object will be
+	 * added and its integer mapping returned.  If a similar object already exists
+	 * in the pool, this object is not added and the integer mapping for the
+	 * similar object is returned.
+	 *
+	 * @param obj the object to add
+	 * @return the integer enumeration assigned to this object by this pool
+	 */
+	public Integer add2(E obj) {
+		return entry(obj).index;
+	}
+
+	private Entry<E> entry(E obj) {
+		Objects.requireNonNull(obj);
+		// most objects are already in the pool, which needs no lock
+		Entry<E> entry = map.get(obj);
+		if (entry != null)
+			return entry;
+		return map.computeIfAbsent(obj, key -> {
+			int index = size.getAndIncrement();
+			set(index, key);
+			return new Entry<>(key, index);
+		});
+	}
+
+	private void set(int index, E obj) {
+		int block = index >>> BLOCK_BITS;
+		Object[][] blocks = this.blocks;
+		if (block >= blocks.length || blocks[block] == null)
+			blocks = addBlock(block);
+		blocks[block][index & (BLOCK_SIZE - 1)] = obj;
+	}
+
+	// the blocks are shared by the old and new arrays, so no object is lost
+	private synchronized Object[][] addBlock(int block) {
+		Object[][] blocks = this.blocks;
+		if (block >= blocks.length)
+			blocks = Arrays.copyOf(blocks, Math.max(blocks.length * 2, block + 1));
+		if (blocks[block] == null)
+			blocks[block] = new Object[BLOCK_SIZE];
+		this.blocks = blocks;
+		return blocks;
+	}
+
+	public int size() {
+		return size.get();
+	}
+
+	/**
+	 * Returns the object with the given enumeration.
+	 *
+	 * @throws IndexOutOfBoundsException if no object has the enumeration
+	 */
+	@SuppressWarnings("unchecked")
+	public E get(int index) {
+		if (index < 0 || index >= size())
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+		return (E) blocks[index >>> BLOCK_BITS][index & (BLOCK_SIZE - 1)];
+	}
+
+	/**
+	 * Returns a list of the objects in the pool ordered by their enumeration.
+	 * Unlike {@link HashPool#values()}, the list is a copy.
+	 */
+	public ArrayList<E> values() {
+		int size = size();
+		ArrayList<E> values = new ArrayList<>(size);
+		for (int i = 0; i < size; i++)
+			values.add(get(i));
+		return values;
+	}
+
+	public Integer getEnumeration(E obj) {
+		Entry<E> entry = map.get(obj);
+		return entry == null ? null : entry.index;
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		return Collections.unmodifiableList(values()).iterator();
+	}
+}
@@ -22,7 +22,9 @@ package edu.byu.ece.rapidSmith.util;
 import com.caucho.hessian.io.Deflation;
 import com.caucho.hessian.io.Hessian2Input;
 import com.caucho.hessian.io.Hessian2Output;
+import edu.byu.ece.rapidSmith.RSEnvironment;
 import edu.byu.ece.rapidSmith.device.Device;
+import edu.byu.ece.rapidSmith.device.MappedDeviceFile;
 
 import java.io.*;
 import java.nio.channels.FileChannel;
@@ -368,6 +370,59 @@ public class FileTools {
 		}
 	}
 
+	public static void writeMappedDeviceFile(Device device, Path path) throws IOException {
+		MappedDeviceFile.write(device, path);
+	}
+
+	public static Device loadMappedDevice(Path filePath) {
+		return loadMappedDevice(filePath, false);
+	}
+
+	/**
+	 * Loads the device in a memory-mapped device file.  If the mapped file is
+	 * missing, unreadable or of an unsupported version, a warning giving the
+	 * reason is printed and the device is loaded from the Hessian device file
+	 * next to it instead.
+	 *
+	 * @param filePath path to the mapped device file
+	 * @param lazyWireConnections load the wire connections of each tile on first use
+	 * @return the loaded device or null if neither file could be loaded
+	 */
+	public static Device loadMappedDevice(Path filePath, boolean lazyWireConnections) {
+		String reason;
+		try {
+			Device device = MappedDeviceFile.open(filePath).loadDevice(lazyWireConnections);
+			if (device != null)
+				return device;
+			reason = "unsupported device version";
+		} catch (IOException | Exceptions.FileFormatException e) {
+			reason = e.toString();
+		}
+
+		Path datPath = getHessianDeviceFilePath(filePath);
+		if (datPath == null || !Files.exists(datPath)) {
+			System.err.println("Warning: could not load mapped device file " + filePath +
+					" (" + reason + ")");
+			return null;
+		}
+		System.err.println("Warning: could not load mapped device file " + filePath +
+				" (" + reason + "), loading " + datPath + " instead");
+		return loadDevice(datPath);
+	}
+
+	/*
+	 * Returns the Hessian device file next to a mapped device file or null if
+	 * the path is not of a mapped device file.
+	 */
+	private static Path getHessianDeviceFilePath(Path mappedPath) {
+		String fileName = mappedPath.getFileName().toString();
+		if (!fileName.endsWith(RSEnvironment.MAPPED_DEVICE_FILE_SUFFIX))
+			return null;
+		String partName = fileName.substring(0,
+				fileName.length() - RSEnvironment.MAPPED_DEVICE_FILE_SUFFIX.length());
+		return mappedPath.resolveSibling(partName + RSEnvironment.DEVICE_FILE_SUFFIX);
+	}
+
 	/**
 	 * This method will get and return the current time as a string
 	 * formatted in the same way used in most Xilinx report and XDL
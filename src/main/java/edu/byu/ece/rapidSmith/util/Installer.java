@@ -97,6 +97,12 @@ public class Installer {
 					System.out.println("Creating device from file " + part);
 					break;
 				}
+				case "binary": {
+					Path bxdlrcFile = Paths.get(part);
+					retriever = new UserProvidedBinaryXDLRCRetriever(bxdlrcFile);
+					System.out.println("Creating device from file " + part);
+					break;
+				}
 				case "ise":
 					retriever = new ISE_XDLRCRetriever(part);
 					System.out.println("Creating device for " + part);
@@ -108,7 +114,7 @@ public class Installer {
 			}
 
 			try {
-				DeviceFilesCreator creator = new DeviceFilesCreator(retriever);
+				DeviceFilesCreator creator = new DeviceFilesCreator(retriever, options.getBoolean("single_pass"));
 				creator.createDevice();
 			} catch (IOException e) {
 				System.err.println("Encountered error handling file");
@@ -130,9 +136,12 @@ public class Installer {
 				.defaultHelp(true)
 				.description("Adds support to RapidSmith for a device.");
 		parser.addArgument("--generate")
-				.choices("file", "compressed", "ise")
+				.choices("file", "compressed", "binary", "ise")
 				.setDefault("file")
 				.help("Generate the XDLRC part");
+		parser.addArgument("--single_pass")
+				.action(Arguments.storeTrue())
+				.help("Parse the XDLRC once, keeping its tiles in memory");
 		parser.addArgument("--ignore_disclaimer")
 				.action(Arguments.storeTrue())
 				.help("Ignore the disclaimer");
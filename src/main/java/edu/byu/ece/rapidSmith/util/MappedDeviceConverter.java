@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+package edu.byu.ece.rapidSmith.util;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import edu.byu.ece.rapidSmith.RSEnvironment;
+import edu.byu.ece.rapidSmith.device.Device;
+
+/**
+ * Converts the Hessian device files of the given parts to memory-mapped device
+ * files.  The mapped files are written next to the existing device files and
+ * are used by {@link RSEnvironment#getDevice(String)} from then on.
+ */
+public class MappedDeviceConverter {
+
+	public static void main(String[] args) throws IOException {
+
+		if (args.length < 1) {
+			System.err.println("USAGE: edu.byu.ece.rapidSmith.util.MappedDeviceConverter <Full Xilinx Partname>...");
+			return;
+		}
+
+		RSEnvironment env = RSEnvironment.defaultEnv();
+		for (String partname : args) {
+			Path devicePath = env.getDeviceFilePath(partname);
+			if (devicePath == null) {
+				System.err.println("Cannot find device file for part " + partname + ", skipping.");
+				continue;
+			}
+
+			System.out.println("Loading Device " + partname + "...");
+			Device device = FileTools.loadDevice(devicePath);
+			if (device == null) {
+				System.err.println("Failed to load device file " + devicePath + ", skipping.");
+				continue;
+			}
+
+			System.out.println("Writing Mapped Device File...");
+			env.writeMappedDeviceFile(device);
+		}
+
+		System.out.println("Done!");
+	}
+}
@@ -28,6 +28,8 @@ import edu.byu.ece.rapidSmith.util.Exceptions;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 /**
  * This class is used to test the {@link EdifInterface}. Add tests as necessary.
@@ -39,4 +41,18 @@ public class EdifTests {
 	public void exceptionTest() throws IOException {
 		assertThrows(Exceptions.ParseException.class, () -> EdifInterface.parseEdif("bogusEdifFile.edf", null));
 	}
+
+	@Test
+	@DisplayName("Truncated Netlist")
+	public void truncatedNetlistTest() throws IOException {
+		Path edifFile = Files.createTempFile("truncated", ".edf");
+		try {
+			Files.write(edifFile, "(edif top (edifversion 2 0 0) (Library work (cell top (celltype GENERIC)".getBytes());
+			Exceptions.ParseException e = assertThrows(Exceptions.ParseException.class,
+					() -> EdifInterface.parseEdif(edifFile.toString(), null));
+			assertTrue(e.getMessage().contains("end of file"));
+		} finally {
+			Files.delete(edifFile);
+		}
+	}
 }
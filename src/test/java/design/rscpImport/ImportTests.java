@@ -1,18 +1,27 @@
 package design.rscpImport;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import edu.byu.ece.rapidSmith.RSEnvironment;
 import edu.byu.ece.rapidSmith.design.subsite.Cell;
 import edu.byu.ece.rapidSmith.design.subsite.CellDesign;
+import edu.byu.ece.rapidSmith.design.subsite.CellNet;
 import edu.byu.ece.rapidSmith.interfaces.vivado.EdifInterface;
 import edu.byu.ece.rapidSmith.interfaces.vivado.VivadoCheckpoint;
 import edu.byu.ece.rapidSmith.interfaces.vivado.VivadoInterface;
+import edu.byu.ece.rapidSmith.interfaces.vivado.XdcRoutingInterface;
 
 /**
  * This test class verifies that the test benchmarks are imported into RapidSmith without error.
@@ -120,4 +129,61 @@ public class ImportTests {
 	public void viterbiUltrascaleTest() throws IOException {
 		VivadoInterface.loadRSCP(testDirectory.resolve("RSCP").resolve("kintexu").resolve("viterbi.rscp").toString());
 	}
+	
+	@Test
+	@DisplayName("MSP430 UltraScale Parallel Routing")
+	public void msp430UltrascaleParallelRoutingTest() throws IOException {
+		testParallelRouting(testDirectory.resolve("RSCP").resolve("kintexu").resolve("msp430.rscp"));
+	}
+	
+	@Test
+	@DisplayName("Cordic Series7 Parallel Routing")
+	public void cordicParallelRoutingTest() throws IOException {
+		testParallelRouting(testDirectory.resolve("RSCP").resolve("artix7").resolve("cordic.rscp"));
+	}
+	
+	/**
+	 * Imports the checkpoint sequentially and with the routes imported in parallel,
+	 * and checks that the routing of every net is the same.
+	 */
+	private static void testParallelRouting(Path rscpPath) throws IOException {
+		String rscp = rscpPath.toString();
+		CellDesign sequential = VivadoInterface.loadRSCP(rscp).getDesign();
+		ForkJoinPool pool = new ForkJoinPool(4);
+		CellDesign parallel;
+		try {
+			parallel = VivadoInterface.loadRSCPAsync(rscp, false, pool).join().getDesign();
+		} finally {
+			pool.shutdown();
+		}
+		
+		assertEquals(sequential.getNets().size(), parallel.getNets().size());
+		int routedNets = 0;
+		for (CellNet net : sequential.getNets()) {
+			CellNet parallelNet = parallel.getNet(net.getName());
+			assertNotNull(parallelNet, net.getName());
+			assertEquals(net.getRouteStatus(), parallelNet.getRouteStatus(), net.getName());
+			assertEquals(routedSinkNames(net), routedSinkNames(parallelNet), net.getName());
+			assertEquals(routeStrings(net), routeStrings(parallelNet), net.getName());
+			assertEquals(XdcRoutingInterface.getVivadoRouteString(net), 
+					XdcRoutingInterface.getVivadoRouteString(parallelNet), net.getName());
+			if (!net.isStaticNet() && !net.getIntersiteRouteTreeList().isEmpty()) {
+				routedNets++;
+			}
+		}
+		// the checkpoint must have ROUTE lines for the parallel import to be tested
+		assertTrue(routedNets > 0);
+	}
+	
+	private static Set<String> routedSinkNames(CellNet net) {
+		Set<String> names = new TreeSet<>();
+		net.getRoutedSinks().forEach(pin -> names.add(pin.getFullName()));
+		return names;
+	}
+	
+	private static List<String> routeStrings(CellNet net) {
+		List<String> routes = new ArrayList<>();
+		net.getIntersiteRouteTreeList().forEach(tree -> routes.add(tree.toRouteString()));
+		return routes;
+	}
 }
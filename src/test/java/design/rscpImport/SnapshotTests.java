@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+
+package design.rscpImport;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.byu.ece.rapidSmith.RSEnvironment;
+import edu.byu.ece.rapidSmith.design.subsite.Cell;
+import edu.byu.ece.rapidSmith.design.subsite.CellDesign;
+import edu.byu.ece.rapidSmith.design.subsite.CellNet;
+import edu.byu.ece.rapidSmith.design.subsite.CellPin;
+import edu.byu.ece.rapidSmith.design.subsite.DesignSnapshot;
+import edu.byu.ece.rapidSmith.design.subsite.Property;
+import edu.byu.ece.rapidSmith.design.subsite.PropertyList;
+import edu.byu.ece.rapidSmith.design.subsite.RouteTree;
+import edu.byu.ece.rapidSmith.device.BelPin;
+import edu.byu.ece.rapidSmith.device.Site;
+import edu.byu.ece.rapidSmith.device.SitePin;
+import edu.byu.ece.rapidSmith.interfaces.vivado.EdifInterface;
+import edu.byu.ece.rapidSmith.interfaces.vivado.VivadoCheckpoint;
+import edu.byu.ece.rapidSmith.interfaces.vivado.VivadoInterface;
+import edu.byu.ece.rapidSmith.util.Exceptions.FileFormatException;
+
+/**
+ * Tests that designs loaded from snapshots match the designs imported from
+ * the RSCPs the snapshots were saved from.
+ */
+public class SnapshotTests {
+	private static final Path rscpDirectory = RSEnvironment.defaultEnv().getEnvironmentPath()
+			.resolve("src")
+			.resolve("test")
+			.resolve("resources")
+			.resolve("ImportTests")
+			.resolve("RSCP")
+			.resolve("artix7");
+
+	@BeforeAll
+	public static void initializeClass() {
+		EdifInterface.suppressWarnings(true);
+	}
+
+	@Test
+	@DisplayName("Count16 snapshot")
+	public void count16Test() throws IOException {
+		testSnapshot("count16.rscp");
+	}
+
+	@Test
+	@DisplayName("BramDSP snapshot")
+	public void bramdspTest() throws IOException {
+		testSnapshot("bramdsp.rscp");
+	}
+
+	@Test
+	@DisplayName("Cordic snapshot")
+	public void cordicTest() throws IOException {
+		testSnapshot("cordic.rscp");
+	}
+
+	@Test
+	@DisplayName("Files which are not snapshots are rejected")
+	public void rejectsOtherFiles() {
+		Path netlist = rscpDirectory.resolve("count16.rscp").resolve("netlist.edf");
+		assertThrows(FileFormatException.class, () -> DesignSnapshot.load(netlist, null));
+	}
+
+	private static void testSnapshot(String rscp) throws IOException {
+		VivadoCheckpoint vcp = VivadoInterface.loadRSCP(rscpDirectory.resolve(rscp).toString());
+		CellDesign expected = vcp.getDesign();
+
+		Path snapshot = Files.createTempFile("design", ".snapshot");
+		try {
+			DesignSnapshot.save(expected, snapshot);
+			CellDesign actual = DesignSnapshot.load(snapshot, vcp.getLibCells());
+			assertDesignsEqual(expected, actual);
+		} finally {
+			Files.delete(snapshot);
+		}
+	}
+
+	private static void assertDesignsEqual(CellDesign expected, CellDesign actual) {
+		assertEquals(expected.getName(), actual.getName());
+		assertEquals(expected.getPartName(), actual.getPartName());
+		assertEquals(expected.getImplementationMode(), actual.getImplementationMode());
+		assertEquals(describe(expected.getProperties()), describe(actual.getProperties()));
+		assertEquals(expected.getVivadoConstraints().toString(), actual.getVivadoConstraints().toString());
+
+		assertEquals(expected.getCells().size(), actual.getCells().size());
+		expected.getLeafCells().forEach(cell -> {
+			Cell other = actual.getCell(cell.getName());
+			assertNotNull(other, cell.getName());
+			assertEquals(describe(cell), describe(other), cell.getName());
+		});
+
+		assertEquals(expected.getNets().size(), actual.getNets().size());
+		for (CellNet net : expected.getNets()) {
+			CellNet other = actual.getNet(net.getName());
+			assertNotNull(other, net.getName());
+			assertEquals(describe(net), describe(other), net.getName());
+		}
+
+		for (Site site : expected.getUsedSites()) {
+			assertEquals(expected.getUsedSitePipsAtSite(site), actual.getUsedSitePipsAtSite(site));
+			assertEquals(expected.getPIPInputValsAtSite(site), actual.getPIPInputValsAtSite(site));
+		}
+	}
+
+	private static String describe(Cell cell) {
+		Map<String, String> pins = new TreeMap<>();
+		for (CellPin pin : cell.getPins()) {
+			Set<String> belPins = new TreeSet<>();
+			pin.getMappedBelPins().forEach(belPin -> belPins.add(belPin.toString()));
+			pins.put(pin.getName(), (pin.getNet() == null ? null : pin.getNet().getName()) + " " + belPins);
+		}
+		return cell.getLibCell().getName() + " " + cell.getBonded() + " " + cell.getBel() + " " +
+				describe(cell.getProperties()) + " " + pins;
+	}
+
+	private static String describe(CellNet net) {
+		Set<String> pins = new TreeSet<>();
+		net.getPins().forEach(pin -> pins.add(pin.getFullName()));
+		Set<String> routedSinks = new TreeSet<>();
+		net.getRoutedSinks().forEach(pin -> routedSinks.add(pin.getFullName()));
+		Set<String> intersite = new TreeSet<>();
+		net.getIntersiteRouteTreeList().forEach(tree -> intersite.add(tree.toRouteString()));
+		Map<String, String> belPinTrees = new TreeMap<>();
+		if (net.getBelPinRouteTrees() != null) {
+			for (Map.Entry<BelPin, RouteTree> e : net.getBelPinRouteTrees().entrySet())
+				belPinTrees.put(e.getKey().toString(), e.getValue().getWire().getFullName());
+		}
+		Map<String, String> sitePinTrees = new TreeMap<>();
+		if (net.getSitePinRouteTrees() != null) {
+			for (Map.Entry<SitePin, RouteTree> e : net.getSitePinRouteTrees().entrySet())
+				sitePinTrees.put(e.getKey().toString(), e.getValue().toRouteString());
+		}
+		RouteTree source = net.getSourceRouteTree();
+		CellPin sourcePin = net.getSourcePin();
+		return net.getType() + " " + net.isInternal() + " " + net.isIntrasite() + " " +
+				(sourcePin == null ? null : sourcePin.getFullName()) + " " + pins + " " +
+				describe(net.getProperties()) + " " + net.getRouteStatus() + " " + routedSinks + " " +
+				net.getSourceSitePins() + " " + (source == null ? null : source.toRouteString()) + " " +
+				intersite + " " + belPinTrees + " " + sitePinTrees;
+	}
+
+	private static String describe(PropertyList properties) {
+		Map<String, String> values = new TreeMap<>();
+		for (Property property : properties) {
+			values.put(property.getKey(), property.getType().getName() + " " + property.getValue() + " " +
+					property.isDefaultProperty());
+		}
+		return values.toString();
+	}
+}
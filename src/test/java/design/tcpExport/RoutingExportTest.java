@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+
+package design.tcpExport;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import edu.byu.ece.rapidSmith.RSEnvironment;
+import edu.byu.ece.rapidSmith.design.subsite.CellDesign;
+import edu.byu.ece.rapidSmith.design.subsite.ImplementationMode;
+import edu.byu.ece.rapidSmith.interfaces.vivado.EdifInterface;
+import edu.byu.ece.rapidSmith.interfaces.vivado.VivadoCheckpoint;
+import edu.byu.ece.rapidSmith.interfaces.vivado.VivadoInterface;
+import edu.byu.ece.rapidSmith.interfaces.vivado.XdcRoutingInterface;
+
+/**
+ * Tests that the routing.xdc file written in parallel is the same as the
+ * file written sequentially.
+ */
+public class RoutingExportTest {
+	private static final Path rscpDirectory = RSEnvironment.defaultEnv().getEnvironmentPath()
+			.resolve("src")
+			.resolve("test")
+			.resolve("resources")
+			.resolve("ImportTests")
+			.resolve("RSCP")
+			.resolve("artix7")
+			.resolve("cordic.rscp");
+
+	@Test
+	@DisplayName("Parallel routing.xdc export")
+	public void parallelRoutingExportTest() throws IOException {
+		EdifInterface.suppressWarnings(true);
+		VivadoCheckpoint vcp = VivadoInterface.loadRSCP(rscpDirectory.toString());
+		CellDesign design = vcp.getDesign();
+		XdcRoutingInterface routingInterface = new XdcRoutingInterface(design, vcp.getDevice(), null, ImplementationMode.REGULAR);
+
+		Path sequential = Files.createTempFile("routing", ".xdc");
+		Path parallel = Files.createTempFile("routing", ".xdc");
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			routingInterface.writeRoutingXDC(sequential.toString(), design, false);
+			routingInterface.writeRoutingXDC(parallel.toString(), design, false, pool);
+			assertArrayEquals(Files.readAllBytes(sequential), Files.readAllBytes(parallel));
+		} finally {
+			pool.shutdown();
+			Files.delete(sequential);
+			Files.delete(parallel);
+		}
+	}
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+
+package device;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.byu.ece.rapidSmith.device.xdlrc.BinaryXDLRCReader;
+import edu.byu.ece.rapidSmith.device.xdlrc.BinaryXDLRCWriter;
+import edu.byu.ece.rapidSmith.device.xdlrc.XDLRCParser;
+import edu.byu.ece.rapidSmith.device.xdlrc.XDLRCParserListener;
+import edu.byu.ece.rapidSmith.util.Exceptions.FileFormatException;
+
+/**
+ * Tests converting XDLRC files to binary XDLRC files and replaying them.
+ */
+public class BinaryXDLRCTests {
+	private static final int ROWS = 12;
+	private static final int COLUMNS = 8;
+
+	/**
+	 * Records every event, with the events of each tile kept by the tile.
+	 */
+	private static class EventListener extends XDLRCParserListener {
+		final List<String> events = new ArrayList<>();
+		final Map<String, List<String>> tileEvents = new HashMap<>();
+		private List<String> current;
+
+		@Override
+		protected XDLRCParserListener.Concurrency getConcurrency() {
+			return XDLRCParserListener.Concurrency.SEQUENTIAL;
+		}
+
+		@Override
+		protected void enterXdlResourceReport(pl_XdlResourceReport tokens) {
+			events.add("report " + tokens.version + " " + tokens.part + " " + tokens.family);
+		}
+
+		@Override
+		protected void exitXdlResourceReport(pl_XdlResourceReport tokens) {
+			events.add("exit report");
+		}
+
+		@Override
+		protected void enterTiles(pl_Tiles tokens) {
+			events.add("tiles " + tokens.rows + " " + tokens.columns);
+		}
+
+		@Override
+		protected void exitTiles(pl_Tiles tokens) {
+			events.add("exit tiles " + tileEvents.size());
+		}
+
+		@Override
+		protected void enterTile(pl_Tile tokens) {
+			current = new ArrayList<>();
+			current.add("tile " + tokens.row + " " + tokens.column + " " + tokens.type + " " + tokens.site_count);
+			tileEvents.put(tokens.name, current);
+		}
+
+		@Override
+		protected void exitTile(pl_Tile tokens) {
+			current.add("exit tile");
+		}
+
+		@Override
+		protected void enterPrimitiveSite(pl_PrimitiveSite tokens) {
+			current.add("site " + tokens.name + " " + tokens.type + " " + tokens.bonded + " " + tokens.pinwire_count);
+		}
+
+		@Override
+		protected void exitPrimitiveSite(pl_PrimitiveSite tokens) {
+			current.add("exit site");
+		}
+
+		@Override
+		protected void enterPinWire(pl_PinWire tokens) {
+			current.add("pinwire " + tokens.name + " " + tokens.direction + " " + tokens.external_wire);
+		}
+
+		@Override
+		protected void enterWire(pl_Wire tokens) {
+			current.add("wire " + tokens.name + " " + tokens.nameToken + " " + tokens.connections_count);
+		}
+
+		@Override
+		protected void exitWire(pl_Wire tokens) {
+			current.add("exit wire");
+		}
+
+		@Override
+		protected void enterConn(pl_Conn tokens) {
+			current.add("conn " + tokens.tile + " " + tokens.wire + " " + tokens.tileToken + " " + tokens.wireToken);
+		}
+
+		@Override
+		protected void enterPip(pl_Pip tokens) {
+			current.add("pip " + tokens.tile + " " + tokens.start_wire + " " + tokens.type + " " +
+					tokens.end_wire + " " + tokens.tileToken + " " + tokens.endWireToken);
+		}
+
+		@Override
+		protected void exitPip(pl_Pip tokens) {
+			current.add("exit pip");
+		}
+
+		@Override
+		protected void enterRoutethrough(pl_Routethrough tokens) {
+			current.add("rt " + tokens.pins + " " + tokens.site_type);
+		}
+
+		@Override
+		protected void enterTileSummary(pl_TileSummary tokens) {
+			current.add("summary " + tokens.name + " " + tokens.type + " " + tokens.pin_count + " " +
+					tokens.wire_count + " " + tokens.pip_count);
+		}
+
+		@Override
+		protected void enterPrimitiveDefs(pl_PrimitiveDefs tokens) {
+			events.add("defs " + tokens.num_defs);
+		}
+
+		@Override
+		protected void exitPrimitiveDefs(pl_PrimitiveDefs tokens) {
+			events.add("exit defs");
+		}
+
+		@Override
+		protected void enterPrimitiveDef(pl_PrimitiveDef tokens) {
+			events.add("def " + tokens.name + " " + tokens.pin_count + " " + tokens.element_count);
+		}
+
+		@Override
+		protected void exitPrimitiveDef(pl_PrimitiveDef tokens) {
+			events.add("exit def");
+		}
+
+		@Override
+		protected void enterPin(pl_Pin tokens) {
+			events.add("pin " + tokens.external_name + " " + tokens.internal_name + " " + tokens.direction);
+		}
+
+		@Override
+		protected void enterElement(pl_Element tokens) {
+			events.add("element " + tokens.name + " " + tokens.pin_count + " " + tokens.isBel);
+		}
+
+		@Override
+		protected void exitElement(pl_Element tokens) {
+			events.add("exit element");
+		}
+
+		@Override
+		protected void enterElementPin(pl_ElementPin tokens) {
+			events.add("element pin " + tokens.name + " " + tokens.direction);
+		}
+
+		@Override
+		protected void enterElementCfg(pl_ElementCfg tokens) {
+			events.add("cfg " + tokens.cfgs);
+		}
+
+		@Override
+		protected void enterElementConn(pl_ElementConn tokens) {
+			events.add("element conn " + tokens.element0 + " " + tokens.pin0 + " " + tokens.direction +
+					" " + tokens.element1 + " " + tokens.pin1);
+		}
+
+		@Override
+		protected void enterSummary(pl_Summary tokens) {
+			events.add("summary " + tokens.stats);
+		}
+	}
+
+	private static Path writeXdlrc() throws IOException {
+		StringBuilder sb = new StringBuilder();
+		sb.append("(xdl_resource_report v0.2 xc7a100tcsg324 artix7\n");
+		sb.append("(tiles ").append(ROWS).append(" ").append(COLUMNS).append("\n");
+		for (int row = 0; row < ROWS; row++) {
+			for (int col = 0; col < COLUMNS; col++) {
+				String name = "CLB_X" + col + "Y" + row;
+				sb.append("\t(tile ").append(row).append(" ").append(col).append(" ")
+						.append(name).append(" CLBLL 1\n");
+				sb.append("\t\t(primitive_site SLICE_X").append(col).append("Y").append(row)
+						.append(" SLICEL internal 2\n");
+				sb.append("\t\t\t(pinwire A1 input CLB_A1)\n");
+				sb.append("\t\t\t(pinwire AQ output CLB_AQ)\n");
+				sb.append("\t\t)\n");
+				sb.append("\t\t(wire CLB_A1 0)\n");
+				sb.append("\t\t(wire CLB_AQ 2\n");
+				// connections to tiles before and after this one
+				sb.append("\t\t\t(conn CLB_X0Y0 CLB_A1)\n");
+				sb.append("\t\t\t(conn CLB_X").append(COLUMNS - 1 - col).append("Y").append(ROWS - 1 - row)
+						.append(" W_").append(row * COLUMNS + col).append(")\n");
+				sb.append("\t\t)\n");
+				sb.append("\t\t(pip ").append(name).append(" CLB_AQ -> CLB_A1)\n");
+				sb.append("\t\t(pip CLB_X0Y0 CLB_A1 =- CLB_AQ (_ROUTETHROUGH-A1-AQ SLICEL))\n");
+				sb.append("\t\t(tile_summary ").append(name).append(" CLBLL 2 2 2)\n");
+				sb.append("\t)\n");
+			}
+		}
+		sb.append(")\n");
+		sb.append("(primitive_defs 1\n");
+		sb.append("\t(primitive_def SLICEL 2 2\n");
+		sb.append("\t\t(pin A1 A1 input)\n");
+		sb.append("\t\t(pin AQ AQ output)\n");
+		sb.append("\t\t(element A1 1\n");
+		sb.append("\t\t\t(pin A1 output)\n");
+		sb.append("\t\t)\n");
+		sb.append("\t\t(element AFF 2 # BEL\n");
+		sb.append("\t\t\t(pin D input)\n");
+		sb.append("\t\t\t(pin Q output)\n");
+		sb.append("\t\t\t(cfg #FF #LATCH)\n");
+		sb.append("\t\t\t(conn AFF Q ==> AQ AQ)\n");
+		sb.append("\t\t)\n");
+		sb.append("\t)\n");
+		sb.append(")\n");
+		sb.append("(summary tiles=").append(ROWS * COLUMNS).append(" sites=").append(ROWS * COLUMNS).append(")\n");
+		sb.append(")\n");
+
+		Path path = Files.createTempFile("binary", ".xdlrc");
+		Files.write(path, sb.toString().getBytes());
+		return path;
+	}
+
+	@Test
+	@DisplayName("Binary XDLRC files replay the events of the XDLRC file")
+	public void roundTrip() throws IOException {
+		Path xdlrc = writeXdlrc();
+		Path binary = Files.createTempFile("binary", ".bxdlrc");
+		try {
+			EventListener expected = new EventListener();
+			XDLRCParser parser = new XDLRCParser();
+			parser.registerListener(expected);
+			parser.parse(xdlrc);
+			assertEquals(ROWS * COLUMNS, expected.tileEvents.size());
+			assertTrue(expected.events.contains("cfg [#FF, #LATCH]"));
+
+			BinaryXDLRCWriter.convert(xdlrc, binary);
+			assertTrue(Files.size(binary) < Files.size(xdlrc));
+
+			for (int threads : new int[] { 1, 4 }) {
+				EventListener actual = new EventListener();
+				BinaryXDLRCReader reader = new BinaryXDLRCReader(threads);
+				reader.registerListener(actual);
+				reader.parse(binary);
+				assertEquals(expected.events, actual.events);
+				assertEquals(expected.tileEvents, actual.tileEvents);
+			}
+		} finally {
+			Files.delete(xdlrc);
+			Files.delete(binary);
+		}
+	}
+
+	@Test
+	@DisplayName("Files which are not binary XDLRC files are rejected")
+	public void rejectsOtherFiles() throws IOException {
+		Path xdlrc = writeXdlrc();
+		try {
+			assertThrows(FileFormatException.class, () -> new BinaryXDLRCReader().parse(xdlrc));
+		} finally {
+			Files.delete(xdlrc);
+		}
+	}
+}
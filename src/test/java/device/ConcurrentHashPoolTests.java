@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+package device;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.byu.ece.rapidSmith.device.WireConnection;
+import edu.byu.ece.rapidSmith.util.ConcurrentHashPool;
+
+/**
+ * Tests adding the wire connections of device generation to a
+ * {@link ConcurrentHashPool} from several threads.
+ */
+public class ConcurrentHashPoolTests {
+	private static final int THREADS = 8;
+	private static final int DISTINCT = 20000;
+
+	private static WireConnection connection(int i) {
+		return new WireConnection(i % 1000, i / 1000, 0, i % 2 == 0);
+	}
+
+	@Test
+	@DisplayName("Threads adding equal objects receive one canonical instance and enumeration")
+	public void concurrentAdds() throws Exception {
+		ConcurrentHashPool<WireConnection> pool = new ConcurrentHashPool<>();
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<WireConnection[]>> results = new ArrayList<>();
+			for (int t = 0; t < THREADS; t++) {
+				int offset = t * 997;
+				results.add(executor.submit(() -> {
+					// each thread adds its own copies in a different order
+					WireConnection[] pooled = new WireConnection[DISTINCT];
+					for (int j = 0; j < DISTINCT; j++) {
+						int i = (j + offset) % DISTINCT;
+						pooled[i] = pool.add(connection(i));
+					}
+					return pooled;
+				}));
+			}
+
+			WireConnection[] first = results.get(0).get();
+			for (Future<WireConnection[]> result : results) {
+				WireConnection[] pooled = result.get();
+				for (int i = 0; i < DISTINCT; i++)
+					assertSame(first[i], pooled[i]);
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		assertEquals(DISTINCT, pool.size());
+		List<WireConnection> values = pool.values();
+		assertEquals(DISTINCT, new HashSet<>(values).size());
+		for (int index = 0; index < DISTINCT; index++) {
+			WireConnection wc = values.get(index);
+			assertSame(wc, pool.get(index));
+			assertEquals(index, (int) pool.getEnumeration(wc));
+			assertEquals(pool.getEnumeration(connection(index)), pool.add2(connection(index)));
+		}
+		assertNull(pool.getEnumeration(connection(DISTINCT)));
+	}
+}
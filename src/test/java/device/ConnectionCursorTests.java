@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+package device;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.byu.ece.rapidSmith.device.*;
+
+/**
+ * Tests that {@link ConnectionCursor} visits the same connections as the
+ * collection based connection methods of {@link Wire}.
+ */
+public class ConnectionCursorTests {
+
+	@Test
+	@DisplayName("Cursor matches wire connections")
+	public void matchesWireConnections() {
+		Device device = TestDevices.createDevice();
+		ConnectionCursor cursor = new ConnectionCursor();
+
+		for (Tile tile : device.getTiles()) {
+			for (Wire wire : tile.getWires()) {
+				List<Connection> forward = new ArrayList<>();
+				wire.getWireConnections(cursor);
+				while (cursor.next()) {
+					Connection c = cursor.getConnection();
+					assertEquals(c.getSinkWire(), cursor.getSinkWire());
+					assertEquals(c.getSinkWire().getTile(), cursor.getSinkTile());
+					assertEquals(c.getSinkWire().getWireEnum(), cursor.getSinkWireEnum());
+					assertEquals(c.isPip(), cursor.isPip());
+					assertEquals(c.isRouteThrough(), cursor.isRouteThrough());
+					forward.add(c);
+				}
+				assertEquals(new ArrayList<>(wire.getWireConnections()), forward);
+
+				List<Connection> reverse = new ArrayList<>();
+				wire.getReverseWireConnections(cursor);
+				while (cursor.next()) {
+					assertEquals(cursor.getConnection().isRouteThrough(), cursor.isRouteThrough());
+					reverse.add(cursor.getConnection());
+				}
+				assertEquals(new ArrayList<>(wire.getReverseWireConnections()), reverse);
+			}
+		}
+	}
+
+	@Test
+	@DisplayName("Cursor over off-heap connections matches heap connections")
+	public void matchesOffHeapConnections() {
+		Device expected = TestDevices.createDevice();
+		Device actual = TestDevices.createDevice();
+		assertTrue(actual.moveWireConnectionsOffHeap() > 0);
+		ConnectionCursor heapCursor = new ConnectionCursor();
+		ConnectionCursor cursor = new ConnectionCursor();
+
+		for (Tile tile : expected.getTiles()) {
+			Tile other = actual.getTile(tile.getName());
+			for (Wire wire : tile.getWires()) {
+				Wire otherWire = new TileWire(other, wire.getWireEnum());
+				for (boolean reverse : new boolean[] { false, true }) {
+					if (reverse) {
+						wire.getReverseWireConnections(heapCursor);
+						otherWire.getReverseWireConnections(cursor);
+					} else {
+						wire.getWireConnections(heapCursor);
+						otherWire.getWireConnections(cursor);
+					}
+					assertEquals(heapCursor.size(), cursor.size());
+					while (heapCursor.next()) {
+						assertTrue(cursor.next());
+						assertEquals(tileName(heapCursor.getSinkTile()), tileName(cursor.getSinkTile()));
+						assertEquals(heapCursor.getSinkWireEnum(), cursor.getSinkWireEnum());
+						assertEquals(heapCursor.isPip(), cursor.isPip());
+						assertEquals(heapCursor.isRouteThrough(), cursor.isRouteThrough());
+						assertEquals(heapCursor.getWireConnection(), cursor.getWireConnection());
+						assertSame(cursor.getWireConnection(), cursor.getWireConnection());
+					}
+					assertFalse(cursor.next());
+					assertThrows(IllegalStateException.class, cursor::getSinkWireEnum);
+
+					cursor.rewind();
+					assertEquals(heapCursor.size() > 0, cursor.next());
+				}
+			}
+		}
+	}
+
+	// connections at the edge of the test device lead to tiles outside of it
+	private static String tileName(Tile tile) {
+		return tile == null ? null : tile.getName();
+	}
+
+	@Test
+	@DisplayName("Cursor without connections")
+	public void emptyCursor() {
+		Device device = TestDevices.createDevice();
+		ConnectionCursor cursor = new ConnectionCursor();
+		assertFalse(cursor.next());
+
+		new TileWire(device.getTile(0, 1), TestDevices.W0).getWireConnections(cursor);
+		assertEquals(0, cursor.size());
+		assertFalse(cursor.next());
+		assertThrows(IllegalStateException.class, cursor::getSinkWireEnum);
+	}
+}
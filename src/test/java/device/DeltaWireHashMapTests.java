@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+
+package device;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.byu.ece.rapidSmith.device.*;
+
+/**
+ * Tests the {@link WireHashMap}s stored as differences from a tile type template.
+ */
+public class DeltaWireHashMapTests {
+
+	private static WireConnection[] connections(int wire) {
+		return new WireConnection[] { new WireConnection(wire + 1, 0, 1, true) };
+	}
+
+	@Test
+	@DisplayName("Delta maps hold the entries of the maps they are built from")
+	public void diffMatchesMap() {
+		WireHashMap template = new WireHashMap();
+		WireHashMap map = new WireHashMap();
+		for (int wire = 0; wire < 50; wire++) {
+			template.put(wire, connections(wire));
+			if (wire != 7)
+				map.put(wire, connections(wire));
+		}
+		map.put(3, connections(30));
+		map.put(100, connections(100));
+		map.put(101, null);
+
+		DeltaWireHashMap delta = DeltaWireHashMap.diff(template, map);
+		assertSame(template, delta.getTemplate());
+		assertEquals(4, delta.getDeltaSize());
+		assertEquals(map.size(), delta.size());
+		assertEquals(map.keySet(), delta.keySet());
+		for (int key : map.keySet())
+			assertArrayEquals(map.get(key), delta.get(key));
+		assertNull(delta.get(7));
+		assertEquals(map.size(), delta.values().size());
+		assertEquals(map, delta);
+		assertEquals(map.hashCode(), delta.hashCode());
+		assertEquals(map, delta.toOffHeap());
+		assertThrows(UnsupportedOperationException.class,
+				() -> delta.put(1, connections(1)));
+	}
+
+	@Test
+	@DisplayName("Tiles of a type share the map of the type as a template")
+	public void deviceTemplates() {
+		Device expected = TestDevices.createDevice();
+		Device actual = TestDevices.createDevice();
+
+		// give one tile of a shared map a single extra wire
+		Tile edge = actual.getTile(0, 0);
+		WireHashMap shared = edge.getWireHashMap();
+		WireHashMap changed = new WireHashMap();
+		for (int key : shared.keySet())
+			changed.put(key, shared.get(key));
+		changed.put(TestDevices.CLB_B, connections(TestDevices.CLB_B));
+		edge.setWireHashMap(changed);
+
+		Set<WireHashMap> templates = new HashSet<>();
+		for (Tile tile : actual.getTiles()) {
+			if (tile.getType() == edge.getType() && tile != edge)
+				templates.add(tile.getWireHashMap());
+		}
+		assertEquals(1, actual.applyTileTypeTemplates());
+
+		DeltaWireHashMap delta = (DeltaWireHashMap) edge.getWireHashMap();
+		assertEquals(1, delta.getDeltaSize());
+		assertTrue(templates.contains(delta.getTemplate()));
+		assertArrayEquals(connections(TestDevices.CLB_B), edge.getWireConnections(TestDevices.CLB_B));
+		for (Tile tile : expected.getTiles()) {
+			if (tile.getRow() == 0 && tile.getColumn() == 0)
+				continue;
+			Tile other = actual.getTile(tile.getName());
+			for (int wire = 0; wire < 5; wire++) {
+				assertArrayEquals(tile.getWireConnections(wire), other.getWireConnections(wire));
+				assertArrayEquals(tile.getReverseConnections(wire), other.getReverseConnections(wire));
+			}
+		}
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+package device;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.byu.ece.rapidSmith.DeviceCache;
+import edu.byu.ece.rapidSmith.device.Device;
+
+/**
+ * Tests the eviction and loading behavior of {@link DeviceCache}.
+ */
+public class DeviceCacheTests {
+
+	@Test
+	@DisplayName("Concurrent requests share one load")
+	public void singleFlight() throws Exception {
+		DeviceCache cache = new DeviceCache(100, d -> 1);
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Device device = TestDevices.createDevice();
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			Callable<Device> task = () -> cache.get(TestDevices.PART_NAME, name -> {
+				loads.incrementAndGet();
+				started.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					throw new AssertionError(e);
+				}
+				return device;
+			});
+			Future<Device> first = executor.submit(task);
+			started.await();
+			Future<Device> second = executor.submit(task);
+			Future<Device> third = executor.submit(task);
+			while (cache.getStats().getMissCount() < 3)
+				Thread.sleep(1);
+			release.countDown();
+
+			assertSame(device, first.get());
+			assertSame(device, second.get());
+			assertSame(device, third.get());
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals(1, loads.get());
+		assertSame(device, cache.get(TestDevices.PART_NAME, name -> null));
+		DeviceCache.Stats stats = cache.getStats();
+		assertEquals(1, stats.getHitCount());
+		assertEquals(3, stats.getMissCount());
+		assertEquals(1, stats.getLoadCount());
+	}
+
+	@Test
+	@DisplayName("Least recently used devices are evicted")
+	public void evictsLeastRecentlyUsed() {
+		DeviceCache cache = new DeviceCache(2, d -> 1);
+		Device a = TestDevices.createDevice();
+		Device b = TestDevices.createDevice();
+		Device c = TestDevices.createDevice();
+		cache.get("a", name -> a);
+		cache.get("b", name -> b);
+		cache.get("a", name -> null);
+		cache.get("c", name -> c);
+
+		assertSame(a, cache.getIfPresent("a"));
+		assertNull(cache.getIfPresent("b"));
+		assertSame(c, cache.getIfPresent("c"));
+		assertEquals(1, cache.getStats().getEvictionCount());
+
+		// a device larger than the budget is still cached until the next load
+		cache.setMaximumWeight(0);
+		assertEquals(0, cache.size());
+		assertSame(a, cache.get("a", name -> a));
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	@DisplayName("Failed loads are not cached")
+	public void failedLoads() {
+		DeviceCache cache = new DeviceCache(2, d -> 1);
+		assertThrows(IllegalStateException.class, () -> cache.get("a", name -> {
+			throw new IllegalStateException();
+		}));
+		assertNull(cache.get("a", name -> null));
+		Device a = TestDevices.createDevice();
+		assertSame(a, cache.get("a", name -> a));
+		assertEquals(2, cache.getStats().getLoadFailureCount());
+	}
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+
+package device;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.byu.ece.rapidSmith.device.Device;
+import edu.byu.ece.rapidSmith.device.Site;
+import edu.byu.ece.rapidSmith.device.SiteTemplate;
+import edu.byu.ece.rapidSmith.device.Tile;
+import edu.byu.ece.rapidSmith.device.creation.DeviceGenerator;
+import edu.byu.ece.rapidSmith.device.xdlrc.XDLRCSource.XDLRCFileSource;
+
+/**
+ * Tests that devices generated from an XDLRC file with several parse threads
+ * or in a single pass match the devices generated with one thread in two passes.
+ */
+public class DeviceGeneratorTests {
+	private static final int ROWS = 12;
+	private static final int COLUMNS = 6;
+
+	private static Path writeXdlrc() throws IOException {
+		StringBuilder sb = new StringBuilder();
+		sb.append("(xdl_resource_report v0.2 xc7a100tcsg324 artix7\n");
+		sb.append("(tiles ").append(ROWS).append(" ").append(COLUMNS).append("\n");
+		for (int row = 0; row < ROWS; row++) {
+			for (int col = 0; col < COLUMNS; col++) {
+				String name = "INT_L_X" + col + "Y" + row;
+				// the tiles in the last column have no neighbor and differ from the others
+				boolean edge = col == COLUMNS - 1;
+				sb.append("\t(tile ").append(row).append(" ").append(col).append(" ")
+						.append(name).append(" INT_L 1\n");
+				sb.append("\t\t(primitive_site TIEOFF_X").append(col).append("Y").append(row)
+						.append(" TIEOFF internal 2\n");
+				sb.append("\t\t\t(pinwire HARD0 output INT_HARD0)\n");
+				sb.append("\t\t\t(pinwire HARD1 output INT_HARD1)\n");
+				sb.append("\t\t)\n");
+				sb.append("\t\t(wire INT_HARD0 0)\n");
+				sb.append("\t\t(wire INT_HARD1 0)\n");
+				sb.append("\t\t(wire INT_IN 0)\n");
+				if (edge) {
+					sb.append("\t\t(wire INT_OUT 0)\n");
+				} else {
+					sb.append("\t\t(wire INT_OUT 1\n");
+					sb.append("\t\t\t(conn INT_L_X").append(col + 1).append("Y").append(row).append(" INT_IN)\n");
+					sb.append("\t\t)\n");
+				}
+				sb.append("\t\t(pip ").append(name).append(" INT_HARD0 -> INT_OUT)\n");
+				sb.append("\t\t(pip ").append(name).append(" INT_HARD1 -> INT_OUT)\n");
+				sb.append("\t\t(pip ").append(name)
+						.append(" INT_IN -> INT_OUT (_ROUTETHROUGH-HARD0-HARD1 TIEOFF))\n");
+				sb.append("\t\t(tile_summary ").append(name).append(" INT_L 2 4 3)\n");
+				sb.append("\t)\n");
+			}
+		}
+		sb.append(")\n");
+		sb.append("(primitive_defs 1\n");
+		sb.append("\t(primitive_def TIEOFF 2 4\n");
+		sb.append("\t\t(pin HARD0 HARD0 output)\n");
+		sb.append("\t\t(pin HARD1 HARD1 output)\n");
+		sb.append("\t\t(element HARD0GND 1 # BEL\n");
+		sb.append("\t\t\t(pin 0 output)\n");
+		sb.append("\t\t\t(conn HARD0GND 0 ==> HARD0 HARD0)\n");
+		sb.append("\t\t)\n");
+		sb.append("\t\t(element HARD1VCC 1 # BEL\n");
+		sb.append("\t\t\t(pin 1 output)\n");
+		sb.append("\t\t\t(conn HARD1VCC 1 ==> HARD1 HARD1)\n");
+		sb.append("\t\t)\n");
+		sb.append("\t\t(element HARD0 1\n");
+		sb.append("\t\t\t(pin HARD0 input)\n");
+		sb.append("\t\t\t(conn HARD0 HARD0 <== HARD0GND 0)\n");
+		sb.append("\t\t)\n");
+		sb.append("\t\t(element HARD1 1\n");
+		sb.append("\t\t\t(pin HARD1 input)\n");
+		sb.append("\t\t\t(conn HARD1 HARD1 <== HARD1VCC 1)\n");
+		sb.append("\t\t)\n");
+		sb.append("\t)\n");
+		sb.append(")\n");
+		sb.append("(summary tiles=").append(ROWS * COLUMNS).append(" sites=").append(ROWS * COLUMNS).append(")\n");
+		sb.append(")\n");
+
+		Path path = Files.createTempFile("generator", ".xdlrc");
+		Files.write(path, sb.toString().getBytes());
+		return path;
+	}
+
+	private static Device generate(Path xdlrc, int threads, boolean singlePass) throws IOException {
+		return new DeviceGenerator().generate(new XDLRCFileSource(xdlrc, threads), singlePass);
+	}
+
+	@Test
+	@DisplayName("Parallel device generation matches sequential generation")
+	public void parallelMatchesSequential() throws IOException {
+		Path xdlrc = writeXdlrc();
+		try {
+			for (boolean singlePass : new boolean[] { false, true }) {
+				Device expected = generate(xdlrc, 1, singlePass);
+				assertEquals(ROWS * COLUMNS, expected.getTiles().size());
+				assertNotNull(expected.getTile(0, 0).getWireConnections(
+						expected.getWireEnumerator().getWireEnum("INT_OUT")));
+				assertFalse(expected.getRouteThroughMap().isEmpty());
+
+				assertDevicesEqual(expected, generate(xdlrc, 4, singlePass));
+			}
+		} finally {
+			Files.delete(xdlrc);
+		}
+	}
+
+	@Test
+	@DisplayName("Single pass device generation matches two pass generation")
+	public void singlePassMatchesTwoPass() throws IOException {
+		Path xdlrc = writeXdlrc();
+		try {
+			for (int threads : new int[] { 1, 4 })
+				assertDevicesEqual(generate(xdlrc, threads, false), generate(xdlrc, threads, true));
+		} finally {
+			Files.delete(xdlrc);
+		}
+	}
+
+	private static void assertDevicesEqual(Device expected, Device actual) {
+		assertEquals(expected.getPartName(), actual.getPartName());
+		assertEquals(expected.getFamily(), actual.getFamily());
+		assertEquals(expected.getRows(), actual.getRows());
+		assertEquals(expected.getColumns(), actual.getColumns());
+		assertArrayEquals(expected.getWireEnumerator().getWires(), actual.getWireEnumerator().getWires());
+
+		for (Tile tile : expected.getTiles()) {
+			Tile other = actual.getTile(tile.getRow(), tile.getColumn());
+			assertEquals(tile.getName(), other.getName());
+			assertEquals(tile.getType(), other.getType());
+			assertEquals(tile.getWireHashMap(), other.getWireHashMap(), tile.getName());
+			assertEquals(tile.getReverseWireHashMap(), other.getReverseWireHashMap(), tile.getName());
+			assertEquals(tile.getWireSites(), other.getWireSites(), tile.getName());
+			assertEquals(tile.getPIPs().toString(), other.getPIPs().toString(), tile.getName());
+
+			assertEquals(tile.getSites().length, other.getSites().length);
+			for (int i = 0; i < tile.getSites().length; i++) {
+				Site site = tile.getSites()[i];
+				Site otherSite = other.getSites()[i];
+				assertEquals(site.getName(), otherSite.getName());
+				assertEquals(site.getBondedType(), otherSite.getBondedType());
+				assertArrayEquals(site.getPossibleTypes(), otherSite.getPossibleTypes());
+				assertEquals(site.getExternalWires(), otherSite.getExternalWires());
+			}
+		}
+
+		assertEquals(expected.getRouteThroughMap(), actual.getRouteThroughMap());
+		assertEquals(expected.getSiteTemplates().keySet(), actual.getSiteTemplates().keySet());
+		for (SiteTemplate template : expected.getSiteTemplates().values()) {
+			SiteTemplate other = actual.getSiteTemplate(template.getType());
+			assertEquals(template.getRouting(), other.getRouting());
+			assertEquals(template.getReversedRouting(), other.getReversedRouting());
+			assertEquals(template.getBelTemplates().keySet(), other.getBelTemplates().keySet());
+			assertEquals(template.getSources().keySet(), other.getSources().keySet());
+			assertEquals(template.getSinks().keySet(), other.getSinks().keySet());
+		}
+	}
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+
+package device;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.byu.ece.rapidSmith.device.*;
+import edu.byu.ece.rapidSmith.device.DeviceMemoryReport.Sharing;
+
+/**
+ * Tests the heap footprint report of {@link DeviceMemoryReport}.
+ */
+public class DeviceMemoryReportTests {
+
+	@Test
+	@DisplayName("Report covers the structures of a device")
+	public void report() {
+		Device device = TestDevices.createDevice();
+		DeviceMemoryReport report = DeviceMemoryReport.create(device);
+
+		assertEquals(TestDevices.PART_NAME, report.getPartName());
+		assertTrue(report.getStructure(DeviceMemoryReport.TILE_WIRE_MAPS).getBytes() > 0);
+		assertTrue(report.getStructure(DeviceMemoryReport.TILES).getObjects() >= device.getTiles().size());
+		assertTrue(report.getStructure(DeviceMemoryReport.SITES).getObjects() >= device.getSites().size());
+		assertEquals(0, report.getTotalOffHeapBytes());
+		assertEquals(report.getTotalBytes(), report.getStructures().stream()
+				.mapToLong(DeviceMemoryReport.Usage::getBytes).sum());
+		assertEquals(device.getTiles().size(), report.getTileTypes().stream()
+				.mapToInt(DeviceMemoryReport.TileTypeUsage::getTiles).sum());
+
+		Sharing maps = report.getSharing().get(0);
+		assertEquals(DeviceMemoryReport.TILE_WIRE_MAPS, maps.getName());
+		assertTrue(maps.getReferences() >= maps.getUnique());
+		assertTrue(report.toString().contains(DeviceMemoryReport.ROUTE_THROUGHS));
+
+		// off-heap maps move the wire map bytes out of the heap
+		device.moveWireConnectionsOffHeap();
+		DeviceMemoryReport offHeap = DeviceMemoryReport.create(device);
+		assertTrue(offHeap.getTotalOffHeapBytes() > 0);
+	}
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+package device;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.byu.ece.rapidSmith.RSEnvironment;
+import edu.byu.ece.rapidSmith.device.*;
+
+/**
+ * Tests creating device slices with {@link Device#createSlice(int, int, int, int)}.
+ */
+public class DeviceSliceTests {
+
+	@Test
+	@DisplayName("Slice clips connections leaving the region")
+	public void clipsConnections() {
+		Device device = TestDevices.createDevice();
+		Device slice = device.createSlice(1, 0, 2, 1);
+
+		assertEquals(Device.getSlicePartName(TestDevices.PART_NAME, 1, 0, 2, 1), slice.getPartName());
+		assertEquals(2, slice.getRows());
+		assertEquals(1, slice.getColumns());
+		assertEquals("INT_X0Y1", slice.getTile(0, 0).getName());
+		assertSame(slice.getTile(1, 0), slice.getTile("INT_X0Y0"));
+		assertNull(slice.getTile("CLBLL_X1Y1"));
+		assertTrue(slice.getSites().isEmpty());
+
+		// the connection to the CLBLL tile is clipped
+		assertEquals(2, device.getTile(1, 0).getWireConnections(TestDevices.W1).length);
+		assertEquals(1, slice.getTile(0, 0).getWireConnections(TestDevices.W1).length);
+
+		// W2 connects to the tile below, which is only in the slice for the first row
+		TileWire w2 = new TileWire(slice.getTile(0, 0), TestDevices.W2);
+		Connection c = w2.getWireConnections().iterator().next();
+		assertSame(slice.getTile(1, 0), c.getSinkWire().getTile());
+		assertTrue(slice.getTile(1, 0).hasWire("W2"));
+		assertEquals(0, slice.getTile(1, 0).getWireConnections(TestDevices.W2).length);
+
+		assertThrows(IndexOutOfBoundsException.class, () -> device.createSlice(2, 0, 2, 1));
+	}
+
+	@Test
+	@DisplayName("Slice is loadable through the environment")
+	public void loadThroughEnvironment() throws IOException {
+		Device device = TestDevices.createDevice();
+		Device slice = device.createSlice(device.getTile("CLBLL_X1Y2"), device.getTile("CLBLL_X1Y0"));
+		assertEquals(3, slice.getSites().size());
+		assertSame(slice.getTile("CLBLL_X1Y0"), slice.getSite("SLICE_X0Y0").getTile());
+		assertEquals(1, slice.getPackagePins().size());
+		assertTrue(slice.isRouteThrough(
+				new TileWire(slice.getTile(0, 0), TestDevices.W1),
+				new TileWire(slice.getTile(0, 0), TestDevices.W2)));
+
+		Path envPath = Files.createTempDirectory("rs2env");
+		try {
+			RSEnvironment env = new RSEnvironment(envPath);
+			Files.createDirectories(env.getPartFolderPath(device.getFamily()));
+			env.writeDeviceFile(slice);
+
+			Device loaded = env.getDevice(slice.getPartName());
+			assertNotNull(loaded);
+			assertEquals(slice.getRows(), loaded.getRows());
+			assertEquals(slice.getColumns(), loaded.getColumns());
+			assertEquals(slice.getSites().keySet(), loaded.getSites().keySet());
+		} finally {
+			deleteRecursively(envPath);
+		}
+	}
+
+	private static void deleteRecursively(Path dir) throws IOException {
+		try (Stream<Path> paths = Files.walk(dir)) {
+			for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator)
+				Files.delete(path);
+		}
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+
+package device;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.byu.ece.rapidSmith.device.*;
+
+/**
+ * Tests frozen devices and the concurrent type registries.
+ */
+public class FrozenDeviceTests {
+
+	@Test
+	@DisplayName("Frozen devices reject modification")
+	public void frozenDevice() {
+		Device device = TestDevices.createDevice();
+		Tile tile = device.getTile(1, 0);
+		device.freeze();
+
+		assertTrue(device.isFrozen());
+		assertTrue(tile.getWireHashMap().isFrozen());
+		assertThrows(IllegalStateException.class,
+				() -> device.addRouteThrough(TestDevices.W0, TestDevices.W1, null));
+		assertThrows(IllegalStateException.class, device::moveWireConnectionsOffHeap);
+		assertThrows(UnsupportedOperationException.class,
+				() -> tile.getWireHashMap().put(TestDevices.W0, new WireConnection[0]));
+		// reads still work
+		assertNotNull(tile.getWireConnections(TestDevices.W0));
+	}
+
+	@Test
+	@DisplayName("Types are registered once when requested concurrently")
+	public void concurrentTypes() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			FamilyType family = FamilyType.valueOf("FROZENTEST");
+			List<Future<SiteType>> futures = new ArrayList<>();
+			for (int i = 0; i < 64; i++) {
+				String name = "TYPE" + (i % 8);
+				futures.add(executor.submit(() -> SiteType.valueOf(family, name)));
+			}
+			Set<SiteType> types = ConcurrentHashMap.newKeySet();
+			Set<Integer> ordinals = ConcurrentHashMap.newKeySet();
+			for (Future<SiteType> future : futures) {
+				SiteType type = future.get();
+				assertSame(SiteType.valueOf(family, type.name()), type);
+				types.add(type);
+				ordinals.add(type.ordinal());
+			}
+			assertEquals(8, types.size());
+			assertEquals(8, ordinals.size());
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+package device;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.byu.ece.rapidSmith.RSEnvironment;
+import edu.byu.ece.rapidSmith.device.*;
+import edu.byu.ece.rapidSmith.util.Exceptions;
+import edu.byu.ece.rapidSmith.util.FileTools;
+
+/**
+ * Tests writing and reading devices in the memory-mapped device file format.
+ */
+public class MappedDeviceFileTests {
+
+	private static Path writeTestDevice(Device device) throws IOException {
+		Path path = Files.createTempFile("rs2test", RSEnvironment.MAPPED_DEVICE_FILE_SUFFIX);
+		path.toFile().deleteOnExit();
+		MappedDeviceFile.write(device, path);
+		return path;
+	}
+
+	@Test
+	@DisplayName("Mapped device round trip")
+	public void roundTrip() throws IOException {
+		Device expected = TestDevices.createDevice();
+		Device actual = MappedDeviceFile.open(writeTestDevice(expected)).loadDevice();
+
+		assertNotNull(actual);
+		assertEquals(expected.getPartName(), actual.getPartName());
+		assertEquals(expected.getFamily(), actual.getFamily());
+		assertEquals(expected.getRows(), actual.getRows());
+		assertEquals(expected.getColumns(), actual.getColumns());
+		assertArrayEquals(expected.getWireEnumerator().getWires(), actual.getWireEnumerator().getWires());
+
+		for (Tile tile : expected.getTiles()) {
+			Tile other = actual.getTile(tile.getRow(), tile.getColumn());
+			assertEquals(tile.getName(), other.getName());
+			assertEquals(tile.getType(), other.getType());
+			assertEquals(tile.getWireHashMap(), other.getWireHashMap());
+			assertEquals(tile.getReverseWireHashMap(), other.getReverseWireHashMap());
+			assertEquals(tile.getWireSites(), other.getWireSites());
+			if (tile.getSites() == null) {
+				assertNull(other.getSites());
+				continue;
+			}
+			assertEquals(tile.getSites().length, other.getSites().length);
+			for (int i = 0; i < tile.getSites().length; i++) {
+				Site site = tile.getSites()[i];
+				Site otherSite = other.getSites()[i];
+				assertEquals(site.getName(), otherSite.getName());
+				assertSame(other, otherSite.getTile());
+				assertEquals(site.getInstanceX(), otherSite.getInstanceX());
+				assertEquals(site.getInstanceY(), otherSite.getInstanceY());
+				assertEquals(site.getBondedType(), otherSite.getBondedType());
+				assertEquals(site.getType(), otherSite.getType());
+				assertArrayEquals(site.getPossibleTypes(), otherSite.getPossibleTypes());
+				assertEquals(site.getExternalWires(), otherSite.getExternalWires());
+				assertEquals(site.getSinkPinNames(), otherSite.getSinkPinNames());
+			}
+		}
+
+		assertEquals(expected.getRouteThroughMap(), actual.getRouteThroughMap());
+		assertEquals(expected.getSiteTemplates().keySet(), actual.getSiteTemplates().keySet());
+		assertEquals(1, actual.getPackagePins().size());
+		assertNotNull(actual.getSite("SLICE_X0Y1"));
+	}
+
+	@Test
+	@DisplayName("Mapped device keeps shared wire maps shared")
+	public void sharedWireMaps() throws IOException {
+		Device actual = MappedDeviceFile.open(writeTestDevice(TestDevices.createDevice())).loadDevice();
+		assertSame(actual.getTile(0, 0).getWireHashMap(), actual.getTile(1, 0).getWireHashMap());
+		assertSame(actual.getTile(0, 0).getWireConnections(TestDevices.W0),
+				actual.getTile(2, 0).getWireConnections(TestDevices.W0));
+	}
+
+	@Test
+	@DisplayName("Mapped device with lazy wire connections")
+	public void lazyWireConnections() throws IOException {
+		Device expected = TestDevices.createDevice();
+		Device actual = MappedDeviceFile.open(writeTestDevice(expected)).loadDevice(true);
+
+		for (Tile tile : expected.getTiles()) {
+			Tile other = actual.getTile(tile.getRow(), tile.getColumn());
+			for (int wire = 0; wire < expected.getWireEnumerator().getWires().length; wire++) {
+				assertTrue(Arrays.equals(tile.getWireConnections(wire), other.getWireConnections(wire)));
+				assertTrue(Arrays.equals(tile.getReverseConnections(wire), other.getReverseConnections(wire)));
+			}
+			assertEquals(tile.getWireHashMap(), other.getWireHashMap());
+			assertEquals(tile.getPIPs().toString(), other.getPIPs().toString());
+		}
+		assertSame(actual.getTile(0, 0).getWireHashMap(), actual.getTile(1, 0).getWireHashMap());
+	}
+
+	@Test
+	@DisplayName("Mapped device flyweight accessors")
+	public void flyweightAccessors() throws IOException {
+		Device expected = TestDevices.createDevice();
+		MappedDeviceFile file = MappedDeviceFile.open(writeTestDevice(expected));
+
+		assertEquals(TestDevices.PART_NAME, file.getPartName());
+		assertEquals(expected.getWireEnumerator().getWires().length, file.getWireCount());
+		for (Tile tile : expected.getTiles()) {
+			assertEquals(tile.getName(), file.getTileName(tile.getRow(), tile.getColumn()));
+			assertEquals(tile.getType().name(), file.getTileTypeName(tile.getRow(), tile.getColumn()));
+			for (int wire = 0; wire < file.getWireCount(); wire++) {
+				assertTrue(Arrays.equals(tile.getWireConnections(wire),
+						file.getWireConnections(tile.getRow(), tile.getColumn(), wire)));
+				assertTrue(Arrays.equals(tile.getReverseConnections(wire),
+						file.getReverseConnections(tile.getRow(), tile.getColumn(), wire)));
+			}
+		}
+	}
+
+	/*
+	 * Rewrites the device version stored in a mapped file in place, as if the
+	 * file had been written when that version was the latest.  The versions
+	 * must encode to the same number of bytes.
+	 */
+	private static void setDeviceVersion(Path path, String version) throws IOException {
+		byte[] latest = Device.LATEST_DEVICE_FILE_VERSION.getBytes(StandardCharsets.UTF_8);
+		byte[] replacement = version.getBytes(StandardCharsets.UTF_8);
+		assertEquals(latest.length, replacement.length);
+
+		byte[] contents = Files.readAllBytes(path);
+		for (int i = 0; i + latest.length <= contents.length; i++) {
+			if (Arrays.equals(Arrays.copyOfRange(contents, i, i + latest.length), latest)) {
+				System.arraycopy(replacement, 0, contents, i, replacement.length);
+				Files.write(path, contents);
+				return;
+			}
+		}
+		fail("Device version not found in " + path);
+	}
+
+	@Test
+	@DisplayName("Mapped device written at an older device version")
+	public void olderDeviceVersion() throws IOException {
+		Device expected = TestDevices.createDevice();
+		Path path = writeTestDevice(expected);
+		setDeviceVersion(path, "1.1");
+
+		MappedDeviceFile file = MappedDeviceFile.open(path);
+		assertEquals("1.1", file.getDeviceVersion());
+		Device actual = file.loadDevice();
+		assertNotNull(actual);
+		assertEquals(expected.getPartName(), actual.getPartName());
+		for (Tile tile : expected.getTiles()) {
+			Tile other = actual.getTile(tile.getRow(), tile.getColumn());
+			assertEquals(tile.getWireHashMap(), other.getWireHashMap());
+		}
+		assertEquals(expected.getRouteThroughMap(), actual.getRouteThroughMap());
+	}
+
+	@Test
+	@DisplayName("Mapped device written at an unsupported device version")
+	public void unsupportedDeviceVersion() throws IOException {
+		Path path = writeTestDevice(TestDevices.createDevice());
+		setDeviceVersion(path, "0.9");
+		assertNull(MappedDeviceFile.open(path).loadDevice());
+	}
+
+	@Test
+	@DisplayName("Mapped device falls back to the Hessian device file")
+	public void fallsBackToHessianFile() throws IOException {
+		Device expected = TestDevices.createDevice();
+		Path dir = Files.createTempDirectory("rs2test");
+		Path datPath = dir.resolve(TestDevices.PART_NAME + RSEnvironment.DEVICE_FILE_SUFFIX);
+		Path mappedPath = dir.resolve(TestDevices.PART_NAME + RSEnvironment.MAPPED_DEVICE_FILE_SUFFIX);
+		try {
+			FileTools.writeCompressedDeviceFile(expected, datPath);
+
+			// missing mapped file
+			assertEquals(expected.getPartName(), FileTools.loadMappedDevice(mappedPath).getPartName());
+
+			// unreadable mapped file
+			Files.write(mappedPath, new byte[128]);
+			assertEquals(expected.getPartName(), FileTools.loadMappedDevice(mappedPath).getPartName());
+
+			// mapped file of an unsupported device version
+			MappedDeviceFile.write(expected, mappedPath);
+			setDeviceVersion(mappedPath, "0.9");
+			assertEquals(expected.getPartName(), FileTools.loadMappedDevice(mappedPath).getPartName());
+
+			// no device file to fall back to
+			Files.delete(datPath);
+			assertNull(FileTools.loadMappedDevice(mappedPath));
+		} finally {
+			Files.deleteIfExists(mappedPath);
+			Files.deleteIfExists(datPath);
+			Files.delete(dir);
+		}
+	}
+
+	@Test
+	@DisplayName("Mapped device rejects other files")
+	public void rejectsOtherFiles() throws IOException {
+		Path path = Files.createTempFile("rs2test", ".dat");
+		path.toFile().deleteOnExit();
+		Files.write(path, new byte[128]);
+		assertThrows(Exceptions.FileFormatException.class, () -> MappedDeviceFile.open(path));
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+
+package device;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.byu.ece.rapidSmith.device.*;
+
+/**
+ * Tests the name lookups of {@link NameIndex} and the device.
+ */
+public class NameIndexTests {
+
+	@Test
+	@DisplayName("Names resolve from strings, regions and bytes")
+	public void lookups() {
+		List<String> names = new ArrayList<>();
+		for (int i = 0; i < 1000; i++)
+			names.add("INT_L_X" + i + "Y" + (i * 7));
+		names.add("été");
+		NameIndex index = new NameIndex(names);
+
+		assertEquals(names.size(), index.size());
+		for (int i = 0; i < names.size(); i++) {
+			String name = names.get(i);
+			assertEquals(i, index.indexOf(name));
+			assertEquals(i, index.indexOf(new StringBuilder("x/").append(name).append("/y"), 2, 2 + name.length()));
+			byte[] bytes = ("  " + name).getBytes(StandardCharsets.UTF_8);
+			assertEquals(i, index.indexOf(bytes, 2, bytes.length - 2));
+			assertEquals(name, index.getName(i));
+		}
+		assertEquals(-1, index.indexOf("INT_L_X1Y8"));
+		assertEquals(-1, index.indexOf(""));
+		assertThrows(IllegalArgumentException.class, () -> new NameIndex(Arrays.asList("A", "B", "A")));
+	}
+
+	@Test
+	@DisplayName("Device tiles, sites and wires resolve by name")
+	public void deviceLookups() {
+		Device device = TestDevices.createDevice();
+		for (Tile tile : device.getTiles()) {
+			String token = tile.getName() + "/W0";
+			assertSame(tile, device.findTile(token, 0, tile.getName().length()));
+		}
+		for (Site site : device.getSites().values())
+			assertSame(site, device.findSite(site.getName()));
+		assertNull(device.findTile("NO_SUCH_TILE"));
+
+		WireEnumerator we = device.getWireEnumerator();
+		for (int i = 0; i < we.getWires().length; i++)
+			assertEquals(i, we.findWireEnum(we.getWireName(i)));
+		assertEquals(-1, we.findWireEnum("NO_SUCH_WIRE"));
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+
+package device;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.byu.ece.rapidSmith.device.*;
+
+/**
+ * Tests the off-heap {@link WireHashMap} backend.
+ */
+public class OffHeapWireHashMapTests {
+
+	@Test
+	@DisplayName("Off-heap maps match the maps they are copied from")
+	public void copyMatchesOriginal() {
+		WireHashMap heap = new WireHashMap();
+		for (int wire = 0; wire < 100; wire++) {
+			WireConnection[] wcs = new WireConnection[wire % 4];
+			for (int i = 0; i < wcs.length; i++)
+				wcs[i] = new WireConnection(wire * 7 + i, i - 2, -wire, i % 2 == 0);
+			heap.put(wire * 3, wcs);
+		}
+		heap.put(1000, null);
+
+		WireHashMap offHeap = heap.toOffHeap();
+		assertTrue(offHeap.isOffHeap());
+		assertEquals(heap.size(), offHeap.size());
+		assertEquals(heap.keySet(), offHeap.keySet());
+		for (int key : heap.keySet())
+			assertArrayEquals(heap.get(key), offHeap.get(key));
+		assertNull(offHeap.get(1));
+		assertNull(offHeap.get(1000));
+		assertEquals(heap, offHeap);
+		assertEquals(heap.hashCode(), offHeap.hashCode());
+		assertSame(offHeap, offHeap.toOffHeap());
+		assertThrows(UnsupportedOperationException.class,
+				() -> offHeap.put(1, new WireConnection[0]));
+	}
+
+	@Test
+	@DisplayName("Tiles with off-heap maps return the same connections")
+	public void deviceOffHeap() {
+		Device expected = TestDevices.createDevice();
+		Device actual = TestDevices.createDevice();
+		assertTrue(actual.moveWireConnectionsOffHeap() > 0);
+
+		for (Tile tile : expected.getTiles()) {
+			Tile other = actual.getTile(tile.getName());
+			assertTrue(other.getWireHashMap() == null || other.getWireHashMap().isOffHeap());
+			for (int wire = 0; wire < 5; wire++) {
+				assertTrue(Arrays.equals(tile.getWireConnections(wire), other.getWireConnections(wire)));
+				assertTrue(Arrays.equals(tile.getReverseConnections(wire), other.getReverseConnections(wire)));
+			}
+		}
+	}
+}
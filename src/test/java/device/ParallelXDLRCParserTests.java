@@ -0,0 +1,279 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+
+package device;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.byu.ece.rapidSmith.device.xdlrc.XDLRCParser;
+import edu.byu.ece.rapidSmith.device.xdlrc.XDLRCParserListener;
+import edu.byu.ece.rapidSmith.device.xdlrc.XDLRCTileRecorder;
+
+/**
+ * Tests parsing the tiles of an XDLRC file with several threads and reading
+ * the tokens without creating strings.
+ */
+public class ParallelXDLRCParserTests {
+	private static final int ROWS = 20;
+	private static final int COLUMNS = 10;
+
+	/**
+	 * Records the events of each tile.
+	 */
+	private static class RecordingListener extends XDLRCParserListener {
+		private final Concurrency concurrency;
+		final Map<String, List<String>> tileEvents = new HashMap<>();
+		final List<String> events = new ArrayList<>();
+		private List<String> current;
+
+		RecordingListener(Concurrency concurrency) {
+			this.concurrency = concurrency;
+		}
+
+		@Override
+		protected Concurrency getConcurrency() {
+			return concurrency;
+		}
+
+		@Override
+		protected XDLRCParserListener createThreadInstance() {
+			return new RecordingListener(concurrency);
+		}
+
+		@Override
+		protected void mergeThreadInstance(XDLRCParserListener instance) {
+			tileEvents.putAll(((RecordingListener) instance).tileEvents);
+		}
+
+		@Override
+		protected void enterTiles(pl_Tiles tokens) {
+			events.add("tiles " + tokens.rows + " " + tokens.columns);
+		}
+
+		@Override
+		protected void exitTiles(pl_Tiles tokens) {
+			events.add("exit tiles " + tileEvents.size());
+		}
+
+		@Override
+		protected void enterTile(pl_Tile tokens) {
+			current = new ArrayList<>();
+			tileEvents.put(tokens.name, current);
+		}
+
+		@Override
+		protected void enterPrimitiveSite(pl_PrimitiveSite tokens) {
+			current.add("site " + tokens.name + " " + tokens.type);
+		}
+
+		@Override
+		protected void enterPinWire(pl_PinWire tokens) {
+			current.add("pinwire " + tokens.name + " " + tokens.external_wire);
+		}
+
+		@Override
+		protected void enterWire(pl_Wire tokens) {
+			current.add("wire " + tokens.name);
+		}
+
+		@Override
+		protected void enterConn(pl_Conn tokens) {
+			current.add("conn " + tokens.tile + " " + tokens.wire);
+		}
+
+		@Override
+		protected void enterPip(pl_Pip tokens) {
+			current.add("pip " + tokens.start_wire + " " + tokens.end_wire);
+		}
+
+		@Override
+		protected void enterRoutethrough(pl_Routethrough tokens) {
+			current.add("rt " + tokens.pins + " " + tokens.site_type);
+		}
+
+		@Override
+		protected void exitTile(pl_Tile tokens) {
+			current.add("exit");
+			current = null;
+		}
+
+		@Override
+		protected void enterSummary(pl_Summary tokens) {
+			events.add("summary " + tokens.stats);
+		}
+	}
+
+	private static Path writeXdlrc() throws IOException {
+		StringBuilder sb = new StringBuilder();
+		sb.append("(xdl_resource_report v0.2 xc7a100tcsg324 artix7\n");
+		sb.append("(tiles ").append(ROWS).append(" ").append(COLUMNS).append("\n");
+		for (int row = 0; row < ROWS; row++) {
+			for (int col = 0; col < COLUMNS; col++) {
+				String name = "INT_X" + col + "Y" + row;
+				boolean site = col % 2 == 0;
+				sb.append("\t(tile ").append(row).append(" ").append(col).append(" ")
+						.append(name).append(" INT ").append(site ? 1 : 0).append("\n");
+				if (site) {
+					sb.append("\t\t(primitive_site SLICE_X").append(col).append("Y").append(row)
+							.append(" SLICEL internal 2\n");
+					sb.append("\t\t\t(pinwire A1 input W_A1)\n");
+					sb.append("\t\t\t(pinwire AQ output W_AQ)\n");
+					sb.append("\t\t)\n");
+				}
+				sb.append("\t\t(wire W_A1 0)\n");
+				sb.append("\t\t(wire W_AQ 2\n");
+				sb.append("\t\t\t(conn ").append(name).append(" W_A1)\n");
+				sb.append("\t\t\t(conn INT_X0Y0 W_").append(row).append(")\n");
+				sb.append("\t\t)\n");
+				sb.append("\t\t(pip ").append(name).append(" W_AQ -> W_A1)\n");
+				sb.append("\t\t(pip ").append(name)
+						.append(" W_A1 -> W_AQ (_ROUTETHROUGH-A1-AQ SLICEL))\n");
+				sb.append("\t\t(tile_summary ").append(name).append(" INT 2 2 2)\n");
+				sb.append("\t)\n");
+			}
+		}
+		sb.append(")\n");
+		sb.append("(summary tiles=").append(ROWS * COLUMNS).append(")\n");
+		sb.append(")\n");
+
+		Path path = Files.createTempFile("parallel", ".xdlrc");
+		Files.write(path, sb.toString().getBytes());
+		return path;
+	}
+
+	private static RecordingListener parse(Path path, int threads,
+			XDLRCParserListener.Concurrency concurrency) throws IOException {
+		RecordingListener listener = new RecordingListener(concurrency);
+		XDLRCParser parser = new XDLRCParser(threads);
+		parser.registerListener(listener);
+		parser.parse(path);
+		return listener;
+	}
+
+	@Test
+	@DisplayName("Parallel parses deliver the same tile events as a sequential parse")
+	public void parallelMatchesSequential() throws IOException {
+		Path path = writeXdlrc();
+		try {
+			RecordingListener expected = parse(path, 1, XDLRCParserListener.Concurrency.SEQUENTIAL);
+			assertEquals(ROWS * COLUMNS, expected.tileEvents.size());
+			assertEquals("rt (_ROUTETHROUGH-A1-AQ SLICEL",
+					expected.tileEvents.get("INT_X0Y0").get(9));
+
+			for (XDLRCParserListener.Concurrency concurrency : XDLRCParserListener.Concurrency.values()) {
+				if (concurrency == XDLRCParserListener.Concurrency.THREAD_SAFE)
+					continue;
+				RecordingListener actual = parse(path, 4, concurrency);
+				assertEquals(expected.events, actual.events);
+				assertEquals(expected.tileEvents, actual.tileEvents);
+			}
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	/**
+	 * Records the token views of the wires, PIPs and connections.
+	 */
+	private static class TokenListener extends XDLRCParserListener {
+		final List<String> events = new ArrayList<>();
+		boolean sawString;
+
+		@Override
+		protected boolean usesTokenStrings() {
+			return false;
+		}
+
+		@Override
+		protected void enterWire(pl_Wire tokens) {
+			sawString |= tokens.name != null;
+			events.add("wire " + tokens.nameToken);
+		}
+
+		@Override
+		protected void enterConn(pl_Conn tokens) {
+			sawString |= tokens.tile != null || tokens.wire != null;
+			events.add("conn " + tokens.tileToken + " " + tokens.wireToken);
+		}
+
+		@Override
+		protected void enterPip(pl_Pip tokens) {
+			sawString |= tokens.start_wire != null || tokens.end_wire != null;
+			events.add("pip " + tokens.startWireToken + " " + tokens.endWireToken);
+		}
+	}
+
+	@Test
+	@DisplayName("Listeners reading token views receive the same names without strings")
+	public void tokenViews() throws IOException {
+		Path path = writeXdlrc();
+		try {
+			TokenListener listener = new TokenListener();
+			XDLRCParser parser = new XDLRCParser();
+			parser.registerListener(listener);
+			parser.parse(path);
+
+			assertFalse(listener.sawString);
+			assertEquals(ROWS * COLUMNS * 6, listener.events.size());
+			assertEquals("wire W_AQ", listener.events.get(1));
+			assertEquals("conn INT_X0Y0 W_A1", listener.events.get(2));
+			assertEquals("pip W_A1 W_AQ", listener.events.get(5));
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	@DisplayName("Replaying recorded tiles delivers the same tile events as the parse")
+	public void recordedTilesReplay() throws IOException {
+		Path path = writeXdlrc();
+		try {
+			for (int threads : new int[] { 1, 4 }) {
+				RecordingListener expected = new RecordingListener(XDLRCParserListener.Concurrency.SEQUENTIAL);
+				XDLRCTileRecorder recorder = new XDLRCTileRecorder();
+				XDLRCParser parser = new XDLRCParser(threads);
+				parser.registerListener(expected);
+				parser.registerListener(recorder);
+				parser.parse(path);
+
+				RecordingListener actual = new RecordingListener(XDLRCParserListener.Concurrency.SEQUENTIAL);
+				recorder.replay(Collections.singletonList(actual));
+				// only the tiles are recorded
+				assertEquals(expected.events.subList(0, 2), actual.events);
+				assertEquals(expected.tileEvents, actual.tileEvents);
+				// tiles, sites, the W_<row> wires and the 11 shared names are each kept once
+				assertEquals(ROWS * COLUMNS + ROWS * COLUMNS / 2 + ROWS + 11, recorder.getNameCount());
+			}
+		} finally {
+			Files.delete(path);
+		}
+	}
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+package device;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.byu.ece.rapidSmith.device.*;
+import edu.byu.ece.rapidSmith.util.FileTools;
+
+/**
+ * Tests the route-through lookups of {@link Device}.
+ */
+public class RouteThroughTests {
+
+	@Test
+	@DisplayName("Route-through lookups")
+	public void lookups() {
+		Device device = TestDevices.createDevice();
+		Tile tile = device.getTile(1, 0);
+		TileWire w0 = new TileWire(tile, TestDevices.W0);
+		TileWire w1 = new TileWire(tile, TestDevices.W1);
+		TileWire w2 = new TileWire(tile, TestDevices.W2);
+
+		assertTrue(device.isRouteThrough(w1, w2));
+		assertFalse(device.isRouteThrough(w2, w1));
+		assertFalse(device.isRouteThrough(w0, w1));
+		assertEquals("A", device.getRouteThrough(w1, w2).getInPin());
+		assertEquals(1, device.getRouteThroughMap().size());
+		assertNotNull(device.getRouteThroughMap().get(TestDevices.W2).get(TestDevices.W1));
+
+		// the table must keep working past its initial capacity
+		SiteType type = device.getRouteThrough(w1, w2).getType();
+		for (int i = 100; i < 200; i++)
+			device.addRouteThrough(i, i + 1, new PIPRouteThrough(type, "A" + i, "B"));
+		for (int i = 100; i < 200; i++)
+			assertEquals("A" + i, device.getRouteThroughMap().get(i + 1).get(i).getInPin());
+		assertTrue(device.isRouteThrough(w1, w2));
+	}
+
+	@Test
+	@DisplayName("Route-throughs survive compact device files")
+	public void compactFileRoundTrip() throws IOException {
+		Device expected = TestDevices.createDevice();
+		Path path = Files.createTempFile("rs2test", ".dat");
+		path.toFile().deleteOnExit();
+		FileTools.writeCompressedDeviceFile(expected, path);
+		Device actual = FileTools.loadDevice(path);
+
+		assertNotNull(actual);
+		assertEquals(expected.getRouteThroughMap(), actual.getRouteThroughMap());
+		Tile tile = actual.getTile(1, 0);
+		assertTrue(actual.isRouteThrough(
+				new TileWire(tile, TestDevices.W1), new TileWire(tile, TestDevices.W2)));
+	}
+}
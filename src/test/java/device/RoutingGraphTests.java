@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+package device;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.byu.ece.rapidSmith.device.*;
+
+/**
+ * Tests that the {@link RoutingGraph} matches the wire connections of the device.
+ */
+public class RoutingGraphTests {
+
+	@Test
+	@DisplayName("Routing graph matches wire connections")
+	public void matchesWireConnections() {
+		Device device = TestDevices.createDevice();
+		RoutingGraph graph = new RoutingGraph(device);
+
+		int edges = 0;
+		for (int node = 0; node < graph.getNodeCount(); node++) {
+			TileWire wire = graph.getTileWire(node);
+			assertEquals(node, graph.getNode(wire));
+
+			Set<String> expected = new HashSet<>();
+			for (Connection c : wire.getWireConnections()) {
+				if (c.getSinkWire().getTile() != null)
+					expected.add(c.getSinkWire().getFullName() + c.isPip() + c.isRouteThrough());
+			}
+			Set<String> actual = new HashSet<>();
+			for (int e = graph.getFanoutStart(node); e < graph.getFanoutEnd(node); e++) {
+				byte flags = graph.getFanoutFlags(e);
+				actual.add(graph.getTileWire(graph.getFanoutNode(e)).getFullName() +
+						((flags & RoutingGraph.PIP) != 0) + ((flags & RoutingGraph.ROUTE_THROUGH) != 0));
+
+				// every fanout edge is a fanin edge of its sink
+				int sink = graph.getFanoutNode(e);
+				boolean found = false;
+				for (int f = graph.getFaninStart(sink); f < graph.getFaninEnd(sink); f++)
+					found |= graph.getFaninNode(f) == node;
+				assertTrue(found);
+				edges++;
+			}
+			assertEquals(expected, actual);
+		}
+		assertEquals(graph.getEdgeCount(), edges);
+	}
+
+	@Test
+	@DisplayName("Routing graph flags route-throughs")
+	public void routeThroughFlags() {
+		Device device = TestDevices.createDevice();
+		RoutingGraph graph = new RoutingGraph(device);
+
+		int w1 = graph.getNode(device.getTile(1, 0), TestDevices.W1);
+		int w2 = graph.getNode(device.getTile(1, 0), TestDevices.W2);
+		boolean found = false;
+		for (int e = graph.getFanoutStart(w1); e < graph.getFanoutEnd(w1); e++) {
+			if (graph.getFanoutNode(e) == w2) {
+				assertEquals(RoutingGraph.PIP | RoutingGraph.ROUTE_THROUGH, graph.getFanoutFlags(e));
+				found = true;
+			}
+		}
+		assertTrue(found);
+		assertEquals(-1, graph.getNode(device.getTile(1, 0), TestDevices.CLB_B));
+	}
+}
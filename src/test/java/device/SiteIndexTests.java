@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+package device;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.byu.ece.rapidSmith.device.*;
+
+/**
+ * Tests the queries of {@link SiteIndex} against scans of all sites.
+ */
+public class SiteIndexTests {
+
+	private static int distance(Site site, int row, int column) {
+		return Math.abs(site.getTile().getRow() - row) + Math.abs(site.getTile().getColumn() - column);
+	}
+
+	private static Set<Site> asSet(List<Site> sites) {
+		return new HashSet<>(sites);
+	}
+
+	@Test
+	@DisplayName("Site index queries match scans")
+	public void matchesScans() {
+		Device device = new Device();
+		device.createTileArray(45, 30);
+		for (int row = 0; row < device.getRows(); row++) {
+			for (int col = 0; col < device.getColumns(); col++)
+				device.getTile(row, col).setName("T_X" + col + "Y" + row);
+		}
+		device.constructTileMap();
+		List<Site> sites = new ArrayList<>();
+		for (Tile tile : device.getTiles()) {
+			if ((tile.getRow() * 7 + tile.getColumn() * 3) % 11 == 0) {
+				Site site = new Site();
+				site.setName("S_X" + tile.getColumn() + "Y" + tile.getRow());
+				site.setTile(tile);
+				sites.add(site);
+			}
+		}
+		SiteIndex index = new SiteIndex(device, sites);
+		assertEquals(sites.size(), index.size());
+
+		Random random = new Random(7);
+		for (int q = 0; q < 200; q++) {
+			int row = random.nextInt(55) - 5;
+			int column = random.nextInt(40) - 5;
+			int distance = random.nextInt(20);
+
+			Set<Site> expected = sites.stream()
+					.filter(s -> distance(s, row, column) <= distance)
+					.collect(Collectors.toSet());
+			assertEquals(expected, asSet(index.getSitesWithinDistance(row, column, distance)));
+
+			int maxRow = row + random.nextInt(15);
+			int maxColumn = column + random.nextInt(15);
+			expected = sites.stream()
+					.filter(s -> s.getTile().getRow() >= row && s.getTile().getRow() <= maxRow &&
+							s.getTile().getColumn() >= column && s.getTile().getColumn() <= maxColumn)
+					.collect(Collectors.toSet());
+			assertEquals(expected, asSet(index.getSitesInRectangle(row, column, maxRow, maxColumn)));
+
+			int k = 1 + random.nextInt(12);
+			List<Site> nearest = index.getNearestSites(row, column, k);
+			assertEquals(k, nearest.size());
+			List<Integer> sorted = sites.stream()
+					.map(s -> distance(s, row, column))
+					.sorted()
+					.collect(Collectors.toList());
+			for (int i = 0; i < k; i++)
+				assertEquals(sorted.get(i).intValue(), distance(nearest.get(i), row, column));
+		}
+		assertEquals(sites.size(), index.getNearestSites(0, 0, sites.size() + 5).size());
+	}
+
+	@Test
+	@DisplayName("Device caches compatible site indexes")
+	public void cachedOnDevice() {
+		Device device = TestDevices.createDevice();
+		SiteType slicel = SiteType.valueOf(device.getFamily(), "SLICEL");
+		SiteIndex index = device.getCompatibleSiteIndex(slicel);
+		assertSame(index, device.getCompatibleSiteIndex(slicel));
+		assertEquals(asSet(device.getAllCompatibleSites(slicel)), asSet(index.getSites()));
+		assertEquals(device.getSite("SLICE_X0Y2"), index.getNearestSites(device.getTile("INT_X0Y2"), 1).get(0));
+	}
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+package device;
+
+import java.util.*;
+
+import edu.byu.ece.rapidSmith.device.*;
+import edu.byu.ece.rapidSmith.primitiveDefs.PrimitiveDefList;
+
+/**
+ * Builds synthetic devices for tests and benchmarks that do not need a real
+ * device file.  The devices have columns of INT tiles, which hold the general
+ * routing, and columns of CLBLL tiles holding one slice each.  Tiles of the
+ * same type share their wire hash maps the same way they do in generated
+ * devices.
+ */
+public final class TestDevices {
+	public static final String PART_NAME = "xctest";
+	public static final int ROWS = 3;
+
+	public static final int W0 = 0;
+	public static final int W1 = 1;
+	public static final int W2 = 2;
+	public static final int CLB_A = 3;
+	public static final int CLB_B = 4;
+
+	/** Routing wires in each INT tile of the devices of a chosen size */
+	public static final int INT_WIRES = 256;
+	/** Connections of each INT wire of the devices of a chosen size */
+	public static final int FANOUT = 6;
+
+	private static final String[] WIRES = {
+			"W0", "W1", "W2", "CLB_A", "CLB_B", "intrasite:SLICEL/A.A", "intrasite:SLICEL/B.B"
+	};
+
+	private TestDevices() { }
+
+	/**
+	 * Creates a small device with a column of INT tiles and a column of CLBLL
+	 * tiles.  The wires of the device are the constants of this class.
+	 */
+	public static Device createDevice() {
+		FamilyType family = FamilyType.valueOf("ARTIX7");
+		SiteType slicel = SiteType.valueOf(family, "SLICEL");
+		SiteType slicem = SiteType.valueOf(family, "SLICEM");
+
+		Device device = new Device();
+		device.setPartName(PART_NAME);
+		device.setFamily(family);
+
+		WireEnumerator we = new WireEnumerator();
+		Map<String, Integer> wireMap = new HashMap<>();
+		for (int i = 0; i < WIRES.length; i++)
+			wireMap.put(WIRES[i], i);
+		we.setWires(WIRES);
+		we.setWireMap(wireMap);
+		device.setWireEnumerator(we);
+
+		Map<SiteType, SiteTemplate> templates = new HashMap<>();
+		templates.put(slicel, createSiteTemplate(slicel, 5, 6));
+		templates.put(slicem, createSiteTemplate(slicem, 5, 6));
+		device.setSiteTemplates(templates);
+		device.setPrimitiveDefs(new PrimitiveDefList());
+
+		// shared by every INT tile
+		WireHashMap intWires = new WireHashMap();
+		intWires.put(W0, new WireConnection[] { new WireConnection(W1, 0, 0, true) });
+		intWires.put(W1, new WireConnection[] {
+				new WireConnection(W2, 0, 0, true),
+				new WireConnection(CLB_A, 0, -1, false)
+		});
+		intWires.put(W2, new WireConnection[] { new WireConnection(W0, -1, 0, false) });
+		WireHashMap intReverse = new WireHashMap();
+		intReverse.put(W1, new WireConnection[] { new WireConnection(W0, 0, 0, true) });
+		intReverse.put(W2, new WireConnection[] { new WireConnection(W1, 0, 0, true) });
+
+		WireHashMap clbWires = new WireHashMap();
+		clbWires.put(CLB_B, new WireConnection[] { new WireConnection(W0, 0, 1, false) });
+
+		Map<String, Integer> pinWires = new HashMap<>();
+		pinWires.put("A", CLB_A);
+		pinWires.put("B", CLB_B);
+		Map<SiteType, Map<String, Integer>> externalWires = new HashMap<>();
+		externalWires.put(slicel, pinWires);
+		externalWires.put(slicem, pinWires);
+		SiteType[] possibleTypes = { slicel, slicem };
+
+		device.createTileArray(ROWS, 2);
+		for (int row = 0; row < ROWS; row++) {
+			Tile intTile = device.getTile(row, 0);
+			intTile.setName("INT_X0Y" + (ROWS - 1 - row));
+			intTile.setType(TileType.valueOf(family, "INT"));
+			intTile.setWireHashMap(intWires);
+			intTile.setReverseWireConnections(intReverse);
+
+			Tile clbTile = device.getTile(row, 1);
+			clbTile.setName("CLBLL_X1Y" + (ROWS - 1 - row));
+			clbTile.setType(TileType.valueOf(family, "CLBLL"));
+			clbTile.setWireHashMap(clbWires);
+
+			Site site = new Site();
+			site.setName("SLICE_X0Y" + (ROWS - 1 - row));
+			site.parseCoordinatesFromName(site.getName());
+			site.setBondedType(BondedType.INTERNAL);
+			site.setPossibleTypes(possibleTypes);
+			site.setExternalWires(externalWires);
+			site.setIndex(0);
+			site.setTile(clbTile);
+			clbTile.setSites(new Site[] { site });
+		}
+
+		device.addRouteThrough(W1, W2, new PIPRouteThrough(slicel, "A", "B"));
+		device.constructTileMap();
+		device.constructDependentResources();
+		device.addPackagePin(new PackagePin("P1", "SLICE_X0Y0", "A6LUT", false));
+		return device;
+	}
+
+	/**
+	 * Creates a device with {@code rows} rows and {@code columns} columns of
+	 * tiles.  Columns alternate between INT tiles with {@link #INT_WIRES}
+	 * routing wires and CLBLL tiles, so the routing scales with the size of
+	 * the device.
+	 */
+	public static Device createDevice(String partName, int rows, int columns) {
+		FamilyType family = FamilyType.valueOf("ARTIX7");
+		SiteType slicel = SiteType.valueOf(family, "SLICEL");
+
+		String[] wireNames = new String[INT_WIRES + 4];
+		for (int i = 0; i < INT_WIRES; i++)
+			wireNames[i] = "INT_W" + i;
+		int clbA = INT_WIRES;
+		int clbB = INT_WIRES + 1;
+		wireNames[clbA] = "CLB_A";
+		wireNames[clbB] = "CLB_B";
+		wireNames[INT_WIRES + 2] = "intrasite:SLICEL/A.A";
+		wireNames[INT_WIRES + 3] = "intrasite:SLICEL/B.B";
+		WireEnumerator we = new WireEnumerator();
+		Map<String, Integer> wireMap = new HashMap<>();
+		for (int i = 0; i < wireNames.length; i++)
+			wireMap.put(wireNames[i], i);
+		we.setWires(wireNames);
+		we.setWireMap(wireMap);
+
+		Device device = new Device();
+		device.setPartName(partName);
+		device.setFamily(family);
+		device.setWireEnumerator(we);
+		device.setPrimitiveDefs(new PrimitiveDefList());
+		Map<SiteType, SiteTemplate> templates = new HashMap<>();
+		templates.put(slicel, createSiteTemplate(slicel, INT_WIRES + 2, INT_WIRES + 3));
+		device.setSiteTemplates(templates);
+
+		// connections as {source wire, sink wire, row offset, column offset, pip}
+		List<int[]> intConns = new ArrayList<>();
+		for (int wire = 0; wire < INT_WIRES; wire++) {
+			int length = wire % 4 == 0 ? 6 : 1;
+			for (int j = 0; j < FANOUT; j++) {
+				int sink = (wire * 31 + j * 17 + 1) % INT_WIRES;
+				int rowOffset = (j % 3 - 1) * length;
+				int columnOffset = j < 3 ? 0 : (wire % 2 == 0 ? 2 : -2);
+				intConns.add(new int[] { wire, sink, rowOffset, columnOffset, j < 3 ? 1 : 0 });
+			}
+		}
+		// INT to the CLBLL tile on its right and back
+		List<int[]> intToClb = new ArrayList<>();
+		for (int wire = 0; wire < INT_WIRES; wire += 16)
+			intToClb.add(new int[] { wire, clbA, 0, -1, 0 });
+		List<int[]> clbToInt = new ArrayList<>();
+		clbToInt.add(new int[] { clbB, 2, 0, 1, 0 });
+
+		WireHashMap intWires = forward(intConns, intToClb);
+		WireHashMap intReverse = reverse(intConns, clbToInt);
+		WireHashMap clbWires = forward(clbToInt);
+		WireHashMap clbReverse = reverse(intToClb);
+
+		Map<String, Integer> pinWires = new HashMap<>();
+		pinWires.put("A", clbA);
+		pinWires.put("B", clbB);
+		Map<SiteType, Map<String, Integer>> externalWires = new HashMap<>();
+		externalWires.put(slicel, pinWires);
+		SiteType[] possibleTypes = { slicel };
+
+		device.createTileArray(rows, columns);
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < columns; col++) {
+				Tile tile = device.getTile(row, col);
+				int y = rows - 1 - row;
+				if (col % 2 == 0) {
+					tile.setName("INT_X" + col / 2 + "Y" + y);
+					tile.setType(TileType.valueOf(family, "INT"));
+					tile.setWireHashMap(intWires);
+					tile.setReverseWireConnections(intReverse);
+				} else {
+					tile.setName("CLBLL_X" + col / 2 + "Y" + y);
+					tile.setType(TileType.valueOf(family, "CLBLL"));
+					tile.setWireHashMap(clbWires);
+					tile.setReverseWireConnections(clbReverse);
+
+					Site site = new Site();
+					site.setName("SLICE_X" + col / 2 + "Y" + y);
+					site.parseCoordinatesFromName(site.getName());
+					site.setBondedType(BondedType.INTERNAL);
+					site.setPossibleTypes(possibleTypes);
+					site.setExternalWires(externalWires);
+					site.setIndex(0);
+					site.setTile(tile);
+					tile.setSites(new Site[] { site });
+				}
+			}
+		}
+
+		device.addRouteThrough(0, 1, new PIPRouteThrough(slicel, "A", "B"));
+		device.constructTileMap();
+		device.constructDependentResources();
+		return device;
+	}
+
+	@SafeVarargs
+	private static WireHashMap forward(List<int[]>... connectionLists) {
+		Map<Integer, List<WireConnection>> conns = new TreeMap<>();
+		for (List<int[]> list : connectionLists) {
+			for (int[] c : list) {
+				conns.computeIfAbsent(c[0], k -> new ArrayList<>())
+						.add(new WireConnection(c[1], c[2], c[3], c[4] != 0));
+			}
+		}
+		return toWireHashMap(conns);
+	}
+
+	/**
+	 * Builds the reverse connections of the forward connections.  A connection
+	 * reaching the tile at the negated offsets is a connection back to the source.
+	 */
+	@SafeVarargs
+	private static WireHashMap reverse(List<int[]>... connectionLists) {
+		Map<Integer, List<WireConnection>> conns = new TreeMap<>();
+		for (List<int[]> list : connectionLists) {
+			for (int[] c : list) {
+				conns.computeIfAbsent(c[1], k -> new ArrayList<>())
+						.add(new WireConnection(c[0], -c[2], -c[3], c[4] != 0));
+			}
+		}
+		return toWireHashMap(conns);
+	}
+
+	private static WireHashMap toWireHashMap(Map<Integer, List<WireConnection>> conns) {
+		WireHashMap map = new WireHashMap();
+		for (Map.Entry<Integer, List<WireConnection>> e : conns.entrySet())
+			map.put(e.getKey(), e.getValue().toArray(new WireConnection[0]));
+		return map;
+	}
+
+	private static SiteTemplate createSiteTemplate(SiteType type, int sinkWire, int sourceWire) {
+		SiteTemplate template = new SiteTemplate();
+		template.setType(type);
+		template.setBelTemplates(new HashMap<>());
+		template.setRouting(new WireHashMap());
+		template.setReverseRouting(new WireHashMap());
+
+		SitePinTemplate sink = new SitePinTemplate("A", type);
+		sink.setDirection(PinDirection.IN);
+		sink.setInternalWire(sinkWire);
+		Map<String, SitePinTemplate> sinks = new HashMap<>();
+		sinks.put("A", sink);
+		template.setSinks(sinks);
+
+		SitePinTemplate source = new SitePinTemplate("B", type);
+		source.setDirection(PinDirection.OUT);
+		source.setInternalWire(sourceWire);
+		Map<String, SitePinTemplate> sources = new HashMap<>();
+		sources.put("B", source);
+		template.setSources(sources);
+		return template;
+	}
+}
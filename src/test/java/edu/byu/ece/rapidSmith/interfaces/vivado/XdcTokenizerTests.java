@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2016 Brigham Young University
+ *
+ * This file is part of the BYU RapidSmith Tools.
+ *
+ * BYU RapidSmith Tools is free software: you may redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * BYU RapidSmith Tools is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * A copy of the GNU General Public License is included with the BYU
+ * RapidSmith Tools. It can be found at doc/LICENSE.GPL3.TXT. You may
+ * also get a copy of the license at <http://www.gnu.org/licenses/>.
+ */
+
+package edu.byu.ece.rapidSmith.interfaces.vivado;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests splitting the lines of checkpoint files into tokens with {@link XdcTokenizer}.
+ */
+public class XdcTokenizerTests {
+
+	/*
+	 * Reads every line of the text with a tokenizer and returns the tokens of
+	 * each line as strings.
+	 */
+	private static List<List<String>> tokenize(String text) throws IOException {
+		Path file = Files.createTempFile("tokenizer", ".rsc");
+		try {
+			Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+			try (XdcTokenizer toks = new XdcTokenizer(file)) {
+				return readLines(toks);
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	private static List<List<String>> readLines(XdcTokenizer toks) throws IOException {
+		List<List<String>> lines = new ArrayList<>();
+		while (toks.nextLine()) {
+			assertEquals(lines.size() + 1, toks.getLineNumber());
+			List<String> tokens = new ArrayList<>();
+			for (int i = 0; i < toks.getTokenCount(); i++)
+				tokens.add(toks.getToken(i).toString());
+			lines.add(tokens);
+		}
+		return lines;
+	}
+
+	/*
+	 * Splits the text the way the line based parsers did before the tokenizer.
+	 */
+	private static List<List<String>> split(String text) {
+		List<List<String>> lines = new ArrayList<>();
+		for (String line : text.split("\n", -1)) {
+			String trimmed = line.trim();
+			lines.add(trimmed.isEmpty() ? new ArrayList<>() : Arrays.asList(trimmed.split("\\s+")));
+		}
+		// a newline ends the last line rather than starting an empty one
+		if (text.isEmpty() || text.endsWith("\n"))
+			lines.remove(lines.size() - 1);
+		return lines;
+	}
+
+	@Test
+	@DisplayName("Lines are split on runs of whitespace")
+	public void splitsTokens() throws IOException {
+		String text = "SITE_PIPS SLICE_X0Y0  A5LUT:A1\tCLKINV:CLK\n" +
+				"\n" +
+				"   \t\n" +
+				"  INTRASITE net[0]  \n";
+		List<List<String>> lines = tokenize(text);
+		assertEquals(split(text), lines);
+		assertEquals(Arrays.asList("SITE_PIPS", "SLICE_X0Y0", "A5LUT:A1", "CLKINV:CLK"), lines.get(0));
+		assertTrue(lines.get(1).isEmpty());
+		assertTrue(lines.get(2).isEmpty());
+		assertEquals(Arrays.asList("INTRASITE", "net[0]"), lines.get(3));
+	}
+
+	@Test
+	@DisplayName("Carriage returns of CRLF line endings are removed")
+	public void crlfLineEndings() throws IOException {
+		Path file = Files.createTempFile("tokenizer", ".rsc");
+		try {
+			Files.write(file, "ROUTE a b\r\nINTRASITE c\r\n\r\n".getBytes(StandardCharsets.UTF_8));
+			try (XdcTokenizer toks = new XdcTokenizer(file)) {
+				assertTrue(toks.nextLine());
+				assertEquals("ROUTE a b", toks.getLine());
+				assertEquals(3, toks.getTokenCount());
+				assertEquals("b", toks.getToken(2).toString());
+				assertTrue(toks.nextLine());
+				assertEquals("INTRASITE c", toks.getLine());
+				assertTrue(toks.nextLine());
+				assertEquals("", toks.getLine());
+				assertEquals(0, toks.getTokenCount());
+				assertFalse(toks.nextLine());
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	@DisplayName("The last line does not need a newline")
+	public void lastLineWithoutNewline() throws IOException {
+		assertEquals(Arrays.asList(Arrays.asList("A", "B"), Arrays.asList("C")), tokenize("A B\nC"));
+		assertEquals(Arrays.asList(Arrays.asList("A", "B"), Arrays.asList("C")), tokenize("A B\nC\n"));
+		assertEquals(Arrays.asList(Arrays.asList("C")), tokenize("C"));
+		assertTrue(tokenize("").isEmpty());
+	}
+
+	@Test
+	@DisplayName("Lines longer than the buffer grow it")
+	public void longLines() throws IOException {
+		StringBuilder sb = new StringBuilder("ROUTE net");
+		for (int i = 0; i < 20000; i++)
+			sb.append(" INT_X").append(i).append("Y0/INT.W->E");
+		String longLine = sb.toString();
+		assertTrue(longLine.length() > 4 * (1 << 16));
+
+		String text = "INTERSITE net A/B\n" + longLine + "\nINTRASITE other\n" + longLine;
+		List<List<String>> lines = tokenize(text);
+		assertEquals(split(text), lines);
+		assertEquals(20002, lines.get(1).size());
+		assertEquals("INT_X19999Y0/INT.W->E", lines.get(3).get(20001));
+	}
+
+	@Test
+	@DisplayName("Lines crossing buffer refills are read whole")
+	public void linesAcrossRefills() throws IOException {
+		Random random = new Random(7);
+		StringBuilder sb = new StringBuilder();
+		for (int line = 0; line < 20000; line++) {
+			int count = random.nextInt(12);
+			for (int i = 0; i < count; i++) {
+				sb.append(random.nextBoolean() ? " " : "\t");
+				for (int j = random.nextInt(20); j >= 0; j--)
+					sb.append((char) ('a' + random.nextInt(26)));
+			}
+			sb.append(random.nextInt(10) == 0 ? "\r\n" : "\n");
+		}
+		String text = sb.toString();
+		assertTrue(text.length() > 3 * (1 << 16));
+		assertEquals(split(text), tokenize(text));
+	}
+
+	@Test
+	@DisplayName("Copied lines are tokenized again from their bytes")
+	public void copiedLines() throws IOException {
+		Path file = Files.createTempFile("tokenizer", ".rsc");
+		try {
+			Files.write(file, "VCC a b\nROUTE net0 T/T.A->B  T/T.B->>C\r\n".getBytes(StandardCharsets.UTF_8));
+			List<byte[]> copies = new ArrayList<>();
+			try (XdcTokenizer toks = new XdcTokenizer(file)) {
+				while (toks.nextLine())
+					copies.add(toks.copyLine());
+			}
+			assertEquals(2, copies.size());
+
+			try (XdcTokenizer toks = new XdcTokenizer(copies.get(1))) {
+				assertEquals(Arrays.asList(Arrays.asList("ROUTE", "net0", "T/T.A->B", "T/T.B->>C")),
+						readLines(toks));
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	@DisplayName("Tokens outside of the line are rejected")
+	public void tokenOutOfRange() throws IOException {
+		try (XdcTokenizer toks = new XdcTokenizer("A B".getBytes(StandardCharsets.UTF_8))) {
+			assertTrue(toks.nextLine());
+			assertThrows(IndexOutOfBoundsException.class, () -> toks.getToken(2));
+			assertThrows(IndexOutOfBoundsException.class, () -> toks.getToken(-1));
+		}
+	}
+
+	@Test
+	@DisplayName("Token views compare and search the bytes of the token")
+	public void tokenViews() {
+		byte[] bytes = "xxCLBLL_L_X2Y69/CLBLL_L.CLBLL_LL_COUTyy".getBytes(StandardCharsets.UTF_8);
+		XdcToken token = new XdcToken();
+		token.set(bytes, 2, bytes.length - 4);
+
+		assertEquals("CLBLL_L_X2Y69/CLBLL_L.CLBLL_LL_COUT", token.toString());
+		assertSame(token.toString(), token.toString());
+		assertEquals(35, token.length());
+		assertEquals('C', token.charAt(0));
+		assertThrows(IndexOutOfBoundsException.class, () -> token.charAt(35));
+
+		assertTrue(token.contentEquals("CLBLL_L_X2Y69/CLBLL_L.CLBLL_LL_COUT"));
+		assertFalse(token.contentEquals("CLBLL_L_X2Y69/CLBLL_L.CLBLL_LL_COUU"));
+		assertFalse(token.contentEquals("CLBLL_L_X2Y69/CLBLL_L.CLBLL_LL_COUTyy"));
+		assertFalse(token.contentEquals(""));
+
+		assertEquals(13, token.indexOf('/', 0));
+		assertEquals(13, token.indexOf('/', -5));
+		assertEquals(-1, token.indexOf('/', 14));
+		assertEquals(21, token.indexOf('.', 0));
+		assertEquals(-1, token.indexOf('y', 0));
+		assertEquals("CLBLL_L_X2Y69", token.subSequence(0, 13));
+		assertThrows(IndexOutOfBoundsException.class, () -> token.subSequence(0, 36));
+
+		// pointing the view at another token drops the cached string
+		token.set(bytes, 0, 2);
+		assertEquals("xx", token.toString());
+	}
+}